@@ -0,0 +1,222 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.util.*;
+
+/**
+ * Generates the reproducible synthetic documents used by the benchmarks.
+ * <p>
+ * Every document is generated from a fixed seed derived from its {@link Shape} and size,
+ * so the same text is produced in every forked JVM and on every machine.
+ * Generated documents are cached per JVM as generating the larger sizes takes a noticeable amount of time.
+ */
+public final class BenchmarkCorpus {
+	/** The shapes of document available in the corpus. */
+	public enum Shape {
+		/** Mostly text content in shallow paragraphs with inline markup and character references. */
+		FLAT,
+		/** Deeply nested DIV elements with few attributes and little text. */
+		NESTED,
+		/** Tables, forms and links with many attributes per start tag. */
+		ATTRIBUTES,
+		/** Markup interleaved with SCRIPT and STYLE elements, comments, CDATA sections and server tags. */
+		SCRIPT,
+		/** Unclosed elements, stray '&lt;' characters, unterminated character references, truncated at an arbitrary position. */
+		MALFORMED
+	}
+
+	private static final Map<String,Document> CACHE=new HashMap<String,Document>();
+
+	private static final String[] INLINE_NAMES={"b","i","a","span","em","strong","code","small"};
+	private static final String[] BLOCK_NAMES={"div","p","ul","li","section","article","blockquote","h2"};
+	private static final String[] WORDS={"lorem","ipsum","dolor","sit","amet","consectetur","adipiscing","elit","sed","do","eiusmod","tempor","incididunt","ut","labore","et","dolore","magna","aliqua"};
+	private static final String[] CHARACTER_REFERENCES={"&amp;","&lt;","&gt;","&nbsp;","&copy;","&#160;","&#x2014;","&quot;"};
+
+	private BenchmarkCorpus() {}
+
+	/**
+	 * Returns the document of the specified shape and approximate size.
+	 * @param shape  the shape of the document.
+	 * @param size  the approximate number of characters in the document.
+	 * @return the document of the specified shape and approximate size.
+	 */
+	public static synchronized Document get(final Shape shape, final int size) {
+		final String key=shape+":"+size;
+		Document document=CACHE.get(key);
+		if (document==null) {
+			document=new Generator(shape,size).generate();
+			CACHE.put(key,document);
+		}
+		return document;
+	}
+
+	/** A generated document together with the <code>id</code> attribute values it contains. */
+	public static final class Document {
+		public final Shape shape;
+		public final String text;
+		public final String[] ids;
+
+		Document(final Shape shape, final String text, final String[] ids) {
+			this.shape=shape;
+			this.text=text;
+			this.ids=ids;
+		}
+
+		/**
+		 * Returns a selection of the <code>id</code> attribute values spread evenly through the document.
+		 * @param count  the maximum number of values to return.
+		 * @return a selection of the <code>id</code> attribute values spread evenly through the document.
+		 */
+		public String[] getSampleIds(final int count) {
+			if (ids.length<=count) return ids;
+			final String[] sample=new String[count];
+			for (int i=0; i<count; i++) sample[i]=ids[(int)((long)i*ids.length/count)];
+			return sample;
+		}
+	}
+
+	private static final class Generator {
+		private final Shape shape;
+		private final int size;
+		private final Random random;
+		private final StringBuilder sb;
+		private final List<String> ids=new ArrayList<String>();
+		private final LinkedList<String> openElementNames=new LinkedList<String>();
+
+		Generator(final Shape shape, final int size) {
+			this.shape=shape;
+			this.size=size;
+			random=new Random(shape.ordinal()*1000003L+size);
+			sb=new StringBuilder(size+1024);
+		}
+
+		Document generate() {
+			sb.append("<!DOCTYPE html>\n<html>\n<head><title>Benchmark ").append(shape).append("</title>\n<meta charset=\"utf-8\">\n</head>\n<body>\n");
+			while (sb.length()<size) {
+				switch (shape) {
+					case FLAT: appendFlat(); break;
+					case NESTED: appendNested(); break;
+					case ATTRIBUTES: appendAttributes(); break;
+					case SCRIPT: appendScript(); break;
+					case MALFORMED: appendMalformed(); break;
+				}
+			}
+			if (shape==Shape.MALFORMED) {
+				// truncate in the middle of whatever markup is at the end of the document
+				sb.setLength(size-random.nextInt(16));
+			} else {
+				while (!openElementNames.isEmpty()) appendEndTag();
+				sb.append("</body>\n</html>\n");
+			}
+			return new Document(shape,sb.toString(),ids.toArray(new String[ids.size()]));
+		}
+
+		private void appendFlat() {
+			sb.append("<p").append(idAttribute()).append('>');
+			final int sentenceCount=1+random.nextInt(4);
+			for (int i=0; i<sentenceCount; i++) {
+				appendWords(5+random.nextInt(15));
+				if (random.nextInt(3)==0) {
+					final String name=INLINE_NAMES[random.nextInt(INLINE_NAMES.length)];
+					sb.append('<').append(name);
+					if (name.equals("a")) sb.append(" href=\"/page/").append(random.nextInt(10000)).append("?a=1&amp;b=2\"");
+					sb.append('>');
+					appendWords(1+random.nextInt(4));
+					sb.append("</").append(name).append('>');
+				}
+				if (random.nextInt(4)==0) sb.append(CHARACTER_REFERENCES[random.nextInt(CHARACTER_REFERENCES.length)]);
+				sb.append(". ");
+			}
+			sb.append("</p>\n");
+		}
+
+		private void appendNested() {
+			if (openElementNames.size()<48 && (openElementNames.isEmpty() || random.nextInt(5)<3)) {
+				final String name=BLOCK_NAMES[random.nextInt(BLOCK_NAMES.length)];
+				sb.append('<').append(name).append(idAttribute()).append(classAttribute()).append('>');
+				openElementNames.addLast(name);
+				if (random.nextInt(4)==0) appendWords(1+random.nextInt(3));
+			} else {
+				appendEndTag();
+			}
+			sb.append('\n');
+		}
+
+		private void appendAttributes() {
+			sb.append("<table").append(idAttribute()).append(classAttribute()).append(" border=\"0\" cellpadding=\"2\">\n");
+			final int rowCount=2+random.nextInt(6);
+			for (int row=0; row<rowCount; row++) {
+				sb.append("<tr").append(classAttribute()).append(" data-row=\"").append(row).append("\">");
+				final int cellCount=2+random.nextInt(5);
+				for (int cell=0; cell<cellCount; cell++) {
+					sb.append("<td").append(classAttribute()).append(" align=left valign='top' title=\"cell ").append(cell).append("\">");
+					switch (random.nextInt(4)) {
+						case 0: sb.append("<a").append(idAttribute()).append(" href=\"http://example.com/").append(random.nextInt(100000)).append("\" rel=nofollow target=_blank>"); appendWords(2); sb.append("</a>"); break;
+						case 1: sb.append("<img src=\"/img/").append(random.nextInt(1000)).append(".png\" alt=\"").append(WORDS[random.nextInt(WORDS.length)]).append("\" width=16 height=16 />"); break;
+						case 2: sb.append("<input type=\"text\"").append(idAttribute()).append(" name=\"field").append(random.nextInt(100)).append("\" value=\"").append(WORDS[random.nextInt(WORDS.length)]).append("\" disabled>"); break;
+						default: appendWords(3);
+					}
+					sb.append("</td>");
+				}
+				sb.append("</tr>\n");
+			}
+			sb.append("</table>\n");
+		}
+
+		private void appendScript() {
+			switch (random.nextInt(6)) {
+				case 0:
+					sb.append("<script type=\"text/javascript\">\nvar x").append(random.nextInt(1000)).append("=a<b && c>d;\ndocument.write('<div class=\"w\">'+x+'</div>');\n</script>\n");
+					break;
+				case 1:
+					sb.append("<style>\np > a { color: red; }\n.c").append(random.nextInt(100)).append(" { margin: 0 }\n</style>\n");
+					break;
+				case 2:
+					sb.append("<!-- comment containing <p>markup</p> & an ampersand -->\n");
+					break;
+				case 3:
+					sb.append("<![CDATA[ if (a < b) return c & d; ]]>\n");
+					break;
+				case 4:
+					sb.append("<% if (user!=null) { %><span").append(idAttribute()).append('>').append("<%=user.getName()%></span><% } %>\n");
+					break;
+				default:
+					appendFlat();
+			}
+		}
+
+		private void appendMalformed() {
+			switch (random.nextInt(7)) {
+				case 0: sb.append("<p>"); appendWords(6); sb.append('\n'); break; // optional end tag omitted
+				case 1: sb.append("<div").append(idAttribute()).append(" class=\"unterminated>"); appendWords(3); sb.append("</div>\n"); break;
+				case 2: sb.append("a < b and c <> d <"); appendWords(2); sb.append('\n'); break;
+				case 3: sb.append("&amp &copy &#12 &#x1g &unknown; "); break;
+				case 4: sb.append("<li>"); appendWords(2); sb.append("<li><b><i>"); appendWords(2); sb.append("</b></i>\n"); break;
+				case 5: sb.append("</span></td></table>"); break;
+				default: appendFlat();
+			}
+		}
+
+		private void appendEndTag() {
+			sb.append("</").append(openElementNames.removeLast()).append('>');
+		}
+
+		private void appendWords(final int count) {
+			for (int i=0; i<count; i++) {
+				if (i>0) sb.append(random.nextInt(10)==0 ? "\n  " : " ");
+				sb.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+		}
+
+		private String idAttribute() {
+			if (random.nextInt(3)!=0) return "";
+			final String id="e"+ids.size();
+			ids.add(id);
+			return " id=\""+id+'"';
+		}
+
+		private String classAttribute() {
+			if (random.nextInt(2)!=0) return "";
+			return " class=\"c"+random.nextInt(20)+(random.nextBoolean() ? " c"+random.nextInt(20) : "")+'"';
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package net.htmlparser.jericho.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, so that the allocation rate
+ * (<code>gc.alloc.rate.norm</code>, bytes allocated per operation) is reported alongside the throughput.
+ * <p>
+ * The optional first argument is a regular expression selecting the benchmarks to run, for example <code>SourceBenchmark.full</code>.
+ * Any further arguments are <code>shape</code> values restricting the documents used.
+ */
+public final class BenchmarkMain {
+	private BenchmarkMain() {}
+
+	public static void main(final String[] args) throws RunnerException {
+		final ChainedOptionsBuilder optionsBuilder=new OptionsBuilder()
+			.include(args.length>0 ? args[0] : "net.htmlparser.jericho.benchmark.*")
+			.addProfiler(GCProfiler.class);
+		if (args.length>1) {
+			final String[] shapes=new String[args.length-1];
+			System.arraycopy(args,1,shapes,0,shapes.length);
+			optionsBuilder.param("shape",shapes);
+		}
+		new Runner(optionsBuilder.build()).run();
+	}
+}
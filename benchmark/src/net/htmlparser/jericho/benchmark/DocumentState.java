@@ -0,0 +1,24 @@
+package net.htmlparser.jericho.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark state holding the {@linkplain BenchmarkCorpus corpus} document selected by the <code>shape</code> and <code>size</code> parameters.
+ */
+@State(Scope.Benchmark)
+public class DocumentState {
+	@Param({"FLAT","NESTED","ATTRIBUTES","SCRIPT","MALFORMED"})
+	public BenchmarkCorpus.Shape shape;
+
+	@Param({"65536","1048576","16777216"})
+	public int size;
+
+	public BenchmarkCorpus.Document document;
+	public String text;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		document=BenchmarkCorpus.get(shape,size);
+		text=document.text;
+	}
+}
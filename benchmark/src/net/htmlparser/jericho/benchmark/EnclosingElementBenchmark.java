@@ -0,0 +1,71 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import net.htmlparser.jericho.*;
+
+/**
+ * Benchmarks mapping {@link #POSITION_COUNT} random positions in a 16MB document to their most nested enclosing elements.
+ * <p>
+ * The document is {@linkplain Source#fullSequentialParse() fully sequentially parsed} with {@link Config#BuildElementHierarchy} set during setup,
+ * so every element has already been determined and the score only reflects the cost of the lookups.
+ * The positions are generated from a fixed seed and sorted, as required by {@link ElementTree#getEnclosingElementIndexes(int[])}.
+ * The score is the number of positions mapped per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnclosingElementBenchmark {
+	private static final int DOCUMENT_SIZE=16*1024*1024;
+	private static final int POSITION_COUNT=100000;
+
+	@Param({"FLAT","NESTED","ATTRIBUTES","SCRIPT","MALFORMED"})
+	public BenchmarkCorpus.Shape shape;
+
+	private Source source; // the element tree is never built for this source
+	private ElementTree elementTree;
+	private int[] positions;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final String text=BenchmarkCorpus.get(shape,DOCUMENT_SIZE).text;
+		Config.BuildElementHierarchy=true;
+		try {
+			source=new Source(text);
+			source.fullSequentialParse();
+			final Source treeSource=new Source(text);
+			treeSource.fullSequentialParse();
+			elementTree=treeSource.getElementTree();
+		} finally {
+			Config.BuildElementHierarchy=false;
+		}
+		elementTree.getEnclosingElementIndex(0); // builds the index
+		final Random random=new Random(shape.ordinal()*1000003L+DOCUMENT_SIZE);
+		positions=new int[POSITION_COUNT];
+		for (int i=0; i<POSITION_COUNT; i++) positions[i]=random.nextInt(text.length());
+		Arrays.sort(positions);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POSITION_COUNT)
+	public void getEnclosingElement(final Blackhole blackhole) {
+		for (int pos : positions) blackhole.consume(source.getEnclosingElement(pos));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POSITION_COUNT)
+	public void getEnclosingElementIndex(final Blackhole blackhole) {
+		for (int pos : positions) blackhole.consume(elementTree.getEnclosingElementIndex(pos));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POSITION_COUNT)
+	public int[] getEnclosingElementIndexes() {
+		return elementTree.getEnclosingElementIndexes(positions);
+	}
+}
@@ -0,0 +1,68 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import net.htmlparser.jericho.*;
+
+/**
+ * Benchmarks parsing a document again after applying {@link #EDIT_COUNT} small edits to it using an {@link OutputDocument}.
+ * <p>
+ * The original document is {@linkplain Source#getTagTable() fully sequentially parsed} during setup.
+ * Each invocation replaces the value of an attribute in start tags chosen from a fixed seed, and creates the new document either with
+ * {@link OutputDocument#toSource()}, which reuses the tags outside of the edits, or by constructing and parsing a new <code>Source</code>
+ * from {@link OutputDocument#toString()}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncrementalParseBenchmark {
+	private static final int EDIT_COUNT=16;
+
+	@Param({"FLAT","NESTED","ATTRIBUTES","SCRIPT","MALFORMED"})
+	public BenchmarkCorpus.Shape shape;
+
+	@Param({"65536","1048576","16777216"})
+	public int size;
+
+	private Source source;
+	private final List<Attribute> attributes=new ArrayList<Attribute>();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		source=new Source(BenchmarkCorpus.get(shape,size).text);
+		source.getTagTable();
+		final List<Attribute> allAttributes=new ArrayList<Attribute>();
+		for (StartTag startTag : source.getAllStartTags()) {
+			final Attributes startTagAttributes=startTag.getAttributes();
+			if (startTagAttributes!=null) allAttributes.addAll(startTagAttributes);
+		}
+		final Random random=new Random(shape.ordinal()*1000003L+size);
+		for (int i=0; i<EDIT_COUNT && !allAttributes.isEmpty(); i++) attributes.add(allAttributes.get(random.nextInt(allAttributes.size())));
+	}
+
+	@Benchmark
+	public Source toSource(final Throughput throughput) {
+		final Source newSource=edit().toSource();
+		throughput.add(source.length());
+		return newSource;
+	}
+
+	@Benchmark
+	public TagTable newSource(final Throughput throughput) {
+		final TagTable tagTable=new Source(edit().toString()).getTagTable();
+		throughput.add(source.length());
+		return tagTable;
+	}
+
+	private OutputDocument edit() {
+		final OutputDocument outputDocument=new OutputDocument(source);
+		for (Attribute attribute : attributes) {
+			if (attribute.getValueSegment()!=null) outputDocument.replace(attribute.getValueSegment(),"edited");
+		}
+		return outputDocument;
+	}
+}
@@ -0,0 +1,42 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.io.*;
+
+/**
+ * A <code>Writer</code> that discards its output but counts the characters written to it,
+ * so that output benchmarks measure the cost of producing the output rather than storing it.
+ */
+final class NullWriter extends Writer {
+	long count=0;
+
+	public void write(final int ch) {
+		count++;
+	}
+
+	public void write(final char[] cbuf, final int off, final int len) {
+		count+=len;
+	}
+
+	public void write(final String str, final int off, final int len) {
+		count+=len;
+	}
+
+	public Writer append(final CharSequence csq) {
+		count+=(csq==null ? 4 : csq.length());
+		return this;
+	}
+
+	public Writer append(final CharSequence csq, final int start, final int end) {
+		count+=end-start;
+		return this;
+	}
+
+	public Writer append(final char ch) {
+		count++;
+		return this;
+	}
+
+	public void flush() {}
+
+	public void close() {}
+}
@@ -0,0 +1,69 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import net.htmlparser.jericho.*;
+
+/**
+ * Benchmarks the output pipelines that operate on an already parsed {@link Source}.
+ * <p>
+ * The full sequential parse is performed once per trial, so these figures exclude the parsing cost measured by {@link SourceBenchmark}.
+ * All output is written to a discarding <code>Writer</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+@State(Scope.Thread)
+public class OutputBenchmark {
+	private Source source;
+	private OutputDocument outputDocument;
+
+	@Setup(Level.Trial)
+	public void setUp(final DocumentState state) {
+		source=new Source(state.text);
+		source.fullSequentialParse();
+		outputDocument=new OutputDocument(source);
+		// a typical rewriting workload: modify every link and remove every script element
+		for (StartTag startTag : source.getAllStartTags(HTMLElementName.A))
+			outputDocument.replace(startTag.getAttributes(),true).put("rel","nofollow");
+		for (Element element : source.getAllElements(HTMLElementName.SCRIPT)) outputDocument.remove(element);
+	}
+
+	@Benchmark
+	public long renderer(final Throughput throughput) throws IOException {
+		return write(new Renderer(source),throughput);
+	}
+
+	@Benchmark
+	public long textExtractor(final Throughput throughput) throws IOException {
+		return write(new TextExtractor(source),throughput);
+	}
+
+	@Benchmark
+	public long sourceFormatter(final Throughput throughput) throws IOException {
+		return write(new SourceFormatter(source),throughput);
+	}
+
+	@Benchmark
+	public long sourceCompactor(final Throughput throughput) throws IOException {
+		return write(new SourceCompactor(source),throughput);
+	}
+
+	@Benchmark
+	public long outputDocument(final Throughput throughput) throws IOException {
+		final NullWriter writer=new NullWriter();
+		outputDocument.writeTo(writer);
+		throughput.add(source.length());
+		return writer.count;
+	}
+
+	private long write(final CharStreamSource charStreamSource, final Throughput throughput) throws IOException {
+		final NullWriter writer=new NullWriter();
+		charStreamSource.writeTo(writer);
+		throughput.add(source.length());
+		return writer.count;
+	}
+}
@@ -0,0 +1,41 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import net.htmlparser.jericho.*;
+
+/**
+ * Benchmarks the {@linkplain Source#fullSequentialParse() full sequential parse} of a {@link Source} document
+ * with and without {@linkplain Config#ParallelParseThreshold parallel parsing}.
+ * <p>
+ * When <code>parallel</code> is <code>true</code> every document is parsed in parallel regardless of its size,
+ * which shows the overhead of parallel parsing on the smaller documents as well as the gain on the larger ones.
+ * The gain depends on the number of processors available to the JVM.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelParseBenchmark {
+	@Param({"false","true"})
+	public boolean parallel;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Config.ParallelParseThreshold=parallel ? 1 : 0;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		Config.ParallelParseThreshold=0;
+	}
+
+	@Benchmark
+	public Tag[] fullSequentialParse(final DocumentState state, final Throughput throughput) {
+		final Tag[] tags=new Source(state.text).fullSequentialParse();
+		throughput.add(state.text.length());
+		return tags;
+	}
+}
@@ -0,0 +1,57 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import net.htmlparser.jericho.*;
+
+/**
+ * Benchmarks parse on demand lookups at random positions in a 20MB {@link Source} document that has not been
+ * {@linkplain Source#fullSequentialParse() fully sequentially parsed}.
+ * <p>
+ * Each invocation creates a new <code>Source</code> and performs {@link #LOOKUP_COUNT} lookups, cycling through
+ * {@link Source#getEnclosingTag(int)}, {@link Source#getPreviousTag(int)} and {@link Source#getNextTag(int)},
+ * at positions generated from a fixed seed.
+ * Every lookup adds entries to the tag cache at a random position, so the score mostly reflects the cost of
+ * inserting into and searching the cache as it grows.
+ * The score is the number of lookups per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RandomLookupBenchmark {
+	private static final int DOCUMENT_SIZE=20*1024*1024;
+	private static final int LOOKUP_COUNT=100000;
+
+	@Param({"FLAT","NESTED","ATTRIBUTES","SCRIPT","MALFORMED"})
+	public BenchmarkCorpus.Shape shape;
+
+	private String text;
+	private int[] positions;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		text=BenchmarkCorpus.get(shape,DOCUMENT_SIZE).text;
+		final Random random=new Random(shape.ordinal()*1000003L+DOCUMENT_SIZE);
+		positions=new int[LOOKUP_COUNT];
+		for (int i=0; i<LOOKUP_COUNT; i++) positions[i]=random.nextInt(text.length());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOOKUP_COUNT)
+	public void randomLookups(final Blackhole blackhole) {
+		final Source source=new Source(text);
+		for (int i=0; i<LOOKUP_COUNT; i++) {
+			final int pos=positions[i];
+			switch (i%3) {
+				case 0: blackhole.consume(source.getEnclosingTag(pos)); break;
+				case 1: blackhole.consume(source.getPreviousTag(pos)); break;
+				default: blackhole.consume(source.getNextTag(pos));
+			}
+		}
+	}
+}
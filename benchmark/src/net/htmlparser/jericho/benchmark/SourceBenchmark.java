@@ -0,0 +1,177 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import net.htmlparser.jericho.*;
+
+/**
+ * Benchmarks the parsing of a {@link Source} document, both as a {@linkplain Source#fullSequentialParse() full sequential parse}
+ * and using the parse on demand searches.
+ * The <code>getTagTable</code> benchmark performs a full sequential parse without retaining any {@link Tag} objects,
+ * so its "gc.alloc.rate.norm" result is similar but the memory retained afterwards is much smaller.
+ * The <code>getAttributeValues</code> benchmark reads the attributes commonly used when scraping a page from every start tag.
+ * The <code>getAllStartTagsByName</code> benchmark searches the parsed document for the start tags of 30 different element names,
+ * as a page scraper might, which uses the name index of the {@link TagTable} rather than searching the text once for each name.
+ * The <code>getElementByIdWithAttributeIndex</code> benchmark performs the same searches as <code>getElementById</code> after a full sequential parse
+ * with {@link Config#UseAttributeIndex} enabled, so it includes the cost of building the index.
+ * The <code>getAllStartTagsByQuerySet</code> benchmark performs the same searches in a single pass using a {@link QuerySet}.
+ * The <code>select</code> benchmark evaluates a few typical CSS selectors against the parsed document.
+ * <p>
+ * Each invocation constructs a new <code>Source</code> so that the cost of populating the tag cache is always included.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class SourceBenchmark {
+	private static final int ELEMENT_ID_COUNT=16;
+	private static final String[] ELEMENT_NAMES={
+		"a","b","i","em","strong","code","small","span","div","p","ul","li","section","article","blockquote",
+		"h1","h2","table","tr","td","th","form","input","select","option","img","script","style","meta","link"
+	};
+	private static final QuerySet ELEMENT_NAME_QUERY_SET=new QuerySet();
+	static {
+		for (String name : ELEMENT_NAMES) ELEMENT_NAME_QUERY_SET.addStartTags(name);
+	}
+	private static final String[] SELECTORS={"table tr > td a[href]","form input[type=text]","div > p:nth-child(2n+1)","ul li + li","a[href^=http]"};
+
+	@Benchmark
+	public Tag[] fullSequentialParse(final DocumentState state, final Throughput throughput) {
+		final Tag[] tags=new Source(state.text).fullSequentialParse();
+		throughput.add(state.text.length());
+		return tags;
+	}
+
+	@Benchmark
+	public TagTable getTagTable(final DocumentState state, final Throughput throughput) {
+		final TagTable tagTable=new Source(state.text).getTagTable();
+		throughput.add(state.text.length());
+		return tagTable;
+	}
+
+	@Benchmark
+	public void getAttributeValues(final DocumentState state, final Throughput throughput, final Blackhole blackhole) {
+		final Source source=new Source(state.text);
+		source.fullSequentialParse();
+		for (StartTag startTag : source.getAllStartTags()) {
+			final Attributes attributes=startTag.getAttributes();
+			if (attributes==null) continue;
+			blackhole.consume(attributes.getValue("href"));
+			blackhole.consume(attributes.getValue("src"));
+			blackhole.consume(attributes.getValue("class"));
+		}
+		throughput.add(state.text.length());
+	}
+
+	@Benchmark
+	public void getAllStartTagsByName(final DocumentState state, final Throughput throughput, final Blackhole blackhole) {
+		final Source source=new Source(state.text);
+		source.getTagTable();
+		for (String name : ELEMENT_NAMES) blackhole.consume(source.getAllStartTags(name));
+		throughput.add(state.text.length());
+	}
+
+	@Benchmark
+	public void getAllStartTagsByQuerySet(final DocumentState state, final Throughput throughput, final Blackhole blackhole) {
+		final Source source=new Source(state.text);
+		source.getTagTable();
+		blackhole.consume(ELEMENT_NAME_QUERY_SET.getAllStartTags(source));
+		throughput.add(state.text.length());
+	}
+
+	@Benchmark
+	public void select(final DocumentState state, final Throughput throughput, final Blackhole blackhole) {
+		final Source source=new Source(state.text);
+		source.fullSequentialParse();
+		for (String selector : SELECTORS) blackhole.consume(source.select(selector));
+		throughput.add(state.text.length());
+	}
+
+	@Benchmark
+	public int getNextStartTag(final DocumentState state, final Throughput throughput) {
+		final Source source=new Source(state.text);
+		int count=0;
+		for (StartTag startTag=source.getNextStartTag(0); startTag!=null; startTag=source.getNextStartTag(startTag.getEnd())) count++;
+		throughput.add(state.text.length());
+		return count;
+	}
+
+	@Benchmark
+	public void getElementById(final DocumentState state, final Throughput throughput, final Blackhole blackhole) {
+		final Source source=new Source(state.text);
+		for (String id : state.document.getSampleIds(ELEMENT_ID_COUNT)) blackhole.consume(source.getElementById(id));
+		throughput.add(state.text.length());
+	}
+
+	@Benchmark
+	public void getElementByIdWithAttributeIndex(final DocumentState state, final Throughput throughput, final Blackhole blackhole) {
+		final Source source=new Source(state.text);
+		Config.UseAttributeIndex=true;
+		try {
+			source.getTagTable();
+		} finally {
+			Config.UseAttributeIndex=false;
+		}
+		for (String id : state.document.getSampleIds(ELEMENT_ID_COUNT)) blackhole.consume(source.getElementById(id));
+		throughput.add(state.text.length());
+	}
+
+	@Benchmark
+	public List<Element> getChildElements(final DocumentState state, final Throughput throughput) {
+		final List<Element> childElements=new Source(state.text).getChildElements();
+		throughput.add(state.text.length());
+		return childElements;
+	}
+
+	@Benchmark
+	public List<Element> getChildElementsWithBuildElementHierarchy(final DocumentState state, final Throughput throughput) {
+		final Source source=new Source(state.text);
+		Config.BuildElementHierarchy=true;
+		try {
+			source.fullSequentialParse();
+		} finally {
+			Config.BuildElementHierarchy=false;
+		}
+		throughput.add(state.text.length());
+		return source.getChildElements();
+	}
+
+	@Benchmark
+	public int getElementTree(final DocumentState state, final Throughput throughput) {
+		final Source source=new Source(state.text);
+		Config.BuildElementHierarchy=true;
+		try {
+			source.fullSequentialParse();
+		} finally {
+			Config.BuildElementHierarchy=false;
+		}
+		// visit every element in document order using the cursor, without creating any objects
+		final ElementTree.Cursor cursor=source.getElementTree().cursor();
+		int depthSum=0;
+		if (cursor.firstChild()) {
+			while (true) {
+				depthSum+=cursor.depth();
+				if (cursor.firstChild()) continue;
+				while (!cursor.nextSibling() && cursor.parent() && !cursor.isDocument()) {}
+				if (cursor.isDocument()) break;
+			}
+		}
+		throughput.add(state.text.length());
+		return depthSum;
+	}
+
+	@Benchmark
+	public Tag[] fullSequentialParseIgnoringScripts(final DocumentState state, final Throughput throughput) {
+		final Source source=new Source(state.text);
+		for (StartTag startTag : source.getAllStartTags(HTMLElementName.SCRIPT)) {
+			final Element element=startTag.getElement();
+			if (element.getEndTag()!=null) element.getContent().ignoreWhenParsing();
+		}
+		final Tag[] tags=source.fullSequentialParse();
+		throughput.add(state.text.length());
+		return tags;
+	}
+}
@@ -0,0 +1,197 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import net.htmlparser.jericho.*;
+
+/**
+ * Benchmarks iteration over a {@link StreamedSource}, both from an in-memory <code>CharSequence</code>
+ * and from a <code>Reader</code>, which exercises the expandable buffer of the streamed text.
+ * The in-memory document is also stepped through using a {@link StreamedSource.Cursor}, which does not create plain text segments.
+ * <p>
+ * The benchmarks that decode bytes use the document encoded in each character set of {@link EncodedDocumentState},
+ * comparing an <code>InputStreamReader</code> with the channel and <code>ByteBuffer</code> constructors, which decode directly into the buffer of the streamed text.
+ * <p>
+ * The push mode benchmarks feed the document in chunks of {@link #PUSH_CHUNK_SIZE} characters or bytes, draining the iterator after each chunk
+ * as an asynchronous I/O handler would.
+ * <p>
+ * The text extractor benchmarks compare a {@link TextExtractor} constructed from a <code>StreamedSource</code> reading from a <code>Reader</code>
+ * with one constructed from a new {@link Source}, which holds the whole document and its parsed tags in memory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class StreamedSourceBenchmark {
+	private static final int PUSH_CHUNK_SIZE=8192;
+
+	@Benchmark
+	public int iterateCharSequence(final DocumentState state, final Throughput throughput) {
+		final StreamedSource streamedSource=new StreamedSource(state.text);
+		int count=0;
+		for (Segment segment : streamedSource) count++;
+		throughput.add(state.text.length());
+		return count;
+	}
+
+	@Benchmark
+	public int cursorCharSequence(final DocumentState state, final Throughput throughput) {
+		final StreamedSource.Cursor cursor=new StreamedSource(state.text).cursor();
+		int count=0;
+		while (cursor.hasNext()) {
+			cursor.next();
+			count++;
+		}
+		throughput.add(state.text.length());
+		return count;
+	}
+
+	@Benchmark
+	public int iterateReader(final DocumentState state, final Throughput throughput) throws IOException {
+		final StreamedSource streamedSource=new StreamedSource(new StringReader(state.text));
+		int count=0;
+		try {
+			for (Segment segment : streamedSource) count++;
+		} finally {
+			streamedSource.close();
+		}
+		throughput.add(state.text.length());
+		return count;
+	}
+
+	@Benchmark
+	public long textExtractorReader(final DocumentState state, final Throughput throughput) throws IOException {
+		final StreamedSource streamedSource=new StreamedSource(new StringReader(state.text));
+		final NullWriter writer=new NullWriter();
+		try {
+			new TextExtractor(streamedSource).writeTo(writer);
+		} finally {
+			streamedSource.close();
+		}
+		throughput.add(state.text.length());
+		return writer.count;
+	}
+
+	@Benchmark
+	public long textExtractorSource(final DocumentState state, final Throughput throughput) throws IOException {
+		final NullWriter writer=new NullWriter();
+		new TextExtractor(new Source(state.text)).writeTo(writer);
+		throughput.add(state.text.length());
+		return writer.count;
+	}
+
+	@Benchmark
+	public int iterateReaderPooled(final DocumentState state, final BufferPoolState bufferPoolState, final Throughput throughput) throws IOException {
+		return iterateReader(state,throughput);
+	}
+
+	@Benchmark
+	public int iterateInputStreamReader(final EncodedDocumentState state, final Throughput throughput) throws IOException {
+		return iterate(new StreamedSource(new InputStreamReader(new ByteArrayInputStream(state.bytes),state.charset)),state,throughput);
+	}
+
+	@Benchmark
+	public int iterateByteChannel(final EncodedDocumentState state, final Throughput throughput) throws IOException {
+		return iterate(new StreamedSource(Channels.newChannel(new ByteArrayInputStream(state.bytes)),state.charset),state,throughput);
+	}
+
+	@Benchmark
+	public int iterateByteBuffer(final EncodedDocumentState state, final Throughput throughput) throws IOException {
+		return iterate(new StreamedSource(ByteBuffer.wrap(state.bytes),state.charset),state,throughput);
+	}
+
+	@Benchmark
+	public int iteratePushChars(final DocumentState state, final Throughput throughput) {
+		final char[] chars=state.text.toCharArray();
+		final StreamedSource streamedSource=new StreamedSource();
+		final Iterator<Segment> iterator=streamedSource.iterator();
+		int count=0;
+		for (int offset=0; offset<chars.length; offset+=PUSH_CHUNK_SIZE) {
+			streamedSource.feed(chars,offset,Math.min(PUSH_CHUNK_SIZE,chars.length-offset));
+			while (iterator.hasNext()) {
+				iterator.next();
+				count++;
+			}
+		}
+		streamedSource.setEndOfInput();
+		while (iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		throughput.add(chars.length);
+		return count;
+	}
+
+	@Benchmark
+	public int iteratePushBytes(final EncodedDocumentState state, final Throughput throughput) {
+		final StreamedSource streamedSource=new StreamedSource(state.charset);
+		final Iterator<Segment> iterator=streamedSource.iterator();
+		int count=0;
+		for (int offset=0; offset<state.bytes.length; offset+=PUSH_CHUNK_SIZE) {
+			streamedSource.feed(ByteBuffer.wrap(state.bytes,offset,Math.min(PUSH_CHUNK_SIZE,state.bytes.length-offset)));
+			while (iterator.hasNext()) {
+				iterator.next();
+				count++;
+			}
+		}
+		streamedSource.setEndOfInput();
+		while (iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		throughput.add(state.bytes.length);
+		return count;
+	}
+
+	private static int iterate(final StreamedSource streamedSource, final EncodedDocumentState state, final Throughput throughput) throws IOException {
+		int count=0;
+		try {
+			for (Segment segment : streamedSource) count++;
+		} finally {
+			streamedSource.close();
+		}
+		throughput.add(state.bytes.length);
+		return count;
+	}
+
+	/**
+	 * Sets {@link Config#StreamedSourceBufferPool} to a {@link ThreadLocalBufferPool} for the duration of the trial,
+	 * so that each <code>StreamedSource</code> reuses the buffers of the previous one.
+	 */
+	@State(Scope.Thread)
+	public static class BufferPoolState {
+		private BufferPool originalBufferPool;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			originalBufferPool=Config.StreamedSourceBufferPool;
+			Config.StreamedSourceBufferPool=new ThreadLocalBufferPool(64*1024*1024,2);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			Config.StreamedSourceBufferPool=originalBufferPool;
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class EncodedDocumentState {
+		@Param({"ISO-8859-1","UTF-8"})
+		public String charsetName;
+
+		public Charset charset;
+		public byte[] bytes;
+
+		@Setup(Level.Trial)
+		public void setUp(final DocumentState state) {
+			charset=Charset.forName(charsetName);
+			bytes=state.text.getBytes(charset);
+		}
+	}
+}
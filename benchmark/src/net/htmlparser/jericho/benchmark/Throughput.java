@@ -0,0 +1,26 @@
+package net.htmlparser.jericho.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Auxiliary counter recording the number of source characters processed by each benchmark invocation.
+ * <p>
+ * JMH reports the <code>chars</code> counter as a rate alongside the normal score, so with the default
+ * {@link java.util.concurrent.TimeUnit#SECONDS} output unit the value is the throughput in characters per second.
+ * As the corpus is generated from ASCII characters this is the same as the throughput in bytes per second,
+ * divide by 1,000,000 to get MB/s.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+	public long chars;
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		chars=0;
+	}
+
+	void add(final int length) {
+		chars+=length;
+	}
+}
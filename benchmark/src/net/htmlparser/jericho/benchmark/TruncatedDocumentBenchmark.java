@@ -0,0 +1,47 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import net.htmlparser.jericho.*;
+
+/**
+ * Benchmarks the parsing of many small documents that end in the middle of their markup.
+ * <p>
+ * Every page reaches the end of its text in the middle of a tag or character reference,
+ * so this measures the cost of detecting the end of the text, which is insignificant in the large documents used by the other benchmarks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class TruncatedDocumentBenchmark {
+	@Benchmark
+	public int fullSequentialParse(final TruncatedDocumentState state, final Throughput throughput) {
+		int count=0;
+		for (String page : state.pages) count+=new Source(page).fullSequentialParse().length;
+		throughput.add(state.totalLength);
+		return count;
+	}
+
+	@Benchmark
+	public int getNextStartTag(final TruncatedDocumentState state, final Throughput throughput) {
+		int count=0;
+		for (String page : state.pages) {
+			final Source source=new Source(page);
+			for (StartTag startTag=source.getNextStartTag(0); startTag!=null; startTag=source.getNextStartTag(startTag.getEnd())) count++;
+		}
+		throughput.add(state.totalLength);
+		return count;
+	}
+
+	@Benchmark
+	public int iterateStreamedSource(final TruncatedDocumentState state, final Throughput throughput) {
+		int count=0;
+		for (String page : state.pages) {
+			for (Segment segment : new StreamedSource(page)) count++;
+		}
+		throughput.add(state.totalLength);
+		return count;
+	}
+}
@@ -0,0 +1,41 @@
+package net.htmlparser.jericho.benchmark;
+
+import java.util.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark state holding a set of small documents that have been truncated in the middle of their markup,
+ * similar to the pages obtained from a web crawler that limits the number of bytes fetched from each URL.
+ * <p>
+ * Each page is a prefix of the {@linkplain BenchmarkCorpus corpus} document of the selected <code>shape</code>,
+ * ending a few characters after a randomly chosen '<code>&lt;</code>' or '<code>&amp;</code>' character,
+ * so that nearly every page ends inside a tag or character reference.
+ */
+@State(Scope.Benchmark)
+public class TruncatedDocumentState {
+	private static final int PAGE_COUNT=256;
+
+	@Param({"FLAT","ATTRIBUTES","SCRIPT","MALFORMED"})
+	public BenchmarkCorpus.Shape shape;
+
+	@Param({"2048","16384"})
+	public int pageSize;
+
+	public String[] pages;
+	public int totalLength;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final String text=BenchmarkCorpus.get(shape,65536).text;
+		final Random random=new Random(shape.ordinal()*1000003L+pageSize);
+		pages=new String[PAGE_COUNT];
+		totalLength=0;
+		for (int i=0; i<PAGE_COUNT; i++) {
+			int end=pageSize/2+random.nextInt(pageSize);
+			while (end<text.length() && text.charAt(end)!='<' && text.charAt(end)!='&') end++;
+			end=Math.min(end+1+random.nextInt(12),text.length());
+			pages[i]=text.substring(0,end);
+			totalLength+=end;
+		}
+	}
+}
@@ -0,0 +1,141 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+import java.util.*;
+
+/**
+ * Maps the values of the <code>id</code>, <code>name</code> and <code>class</code> attributes in a source document to the start tags containing them.
+ * <p>
+ * The index is built from the start tags found in a {@linkplain Source#fullSequentialParse() full sequential parse} if {@link Config#UseAttributeIndex} is <code>true</code>,
+ * and is held by the source document's {@link TagTable}.
+ * Each value is mapped to an array of the indexes in the table of the start tags containing it, which are in order of position as the tags are added in order.
+ * The <code>class</code> attribute value is split into its white space separated class names, each of which is indexed separately.
+ * <p>
+ * The values are {@linkplain CharacterReference#decode(CharSequence) decoded} in the same way as by {@link Attribute#getValue()},
+ * and are case sensitive.
+ */
+final class AttributeIndex {
+	private final Map<String,int[]> idIndexes;
+	private final Map<String,int[]> nameIndexes;
+	private final Map<String,int[]> classIndexes;
+
+	private static final int[] NO_INDEXES=new int[0];
+
+	private AttributeIndex(final Builder builder) {
+		idIndexes=toArrays(builder.idIndexes);
+		nameIndexes=toArrays(builder.nameIndexes);
+		classIndexes=toArrays(builder.classIndexes);
+	}
+
+	static boolean isIndexedAttributeName(final String attributeName) {
+		return attributeName.equalsIgnoreCase(Attribute.ID) || attributeName.equalsIgnoreCase(Attribute.NAME);
+	}
+
+	static boolean isIndexedClassName(final String className) {
+		// The class name is inserted directly into the regular expression used to search the class attribute (see Segment.getClassPattern),
+		// so only a class name containing no white space or regular expression metacharacters is guaranteed to match exactly one class name in the attribute value.
+		if (className.length()==0) return false;
+		for (int i=0; i<className.length(); i++) {
+			final char ch=className.charAt(i);
+			if (isWhiteSpace(ch) || "\\^$.|?*+()[]{}".indexOf(ch)!=-1) return false;
+		}
+		return true;
+	}
+
+	int[] getIndexes(final String attributeName, final String value) {
+		// attributeName must satisfy isIndexedAttributeName(attributeName)
+		final int[] indexes=(attributeName.equalsIgnoreCase(Attribute.ID) ? idIndexes : nameIndexes).get(value);
+		return indexes!=null ? indexes : NO_INDEXES;
+	}
+
+	int[] getClassIndexes(final String className) {
+		// className must satisfy isIndexedClassName(className)
+		final int[] indexes=classIndexes.get(className);
+		return indexes!=null ? indexes : NO_INDEXES;
+	}
+
+	static boolean isWhiteSpace(final char ch) {
+		// the characters matched by \s in a regular expression
+		return ch==' ' || ch=='\t' || ch=='\n' || ch=='\u000B' || ch=='\f' || ch=='\r';
+	}
+
+	private static Map<String,int[]> toArrays(final Map<String,IntArrayBuilder> builders) {
+		final Map<String,int[]> map=new HashMap<String,int[]>(builders.size()*4/3+1);
+		for (Map.Entry<String,IntArrayBuilder> entry : builders.entrySet()) map.put(entry.getKey(),entry.getValue().toArray());
+		return map;
+	}
+
+	static final class Builder {
+		private final Map<String,IntArrayBuilder> idIndexes=new HashMap<String,IntArrayBuilder>();
+		private final Map<String,IntArrayBuilder> nameIndexes=new HashMap<String,IntArrayBuilder>();
+		private final Map<String,IntArrayBuilder> classIndexes=new HashMap<String,IntArrayBuilder>();
+
+		void add(final int tagIndex, final Attributes attributes) {
+			// must be called in order of tagIndex
+			add(idIndexes,getValue(attributes,Attribute.ID),tagIndex);
+			add(nameIndexes,getValue(attributes,Attribute.NAME),tagIndex);
+			final String classValue=getValue(attributes,Attribute.CLASS);
+			if (classValue==null) return;
+			int begin=-1;
+			for (int i=0; i<=classValue.length(); i++) {
+				if (i==classValue.length() || isWhiteSpace(classValue.charAt(i))) {
+					if (begin!=-1) {
+						final String className=classValue.substring(begin,i);
+						if (!containsClassName(classValue,begin,className)) add(classIndexes,className,tagIndex); // don't add the same tag twice if the class name is repeated
+						begin=-1;
+					}
+				} else if (begin==-1) {
+					begin=i;
+				}
+			}
+		}
+
+		AttributeIndex toAttributeIndex() {
+			return new AttributeIndex(this);
+		}
+
+		private static String getValue(final Attributes attributes, final String attributeName) {
+			// returns the same value as attributes.getValue(attributeName) without creating an Attribute object
+			final String rawValue=attributes.getRawValue(attributeName);
+			if (rawValue==null) return null;
+			return rawValue.indexOf('&')==-1 ? rawValue : CharacterReference.decode(rawValue,true);
+		}
+
+		private static boolean containsClassName(final String classValue, final int end, final String className) {
+			// indicates whether the class name is one of the white space separated class names in the class value before the specified end position
+			int pos=0;
+			while ((pos=classValue.indexOf(className,pos))!=-1 && pos<end) {
+				final int nameEnd=pos+className.length();
+				if ((pos==0 || isWhiteSpace(classValue.charAt(pos-1))) && (nameEnd==classValue.length() || isWhiteSpace(classValue.charAt(nameEnd)))) return true;
+				pos++;
+			}
+			return false;
+		}
+
+		private static void add(final Map<String,IntArrayBuilder> map, final String value, final int tagIndex) {
+			if (value==null) return;
+			IntArrayBuilder indexes=map.get(value);
+			if (indexes==null) map.put(value,indexes=new IntArrayBuilder(1));
+			indexes.add(tagIndex);
+		}
+	}
+}
@@ -51,9 +51,25 @@ import java.io.*;
  * @see Attribute
  */
 public final class Attributes extends SequentialListSegment<Attribute> {
-	private final LinkedList<Attribute> attributeList; // never null
-	
+	private final int count;
+	private final String[] keys; // the lower case name of each attribute, obtained from Source.getName so that standard names can be compared using the == operator
+	private final int[] positions; // POSITION_COUNT positions for each attribute, see the constants below
+	private Attribute[] attributes=null; // Attribute objects are only created when they are requested
+	private StartTag startTag=StartTag.NOT_CACHED;
+
 	final boolean containsServerTagOutsideOfAttributeValue;
+	final boolean containsServerTag; // the attributes depend on the server tags found when they were parsed, so might not be parsed in the same way later
+
+	// offsets of each attribute's positions within the positions array:
+	private static final int NAME_BEGIN=0;
+	private static final int NAME_END=1;
+	private static final int VALUE_BEGIN=2; // -1 if the attribute has no value
+	private static final int VALUE_END=3;
+	private static final int VALUE_INCLUDING_QUOTES_END=4; // -1 if the value is not enclosed in quotes, otherwise the value including quotes begins at VALUE_BEGIN-1
+	private static final int POSITION_COUNT=5;
+
+	private static final String[] NO_KEYS=new String[0];
+	private static final int[] NO_POSITIONS=new int[0];
 
 	private enum ParsingState {
 		AFTER_TAG_NAME,
@@ -67,10 +83,15 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 
 	private static int defaultMaxErrorCount=2; // defines maximum number of minor errors that can be encountered in attributes before entire start tag is rejected.
 
-	private Attributes(final Source source, final int begin, final int end, final LinkedList<Attribute> attributeList, final boolean containsServerTagOutsideOfAttributeValue) {
+	private Attributes(final Source source, final int begin, final int end, final AttributeListBuilder attributeListBuilder, final boolean containsServerTagOutsideOfAttributeValue, final boolean containsServerTag) {
 		super(source,begin,end);
-		this.attributeList=attributeList;
+		count=attributeListBuilder.count;
+		// the arrays are only trimmed if the attributes may be cached, as the tags of a streamed source are discarded as soon as they have been processed:
+		final boolean trim=!source.isStreamed();
+		keys=attributeListBuilder.getKeys(trim);
+		positions=attributeListBuilder.getPositions(trim);
 		this.containsServerTagOutsideOfAttributeValue=containsServerTagOutsideOfAttributeValue;
+		this.containsServerTag=containsServerTag;
 	}
 
 	/** called from StartTagType.parseAttributes(Source, int startTagBegin, String tagName) */
@@ -106,18 +127,21 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 			attributesBegin=logBegin;
 		}
 		int attributesEnd=attributesBegin;
-		final LinkedList<Attribute> attributeList=new LinkedList<Attribute>();
+		final AttributeListBuilder attributeList=new AttributeListBuilder();
 		boolean containsServerTagOutsideOfAttributeValue=false;
+		boolean containsServerTag=false;
 		final ParseText parseText=source.getParseText();
 		int i=attributesBegin;
 		char quote=' ';
-		Segment nameSegment=null;
+		int nameBegin=-1;
+		int nameEnd=-1;
 		String key=null;
 		int currentBegin=-1;
 		boolean isTerminatingCharacter=false;
 		int errorCount=0;
 		try {
 			while (!isTerminatingCharacter) {
+				if (!source.hasCharAt(i)) break; // end of source text reached without finding a terminating character
 				if (i==maxEnd || startTagType.atEndOfAttributes(source,i,isClosingSlashIgnored)) isTerminatingCharacter=true;
 				final char ch=parseText.charAt(i);
 				// First check if there is a server tag in this position:
@@ -131,6 +155,7 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 							parsingState=ParsingState.IN_VALUE;
 						}
 						i=attributesEnd=interlopingTag.end;
+						containsServerTag=true;
 						if (parsingState!=ParsingState.IN_VALUE) containsServerTagOutsideOfAttributeValue=true;
 						continue;
 					}
@@ -139,29 +164,26 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 				switch (parsingState) {
 					case IN_VALUE:
 						if (isTerminatingCharacter || ch==quote || (quote==' ' && isWhiteSpace(ch))) {
-							Segment valueSegment;
-							Segment valueSegmentIncludingQuotes;
+							int valueIncludingQuotesEnd;
 							if (quote==' ') {
-								valueSegment=valueSegmentIncludingQuotes=new Segment(source,currentBegin,i);
+								valueIncludingQuotesEnd=-1;
 							} else {
 								if (isTerminatingCharacter) {
 									if (i==maxEnd) {
 										log(source,logType,tagName,logBegin,"terminated in the middle of a quoted attribute value",i);
 										if (reachedMaxErrorCount(++errorCount,source,logType,tagName,logBegin,maxErrorCount)) return null;
-										valueSegment=new Segment(source,currentBegin,i);
-										valueSegmentIncludingQuotes=new Segment(source,currentBegin-1,i); // this is missing the end quote
+										valueIncludingQuotesEnd=i; // this is missing the end quote
 									} else {
 										// don't want to terminate, only encountered a terminating character in the middle of a quoted value
 										isTerminatingCharacter=false;
 										break;
 									}
 								} else {
-									valueSegment=new Segment(source,currentBegin,i);
-									valueSegmentIncludingQuotes=new Segment(source,currentBegin-1,i+1);
+									valueIncludingQuotesEnd=i+1;
 								}
 							}
-							attributeList.add(new Attribute(source,key,nameSegment,valueSegment,valueSegmentIncludingQuotes));
-							attributesEnd=valueSegmentIncludingQuotes.getEnd();
+							attributeList.add(key,nameBegin,nameEnd,currentBegin,i,valueIncludingQuotesEnd);
+							attributesEnd=(valueIncludingQuotesEnd==-1 ? i : valueIncludingQuotesEnd);
 							parsingState=ParsingState.BETWEEN_ATTRIBUTES;
 						} else if (ch=='<' && quote==' ') {
 							log(source,logType,tagName,logBegin,"rejected because of '<' character in unquoted attribute value",i);
@@ -170,10 +192,11 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 						break;
 					case IN_NAME:
 						if (isTerminatingCharacter || ch=='=' || isWhiteSpace(ch)) {
-							nameSegment=new Segment(source,currentBegin,i);
-							key=nameSegment.toString().toLowerCase();
+							nameBegin=currentBegin;
+							nameEnd=i;
+							key=source.getName(nameBegin,nameEnd);
 							if (isTerminatingCharacter) {
-								attributeList.add(new Attribute(source,key,nameSegment)); // attribute with no value
+								attributeList.add(key,nameBegin,nameEnd); // attribute with no value
 								attributesEnd=i;
 							} else {
 								parsingState=(ch=='=' ? ParsingState.START_VALUE : ParsingState.AFTER_NAME);
@@ -192,8 +215,8 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 					case AFTER_NAME:
 						// attribute name has been followed by whitespace, but may still be followed by an '=' character.
 						if (isTerminatingCharacter || !(ch=='=' || isWhiteSpace(ch))) {
-							attributeList.add(new Attribute(source,key,nameSegment)); // attribute with no value
-							attributesEnd=nameSegment.getEnd();
+							attributeList.add(key,nameBegin,nameEnd); // attribute with no value
+							attributesEnd=nameEnd;
 							if (isTerminatingCharacter) break;
 							// The current character is the first character of an attribute name
 							parsingState=ParsingState.BETWEEN_ATTRIBUTES;
@@ -242,8 +265,7 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 							log(source,logType,tagName,logBegin,"has missing attribute value after '=' sign",i);
 							// only count this as an error if there have already been other errors, otherwise allow unlimited errors of this type.
 							if (errorCount>0 && reachedMaxErrorCount(++errorCount,source,logType,tagName,logBegin,maxErrorCount)) return null;
-							final Segment valueSegment=new Segment(source,i,i);
-							attributeList.add(new Attribute(source,key,nameSegment,valueSegment,valueSegment));
+							attributeList.add(key,nameBegin,nameEnd,i,i,-1);
 							attributesEnd=i;
 							parsingState=ParsingState.BETWEEN_ATTRIBUTES;
 							break;
@@ -274,11 +296,12 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 				}
 				i++;
 			}
-			return new Attributes(source,attributesBegin,attributesEnd,attributeList,containsServerTagOutsideOfAttributeValue);
+			if (isTerminatingCharacter) return new Attributes(source,attributesBegin,attributesEnd,attributeList,containsServerTagOutsideOfAttributeValue,containsServerTag);
 		} catch (IndexOutOfBoundsException ex) {
-			if (source.logger.isInfoEnabled()) log(source,logType,tagName,logBegin,"rejected because it has no closing '>' character");
-			return null;
+			// only happens if atEndOfAttributes reads past the end of the source text, for example when checking for a multi-character closing delimiter.
 		}
+		if (source.logger.isInfoEnabled()) log(source,logType,tagName,logBegin,"rejected because it has no closing '>' character");
+		return null;
 	}
 
 	private static boolean reachedMaxErrorCount(final int errorCount, final Source source, final String logType, final String tagName, final int logBegin, final int maxErrorCount) {
@@ -305,12 +328,8 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 	 * @see #getValue(String name)
 	 */
 	public Attribute get(final String name) {
-		if (size()==0) return null;
-		for (int i=0; i<size(); i++) {
-			final Attribute attribute=get(i);
-			if (attribute.getKey().equalsIgnoreCase(name)) return attribute;
-		}
-		return null;
+		final int index=indexOfKey(name);
+		return index==-1 ? null : getAttribute(index);
 	}
 
 	/**
@@ -340,8 +359,10 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 	 * @return the raw (not {@linkplain CharacterReference#decode(CharSequence) decoded}) value of the attribute, or null if the attribute {@linkplain Attribute#hasValue() has no value}.
 	 */
 	String getRawValue(final String name) {
-		final Attribute attribute=get(name);
-		return attribute==null || !attribute.hasValue() ? null : attribute.getValueSegment().toString();
+		final int index=indexOfKey(name);
+		if (index==-1) return null;
+		final int valueBegin=positions[index*POSITION_COUNT+VALUE_BEGIN];
+		return valueBegin==-1 ? null : ((Segment)this).source.substring(valueBegin,positions[index*POSITION_COUNT+VALUE_END]);
 	}
 
 	/**
@@ -352,7 +373,18 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 	 * @return the number of attributes.
 	 */
 	public int getCount() {
-		return attributeList.size();
+		return count;
+	}
+
+	/**
+	 * Returns the {@link Attribute} at the specified index.
+	 * @param index  the index of the attribute to return.
+	 * @return the {@link Attribute} at the specified index.
+	 * @throws IndexOutOfBoundsException if the specified index is out of range (<code>index &lt; 0 || index &gt;= size()</code>).
+	 */
+	public Attribute get(final int index) {
+		if (index<0 || index>=count) throw new IndexOutOfBoundsException("index="+index);
+		return getAttribute(index);
 	}
 
 	/**
@@ -370,16 +402,48 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 	 * The specified index indicates the first item that would be returned by an initial call to the <code>next()</code> method.
 	 * An initial call to the <code>previous()</code> method would return the item with the specified index minus one.
 	 * <p>
-	 * IMPLEMENTATION NOTE: For efficiency reasons this method does not return an immutable list iterator.
-	 * Calling any of the <code>add(Object)</code>, <code>remove()</code> or <code>set(Object)</code> methods on the returned
-	 * <code>ListIterator</code> does not throw an exception but could result in unexpected behaviour.
+	 * The returned list iterator is immutable.
+	 * Calling any of the <code>add(Object)</code>, <code>remove()</code> or <code>set(Object)</code> methods on it
+	 * throws an <code>UnsupportedOperationException</code>.
 	 *
 	 * @param index  the index of the first item to be returned from the list iterator (by a call to the <code>next()</code> method).
 	 * @return a list iterator of the items in this list (in proper sequence), starting at the specified position in the list.
 	 * @throws IndexOutOfBoundsException if the specified index is out of range (<code>index &lt; 0 || index &gt; size()</code>).
 	 */
 	public ListIterator<Attribute> listIterator(final int index) {
-		return attributeList.listIterator(index);
+		if (index<0 || index>count) throw new IndexOutOfBoundsException("index="+index);
+		return new ListIterator<Attribute>() {
+			private int nextIndex=index;
+			public boolean hasNext() {
+				return nextIndex<count;
+			}
+			public Attribute next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				return getAttribute(nextIndex++);
+			}
+			public boolean hasPrevious() {
+				return nextIndex>0;
+			}
+			public Attribute previous() {
+				if (!hasPrevious()) throw new NoSuchElementException();
+				return getAttribute(--nextIndex);
+			}
+			public int nextIndex() {
+				return nextIndex;
+			}
+			public int previousIndex() {
+				return nextIndex-1;
+			}
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+			public void set(Attribute o) {
+				throw new UnsupportedOperationException();
+			}
+			public void add(Attribute o) {
+				throw new UnsupportedOperationException();
+			}
+		};
 	}
 
 	/**
@@ -525,7 +589,49 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 	
 	void setStartTag(final StartTag startTag) {
 		// this just preloads the startTag cache in each Attribute so we don't have to go looking for it if it is requested.
-		for (Attribute attribute : attributeList) attribute.startTag=startTag;
+		this.startTag=startTag;
+		if (attributes!=null) for (Attribute attribute : attributes) if (attribute!=null) attribute.startTag=startTag;
+	}
+
+	String getKey(final int index) {
+		return keys[index];
+	}
+
+	int getValueBegin(final int index) {
+		return positions[index*POSITION_COUNT+VALUE_BEGIN];
+	}
+
+	int getValueEnd(final int index) {
+		return positions[index*POSITION_COUNT+VALUE_END];
+	}
+
+	int indexOfKey(final String name) {
+		// the keys of standard attributes are the same String instances as the constants in the calling code, so check identity first
+		for (int i=0; i<count; i++) if (keys[i]==name) return i;
+		for (int i=0; i<count; i++) if (keys[i].equalsIgnoreCase(name)) return i;
+		return -1;
+	}
+
+	private Attribute getAttribute(final int index) {
+		if (attributes==null) attributes=new Attribute[count];
+		Attribute attribute=attributes[index];
+		if (attribute==null) {
+			final Source source=((Segment)this).source; // the source field is not accessible directly as the superclass is in another package, and getSource() can't be used with StreamedSource
+			final int i=index*POSITION_COUNT;
+			final Segment nameSegment=new Segment(source,positions[i+NAME_BEGIN],positions[i+NAME_END]);
+			final int valueBegin=positions[i+VALUE_BEGIN];
+			if (valueBegin==-1) {
+				attribute=new Attribute(source,keys[index],nameSegment);
+			} else {
+				final Segment valueSegment=new Segment(source,valueBegin,positions[i+VALUE_END]);
+				final int valueIncludingQuotesEnd=positions[i+VALUE_INCLUDING_QUOTES_END];
+				final Segment valueSegmentIncludingQuotes=(valueIncludingQuotesEnd==-1) ? valueSegment : new Segment(source,valueBegin-1,valueIncludingQuotesEnd);
+				attribute=new Attribute(source,keys[index],nameSegment,valueSegment,valueSegmentIncludingQuotes);
+			}
+			attribute.startTag=startTag;
+			attributes[index]=attribute;
+		}
+		return attribute;
 	}
 
 	private static void log(final Source source, final String part1, final CharSequence part2, final int begin, final String part3, final int pos) {
@@ -535,4 +641,48 @@ public final class Attributes extends SequentialListSegment<Attribute> {
 	private static void log(final Source source, final String part1, final CharSequence part2, final int begin, final String part3) {
 		source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source,begin, part1+' '+part2, ' '+part3));
 	}
+
+	private static final class AttributeListBuilder {
+		private String[] keys=NO_KEYS;
+		private int[] positions=NO_POSITIONS;
+		int count=0;
+
+		void add(final String key, final int nameBegin, final int nameEnd) {
+			add(key,nameBegin,nameEnd,-1,-1,-1);
+		}
+
+		void add(final String key, final int nameBegin, final int nameEnd, final int valueBegin, final int valueEnd, final int valueIncludingQuotesEnd) {
+			if (count==keys.length) {
+				final int capacity=count==0 ? 4 : count<<1;
+				final String[] newKeys=new String[capacity];
+				System.arraycopy(keys,0,newKeys,0,count);
+				keys=newKeys;
+				final int[] newPositions=new int[capacity*POSITION_COUNT];
+				System.arraycopy(positions,0,newPositions,0,count*POSITION_COUNT);
+				positions=newPositions;
+			}
+			keys[count]=key;
+			final int i=count*POSITION_COUNT;
+			positions[i+NAME_BEGIN]=nameBegin;
+			positions[i+NAME_END]=nameEnd;
+			positions[i+VALUE_BEGIN]=valueBegin;
+			positions[i+VALUE_END]=valueEnd;
+			positions[i+VALUE_INCLUDING_QUOTES_END]=valueIncludingQuotesEnd;
+			count++;
+		}
+
+		String[] getKeys(final boolean trim) {
+			if (!trim || count==keys.length) return keys;
+			final String[] result=new String[count];
+			System.arraycopy(keys,0,result,0,count);
+			return result;
+		}
+
+		int[] getPositions(final boolean trim) {
+			if (!trim || count*POSITION_COUNT==positions.length) return positions;
+			final int[] result=new int[count*POSITION_COUNT];
+			System.arraycopy(positions,0,result,0,count*POSITION_COUNT);
+			return result;
+		}
+	}
 }
@@ -0,0 +1,63 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+/**
+ * Defines the interface for a pool of <code>char[]</code> buffers that can be reused by successive {@link StreamedSource} objects.
+ * <p>
+ * Each <code>StreamedSource</code> that reads its source text from a stream or is fed in <a href="StreamedSource.html#PushMode">push mode</a>
+ * borrows its expandable buffer from the pool specified by the static {@link Config#StreamedSourceBufferPool} property when it is constructed,
+ * and borrows any larger buffer from the same pool when it needs to be expanded, returning the buffer it replaces.
+ * The current buffer is returned to the pool when the <code>StreamedSource</code> is {@linkplain StreamedSource#close() closed}.
+ * <p>
+ * Reusing buffers reduces the amount of garbage generated by applications that stream a large number of small documents,
+ * where the allocation of a new buffer for each document can otherwise dominate the allocation rate.
+ * <p>
+ * The {@link ThreadLocalBufferPool} and {@link SharedBufferPool} classes provide implementations of this interface with bounded capacity.
+ */
+public interface BufferPool {
+	/**
+	 * A {@link BufferPool} implementation that allocates a new buffer on every request and discards every returned buffer.
+	 * <p>
+	 * This is the default value of the static {@link Config#StreamedSourceBufferPool} property.
+	 */
+	public static final BufferPool DISABLED=BufferPoolDisabled.INSTANCE;
+
+	/**
+	 * Returns a buffer with a length of at least the specified size.
+	 * <p>
+	 * The returned buffer may be larger than requested, and its content is undefined.
+	 *
+	 * @param minSize  the minimum length of the buffer.
+	 * @return a buffer with a length of at least the specified size.
+	 */
+	public char[] borrow(int minSize);
+
+	/**
+	 * Returns a buffer to the pool so that it can be reused by a subsequent call to {@link #borrow(int)}.
+	 * <p>
+	 * The pool may discard the buffer instead of retaining it.
+	 * The caller must not use the buffer after calling this method.
+	 *
+	 * @param buffer  the buffer to return to the pool.
+	 */
+	public void release(char[] buffer);
+}
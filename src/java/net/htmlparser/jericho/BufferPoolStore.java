@@ -0,0 +1,75 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+/**
+ * Holds the buffers retained by a {@link BufferPool} implementation, grouped into size classes.
+ * <p>
+ * Size class <i>n</i> holds buffers with a length from 2<sup><i>n</i></sup> to 2<sup><i>n</i>+1</sup>-1,
+ * so a request is satisfied from the smallest size class whose buffers are all guaranteed to be large enough.
+ * Buffers larger than the maximum buffer size are never retained.
+ * <p>
+ * This class is not thread safe.
+ */
+final class BufferPoolStore {
+	private final int maxBufferSize;
+	private final char[][][] sizeClassBuffers;
+	private final int[] sizeClassCounts;
+
+	public BufferPoolStore(final int maxBufferSize, final int maxBuffersPerSizeClass) {
+		checkArguments(maxBufferSize,maxBuffersPerSizeClass);
+		this.maxBufferSize=maxBufferSize;
+		final int sizeClassCount=getSizeClass(maxBufferSize)+1;
+		sizeClassBuffers=new char[sizeClassCount][maxBuffersPerSizeClass][];
+		sizeClassCounts=new int[sizeClassCount];
+	}
+
+	public char[] take(final int minSize) {
+		// the smallest size class whose buffers are all at least minSize long:
+		final int firstSizeClass=(minSize<=1) ? 0 : 32-Integer.numberOfLeadingZeros(minSize-1);
+		for (int sizeClass=firstSizeClass; sizeClass<sizeClassCounts.length; sizeClass++) {
+			if (sizeClassCounts[sizeClass]==0) continue;
+			final char[][] buffers=sizeClassBuffers[sizeClass];
+			final int index=--sizeClassCounts[sizeClass];
+			final char[] buffer=buffers[index];
+			buffers[index]=null;
+			return buffer;
+		}
+		return null;
+	}
+
+	public void put(final char[] buffer) {
+		if (buffer.length==0 || buffer.length>maxBufferSize) return;
+		final int sizeClass=getSizeClass(buffer.length);
+		final char[][] buffers=sizeClassBuffers[sizeClass];
+		if (sizeClassCounts[sizeClass]==buffers.length) return;
+		buffers[sizeClassCounts[sizeClass]++]=buffer;
+	}
+
+	public static void checkArguments(final int maxBufferSize, final int maxBuffersPerSizeClass) {
+		if (maxBufferSize<1) throw new IllegalArgumentException("maxBufferSize must be at least 1");
+		if (maxBuffersPerSizeClass<0) throw new IllegalArgumentException("maxBuffersPerSizeClass must not be negative");
+	}
+
+	private static int getSizeClass(final int length) {
+		return 31-Integer.numberOfLeadingZeros(length);
+	}
+}
@@ -26,11 +26,15 @@ import java.util.*;
  * Represents a cached map of character positions to tags.
  * The allTagTypesSubCache object is used to cache all tags.
  * Additional subcaches are used to cache single tag types. See the TagType.getTagTypesIgnoringEnclosedMarkup() method for details.
+ * <p>
+ * After a full sequential parse the subcaches are left empty, and all tags are instead stored in a TagTable,
+ * which records every position in the document so no further parsing is required.
  */
 final class Cache {
 	public final Source source;
 	private final SubCache allTagTypesSubCache;
 	private final SubCache[] subCaches; // contains allTagTypesSubCache plus a SubCache object for each separately cached tag type
+	private TagTable tagTable=null; // non-null iff a full sequential parse has been performed since the cache was last cleared
 
 	static final Cache STREAMED_SOURCE_MARKER=new Cache();
 
@@ -52,11 +56,16 @@ final class Cache {
 	}
 
 	public void clear() {
+		if (tagTable!=null) {
+			tagTable.orphanTags();
+			tagTable=null;
+		}
 		for (Iterator<Tag> i=allTagTypesSubCache.getTagIterator(); i.hasNext();) i.next().orphan();
 		for (int i=0; i<subCaches.length; i++) subCaches[i].clear();
 	}
 
 	public Tag getTagAt(final int pos, final boolean serverTagOnly) {
+		if (tagTable!=null) return tagTable.getTagAt(pos,serverTagOnly);
 		return source.useAllTypesCache
 			?	allTagTypesSubCache.getTagAt(pos,serverTagOnly)
 			: Tag.getTagAtUncached(source,pos,serverTagOnly);
@@ -64,16 +73,19 @@ final class Cache {
 
 	public Tag getPreviousTag(final int pos) {
 		// returns null if pos is out of range.
+		if (tagTable!=null) return tagTable.getPreviousTag(pos);
 		return allTagTypesSubCache.getPreviousTag(pos);
 	}
 
 	public Tag getNextTag(final int pos) {
 		// returns null if pos is out of range.
+		if (tagTable!=null) return tagTable.getNextTag(pos);
 		return allTagTypesSubCache.getNextTag(pos);
 	}
 
 	public Tag getPreviousTag(final int pos, final TagType tagType) {
 		// returns null if pos is out of range.
+		if (tagTable!=null && tagTable.isIndexed(tagType)) return tagTable.getPreviousTag(pos,tagType);
 		for (int i=source.useAllTypesCache ? 0 : 1; i<subCaches.length; i++)
 			if (tagType==subCaches[i].tagType) return subCaches[i].getPreviousTag(pos);
 		return Tag.getPreviousTagUncached(source,pos,tagType,ParseText.NO_BREAK);
@@ -81,6 +93,7 @@ final class Cache {
 
 	public Tag getNextTag(final int pos, final TagType tagType) {
 		// returns null if pos is out of range.
+		if (tagTable!=null && tagTable.isIndexed(tagType)) return tagTable.getNextTag(pos,tagType);
 		for (int i=source.useAllTypesCache ? 0 : 1; i<subCaches.length; i++)
 			if (tagType==subCaches[i].tagType) return subCaches[i].getNextTag(pos);
 		return Tag.getNextTagUncached(source,pos,tagType,ParseText.NO_BREAK);
@@ -102,38 +115,30 @@ final class Cache {
 	}
 
 	public int getTagCount() {
+		if (tagTable!=null) return tagTable.size();
 		return allTagTypesSubCache.size()-2;
 	}
 
 	public Iterator<Tag> getTagIterator() {
+		if (tagTable!=null) return tagTable.getTagIterator();
 		return allTagTypesSubCache.getTagIterator();
 	}
 
-	public void loadAllTags(final List<Tag> tags, final Tag[] allRegisteredTags, final StartTag[] allRegisteredStartTags) {
+	public TagTable getTagTable() {
+		return tagTable;
+	}
+
+	public TagTable loadAllTags(final List<Tag> tags, final boolean retainTags) {
 		// assumes the tags list implements RandomAccess
-		final int tagCount=tags.size();
-		allTagTypesSubCache.bulkLoad_Init(tagCount);
-		int registeredTagIndex=0;
-		int registeredStartTagIndex=0;
-		for (int i=0; i<tagCount; i++) {
-			Tag tag=tags.get(i);
-			if (!tag.isUnregistered()) {
-				allRegisteredTags[registeredTagIndex++]=tag;
-				if (tag instanceof StartTag) allRegisteredStartTags[registeredStartTagIndex++]=(StartTag)tag;
-			}
-			allTagTypesSubCache.bulkLoad_Set(i,tag);
-			for (int x=1; x<subCaches.length; x++) {
-				if (tag.getTagType()==subCaches[x].tagType) {
-					subCaches[x].bulkLoad_AddToTypeSpecificCache(tag);
-					break;
-				}
-			}
-		}
-		for (int x=1; x<subCaches.length; x++)
-			subCaches[x].bulkLoad_FinaliseTypeSpecificCache();
+		return tagTable=new TagTable(source,tags,retainTags,getSubCacheTagTypes());
+	}
+
+	public TagTable loadAllTags(final TagTable.Builder builder) {
+		return tagTable=new TagTable(source,builder,getSubCacheTagTypes());
 	}
 
 	public String toString() {
+		if (tagTable!=null) return tagTable.toString();
 		StringBuilder sb=new StringBuilder();
 		for (int i=0; i<subCaches.length; i++) subCaches[i].appendTo(sb);
 		return sb.toString();
@@ -143,6 +148,13 @@ final class Cache {
 		return source.end;
 	}
 	
+	private TagType[] getSubCacheTagTypes() {
+		// returns the tag types of the separately cached tags, which are stored in every sub-cache except the first
+		final TagType[] separatelyCachedTagTypes=new TagType[subCaches.length-1];
+		for (int x=1; x<subCaches.length; x++) separatelyCachedTagTypes[x-1]=subCaches[x].tagType;
+		return separatelyCachedTagTypes;
+	}
+
 	private static TagType[] getSeparatelyCachedTagTypes() {
 		return TagType.getTagTypesIgnoringEnclosedMarkup();
 	}
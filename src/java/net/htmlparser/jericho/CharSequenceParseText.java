@@ -44,10 +44,8 @@ class CharSequenceParseText implements ParseText {
 	
 	public final int indexOf(final char searchChar, final int fromIndex, final int breakAtIndex) {
 		final int actualBreakAtIndex=(breakAtIndex==NO_BREAK || breakAtIndex>getEnd() ? getEnd() : breakAtIndex);
-		try {
-			for (int i=(fromIndex<0 ? 0 : fromIndex); i<actualBreakAtIndex; i++)
-				if (charAt(i)==searchChar) return i;
-		} catch (IndexOutOfBoundsException ex) {} // only happens in StreamedParseText subclass - this is the normal way to catch end of stream
+		for (int i=(fromIndex<0 ? 0 : fromIndex); i<actualBreakAtIndex && hasCharAt(i); i++)
+			if (charAt(i)==searchChar) return i;
 		return -1;
 	}
 
@@ -59,10 +57,12 @@ class CharSequenceParseText implements ParseText {
 		if (searchString.length()==1) return indexOf(searchString.charAt(0),fromIndex,breakAtIndex);
 		if (searchString.length()==0) return fromIndex;
 		final char firstChar=searchString.charAt(0);
-		final int lastPossibleBreakAtIndex=getEnd()-searchString.length()+1;
+		final int lastCharOffset=searchString.length()-1;
+		final int lastPossibleBreakAtIndex=getEnd()-lastCharOffset;
 		final int actualBreakAtIndex=(breakAtIndex==NO_BREAK || breakAtIndex>lastPossibleBreakAtIndex) ? lastPossibleBreakAtIndex : breakAtIndex;
-		outerLoop: for (int i=(fromIndex<0 ? 0 : fromIndex); i<actualBreakAtIndex; i++) {
+		outerLoop: for (int i=(fromIndex<0 ? 0 : fromIndex); i<actualBreakAtIndex && hasCharAt(i); i++) {
 			if (charAt(i)==firstChar) {
+				if (!hasCharAt(i+lastCharOffset)) return -1;
 				for (int j=1; j<searchString.length(); j++)
 					if (searchString.charAt(j)!=charAt(j+i)) continue outerLoop;
 				return i;
@@ -122,6 +122,10 @@ class CharSequenceParseText implements ParseText {
 		return charSequence.length();
 	}
 
+	protected boolean hasCharAt(final int pos) {
+		return pos<charSequence.length();
+	}
+
 	protected String substring(final int begin, final int end) {
 		return charSequence.subSequence(begin,end).toString().toLowerCase();
 	}
@@ -1001,6 +1001,7 @@ public class CharacterEntityReference extends CharacterReference {
 		int x=nameBegin;
 		boolean unterminated=false;
 		while (true) {
+			if (!source.hasCharAt(x)) return null; // only happens in a streamed source
 			final char ch=source.charAt(x);
 			if (ch==';') {
 				end=x+1;
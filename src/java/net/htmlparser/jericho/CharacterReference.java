@@ -107,7 +107,7 @@ public abstract class CharacterReference extends Segment {
 		appendCharTo(appendable,Config.ConvertNonBreakingSpaces);
 	}
 
-	private void appendCharTo(Appendable appendable, final boolean convertNonBreakingSpaces) throws IOException {
+	void appendCharTo(Appendable appendable, final boolean convertNonBreakingSpaces) throws IOException {
 		if (Character.isSupplementaryCodePoint(codePoint)) {
 			appendable.append(getHighSurrogate(codePoint));
 			appendable.append(getLowSurrogate(codePoint));
@@ -685,22 +685,24 @@ public abstract class CharacterReference extends Segment {
 
 	private static CharacterReference getPrevious(final Source source, int pos, final Config.UnterminatedCharacterReferenceSettings unterminatedCharacterReferenceSettings) {
 		final ParseText parseText=source.getParseText();
-		pos=parseText.lastIndexOf('&',pos);
+		final StructuralIndex structuralIndex=source.getStructuralIndex();
+		pos=(structuralIndex!=null) ? structuralIndex.getPreviousCharacterReferenceBegin(pos) : parseText.lastIndexOf('&',pos);
 		while (pos!=-1) {
 			final CharacterReference characterReference=construct(source,pos,unterminatedCharacterReferenceSettings);
 			if (characterReference!=null) return characterReference;
-			pos=parseText.lastIndexOf('&',pos-1);
+			pos=(structuralIndex!=null) ? structuralIndex.getPreviousCharacterReferenceBegin(pos-1) : parseText.lastIndexOf('&',pos-1);
 		}
 		return null;
 	}
 
 	private static CharacterReference getNext(final Source source, int pos, final Config.UnterminatedCharacterReferenceSettings unterminatedCharacterReferenceSettings) {
 		final ParseText parseText=source.getParseText();
-		pos=parseText.indexOf('&',pos);
+		final StructuralIndex structuralIndex=source.getStructuralIndex();
+		pos=(structuralIndex!=null) ? structuralIndex.getNextCharacterReferenceBegin(pos,ParseText.NO_BREAK) : parseText.indexOf('&',pos);
 		while (pos!=-1) {
 			final CharacterReference characterReference=construct(source,pos,unterminatedCharacterReferenceSettings);
 			if (characterReference!=null) return characterReference;
-			pos=parseText.indexOf('&',pos+1);
+			pos=(structuralIndex!=null) ? structuralIndex.getNextCharacterReferenceBegin(pos+1,ParseText.NO_BREAK) : parseText.indexOf('&',pos+1);
 		}
 		return null;
 	}
@@ -715,7 +717,7 @@ public abstract class CharacterReference extends Segment {
 
 	static CharacterReference construct(final Source source, final int begin, final Config.UnterminatedCharacterReferenceSettings unterminatedCharacterReferenceSettings) {
 		try {
-			if (source.getParseText().charAt(begin)!='&') return null;
+			if (!source.hasCharAt(begin+1) || source.getParseText().charAt(begin)!='&') return null;
 			return (source.getParseText().charAt(begin+1)=='#')
 				? NumericCharacterReference.construct(source,begin,unterminatedCharacterReferenceSettings)
 				: CharacterEntityReference.construct(source,begin,unterminatedCharacterReferenceSettings.characterEntityReferenceMaxCodePoint);
@@ -21,6 +21,7 @@
 package net.htmlparser.jericho;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Encapsulates global configuration properties which determine the behaviour of various functions.
@@ -38,6 +39,23 @@ import java.util.*;
 public final class Config {
 	private Config() {}
 
+	/**
+	 * Determines whether the complete {@linkplain Source#getChildElements() document element hierarchy} is built during a
+	 * {@linkplain Source#fullSequentialParse() full sequential parse}.
+	 * <p>
+	 * If this property is <code>true</code>, the end tag, parent, child elements and depth of every element are determined in sequential passes over the tags
+	 * using explicit stacks of open elements, taking time roughly proportional to the number of tags in the document.
+	 * Otherwise the hierarchy is only built when it is first requested, using a recursive search that takes time proportional to the number of elements
+	 * multiplied by their nesting depth, and which can exhaust the stack of the calling thread on extremely deeply nested documents.
+	 * The resulting hierarchy is the same in both cases.
+	 * <p>
+	 * Building the hierarchy creates an {@link Element} object for every start tag in the document,
+	 * so this property should only be set if the hierarchy is going to be used.
+	 * <p>
+	 * The default value is <code>false</code>.
+	 */
+	public static boolean BuildElementHierarchy=false;
+
 	/**
 	 * Determines the string used to separate a single column's multiple values in the output of the {@link FormFields#getColumnValues(Map)} method.
 	 * <p>
@@ -183,6 +201,91 @@ public final class Config {
 	 */
 	public static String NewLine=System.getProperty("line.separator");
 
+	/**
+	 * Determines the minimum length of a source document, in characters, for which the {@linkplain Source#fullSequentialParse() full sequential parse}
+	 * is performed using multiple threads.
+	 * <p>
+	 * The document is divided into sections that are parsed concurrently, and the results are combined in a way that guarantees
+	 * the same list of tags is produced as by a sequential parse.
+	 * Any issues encountered during the parse are still reported to the {@linkplain Source#getHtmlIssueProcessingHandler() issue handler}
+	 * from the calling thread, in the same order as in a sequential parse.
+	 * <p>
+	 * Parsing in parallel is only worthwhile for very large documents, typically several megabytes in size,
+	 * and is never performed if only one processor is available.
+	 * Custom {@linkplain TagType tag types} must not rely on any state other than the source document itself if this feature is enabled.
+	 * <p>
+	 * The sections are parsed by the {@link #ParallelParseExecutorService}.
+	 * <p>
+	 * The default value is <code>0</code>, which means every full sequential parse is performed in the calling thread only.
+	 */
+	public static int ParallelParseThreshold=0;
+
+	/**
+	 * Determines the <code>ExecutorService</code> that parses the sections of a document when the full sequential parse is performed using multiple threads,
+	 * as determined by the {@link #ParallelParseThreshold} property.
+	 * <p>
+	 * The library never shuts down an executor service assigned to this property, so its lifetime is controlled entirely by the application.
+	 * The calling thread waits for the sections submitted to it, so an executor service that is busy with other tasks delays the parse,
+	 * and any sections it rejects, for example because it has been shut down, are parsed in the calling thread instead.
+	 * <p>
+	 * If the value is <code>null</code>, the library creates its own fixed thread pool the first time a parse is performed using multiple threads,
+	 * containing one daemon thread for each available processor.
+	 * The pool is never shut down, but its threads do not prevent the Java virtual machine from exiting.
+	 * An application running in an environment that requires all threads to be stopped, such as when a web application is undeployed,
+	 * should assign its own executor service to this property instead.
+	 * <p>
+	 * The default value is <code>null</code>.
+	 */
+	public static ExecutorService ParallelParseExecutorService=null;
+
+	/**
+	 * Determines the {@link BufferPool} from which each new {@link StreamedSource} borrows its expandable buffer.
+	 * <p>
+	 * The buffer is returned to the pool when the <code>StreamedSource</code> is {@linkplain StreamedSource#close() closed}.
+	 * A <code>StreamedSource</code> constructed from a <code>CharSequence</code> or given a fixed buffer by its {@link StreamedSource#setBuffer(char[])} method
+	 * does not use any buffer from the pool.
+	 * <p>
+	 * The {@link ThreadLocalBufferPool} and {@link SharedBufferPool} classes provide pools with bounded capacity.
+	 * <p>
+	 * The default value is {@link BufferPool#DISABLED}, which allocates a new buffer for every <code>StreamedSource</code>.
+	 */
+	public static BufferPool StreamedSourceBufferPool=BufferPool.DISABLED;
+
+	/**
+	 * Determines whether an index of the <code>id</code>, <code>name</code> and <code>class</code> attribute values in the source document
+	 * is built during a {@linkplain Source#fullSequentialParse() full sequential parse}.
+	 * <p>
+	 * Once the index is built, {@link Source#getElementById(String)} and the other searches for a case sensitive <code>id</code> or <code>name</code> attribute value
+	 * find the matching start tags directly from the index, instead of searching the text of the document for the value
+	 * and parsing the attributes of every tag in which it occurs.
+	 * Searches by class name, such as {@link Segment#getAllElementsByClass(String)}, also use the index unless the class name contains
+	 * white space or regular expression metacharacters.
+	 * <p>
+	 * The index is only worthwhile if the same source document is searched many times, as building it requires the values of these attributes to be
+	 * extracted from every start tag in the document.
+	 * Note that case sensitive searches using the index do not report start tags whose attribute values differ from the search value only in case
+	 * to the {@linkplain Source#getHtmlIssueProcessingHandler() issue handler}.
+	 * <p>
+	 * The default value is <code>false</code>.
+	 */
+	public static boolean UseAttributeIndex=false;
+
+	/**
+	 * Determines whether a structural index of the source document is built at the start of a {@linkplain Source#fullSequentialParse() full sequential parse}.
+	 * <p>
+	 * The index records the positions of all potential tags and character references in a single pass over the text,
+	 * allowing the parser to skip directly from one to the next.
+	 * It also records the begin position of every row, so that subsequent calls to {@link Source#getRowColumnVector(int pos)} do not require another scan of the text.
+	 * <p>
+	 * The index occupies approximately one bit per character for each type of position recorded, plus four bytes per row.
+	 * Building it costs a little more than it saves during the parse itself, so it is only worthwhile if the
+	 * {@linkplain Source#iterator() nodes} or {@linkplain Source#getRowColumnVector(int pos) row and column numbers} of the same
+	 * source document are subsequently accessed.
+	 * <p>
+	 * The default value is <code>false</code>.
+	 */
+	public static boolean UseStructuralIndex=false;
+
 	/**
 	 * Used in Element.getChildElements.
 	 * Server elements containing markup should be included in the hierarchy, so consider making this option public in future.
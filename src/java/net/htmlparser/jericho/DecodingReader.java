@@ -0,0 +1,106 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+
+package net.htmlparser.jericho;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+
+/**
+ * Implements a <code>Reader</code> that decodes the bytes from a <code>ReadableByteChannel</code> or a <code>ByteBuffer</code> directly into the
+ * character array passed to its {@link #read(char[],int,int)} method.
+ * <p>
+ * When reading from a channel, the bytes are read into a single <code>ByteBuffer</code> that is reused for the life of the reader.
+ * This avoids the <code>BufferedInputStream</code> and the internal byte buffer of the <code>InputStreamReader</code> used when loading
+ * a {@link StreamedSource} from an <code>InputStream</code>, which means that {@link StreamedText} receives the decoded characters
+ * directly into its own buffer.
+ * <p>
+ * Malformed and unmappable input is replaced in the same way as in an <code>InputStreamReader</code>.
+ * <p>
+ * The bytes are always decoded using a <code>CharsetDecoder</code>, even in single byte encodings such as ISO-8859-1 and US-ASCII.
+ * The decoders of these encodings in current JVMs widen the bytes using intrinsics, which was measured to be several times faster
+ * than widening each byte in a simple loop.
+ * <p>
+ * The channel must be in blocking mode.
+ */
+final class DecodingReader extends Reader {
+	private final ReadableByteChannel channel; // null if the entire input is in byteBuffer
+	private final ByteBuffer byteBuffer; // contains the bytes that have been read but not yet decoded, between its position and limit
+	private final CharsetDecoder decoder;
+	private boolean endOfInput;
+	private boolean decodedToEnd=false;
+	private boolean flushed=false;
+
+	private static final int BYTE_BUFFER_SIZE=65536; // reading larger blocks from a channel reduces the number of system calls, which was measured to be faster than 8192
+
+	public DecodingReader(final ReadableByteChannel channel, final Charset charset) {
+		this(channel,(ByteBuffer)ByteBuffer.allocate(BYTE_BUFFER_SIZE).flip(),charset);
+	}
+
+	public DecodingReader(final ByteBuffer byteBuffer, final Charset charset) {
+		// the position of the specified buffer is not changed
+		this(null,byteBuffer.duplicate(),charset);
+	}
+
+	private DecodingReader(final ReadableByteChannel channel, final ByteBuffer byteBuffer, final Charset charset) {
+		this.channel=channel;
+		this.byteBuffer=byteBuffer;
+		endOfInput=(channel==null);
+		decoder=charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	public int read(final char[] cbuf, final int off, final int len) throws IOException {
+		if (len==0) return 0;
+		final CharBuffer charBuffer=CharBuffer.wrap(cbuf,off,len);
+		// Return as soon as any characters have been decoded rather than blocking to read more input:
+		while (charBuffer.position()==off && !flushed) {
+			if (!endOfInput) {
+				if (decoder.decode(byteBuffer,charBuffer,false).isOverflow()) break;
+				if (charBuffer.position()==off) fill();
+			} else {
+				if (!decodedToEnd) {
+					if (decoder.decode(byteBuffer,charBuffer,true).isOverflow()) break;
+					decodedToEnd=true;
+				}
+				if (decoder.flush(charBuffer).isOverflow()) break;
+				flushed=true;
+			}
+		}
+		final int charCount=charBuffer.position()-off;
+		return (charCount==0 && flushed) ? -1 : charCount;
+	}
+
+	public void close() throws IOException {
+		if (channel!=null) channel.close();
+	}
+
+	private void fill() throws IOException {
+		// reads more bytes from the channel after any bytes that have not yet been decoded, setting endOfInput if the end of the channel has been reached
+		byteBuffer.compact();
+		try {
+			if (channel.read(byteBuffer)==-1) endOfInput=true;
+		} finally {
+			byteBuffer.flip();
+		}
+	}
+}
@@ -240,12 +240,12 @@ public final class Element extends Segment {
 	private final EndTag endTag;
 	private Segment content=null;
 	Element parentElement=Element.NOT_CACHED;
-	private int depth=-1;
-	private List<Element> childElements=null;
+	int depth=-1;
+	List<Element> childElements=null;
 	
 	static final Element NOT_CACHED=new Element();
 	
-	private static final boolean INCLUDE_INCORRECTLY_NESTED_CHILDREN_IN_HIERARCHY=true;
+	static final boolean INCLUDE_INCORRECTLY_NESTED_CHILDREN_IN_HIERARCHY=true;
 
 	Element(final Source source, final StartTag startTag, final EndTag endTag) {
 		super(source, startTag.begin, endTag==null ? startTag.end : endTag.end);
@@ -0,0 +1,498 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+import java.util.*;
+
+/**
+ * Builds the complete document element hierarchy of a source document in a single pass over its tags.
+ * <p>
+ * This is used by {@link Source#getChildElements()} instead of the recursive search performed by {@link Element#getChildElements()}
+ * if {@link Config#BuildElementHierarchy} is <code>true</code>, and by {@link ElementTree}, and produces exactly the same hierarchy.
+ * <p>
+ * The recursive search determines the end tag of each element by searching forward from its start tag, and in the case of elements with a
+ * required end tag, by recursively matching every nested start tag of the same name.
+ * The time taken is therefore proportional to the product of the number of elements and their nesting depth,
+ * and the recursion can exhaust the stack of the calling thread on deeply nested documents.
+ * <p>
+ * The builder instead works in four stages, using only the indexes of the tags in the source document's {@link TagTable}:
+ * <ol>
+ *  <li>A forward pass over all of the tags matches each {@linkplain StartTagType#NORMAL normal} start tag that requires an end tag
+ *   with its end tag using a stack of open start tags for each name.
+ *  <li>A backward pass over the start tags determines the remaining end tags, including those that are
+ *   {@linkplain HTMLElements#getEndTagOptionalElementNames() optional}, using the {@link HTMLElementTerminatingTagNameSets}.
+ *   Because the elements are visited in reverse order, any element nested inside another is always resolved first,
+ *   so the forward search for an optional end tag can skip over it without recursion.
+ *  <li>A forward pass assigns the parent, child elements and depth of every element using an explicit stack of open elements.
+ *  <li>A depth-first traversal of the hierarchy assigns the index of each element in the {@link ElementTree}.
+ * </ol>
+ * <p>
+ * No {@link Element} objects are created, except for the elements that are the subject of an issue, so that it is not reported again when they are created later,
+ * and the elements whose end tag can only be determined by their start tag, which is the case for the rare types of start tag other than {@link StartTagType#NORMAL} that require an end tag.
+ * The {@link #build(Source)} method then creates the elements of the hierarchy from the tree.
+ */
+final class ElementHierarchyBuilder {
+	private final Source source;
+	private final TagTable tagTable;
+	private final int[] startTagIndexes; // the index in the tag table of each registered start tag, each of which starts an element identified by its position in this array
+	private final int[] startTagBegins;
+	private final int[] startTagEnds;
+	private final int[] elementIds; // the element started by each start tag, indexed by the index of the start tag in the tag table
+	private final int documentId; // identifies the source document in the hierarchy, which is the parent of the top-level elements
+
+	// The following arrays are indexed by element ID:
+	private final int[] endTagIndexes; // the index in the tag table of the end tag, or -1 if the element has no end tag or the end tag is optional and not present
+	private final int[] ends; // -1 if the end of the element has not yet been determined
+	private final int[] depths;
+	private final int[] parents; // NOT_IN_HIERARCHY if the element has not been added to the hierarchy
+	private final int[] firstChildren; // indexed up to documentId inclusive
+	private final int[] lastChildren; // indexed up to documentId inclusive
+	private final int[] nextSiblings;
+	private final boolean[] childElementsDetermined;
+
+	// The hierarchy in the form used by ElementTree, with each element identified by its index in a depth-first traversal:
+	int treeSize;
+	int[] treeParents;
+	int[] treeFirstChildren;
+	int[] treeNextSiblings;
+	int[] treeDepths;
+	int[] treeStartTagIndexes;
+	int[] treeEndTagIndexes;
+	int[] treeEnds;
+
+	private static final int NOT_IN_HIERARCHY=-2;
+
+	private ElementHierarchyBuilder(final Source source) {
+		this.source=source;
+		tagTable=source.getTagTable();
+		startTagIndexes=tagTable.getRegisteredStartTagIndexes();
+		documentId=startTagIndexes.length;
+		startTagBegins=new int[documentId];
+		startTagEnds=new int[documentId];
+		elementIds=new int[tagTable.size()];
+		endTagIndexes=new int[documentId];
+		ends=new int[documentId];
+		depths=new int[documentId];
+		parents=new int[documentId];
+		firstChildren=new int[documentId+1];
+		lastChildren=new int[documentId+1];
+		nextSiblings=new int[documentId];
+		childElementsDetermined=new boolean[documentId];
+		Arrays.fill(ends,-1);
+		Arrays.fill(parents,NOT_IN_HIERARCHY);
+		Arrays.fill(firstChildren,-1);
+		Arrays.fill(lastChildren,-1);
+		Arrays.fill(nextSiblings,-1);
+		for (int id=0; id<documentId; id++) {
+			final int startTagIndex=startTagIndexes[id];
+			startTagBegins[id]=tagTable.getBegin(startTagIndex);
+			startTagEnds[id]=tagTable.getEnd(startTagIndex);
+			elementIds[startTagIndex]=id;
+			// use the end tag of any element that has already been created:
+			final StartTag startTag=(StartTag)tagTable.getCreatedTag(startTagIndex);
+			if (startTag!=null && startTag.element!=Element.NOT_CACHED) setEnd(id,startTag.element);
+		}
+	}
+
+	/**
+	 * Builds the document element hierarchy of the specified source document.
+	 * <p>
+	 * The source document must have been {@linkplain Source#fullSequentialParse() fully sequentially parsed}.
+	 *
+	 * @param source  the source document.
+	 * @return a list of the top-level elements in the document element hierarchy.
+	 */
+	static List<Element> build(final Source source) {
+		return buildTree(source).createElements();
+	}
+
+	/**
+	 * Builds the document element hierarchy of the specified source document in the form used by {@link ElementTree}, without creating the elements.
+	 * <p>
+	 * The hierarchy is stored in the fields of the returned builder whose names start with <code>tree</code>.
+	 *
+	 * @param source  the source document.
+	 * @return the builder containing the hierarchy.
+	 */
+	static ElementHierarchyBuilder buildTree(final Source source) {
+		final ElementHierarchyBuilder builder=new ElementHierarchyBuilder(source);
+		builder.resolveRequiredEndTags();
+		builder.resolveRemainingEndTags();
+		builder.buildHierarchy();
+		builder.buildTree();
+		return builder;
+	}
+
+	/**
+	 * Returns the element started by the start tag at the specified index in the tag table, creating it if necessary.
+	 * @param tagTable  the tag table of the source document.
+	 * @param startTagIndex  the index in the tag table of the start tag of the element.
+	 * @param endTagIndex  the index in the tag table of the end tag of the element, or <code>-1</code> if it has no end tag.
+	 * @param end  the end of the element.
+	 * @return the element started by the start tag at the specified index in the tag table.
+	 */
+	static Element getElement(final TagTable tagTable, final int startTagIndex, final int endTagIndex, final int end) {
+		final StartTag startTag=(StartTag)tagTable.getTag(startTagIndex);
+		if (startTag.element==Element.NOT_CACHED) {
+			// A missing optional end tag is represented by a zero length end tag, in the same way as in StartTag.getOptionalEndTag
+			if (endTagIndex!=-1) {
+				startTag.setElement((EndTag)tagTable.getTag(endTagIndex));
+			} else {
+				startTag.setElement(end==startTag.end ? null : new EndTag(startTag.source,end,end,EndTagType.NORMAL,startTag.name));
+			}
+		}
+		return startTag.element;
+	}
+
+	private Element getElement(final int id) {
+		return getElement(tagTable,startTagIndexes[id],endTagIndexes[id],ends[id]);
+	}
+
+	private void setEnd(final int id, final Element element) {
+		final EndTag endTag=element.getEndTag();
+		endTagIndexes[id]=(endTag==null) ? -1 : tagTable.indexOf(endTag.begin);
+		ends[id]=element.end;
+	}
+
+	private void setEndTag(final int id, final int endTagIndex) {
+		endTagIndexes[id]=endTagIndex;
+		ends[id]=(endTagIndex==-1) ? startTagEnds[id] : tagTable.getEnd(endTagIndex);
+	}
+
+	private void setMissingOptionalEndTag(final int id, final int pos) {
+		endTagIndexes[id]=-1;
+		ends[id]=pos;
+	}
+
+	private boolean isResolved(final int id) {
+		return ends[id]!=-1;
+	}
+
+	private void resolveRequiredEndTags() {
+		// Each stack contains the elements of a particular name whose start tags have not yet been matched with an end tag.
+		// The top of each stack is stored in openElements, indexed by name ID, and the element below each element in the stack is stored in elementsBelow.
+		// For names in HTMLElements.END_TAG_REQUIRED_NESTING_FORBIDDEN_SET, each start tag in the stack except the last is terminated by the next one,
+		// but only if an end tag of the same name exists somewhere after it, as determined by StartTag.getEndTagInternal().
+		final int[] openElements=new int[tagTable.getNameCount()];
+		final int[] elementsBelow=new int[documentId];
+		Arrays.fill(openElements,-1);
+		for (int i=0; i<tagTable.size(); i++) {
+			if (!tagTable.isRegistered(i)) continue;
+			final int nameId=tagTable.getNameId(i);
+			if (tagTable.isStartTag(i)) {
+				final int id=elementIds[i];
+				if (!isRequiredEndTagResolvable(id)) continue;
+				final String name=tagTable.getName(i);
+				if (HTMLElements.END_TAG_REQUIRED_NESTING_FORBIDDEN_SET.contains(name) || HTMLElements.isClosingSlashIgnored(name) || !isSyntacticalEmptyElementTag(id)) {
+					elementsBelow[id]=openElements[nameId];
+					openElements[nameId]=id;
+				} else if (!isResolved(id)) {
+					setEndTag(id,-1); // non-html empty-element tag
+				}
+			} else if (tagTable.getTagType(i)==EndTagType.NORMAL) {
+				if (openElements[nameId]==-1) continue;
+				if (HTMLElements.END_TAG_REQUIRED_NESTING_FORBIDDEN_SET.contains(tagTable.getName(i))) {
+					// reverse the stack so that the elements are visited in order
+					int bottom=-1;
+					for (int id=openElements[nameId]; id!=-1;) {
+						final int below=elementsBelow[id];
+						elementsBelow[id]=bottom;
+						bottom=id;
+						id=below;
+					}
+					int id=bottom;
+					for (; elementsBelow[id]!=-1; id=elementsBelow[id]) {
+						if (isResolved(id)) continue;
+						final StartTag startTag=(StartTag)tagTable.getTag(startTagIndexes[id]);
+						startTag.setElement(startTag.getInvalidlyNestedEndTag((StartTag)tagTable.getTag(startTagIndexes[elementsBelow[id]])));
+						setEnd(id,startTag.element);
+					}
+					if (!isResolved(id)) setEndTag(id,i);
+					openElements[nameId]=-1;
+				} else {
+					final int id=openElements[nameId];
+					openElements[nameId]=elementsBelow[id];
+					if (!isResolved(id)) setEndTag(id,i);
+				}
+			}
+		}
+		// Any start tags that remain open have no matching end tag in the rest of the document:
+		for (int id=0; id<documentId; id++) {
+			if (!isResolved(id) && isRequiredEndTagResolvable(id)) {
+				final StartTag startTag=(StartTag)tagTable.getTag(startTagIndexes[id]);
+				startTag.setElement(startTag.getMissingRequiredEndTag());
+				setEnd(id,startTag.element);
+			}
+		}
+	}
+
+	private boolean isRequiredEndTagResolvable(final int id) {
+		// Returns true if StartTag.getEndTagInternal() determines the end tag of the specified start tag by matching it with
+		// start and end tags of exactly the same name, which is the only case resolved by the stacks in resolveRequiredEndTags().
+		// Other types of start tag that require an end tag, and names that do not match exactly in StartTag.getNext, are left to resolveRemainingEndTags().
+		final int startTagIndex=startTagIndexes[id];
+		if (tagTable.getTagType(startTagIndex)!=StartTagType.NORMAL) return false;
+		final String name=tagTable.getName(startTagIndex);
+		if (HTMLElements.getEndTagForbiddenElementNames().contains(name) || HTMLElements.getTerminatingTagNameSets(name)!=null) return false;
+		return Tag.isXMLName(name) && TagTable.isIndexedName(name);
+	}
+
+	private boolean isSyntacticalEmptyElementTag(final int id) {
+		// equivalent to StartTag.isSyntacticalEmptyElementTag() for a normal start tag
+		return source.charAt(startTagEnds[id]-2)=='/';
+	}
+
+	private void resolveRemainingEndTags() {
+		// This is equivalent to StartTag.getEndTagInternal() for the start tags not resolved by resolveRequiredEndTags().
+		for (int id=documentId-1; id>=0; id--) {
+			if (isResolved(id)) continue;
+			final int startTagIndex=startTagIndexes[id];
+			final TagType tagType=tagTable.getTagType(startTagIndex);
+			if (tagType==StartTagType.NORMAL) {
+				final String name=tagTable.getName(startTagIndex);
+				if ((!HTMLElements.isClosingSlashIgnored(name) && isSyntacticalEmptyElementTag(id)) || HTMLElements.getEndTagForbiddenElementNames().contains(name)) {
+					setEndTag(id,-1);
+					continue;
+				}
+				final HTMLElementTerminatingTagNameSets terminatingTagNameSets=HTMLElements.getTerminatingTagNameSets(name);
+				if (terminatingTagNameSets!=null) {
+					resolveOptionalEndTag(id,terminatingTagNameSets);
+					continue;
+				}
+			} else if (((StartTagType)tagType).getCorrespondingEndTagType()==null) {
+				setEndTag(id,-1);
+				continue;
+			}
+			// The end tag is required, but is not matched by name in the same way as in resolveRequiredEndTags(), so the start tag determines it itself.
+			setEnd(id,((StartTag)tagTable.getTag(startTagIndex)).getElement());
+		}
+	}
+
+	private void resolveOptionalEndTag(final int id, final HTMLElementTerminatingTagNameSets terminatingTagNameSets) {
+		// This is equivalent to StartTag.getOptionalEndTag(), except that the end of each nonterminating element has already been determined.
+		final int nameId=tagTable.getNameId(startTagIndexes[id]);
+		int i=tagTable.getFirstIndexAtOrAfter(startTagEnds[id]);
+		while (i<tagTable.size()) {
+			if (!tagTable.isRegistered(i)) {
+				i++;
+				continue;
+			}
+			final String name=tagTable.getName(i);
+			Set<String> terminatingTagNameSet;
+			if (!tagTable.isStartTag(i)) {
+				if (tagTable.getNameId(i)==nameId) {
+					setEndTag(id,i);
+					return;
+				}
+				terminatingTagNameSet=terminatingTagNameSets.TerminatingEndTagNameSet;
+			} else {
+				terminatingTagNameSet=terminatingTagNameSets.NonterminatingElementNameSet;
+				if (terminatingTagNameSet!=null && terminatingTagNameSet.contains(name)) {
+					i=tagTable.getFirstIndexAtOrAfter(ends[elementIds[i]]);
+					continue;
+				}
+				terminatingTagNameSet=terminatingTagNameSets.TerminatingStartTagNameSet;
+			}
+			if (terminatingTagNameSet!=null && terminatingTagNameSet.contains(name)) {
+				setMissingOptionalEndTag(id,tagTable.getBegin(i));
+				return;
+			}
+			i++;
+		}
+		// Ran out of tags. The only legitimate case of this happening is if the HTML end tag is missing, in which case the end of the element is the end of the source document
+		setMissingOptionalEndTag(id,source.end);
+	}
+
+	private void buildHierarchy() {
+		// This is equivalent to the recursive calls to Element.getChildElements(int depth) from Source.getChildElements(),
+		// with the open elements held in an explicit stack. The top-level frame represents the source document itself.
+		final ArrayList<Frame> stack=new ArrayList<Frame>();
+		stack.add(new Frame(documentId,0,Integer.MAX_VALUE,0));
+		int id=0;
+		while (!stack.isEmpty()) {
+			final Frame frame=stack.get(stack.size()-1);
+			if (frame.childId!=-1) {
+				// returning from the child element
+				final int childId=frame.childId;
+				frame.childId=-1;
+				if (parents[childId]==NOT_IN_HIERARCHY) { // make sure element was not added as a child of a descendent element (can happen with overlapping elements)
+					parents[childId]=frame.id;
+					if (lastChildren[frame.id]==-1) firstChildren[frame.id]=childId; else nextSiblings[lastChildren[frame.id]]=childId;
+					lastChildren[frame.id]=childId;
+				}
+				frame.pos=ends[childId];
+				id=getNextStartTagId(frame.pos,id);
+			}
+			if (id==documentId || startTagBegins[id]>=frame.maxChildBegin) {
+				stack.remove(stack.size()-1);
+				continue;
+			}
+			final boolean isServerTag=tagTable.getTagType(startTagIndexes[id]).isServerTag();
+			if (Config.IncludeServerTagsInElementHierarchy) {
+				if (frame.id!=documentId && startTagBegins[id]<startTagEnds[frame.id] && !isServerTag && !tagTable.getTagType(startTagIndexes[frame.id]).isServerTag()) {
+					frame.pos=startTagEnds[id];
+					id=getNextStartTagId(frame.pos,id+1);
+					continue;
+				}
+			} else if (isServerTag) {
+				frame.pos=startTagEnds[id];
+				id=getNextStartTagId(frame.pos,id+1);
+				continue;
+			}
+			if (frame.id!=documentId && ends[id]>ends[frame.id]) {
+				source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source, startTagBegins[id], "Child "+getElement(id).getDebugInfo(), " extends beyond end of parent "+getElement(frame.id).getDebugInfo()));
+				if (!Element.INCLUDE_INCORRECTLY_NESTED_CHILDREN_IN_HIERARCHY) {
+					frame.pos=ends[id];
+					id=getNextStartTagId(frame.pos,id+1);
+					continue;
+				}
+			}
+			frame.childId=id;
+			final Frame childFrame=open(id,frame.childDepth);
+			if (childFrame!=null) {
+				stack.add(childFrame);
+				id=getNextStartTagId(childFrame.pos,id+1);
+			} else {
+				id++;
+			}
+		}
+	}
+
+	private Frame open(final int id, final int depth) {
+		// Performs the initial steps of Element.getChildElements(int depth), returning null if the child elements have already been determined.
+		depths[id]=depth;
+		if (childElementsDetermined[id]) return null;
+		childElementsDetermined[id]=true;
+		if (!Config.IncludeServerTagsInElementHierarchy && ends[id]==startTagEnds[id]) return null;
+		final int pos=Config.IncludeServerTagsInElementHierarchy ? startTagBegins[id]+1 : startTagEnds[id];
+		final int maxChildBegin=(Config.IncludeServerTagsInElementHierarchy || endTagIndexes[id]==-1) ? ends[id] : tagTable.getBegin(endTagIndexes[id]);
+		return new Frame(id,pos,maxChildBegin,depth+1);
+	}
+
+	private int getNextStartTagId(final int pos, final int fromId) {
+		// Returns the ID of the element whose start tag is the first beginning at or after pos, starting the search at fromId.
+		// The start tag at fromId is normally close to the required one, so the search gallops forward from there,
+		// but it may also be beyond it after returning from an element that contains an overlapping child element.
+		int low, high;
+		if (fromId>0 && startTagBegins[fromId-1]>=pos) {
+			low=0;
+			high=fromId-1;
+		} else {
+			low=fromId;
+			int step=1;
+			while (true) {
+				high=low+step;
+				if (high>=documentId) {
+					high=documentId;
+					break;
+				}
+				if (startTagBegins[high]>=pos) break;
+				low=high+1;
+				step<<=1;
+			}
+		}
+		// binary search for the first begin>=pos within low..high inclusive, where high is known to satisfy the condition or equals documentId
+		while (low<high) {
+			final int mid=(low+high)>>>1;
+			if (startTagBegins[mid]>=pos) high=mid; else low=mid+1;
+		}
+		return low;
+	}
+
+	private void buildTree() {
+		treeParents=new int[documentId];
+		treeFirstChildren=new int[documentId];
+		treeNextSiblings=new int[documentId];
+		treeDepths=new int[documentId];
+		treeStartTagIndexes=new int[documentId];
+		treeEndTagIndexes=new int[documentId];
+		treeEnds=new int[documentId];
+		final int[] treeLastChildren=new int[documentId];
+		int treeLastTopLevel=-1;
+		int parent=-1;
+		int id=firstChildren[documentId];
+		// The elements are visited in a depth-first traversal using the parent of each element in the tree, as the hierarchy can be too deep to traverse recursively.
+		while (id!=-1) {
+			final int index=treeSize++;
+			treeParents[index]=parent;
+			treeFirstChildren[index]=-1;
+			treeNextSiblings[index]=-1;
+			treeLastChildren[index]=-1;
+			final int previousSibling=(parent==-1) ? treeLastTopLevel : treeLastChildren[parent];
+			if (previousSibling!=-1) {
+				treeNextSiblings[previousSibling]=index;
+			} else if (parent!=-1) {
+				treeFirstChildren[parent]=index;
+			}
+			if (parent==-1) treeLastTopLevel=index; else treeLastChildren[parent]=index;
+			treeDepths[index]=depths[id];
+			treeStartTagIndexes[index]=startTagIndexes[id];
+			treeEndTagIndexes[index]=endTagIndexes[id];
+			treeEnds[index]=ends[id];
+			if (firstChildren[id]!=-1) {
+				parent=index;
+				id=firstChildren[id];
+				continue;
+			}
+			while (nextSiblings[id]==-1 && parent!=-1) {
+				id=elementIds[treeStartTagIndexes[parent]];
+				parent=treeParents[parent];
+			}
+			id=nextSiblings[id];
+		}
+	}
+
+	private List<Element> createElements() {
+		// Creates the elements of the tree, setting their parent, child elements and depth in the same way as Element.getChildElements(int depth).
+		final Element[] elements=new Element[treeSize];
+		for (int index=0; index<treeSize; index++) {
+			final Element element=elements[index]=getElement(tagTable,treeStartTagIndexes[index],treeEndTagIndexes[index],treeEnds[index]);
+			element.depth=treeDepths[index];
+			if (element.parentElement==Element.NOT_CACHED) element.parentElement=(treeParents[index]==-1) ? null : elements[treeParents[index]];
+		}
+		for (int index=0; index<treeSize; index++) {
+			if (elements[index].childElements==null) elements[index].childElements=getElements(elements,treeFirstChildren[index],treeNextSiblings);
+		}
+		return getElements(elements,treeSize==0 ? -1 : 0,treeNextSiblings);
+	}
+
+	private static List<Element> getElements(final Element[] elements, final int firstIndex, final int[] nextSiblings) {
+		if (firstIndex==-1) return Collections.emptyList();
+		final List<Element> list=new ArrayList<Element>();
+		for (int index=firstIndex; index!=-1; index=nextSiblings[index]) list.add(elements[index]);
+		return list;
+	}
+
+	private static final class Frame {
+		final int id; // documentId for the source document
+		final int maxChildBegin;
+		final int childDepth;
+		int pos;
+		int childId=-1; // the child element whose own child elements are currently being determined
+
+		Frame(final int id, final int pos, final int maxChildBegin, final int childDepth) {
+			this.id=id;
+			this.pos=pos;
+			this.maxChildBegin=maxChildBegin;
+			this.childDepth=childDepth;
+		}
+	}
+}
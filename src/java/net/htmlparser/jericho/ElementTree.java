@@ -0,0 +1,462 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+
+package net.htmlparser.jericho;
+
+import java.util.*;
+
+/**
+ * Represents the {@linkplain Source#getChildElements() document element hierarchy} of a source document, stored in a compact form.
+ * <p>
+ * Each element in the hierarchy is identified by its index in the tree, which is its position in a depth-first traversal of the hierarchy.
+ * The parent, first child, next sibling and depth of each element, and the indexes in the source document's {@link TagTable} of its
+ * start and end tags, are stored in parallel arrays of integers.
+ * This allows algorithms over the hierarchy of a very large document to navigate the elements without creating any objects,
+ * either through the methods of this class using the index of each element, or using a {@link Cursor}.
+ * <p>
+ * For example, the following code counts the <code>LI</code> elements that are direct children of a <code>UL</code> element:
+ * <pre>
+ * ElementTree elementTree=source.getElementTree();
+ * int ulNameId=elementTree.getTagTable().getNameId(HTMLElementName.UL);
+ * int liNameId=elementTree.getTagTable().getNameId(HTMLElementName.LI);
+ * int count=0;
+ * for (int index=0; index&lt;elementTree.size(); index++) {
+ *   if (elementTree.getNameId(index)!=liNameId) continue;
+ *   int parent=elementTree.getParent(index);
+ *   if (parent!=-1 &amp;&amp; elementTree.getNameId(parent)==ulNameId) count++;
+ * }</pre>
+ * <p>
+ * The tree is built directly from the {@linkplain Source#getTagTable() tag table} of the source document when it is first requested,
+ * and contains exactly the same elements, in the same structure, as is returned by the {@link Source#getChildElements()} and {@link Element#getChildElements()} methods.
+ * No {@link Element} objects are created in the process, except in some cases where an {@linkplain Source#setLogger(Logger) issue is logged} about an element,
+ * and each element is only created when it is requested using the {@link #getElement(int)} method.
+ * <p>
+ * Obtained using the {@link Source#getElementTree()} method.
+ *
+ * @see Source#getElementTree()
+ */
+public final class ElementTree {
+	private final Source source;
+	private final TagTable tagTable;
+	private final int size;
+	private final int[] parents; // -1 for top-level elements
+	private final int[] firstChildren; // -1 if no children
+	private final int[] nextSiblings; // -1 if last child
+	private final int[] depths;
+	private final int[] startTagIndexes;
+	private final int[] endTagIndexes; // -1 if the element has no end tag, or if the end tag is optional and not present
+	private final int[] ends;
+	private final boolean containsAllNormalElements; // false in the unusual case that a normal start tag is not in the element hierarchy
+	private IntervalIndex intervalIndex=null; // the normal elements in order of begin position, created on first use by getIntervalIndex
+	private int[] intervalElementIndexes; // the index in the tree of each interval in intervalIndex
+
+	ElementTree(final Source source) {
+		this.source=source;
+		tagTable=source.getTagTable();
+		final ElementHierarchyBuilder builder=ElementHierarchyBuilder.buildTree(source);
+		size=builder.treeSize;
+		parents=trim(builder.treeParents,size);
+		firstChildren=trim(builder.treeFirstChildren,size);
+		nextSiblings=trim(builder.treeNextSiblings,size);
+		depths=trim(builder.treeDepths,size);
+		startTagIndexes=trim(builder.treeStartTagIndexes,size);
+		endTagIndexes=trim(builder.treeEndTagIndexes,size);
+		ends=trim(builder.treeEnds,size);
+		int normalElementCount=0;
+		for (int index=0; index<size; index++) if (tagTable.getTagType(startTagIndexes[index])==StartTagType.NORMAL) normalElementCount++;
+		int normalStartTagCount=0;
+		for (int startTagIndex : tagTable.getRegisteredStartTagIndexes()) if (tagTable.getTagType(startTagIndex)==StartTagType.NORMAL) normalStartTagCount++;
+		containsAllNormalElements=(normalElementCount==normalStartTagCount);
+	}
+
+	/**
+	 * Returns the {@link TagTable} containing the start and end tags of the elements in this tree.
+	 * @return the {@link TagTable} containing the start and end tags of the elements in this tree.
+	 */
+	public TagTable getTagTable() {
+		return tagTable;
+	}
+
+	/**
+	 * Returns the number of elements in the tree.
+	 * <p>
+	 * If the tree is not empty, the element at index <code>0</code> is the first <a href="Source.html#TopLevelElement">top-level element</a>.
+	 *
+	 * @return the number of elements in the tree.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the index of the parent of the element at the specified index.
+	 * @param index  the index of the element in the tree.
+	 * @return the index of the parent of the element at the specified index, or <code>-1</code> if it is a <a href="Source.html#TopLevelElement">top-level element</a>.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 * @see Element#getParentElement()
+	 */
+	public int getParent(final int index) {
+		return parents[index];
+	}
+
+	/**
+	 * Returns the index of the first child of the element at the specified index.
+	 * @param index  the index of the element in the tree.
+	 * @return the index of the first child of the element at the specified index, or <code>-1</code> if it has no children.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 * @see Element#getChildElements()
+	 */
+	public int getFirstChild(final int index) {
+		return firstChildren[index];
+	}
+
+	/**
+	 * Returns the index of the next sibling of the element at the specified index.
+	 * <p>
+	 * The <a href="Source.html#TopLevelElement">top-level elements</a> are siblings of each other.
+	 *
+	 * @param index  the index of the element in the tree.
+	 * @return the index of the next sibling of the element at the specified index, or <code>-1</code> if it is the last child of its parent.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public int getNextSibling(final int index) {
+		return nextSiblings[index];
+	}
+
+	/**
+	 * Returns the nesting depth of the element at the specified index.
+	 * @param index  the index of the element in the tree.
+	 * @return the nesting depth of the element at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 * @see Element#getDepth()
+	 */
+	public int getDepth(final int index) {
+		return depths[index];
+	}
+
+	/**
+	 * Returns the {@linkplain Element#getBegin() begin} position of the element at the specified index.
+	 * @param index  the index of the element in the tree.
+	 * @return the begin position of the element at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public int getBegin(final int index) {
+		return tagTable.getBegin(startTagIndexes[index]);
+	}
+
+	/**
+	 * Returns the {@linkplain Element#getEnd() end} position of the element at the specified index.
+	 * @param index  the index of the element in the tree.
+	 * @return the end position of the element at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public int getEnd(final int index) {
+		return ends[index];
+	}
+
+	/**
+	 * Returns the {@linkplain TagTable#getNameId(int) name ID} of the start tag of the element at the specified index.
+	 * @param index  the index of the element in the tree.
+	 * @return the name ID of the start tag of the element at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public int getNameId(final int index) {
+		return tagTable.getNameId(startTagIndexes[index]);
+	}
+
+	/**
+	 * Returns the {@linkplain Element#getName() name} of the element at the specified index.
+	 * @param index  the index of the element in the tree.
+	 * @return the name of the element at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public String getName(final int index) {
+		return tagTable.getName(startTagIndexes[index]);
+	}
+
+	/**
+	 * Returns the index in the {@linkplain #getTagTable() tag table} of the start tag of the element at the specified index.
+	 * @param index  the index of the element in the tree.
+	 * @return the index in the tag table of the start tag of the element at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public int getStartTagIndex(final int index) {
+		return startTagIndexes[index];
+	}
+
+	/**
+	 * Returns the index in the {@linkplain #getTagTable() tag table} of the end tag of the element at the specified index.
+	 * @param index  the index of the element in the tree.
+	 * @return the index in the tag table of the end tag of the element at the specified index, or <code>-1</code> if the element has no end tag.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 * @see Element#getEndTag()
+	 */
+	public int getEndTagIndex(final int index) {
+		return endTagIndexes[index];
+	}
+
+	/**
+	 * Returns the {@link Element} object at the specified index.
+	 * <p>
+	 * The element is created the first time it is requested, either by this method or any other means.
+	 *
+	 * @param index  the index of the element in the tree.
+	 * @return the {@link Element} object at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public Element getElement(final int index) {
+		return ElementHierarchyBuilder.getElement(tagTable,startTagIndexes[index],endTagIndexes[index],ends[index]);
+	}
+
+	/**
+	 * Returns the index of the element that is started by the specified start tag.
+	 * @param startTag  the start tag of an element in the hierarchy.
+	 * @return the index of the element that is started by the specified start tag, or <code>-1</code> if it is not in this tree.
+	 */
+	public int indexOf(final StartTag startTag) {
+		if (startTag.source!=source) return -1;
+		final int startTagIndex=tagTable.indexOf(startTag.begin);
+		if (startTagIndex==-1) return -1;
+		// the elements are in order of their start tags except where elements overlap, so a binary search finds the element in almost all cases
+		int low=0;
+		int high=size-1;
+		while (low<=high) {
+			final int mid=(low+high)>>>1;
+			if (startTagIndexes[mid]<startTagIndex) low=mid+1; else if (startTagIndexes[mid]>startTagIndex) high=mid-1; else return mid;
+		}
+		for (int index=0; index<size; index++) if (startTagIndexes[index]==startTagIndex) return index;
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the most nested {@linkplain StartTagType#NORMAL normal} element that {@linkplain Segment#encloses(int) encloses} the specified position in the source document.
+	 * <p>
+	 * This returns the same element as the {@link Source#getEnclosingElement(int pos)} method, but in logarithmic time
+	 * using an index of the positions of the elements, which is built the first time this method or {@link #getEnclosingElementIndexes(int[])} is called.
+	 *
+	 * @param pos  the position in the source document, may be out of bounds.
+	 * @return the index of the most nested normal element that encloses the specified position, or <code>-1</code> if the position is not within an element or is out of bounds.
+	 */
+	public int getEnclosingElementIndex(final int pos) {
+		final int intervalIndexIndex=getIntervalIndex().getEnclosingIndex(pos);
+		return intervalIndexIndex==-1 ? -1 : intervalElementIndexes[intervalIndexIndex];
+	}
+
+	/**
+	 * Returns the indexes of the most nested {@linkplain StartTagType#NORMAL normal} elements that {@linkplain Segment#encloses(int) enclose} each of the specified positions in the source document.
+	 * <p>
+	 * This is equivalent to calling {@link #getEnclosingElementIndex(int pos)} for each position, but the positions are matched with the elements in a single pass,
+	 * taking time proportional to the number of positions plus the number of elements.
+	 *
+	 * @param positions  the positions in the source document, which must be in ascending order but may be out of bounds.
+	 * @return an array containing the index of the most nested normal element that encloses each position, or <code>-1</code> if the position is not within an element or is out of bounds.
+	 * @throws IllegalArgumentException if the positions are not in ascending order.
+	 */
+	public int[] getEnclosingElementIndexes(final int[] positions) {
+		final int[] enclosingIndexes=getIntervalIndex().getEnclosingIndexes(positions);
+		for (int i=0; i<enclosingIndexes.length; i++) if (enclosingIndexes[i]!=-1) enclosingIndexes[i]=intervalElementIndexes[enclosingIndexes[i]];
+		return enclosingIndexes;
+	}
+
+	Element getEnclosingElement(final int pos) {
+		// returns Element.NOT_CACHED if the result can't be determined from this tree, otherwise the result of Source.getEnclosingElement(pos)
+		if (!containsAllNormalElements) return Element.NOT_CACHED;
+		final int index=getEnclosingElementIndex(pos);
+		return index==-1 ? null : getElement(index);
+	}
+
+	private IntervalIndex getIntervalIndex() {
+		if (intervalIndex==null) {
+			// The elements are almost always in order of begin position already, but might not be if elements overlap.
+			long[] keys=new long[size];
+			int count=0;
+			boolean sorted=true;
+			for (int index=0; index<size; index++) {
+				if (tagTable.getTagType(startTagIndexes[index])!=StartTagType.NORMAL) continue;
+				keys[count]=((long)getBegin(index)<<32)|index;
+				if (count>0 && keys[count]<keys[count-1]) sorted=false;
+				count++;
+			}
+			if (!sorted) Arrays.sort(keys,0,count);
+			final int[] begins=new int[count];
+			final int[] ends=new int[count];
+			intervalElementIndexes=new int[count];
+			for (int i=0; i<count; i++) {
+				final int index=(int)keys[i];
+				intervalElementIndexes[i]=index;
+				begins[i]=getBegin(index);
+				ends[i]=this.ends[index];
+			}
+			intervalIndex=new IntervalIndex(begins,ends,count);
+		}
+		return intervalIndex;
+	}
+
+	/**
+	 * Returns a new {@link Cursor} positioned at the source document, which is the parent of the <a href="Source.html#TopLevelElement">top-level elements</a>.
+	 * @return a new {@link Cursor} positioned at the source document.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Returns a string representation of the tree, useful for debugging purposes.
+	 * @return a string representation of the tree, useful for debugging purposes.
+	 */
+	public String toString() {
+		final StringBuilder sb=new StringBuilder();
+		sb.append("Element tree of ").append(size).append(" elements").append(Config.NewLine);
+		for (int i=0; i<size; i++) {
+			for (int x=0; x<depths[i]; x++) sb.append("  ");
+			sb.append(i).append(": ").append(getName(i)).append(' ').append(getBegin(i)).append('-').append(ends[i]).append(Config.NewLine);
+		}
+		return sb.toString();
+	}
+
+	private static int[] trim(final int[] array, final int size) {
+		return array.length==size ? array : Arrays.copyOf(array,size);
+	}
+
+	/**
+	 * Navigates an {@link ElementTree} without creating any objects.
+	 * <p>
+	 * A cursor is positioned either at an element in the tree, or at the source document itself,
+	 * which acts as the parent of the <a href="Source.html#TopLevelElement">top-level elements</a>.
+	 * The navigation methods move the cursor and return <code>true</code> if the requested element exists,
+	 * or leave it where it is and return <code>false</code> if it does not.
+	 * <p>
+	 * For example, the following code visits every element in the tree in document order:
+	 * <pre>
+	 * ElementTree.Cursor cursor=source.getElementTree().cursor();
+	 * if (cursor.firstChild()) {
+	 *   while (true) {
+	 *     // VISIT ELEMENT AT cursor.index()
+	 *     if (cursor.firstChild()) continue;
+	 *     while (!cursor.nextSibling()) if (!cursor.parent() || cursor.isDocument()) return;
+	 *   }
+	 * }</pre>
+	 * <p>
+	 * Obtained using the {@link ElementTree#cursor()} method.
+	 */
+	public final class Cursor {
+		private int index=-1;
+
+		private Cursor() {}
+
+		/**
+		 * Indicates whether the cursor is positioned at the source document rather than at an element.
+		 * @return <code>true</code> if the cursor is positioned at the source document, otherwise <code>false</code>.
+		 */
+		public boolean isDocument() {
+			return index==-1;
+		}
+
+		/**
+		 * Returns the index in the tree of the element at the cursor.
+		 * @return the index in the tree of the element at the cursor, or <code>-1</code> if the cursor is positioned at the source document.
+		 */
+		public int index() {
+			return index;
+		}
+
+		/**
+		 * Moves the cursor to the element at the specified index in the tree.
+		 * @param index  the index of the element in the tree, or <code>-1</code> to move the cursor to the source document.
+		 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;-1 || index&gt;=size()</code>).
+		 */
+		public void moveTo(final int index) {
+			if (index<-1 || index>=size) throw new IndexOutOfBoundsException("index="+index+" size="+size);
+			this.index=index;
+		}
+
+		/**
+		 * Moves the cursor to the parent of the current element.
+		 * <p>
+		 * If the current element is a <a href="Source.html#TopLevelElement">top-level element</a>, the cursor moves to the source document.
+		 *
+		 * @return <code>true</code> if the cursor was moved, or <code>false</code> if it is positioned at the source document.
+		 */
+		public boolean parent() {
+			if (index==-1) return false;
+			index=parents[index];
+			return true;
+		}
+
+		/**
+		 * Moves the cursor to the first child of the current element.
+		 * <p>
+		 * If the cursor is positioned at the source document, it moves to the first <a href="Source.html#TopLevelElement">top-level element</a>.
+		 *
+		 * @return <code>true</code> if the cursor was moved, or <code>false</code> if the current element has no children.
+		 */
+		public boolean firstChild() {
+			final int firstChild=(index==-1) ? (size==0 ? -1 : 0) : firstChildren[index];
+			if (firstChild==-1) return false;
+			index=firstChild;
+			return true;
+		}
+
+		/**
+		 * Moves the cursor to the next sibling of the current element.
+		 * @return <code>true</code> if the cursor was moved, or <code>false</code> if the current element is the last child of its parent or the cursor is positioned at the source document.
+		 */
+		public boolean nextSibling() {
+			if (index==-1) return false;
+			final int nextSibling=nextSiblings[index];
+			if (nextSibling==-1) return false;
+			index=nextSibling;
+			return true;
+		}
+
+		/**
+		 * Returns the {@linkplain Element#getBegin() begin} position of the current element.
+		 * @return the begin position of the current element, or <code>0</code> if the cursor is positioned at the source document.
+		 */
+		public int begin() {
+			return index==-1 ? 0 : getBegin(index);
+		}
+
+		/**
+		 * Returns the {@linkplain Element#getEnd() end} position of the current element.
+		 * @return the end position of the current element, or the end of the source document if the cursor is positioned at the source document.
+		 */
+		public int end() {
+			return index==-1 ? source.end : ends[index];
+		}
+
+		/**
+		 * Returns the {@linkplain TagTable#getNameId(int) name ID} of the current element.
+		 * @return the name ID of the current element, or <code>-1</code> if the cursor is positioned at the source document.
+		 */
+		public int nameId() {
+			return index==-1 ? -1 : getNameId(index);
+		}
+
+		/**
+		 * Returns the nesting depth of the current element.
+		 * @return the nesting depth of the current element, or <code>-1</code> if the cursor is positioned at the source document.
+		 */
+		public int depth() {
+			return index==-1 ? -1 : depths[index];
+		}
+	}
+}
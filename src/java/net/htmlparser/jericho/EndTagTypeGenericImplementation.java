@@ -143,17 +143,29 @@ public class EndTagTypeGenericImplementation extends EndTagType {
 		int end=-1;
 		if (isStatic()) {
 			name=getNamePrefix();
+			if (!source.hasCharAt(startDelimiterEnd+getClosingDelimiter().length()-1)) {
+				logEndOfTextReached(source,pos);
+				return null;
+			}
 			if (!parseText.containsAt(getClosingDelimiter(),startDelimiterEnd)) {
 				source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source,pos, name+": EndTag of expected format "+staticString," not recognised as type '"+getDescription()+"' because it is missing the closing delimiter"));
 				return null;
 			}
 			end=startDelimiterEnd+getClosingDelimiter().length();
 		} else {
+			if (!source.hasCharAt(startDelimiterEnd)) {
+				logEndOfTextReached(source,pos);
+				return null;
+			}
 			final int nameEnd=source.getNameEnd(startDelimiterEnd);
 			if (nameEnd==-1) return null;
 			name=source.getName(nameBegin,nameEnd);
 			int expectedClosingDelimiterPos=nameEnd;
-			while (Segment.isWhiteSpace(parseText.charAt(expectedClosingDelimiterPos))) expectedClosingDelimiterPos++;
+			while (source.hasCharAt(expectedClosingDelimiterPos) && Segment.isWhiteSpace(parseText.charAt(expectedClosingDelimiterPos))) expectedClosingDelimiterPos++;
+			if (!source.hasCharAt(expectedClosingDelimiterPos+getClosingDelimiter().length()-1)) {
+				logEndOfTextReached(source,pos);
+				return null;
+			}
 			if (!parseText.containsAt(getClosingDelimiter(),expectedClosingDelimiterPos)) {
 			    source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source, pos, "EndTag "+name, " not recognised as type '"+getDescription()+"' because its name and closing delimiter are separated by characters other than white space"));
 				return null;
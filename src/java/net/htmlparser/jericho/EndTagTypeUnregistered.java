@@ -31,7 +31,11 @@ final class EndTagTypeUnregistered extends EndTagType {
 		final ParseText parseText=source.getParseText();
 		final int nameBegin=pos+getStartDelimiter().length();
 		final int nameEnd=parseText.indexOf(getClosingDelimiter(),nameBegin);
-		final String name=source.getName(nameBegin,nameEnd); // throws IndexOutOfBoundsException if nameEnd==-1
+		if (nameEnd==-1) {
+			logEndOfTextReached(source,pos);
+			return null;
+		}
+		final String name=source.getName(nameBegin,nameEnd);
 		final EndTag endTag=constructEndTag(source,pos,nameEnd+getClosingDelimiter().length(),name);
 		source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source,pos, name+" Encountered possible EndTag", " whose content does not match a registered EndTagType"));
 		return endTag;
@@ -0,0 +1,264 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+
+package net.htmlparser.jericho;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Creates a new {@link Source} document from the content of an {@link OutputDocument}, reusing the tags of the original source document
+ * outside of the modified segments instead of parsing the entire new document.
+ * <p>
+ * The {@linkplain OutputDocument#getRegisteredOutputSegments() output segments} are first merged into modified ranges.
+ * The new document is then parsed in the same way as a {@linkplain Source#fullSequentialParse() full sequential parse},
+ * except that while the parse is in the same state as the parse of the original document, each tag of the original document that ends before
+ * the next modified range is added to the new tag table at its shifted position without being parsed again.
+ * Any other '<code>&lt;</code>' character before the next modified range is parsed again, as the original parse might only have rejected it
+ * because of text that has since been modified, for example if it started a comment that was not terminated.
+ * <p>
+ * From the first position that can not be reused, the text is parsed normally until a tag is found after the modified range that has the same
+ * type and length as the tag at the corresponding position in the original document, and leaves the parse in the same state.
+ * From there the parse is the same as that of the original document until the next modified range.
+ * After the last modified range, the remaining tags of the original document are added without examining the text at all.
+ * <p>
+ * The elements are not stored in the tag table, so the elements enclosing the modified ranges are determined from the new tags when they are first requested.
+ * <p>
+ * The reused tags are not parsed again, so any issues in them are not reported to the {@link HtmlIssueProcessingHandler} of the new document.
+ */
+final class IncrementalParser {
+	private final Source source; // the original source document
+	private final TagTable tagTable; // the tags of the original source document
+	private final Source newSource;
+	private final int rangeCount;
+	private final int[] ranges; // RANGE_DATA_SIZE elements for each modified range, see the constants below
+
+	// offsets of the data of each modified range within the ranges array:
+	private static final int BEGIN=0; // the begin position of the range in the original document
+	private static final int END=1; // the end position of the range in the original document
+	private static final int NEW_BEGIN=2; // the begin position of the range in the new document
+	private static final int NEW_END=3; // the end position of the range in the new document
+	private static final int RANGE_DATA_SIZE=4;
+
+	private IncrementalParser(final Source source, final TagTable tagTable, final Source newSource, final int[] ranges) {
+		this.source=source;
+		this.tagTable=tagTable;
+		this.newSource=newSource;
+		this.ranges=ranges;
+		rangeCount=ranges.length/RANGE_DATA_SIZE;
+	}
+
+	static Source parse(final OutputDocument outputDocument) {
+		final CharSequence sourceText=outputDocument.getSourceText();
+		if (!(sourceText instanceof Source)) return new Source(outputDocument.toString());
+		final Source source=(Source)sourceText;
+		final TagTable tagTable=source.cache.getTagTable();
+		// the tags can only be reused if the original document has been fully parsed without any ignored segments, and all of them can be reconstructed from the table:
+		if (tagTable==null || source.hasIgnoredSegments() || tagTable.hasCustomTagTypes()) return new Source(outputDocument.toString());
+		final String text=source.toString();
+		final long estimatedMaximumOutputLength=outputDocument.getEstimatedMaximumOutputLength();
+		final StringBuilder sb=new StringBuilder(estimatedMaximumOutputLength>=0L && estimatedMaximumOutputLength<Integer.MAX_VALUE ? (int)estimatedMaximumOutputLength : text.length());
+		final IntArrayBuilder ranges=new IntArrayBuilder(RANGE_DATA_SIZE*16);
+		// The output segments are written in the same way as in OutputDocument.appendTo, merging the output segments that overlap or adjoin each other into a single range:
+		int pos=0; // the end of the last output segment written, which is also the end of the current range in the original document
+		int rangeBegin=-1; // the begin position of the current range in the original document, or -1 if no output segments have been written
+		int newRangeBegin=-1; // the begin position of the current range in the new document
+		try {
+			for (OutputSegment outputSegment : outputDocument.getRegisteredOutputSegments()) {
+				final int begin=outputSegment.getBegin();
+				final int end=outputSegment.getEnd();
+				if (end<pos) continue; // skip output segments that are enclosed by other output segments
+				if (end==pos && begin<pos) continue; // skip output segments that end at pos unless they are zero length
+				if (rangeBegin==-1 || begin>pos) {
+					if (rangeBegin!=-1) addRange(ranges,rangeBegin,pos,newRangeBegin,sb.length());
+					sb.append(text,pos,begin);
+					rangeBegin=begin;
+					newRangeBegin=sb.length();
+				}
+				if (begin<pos && outputSegment instanceof BlankOutputSegment) {
+					// Overlapping BlankOutputSegments requires special handling to ensure the correct number of blanks are inserted.
+					for (; pos<end; pos++) sb.append(' ');
+				} else {
+					outputSegment.appendTo(sb);
+					pos=end;
+				}
+			}
+		} catch (IOException ex) {throw new RuntimeException(ex);} // assume the IOException is not thrown explicitly by the output segments when appending to a StringBuilder
+		if (rangeBegin!=-1) addRange(ranges,rangeBegin,pos,newRangeBegin,sb.length());
+		sb.append(text,pos,text.length());
+		final Source newSource=new Source(sb);
+		newSource.parseAllTags(new IncrementalParser(source,tagTable,newSource,ranges.toArray()));
+		return newSource;
+	}
+
+	TagTable.Builder parseAll() {
+		final TagTable.Builder builder=new TagTable.Builder(tagTable.size()+16);
+		final int[] fullSequentialParseData=newSource.fullSequentialParseData=new int[1];
+		try {
+			parseAll(builder,newSource.getParseText(),fullSequentialParseData);
+		} catch (IndexOutOfBoundsException ex) {
+			// this should only happen when the end of file is reached in the middle of a tag, as in Tag.parseAll.
+		}
+		return builder;
+	}
+
+	private void parseAll(final TagTable.Builder builder, final ParseText parseText, final int[] fullSequentialParseData) {
+		final int size=tagTable.size();
+		final int[] trialFullSequentialParseData=new int[1]; // the parse state after the tag at the current position, which is discarded if the parse can not continue as in the original document
+		int pos=0; // the position at which the parse of the new document continues its search for the next tag
+		int index=0; // the index in the original tag table of the next tag that might be reused
+		int delta=0; // the number of characters by which positions after the last parsed range are shifted in the new document
+		int rangeIndex=0; // the index of the next modified range
+		while (true) {
+			// the parse of the new document at pos is in the same state as the parse of the original document at pos-delta
+			if (rangeIndex==rangeCount) {
+				// the remaining text is unchanged, so the remaining tags are the same:
+				for (; index<size; index++) builder.add(tagTable.getBegin(index)+delta,tagTable.getEnd(index)+delta,tagTable.getTagType(index),tagTable.getName(index),null);
+				return;
+			}
+			final int rangeBegin=ranges[rangeIndex*RANGE_DATA_SIZE+NEW_BEGIN];
+			int begin;
+			while ((begin=parseText.indexOf('<',pos))!=-1 && begin<rangeBegin) {
+				trialFullSequentialParseData[0]=fullSequentialParseData[0];
+				if (index<size && tagTable.getBegin(index)+delta==begin) {
+					final int end=tagTable.getEnd(index)+delta;
+					final TagType tagType=tagTable.getTagType(index);
+					if (end>rangeBegin) break; // the tag has to be parsed again
+					if (!isParsedWithinTag(tagType) || TagTypeRegister.getProspectiveTagTypes(newSource,begin)[0]!=tagType || parseText.indexOf('<',begin+1,end)!=-1) {
+						// The tag is parsed again if the result might have depended on text after its end, which might have been modified.
+						// This is the case if its tag type looks further ahead, if a tag type with a higher priority was rejected, for example because of an unterminated quote,
+						// or if the tag contains a '<' character that might start a server tag extending beyond its end.
+						final Tag tag=Tag.parseAllgetNextTag(newSource,parseText,null,begin,begin+1,trialFullSequentialParseData,false);
+						if (tag==null || tag.end!=end || tag.getTagType()!=tagType) break;
+						builder.add(tag);
+						pos=(tagType==StartTagType.SERVER_COMMON_COMMENT) ? end : begin+1;
+					} else {
+						if (!tagType.isValidPosition(newSource,begin,trialFullSequentialParseData)) break;
+						final String name=tagTable.getName(index);
+						final StartTag scriptStartTag=(tagType==StartTagType.NORMAL && name==HTMLElementName.SCRIPT) ? (StartTag)TagTable.constructTag(newSource,tagType,begin,end) : null;
+						setStateAfterTag(trialFullSequentialParseData,end,tagType,scriptStartTag);
+						builder.add(begin,end,tagType,name,scriptStartTag);
+						pos=end; // the tag does not contain any other '<' characters
+					}
+					index++;
+				} else {
+					// The original parse found no tag here, but it may have been rejected because of the text in a modified range later in the document.
+					if (Tag.parseAllgetNextTag(newSource,parseText,null,begin,begin+1,trialFullSequentialParseData,false)!=null) break;
+					if (fullSequentialParseData[0]==Integer.MAX_VALUE) {
+						// inside a SCRIPT element the position can change the parse state even though no tag was found, so check that it had the same effect in the original document:
+						final int[] originalFullSequentialParseData=new int[] {Integer.MAX_VALUE};
+						replayPosition(source,begin-delta,null,originalFullSequentialParseData);
+						if (!isSameState(trialFullSequentialParseData[0],originalFullSequentialParseData[0],delta,begin)) break;
+					}
+					pos=begin+1;
+				}
+				fullSequentialParseData[0]=trialFullSequentialParseData[0];
+			}
+			if (begin==-1) return;
+			// Parse the text normally until it is back in step with the original parse after a modified range:
+			pos=begin;
+			final int[] originalFullSequentialParseData=new int[] {fullSequentialParseData[0]==Integer.MAX_VALUE ? Integer.MAX_VALUE : fullSequentialParseData[0]-delta};
+			int originalIndex=index; // the index of the next tag in the original tag table whose effect on the parse state has not been replayed
+			int originalPos=begin-delta; // the position in the original document from which its parse state has not been replayed
+			while (true) {
+				final Tag tag=Tag.parseAllgetNextTag(newSource,parseText,null,pos,ParseText.NO_BREAK,fullSequentialParseData,false);
+				if (tag==null) return;
+				builder.add(tag);
+				pos=(tag.getTagType()==StartTagType.SERVER_COMMON_COMMENT) ? tag.end : tag.begin+1;
+				if (pos==newSource.end) return;
+				while (rangeIndex+1<rangeCount && tag.begin>=ranges[(rangeIndex+1)*RANGE_DATA_SIZE+NEW_BEGIN]) rangeIndex++;
+				if (tag.begin<ranges[rangeIndex*RANGE_DATA_SIZE+NEW_END]) continue;
+				if (rangeIndex+1<rangeCount && tag.end>ranges[(rangeIndex+1)*RANGE_DATA_SIZE+NEW_BEGIN]) continue;
+				final int rangeDelta=ranges[rangeIndex*RANGE_DATA_SIZE+NEW_END]-ranges[rangeIndex*RANGE_DATA_SIZE+END];
+				final int originalTagIndex=tagTable.indexOf(tag.begin-rangeDelta);
+				if (originalTagIndex<originalIndex || tagTable.getEnd(originalTagIndex)+rangeDelta!=tag.end || tagTable.getTagType(originalTagIndex)!=tag.getTagType()) continue;
+				for (; originalIndex<=originalTagIndex; originalIndex++) {
+					final int originalBegin=tagTable.getBegin(originalIndex);
+					replayRejectedPositions(originalPos,originalBegin,originalFullSequentialParseData);
+					replayTag(originalIndex,originalFullSequentialParseData);
+					originalPos=(tagTable.getTagType(originalIndex)==StartTagType.SERVER_COMMON_COMMENT) ? tagTable.getEnd(originalIndex) : originalBegin+1;
+				}
+				if (isSameState(fullSequentialParseData[0],originalFullSequentialParseData[0],rangeDelta,pos)) {
+					index=originalTagIndex+1;
+					delta=rangeDelta;
+					rangeIndex++;
+					break;
+				}
+			}
+		}
+	}
+
+	private void replayTag(final int index, final int[] fullSequentialParseData) {
+		// changes the state of the parse of the original document in the same way as when the tag at the specified index was found
+		final TagType tagType=tagTable.getTagType(index);
+		final int begin=tagTable.getBegin(index);
+		replayPosition(source,begin,tagType,fullSequentialParseData);
+		final StartTag scriptStartTag=(tagType==StartTagType.NORMAL && tagTable.getName(index)==HTMLElementName.SCRIPT) ? (StartTag)tagTable.getTag(index) : null;
+		setStateAfterTag(fullSequentialParseData,tagTable.getEnd(index),tagType,scriptStartTag);
+	}
+
+	private void replayRejectedPositions(final int begin, final int end, final int[] fullSequentialParseData) {
+		// changes the state of the parse of the original document in the same way as the positions between begin and end at which no tag was found
+		if (fullSequentialParseData[0]!=Integer.MAX_VALUE) return; // the state is only changed by positions inside a SCRIPT element
+		final ParseText parseText=source.getParseText();
+		for (int pos=begin; (pos=parseText.indexOf('<',pos,end))!=-1; pos++) {
+			replayPosition(source,pos,null,fullSequentialParseData);
+			if (fullSequentialParseData[0]!=Integer.MAX_VALUE) return;
+		}
+	}
+
+	private static void replayPosition(final Source source, final int pos, final TagType tagType, final int[] fullSequentialParseData) {
+		// Calls isValidPosition for each prospective tag type at pos in the same order as TagType.getTagAt, up to the specified tag type or all of them if it is null.
+		// Inside a SCRIPT element this changes the state at the start of a comment or "</script", even if no tag is found there.
+		for (TagType prospectiveTagType : TagTypeRegister.getProspectiveTagTypes(source,pos)) {
+			prospectiveTagType.isValidPosition(source,pos,fullSequentialParseData);
+			if (prospectiveTagType==tagType) return;
+		}
+	}
+
+	private static void setStateAfterTag(final int[] fullSequentialParseData, final int end, final TagType tagType, final StartTag scriptStartTag) {
+		// the same as in Tag.parseAllgetNextTag, where scriptStartTag is the tag if it is a normal SCRIPT start tag, otherwise null
+		if (end>fullSequentialParseData[0] && tagType!=StartTagType.DOCTYPE_DECLARATION && tagType!=StartTagType.UNREGISTERED && tagType!=EndTagType.UNREGISTERED)
+			fullSequentialParseData[0]=(scriptStartTag!=null && !scriptStartTag.isEmptyElementTag()) ? Integer.MAX_VALUE : end;
+	}
+
+	private static boolean isParsedWithinTag(final TagType tagType) {
+		// Returns true if the predefined tag type only examines the text of the tag itself when it successfully constructs a tag, not counting server tags inside it.
+		// Other tag types, such as a mason named block, which requires a matching end tag, might examine text after the end of the tag.
+		return tagType==StartTagType.NORMAL || tagType==EndTagType.NORMAL || tagType==StartTagType.COMMENT || tagType==StartTagType.CDATA_SECTION
+			|| tagType==StartTagType.DOCTYPE_DECLARATION || tagType==StartTagType.MARKUP_DECLARATION || tagType==StartTagType.XML_DECLARATION || tagType==StartTagType.XML_PROCESSING_INSTRUCTION
+			|| tagType==StartTagType.SERVER_COMMON || tagType==StartTagType.SERVER_COMMON_ESCAPED || tagType==StartTagType.SERVER_COMMON_COMMENT;
+	}
+
+	private static boolean isSameState(final int state, final int originalState, final int delta, final int pos) {
+		// Only tags at or after pos are examined, and any state value up to pos has the same effect on them.
+		if (state==Integer.MAX_VALUE || originalState==Integer.MAX_VALUE) return state==originalState;
+		return Math.max(state,pos)==Math.max(originalState+delta,pos);
+	}
+
+	private static void addRange(final IntArrayBuilder ranges, final int begin, final int end, final int newBegin, final int newEnd) {
+		// the values must be added in the order of the BEGIN, END, NEW_BEGIN and NEW_END constants
+		ranges.add(begin);
+		ranges.add(end);
+		ranges.add(newBegin);
+		ranges.add(newEnd);
+	}
+}
@@ -0,0 +1,53 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+/**
+ * Builds an array of <code>int</code> values of unknown length, without boxing each value.
+ */
+final class IntArrayBuilder {
+	private int[] array;
+	private int size=0;
+
+	IntArrayBuilder(final int initialCapacity) {
+		array=new int[initialCapacity];
+	}
+
+	void add(final int value) {
+		if (size==array.length) {
+			final int[] newArray=new int[array.length<<1];
+			System.arraycopy(array,0,newArray,0,size);
+			array=newArray;
+		}
+		array[size++]=value;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int[] toArray() {
+		if (size==array.length) return array;
+		final int[] result=new int[size];
+		System.arraycopy(array,0,result,0,size);
+		return result;
+	}
+}
@@ -0,0 +1,110 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+
+package net.htmlparser.jericho;
+
+/**
+ * Finds the interval with the greatest begin position that encloses a given position, from a fixed set of intervals.
+ * <p>
+ * The intervals are specified by parallel arrays of begin and end positions, which must be in ascending order of begin position.
+ * An interval encloses a position if <code>begin&lt;=pos &amp;&amp; pos&lt;end</code>.
+ * The intervals may be nested or overlap in any way.
+ * <p>
+ * When the intervals are the elements of a document, the enclosing interval with the greatest begin position is the one found by {@link Source#getEnclosingElement(int pos)},
+ * which is the most nested element if the elements do not overlap.
+ * <p>
+ * A single position is looked up in logarithmic time using a binary search on the begin positions,
+ * followed by a search of a tree holding the maximum end position of each range of intervals.
+ * A sorted array of positions is looked up in a single merged pass over the intervals and positions using a stack of open intervals.
+ */
+final class IntervalIndex {
+	private final int[] begins;
+	private final int[] ends;
+	private final int size;
+	private final int leafCount; // the number of leaves in maxEnds, which is the smallest power of two not less than size
+	private final int[] maxEnds; // maxEnds[1] is the root, the children of node x are 2x and 2x+1, and the leaves start at leafCount
+
+	IntervalIndex(final int[] begins, final int[] ends, final int size) {
+		this.begins=begins;
+		this.ends=ends;
+		this.size=size;
+		int leafCount=1;
+		while (leafCount<size) leafCount<<=1;
+		this.leafCount=leafCount;
+		maxEnds=new int[leafCount*2];
+		for (int i=0; i<leafCount; i++) maxEnds[leafCount+i]=(i<size) ? ends[i] : Integer.MIN_VALUE;
+		for (int node=leafCount-1; node>0; node--) maxEnds[node]=Math.max(maxEnds[node*2],maxEnds[node*2+1]);
+	}
+
+	/**
+	 * Returns the index of the interval with the greatest begin position that encloses the specified position.
+	 * @param pos  the position.
+	 * @return the index of the interval with the greatest begin position that encloses the specified position, or <code>-1</code> if no interval encloses it.
+	 */
+	int getEnclosingIndex(final int pos) {
+		// find the last interval beginning at or before pos
+		int low=0;
+		int high=size;
+		while (low<high) {
+			final int mid=(low+high)>>>1;
+			if (begins[mid]<=pos) low=mid+1; else high=mid;
+		}
+		if (low==0) return -1;
+		// find the last interval at or before that one that ends after pos, by checking the left siblings of each node on the path to the root
+		int node=leafCount+low-1;
+		if (maxEnds[node]>pos) return low-1;
+		while (node>1) {
+			if ((node&1)==1 && maxEnds[node-1]>pos) {
+				node--;
+				while (node<leafCount) node=(maxEnds[node*2+1]>pos) ? node*2+1 : node*2;
+				return node-leafCount;
+			}
+			node>>=1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the indexes of the intervals with the greatest begin positions that enclose each of the specified positions.
+	 * @param positions  the positions, which must be in ascending order.
+	 * @return an array containing the index of the interval with the greatest begin position that encloses each position, or <code>-1</code> if no interval encloses it.
+	 * @throws IllegalArgumentException if the positions are not in ascending order.
+	 */
+	int[] getEnclosingIndexes(final int[] positions) {
+		final int[] enclosingIndexes=new int[positions.length];
+		// The stack contains the intervals that have been passed, excluding some that are known to have ended.
+		// As the positions are in ascending order, an interval that has ended before one position has also ended before all subsequent positions,
+		// so the enclosing interval is found by discarding ended intervals from the top of the stack.
+		final int[] stack=new int[size];
+		int stackSize=0;
+		int next=0;
+		int lastPos=Integer.MIN_VALUE;
+		for (int i=0; i<positions.length; i++) {
+			final int pos=positions[i];
+			if (pos<lastPos) throw new IllegalArgumentException("positions must be in ascending order: positions["+i+"]="+pos+" follows "+lastPos);
+			lastPos=pos;
+			while (next<size && begins[next]<=pos) stack[stackSize++]=next++;
+			while (stackSize>0 && ends[stack[stackSize-1]]<=pos) stackSize--;
+			enclosingIndexes[i]=(stackSize>0) ? stack[stackSize-1] : -1;
+		}
+		return enclosingIndexes;
+	}
+}
@@ -0,0 +1,273 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+
+/**
+ * Represents the text of a memory-mapped file as a <code>CharSequence</code> without loading the decoded text into the heap.
+ * <p>
+ * If every byte of the encoding decodes to exactly one character, as is the case for ISO-8859-1, Windows-1252 and the other
+ * single-byte encodings, each character is decoded from its byte using a lookup table when it is accessed.
+ * The same applies to a file in an ASCII compatible encoding such as UTF-8 that only contains ASCII characters.
+ * <p>
+ * Otherwise the file is decoded once on construction to determine the byte position at which each page of {@link #PAGE_SIZE} characters begins.
+ * Pages are then decoded again on demand, and only the most recently used {@link #CACHED_PAGE_COUNT} pages are kept in the heap.
+ * This requires a decoder that can be restarted at any character boundary, so for encodings that use shift sequences
+ * such as ISO-2022-JP, UTF-7 and SCSU the text is decoded into a <code>String</code> instead.
+ * <p>
+ * A byte order mark at the start of the file is not included in the text.
+ * <p>
+ * Only used via the {@link Source#mapFile(File,String)} method.
+ */
+abstract class MappedText implements CharSequence {
+	final ByteBuffer bytes; // the mapped bytes excluding any byte order mark
+	private final int length;
+
+	static final int PAGE_SIZE=16384;
+	static final int CACHED_PAGE_COUNT=16;
+
+	private static final String[] NON_RESTARTABLE_ENCODING_PREFIXES={"ISO-2022","UTF-7","SCSU","X-ISO-2022","X-UTF-7"};
+
+	private MappedText(final ByteBuffer bytes, final int length) {
+		this.bytes=bytes;
+		this.length=length;
+	}
+
+	/**
+	 * Returns the text of the specified file decoded using the specified encoding, which must not be <code>null</code>.
+	 * @return a <code>MappedText</code> object, or a <code>String</code> if the encoding can not be decoded page by page.
+	 * @throws UnsupportedEncodingException if the encoding is not supported or is not a legal character set name.
+	 */
+	static CharSequence map(final File file, final String encoding) throws IOException {
+		Charset charset;
+		try {
+			charset=Charset.forName(encoding);
+		} catch (IllegalCharsetNameException ex) {
+			throw new UnsupportedEncodingException(encoding);
+		} catch (UnsupportedCharsetException ex) {
+			throw new UnsupportedEncodingException(encoding);
+		}
+		final ByteBuffer mappedBytes=mapFile(file);
+		final int byteOrderMarkLength=getByteOrderMarkLength(mappedBytes,charset);
+		if (charset.name().equals("UTF-16")) charset=Charset.forName(isLittleEndianByteOrderMark(mappedBytes) ? "UTF-16LE" : "UTF-16BE");
+		else if (charset.name().equals("UTF-32")) charset=Charset.forName(isLittleEndianByteOrderMark(mappedBytes) ? "UTF-32LE" : "UTF-32BE");
+		mappedBytes.position(byteOrderMarkLength);
+		final ByteBuffer bytes=mappedBytes.slice();
+		if (isSingleByte(charset)) return new SingleByteText(bytes,getSingleByteTable(charset));
+		if (isASCIICompatible(charset) && isASCII(bytes)) return new SingleByteText(bytes,getSingleByteTable(Charset.forName("ISO-8859-1")));
+		final CharsetDecoder decoder=newDecoder(charset);
+		if (!isRestartable(charset)) return decoder.decode(bytes).toString();
+		return PagedText.decodePageBegins(bytes,decoder);
+	}
+
+	public final int length() {
+		return length;
+	}
+
+	public final String subSequence(final int begin, final int end) {
+		if (begin<0 || end>length || begin>end) throw new IndexOutOfBoundsException("begin="+begin+", end="+end+", length="+length);
+		final char[] chars=new char[end-begin];
+		for (int i=begin; i<end; i++) chars[i-begin]=charAt(i);
+		return new String(chars);
+	}
+
+	public final String toString() {
+		return subSequence(0,length);
+	}
+
+	private static ByteBuffer mapFile(final File file) throws IOException {
+		final FileInputStream fileInputStream=new FileInputStream(file);
+		try {
+			final FileChannel fileChannel=fileInputStream.getChannel();
+			final long size=fileChannel.size();
+			if (size>Integer.MAX_VALUE) throw new IOException(file+" is too large to be represented as a CharSequence ("+size+" bytes)");
+			return fileChannel.map(FileChannel.MapMode.READ_ONLY,0,size); // the mapping remains valid after the channel is closed
+		} finally {
+			fileInputStream.close();
+		}
+	}
+
+	private static int getByteOrderMarkLength(final ByteBuffer bytes, final Charset charset) {
+		final String name=charset.name();
+		if (name.equals("UTF-8")) return startsWith(bytes,0xEF,0xBB,0xBF) ? 3 : 0;
+		if (name.startsWith("UTF-16")) return startsWith(bytes,0xFE,0xFF) || startsWith(bytes,0xFF,0xFE) ? 2 : 0;
+		if (name.startsWith("UTF-32")) return startsWith(bytes,0,0,0xFE,0xFF) || startsWith(bytes,0xFF,0xFE,0,0) ? 4 : 0;
+		return 0;
+	}
+
+	private static boolean isLittleEndianByteOrderMark(final ByteBuffer bytes) {
+		return startsWith(bytes,0xFF,0xFE);
+	}
+
+	private static boolean startsWith(final ByteBuffer bytes, final int... byteValues) {
+		if (bytes.limit()<byteValues.length) return false;
+		for (int i=0; i<byteValues.length; i++) if ((bytes.get(i)&0xFF)!=byteValues[i]) return false;
+		return true;
+	}
+
+	private static boolean isSingleByte(final Charset charset) {
+		if (!charset.canEncode()) return false;
+		final CharsetDecoder decoder=charset.newDecoder();
+		return charset.newEncoder().maxBytesPerChar()==1.0F && decoder.maxCharsPerByte()==1.0F && decoder.averageCharsPerByte()==1.0F;
+	}
+
+	private static boolean isASCIICompatible(final Charset charset) {
+		final String name=charset.name();
+		return name.equals("UTF-8") || name.equals("US-ASCII") || name.startsWith("EUC-") || name.equals("GBK") || name.equals("GB18030") || name.equals("Big5");
+	}
+
+	private static boolean isASCII(final ByteBuffer bytes) {
+		for (int i=0; i<bytes.limit(); i++) if (bytes.get(i)<0) return false;
+		return true;
+	}
+
+	private static boolean isRestartable(final Charset charset) {
+		final String name=charset.name().toUpperCase();
+		for (String prefix : NON_RESTARTABLE_ENCODING_PREFIXES) if (name.startsWith(prefix)) return false;
+		return true;
+	}
+
+	private static char[] getSingleByteTable(final Charset charset) {
+		final byte[] allBytes=new byte[256];
+		for (int i=0; i<256; i++) allBytes[i]=(byte)i;
+		final char[] table=new char[256];
+		try {
+			final CharBuffer chars=newDecoder(charset).decode(ByteBuffer.wrap(allBytes));
+			if (chars.remaining()!=256) throw new IllegalStateException();
+			chars.get(table);
+		} catch (CharacterCodingException ex) {
+			throw new IllegalStateException(ex); // never happens as malformed input is replaced
+		}
+		return table;
+	}
+
+	private static CharsetDecoder newDecoder(final Charset charset) {
+		// replace malformed and unmappable input in the same way as InputStreamReader does
+		return charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	private static final class SingleByteText extends MappedText {
+		private final char[] table;
+
+		SingleByteText(final ByteBuffer bytes, final char[] table) {
+			super(bytes,bytes.limit());
+			this.table=table;
+		}
+
+		public char charAt(final int index) {
+			return table[bytes.get(index)&0xFF]; // absolute get does not modify the buffer so is safe to use from multiple threads
+		}
+	}
+
+	private static final class PagedText extends MappedText {
+		private final CharsetDecoder decoder;
+		private final int[] pageByteBegins; // has one more entry than the number of pages, the last being the end of the bytes
+		private final int[] pageCharBegins; // has one more entry than the number of pages, the last being the length of the text
+		private final Page[] cachedPages=new Page[CACHED_PAGE_COUNT];
+		private int nextCachedPageIndex=0;
+		private volatile Page lastPage=null;
+
+		private PagedText(final ByteBuffer bytes, final CharsetDecoder decoder, final int[] pageByteBegins, final int[] pageCharBegins) {
+			super(bytes,pageCharBegins[pageCharBegins.length-1]);
+			this.decoder=decoder;
+			this.pageByteBegins=pageByteBegins;
+			this.pageCharBegins=pageCharBegins;
+		}
+
+		// decodes all of the bytes once to determine where each page begins.
+		static PagedText decodePageBegins(final ByteBuffer bytes, final CharsetDecoder decoder) throws IOException {
+			final int initialCapacity=Math.max(16,bytes.limit()/PAGE_SIZE+2);
+			final IntArrayBuilder pageByteBegins=new IntArrayBuilder(initialCapacity);
+			final IntArrayBuilder pageCharBegins=new IntArrayBuilder(initialCapacity);
+			final ByteBuffer in=bytes.duplicate();
+			final CharBuffer out=CharBuffer.allocate(PAGE_SIZE);
+			long charCount=0;
+			decoder.reset();
+			pageByteBegins.add(0);
+			pageCharBegins.add(0);
+			while (true) {
+				out.clear();
+				final boolean endOfInput=decoder.decode(in,out,true).isUnderflow();
+				if (endOfInput) decoder.flush(out);
+				charCount+=out.position();
+				if (charCount>Integer.MAX_VALUE) throw new IOException("Text is too long to be represented as a CharSequence ("+charCount+" characters)");
+				if (endOfInput) break;
+				pageByteBegins.add(in.position());
+				pageCharBegins.add((int)charCount);
+			}
+			pageByteBegins.add(in.position());
+			pageCharBegins.add((int)charCount);
+			return new PagedText(bytes,decoder,pageByteBegins.toArray(),pageCharBegins.toArray());
+		}
+
+		public char charAt(final int index) {
+			Page page=lastPage;
+			if (page==null || index<page.charBegin || index>=page.charEnd) {
+				if (index<0 || index>=length()) throw new IndexOutOfBoundsException("index="+index+", length="+length());
+				lastPage=page=getPage(index);
+			}
+			return page.chars[index-page.charBegin];
+		}
+
+		private synchronized Page getPage(final int charIndex) {
+			for (Page page : cachedPages) if (page!=null && charIndex>=page.charBegin && charIndex<page.charEnd) return page;
+			// find the last page that begins at or before charIndex:
+			int low=0;
+			int high=pageCharBegins.length-2;
+			while (low<high) {
+				final int mid=(low+high+1) >>> 1;
+				if (pageCharBegins[mid]<=charIndex) low=mid; else high=mid-1;
+			}
+			final Page page=new Page(pageCharBegins[low],decodePage(low));
+			cachedPages[nextCachedPageIndex]=page;
+			nextCachedPageIndex=(nextCachedPageIndex+1)%CACHED_PAGE_COUNT;
+			return page;
+		}
+
+		private char[] decodePage(final int pageIndex) {
+			final ByteBuffer in=bytes.duplicate();
+			in.limit(pageByteBegins[pageIndex+1]);
+			in.position(pageByteBegins[pageIndex]);
+			final char[] chars=new char[pageCharBegins[pageIndex+1]-pageCharBegins[pageIndex]];
+			final CharBuffer out=CharBuffer.wrap(chars);
+			decoder.reset();
+			decoder.decode(in,out,true);
+			decoder.flush(out);
+			return chars;
+		}
+	}
+
+	private static final class Page {
+		final int charBegin;
+		final int charEnd;
+		final char[] chars;
+
+		Page(final int charBegin, final char[] chars) {
+			this.charBegin=charBegin;
+			this.charEnd=charBegin+chars.length;
+			this.chars=chars;
+		}
+	}
+}
@@ -0,0 +1,270 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+
+package net.htmlparser.jericho;
+
+/**
+ * Implements the {@link ParseText} of a {@link Source} document containing {@linkplain Segment#ignoreWhenParsing() ignored} segments.
+ * <p>
+ * Rather than creating a copy of the document in which the ignored segments are replaced by spaces, this class wraps the
+ * parse text of the unmodified document and stores the ignored ranges as sorted arrays of begin and end positions.
+ * Overlapping and adjacent ranges are merged, so the memory used is proportional to the number of ranges rather than to the length of the document.
+ * <p>
+ * A character inside an ignored range is reported as a space.
+ * Searches are delegated to the underlying parse text, and a match that overlaps an ignored range is discarded and the search
+ * resumed from the far side of the range.
+ * This is only valid if the search string does not contain a space, so searches for a space or for a string containing a space
+ * examine each candidate position individually.
+ */
+final class MaskedParseText implements ParseText {
+	private final ParseText parseText; // the parse text of the unmodified document
+	private int[] begins=new int[4];
+	private int[] ends=new int[4];
+	private int rangeCount=0;
+	private int nextRangeIndexHint=0; // the result of the last call to getNextRangeIndex, which is not synchronised as it is always validated before use
+
+	MaskedParseText(final ParseText parseText) {
+		this.parseText=parseText;
+	}
+
+	/**
+	 * Replaces the specified range of the parse text with spaces.
+	 * <p>
+	 * Ranges are usually added in ascending order, in which case each new range is simply appended.
+	 */
+	void mask(int begin, int end) {
+		if (begin<0) begin=0;
+		if (end>parseText.length()) end=parseText.length();
+		if (begin>=end) return;
+		// ranges from firstIndex (inclusive) to lastIndex (exclusive) overlap or adjoin the new range and are merged into it:
+		final int firstIndex=getNextRangeIndex(begin-1);
+		int lastIndex=firstIndex;
+		while (lastIndex<rangeCount && begins[lastIndex]<=end) lastIndex++;
+		if (firstIndex<lastIndex) {
+			if (begins[firstIndex]<begin) begin=begins[firstIndex];
+			if (ends[lastIndex-1]>end) end=ends[lastIndex-1];
+		}
+		final int newRangeCount=rangeCount-(lastIndex-firstIndex)+1;
+		if (newRangeCount>begins.length) {
+			final int capacity=Math.max(newRangeCount,begins.length*2);
+			final int[] newBegins=new int[capacity];
+			final int[] newEnds=new int[capacity];
+			System.arraycopy(begins,0,newBegins,0,rangeCount);
+			System.arraycopy(ends,0,newEnds,0,rangeCount);
+			begins=newBegins;
+			ends=newEnds;
+		}
+		System.arraycopy(begins,lastIndex,begins,firstIndex+1,rangeCount-lastIndex);
+		System.arraycopy(ends,lastIndex,ends,firstIndex+1,rangeCount-lastIndex);
+		begins[firstIndex]=begin;
+		ends[firstIndex]=end;
+		rangeCount=newRangeCount;
+	}
+
+	int getRangeCount() {
+		return rangeCount;
+	}
+
+	int getRangeBegin(final int rangeIndex) {
+		return begins[rangeIndex];
+	}
+
+	int getRangeEnd(final int rangeIndex) {
+		return ends[rangeIndex];
+	}
+
+	public char charAt(final int index) {
+		return isMasked(index) ? ' ' : parseText.charAt(index);
+	}
+
+	public boolean containsAt(final String str, final int pos) {
+		if (!overlapsRange(pos,pos+str.length())) return parseText.containsAt(str,pos);
+		for (int i=0; i<str.length(); i++)
+			if (str.charAt(i)!=charAt(pos+i)) return false;
+		return true;
+	}
+
+	public int indexOf(final char searchChar, final int fromIndex) {
+		return indexOf(searchChar,fromIndex,NO_BREAK);
+	}
+
+	public int indexOf(final char searchChar, final int fromIndex, final int breakAtIndex) {
+		if (searchChar==' ') {
+			final int pos=parseText.indexOf(' ',fromIndex,breakAtIndex);
+			final int startIndex=(fromIndex<0 ? 0 : fromIndex);
+			final int rangeIndex=getNextRangeIndex(startIndex);
+			if (rangeIndex==rangeCount) return pos;
+			final int maskedPos=Math.max(begins[rangeIndex],startIndex);
+			if (breakAtIndex!=NO_BREAK && maskedPos>=breakAtIndex) return pos;
+			return (pos==-1 || maskedPos<pos) ? maskedPos : pos;
+		}
+		int pos=fromIndex;
+		while (true) {
+			pos=parseText.indexOf(searchChar,pos,breakAtIndex);
+			if (pos==-1) return -1;
+			final int rangeIndex=getRangeIndex(pos);
+			if (rangeIndex==-1) return pos;
+			pos=ends[rangeIndex];
+		}
+	}
+
+	public int indexOf(final String searchString, final int fromIndex) {
+		return indexOf(searchString,fromIndex,NO_BREAK);
+	}
+
+	public int indexOf(final String searchString, final int fromIndex, final int breakAtIndex) {
+		if (searchString.length()==1) return indexOf(searchString.charAt(0),fromIndex,breakAtIndex);
+		if (searchString.length()==0) return fromIndex;
+		if (searchString.indexOf(' ')!=-1) {
+			// a match may include masked characters, so check each position at which the first character occurs:
+			final int lastPossiblePos=length()-searchString.length();
+			final char firstChar=searchString.charAt(0);
+			for (int pos=indexOf(firstChar,fromIndex,breakAtIndex); pos!=-1 && pos<=lastPossiblePos; pos=indexOf(firstChar,pos+1,breakAtIndex))
+				if (containsAt(searchString,pos)) return pos;
+			return -1;
+		}
+		int pos=fromIndex;
+		while (true) {
+			pos=parseText.indexOf(searchString,pos,breakAtIndex);
+			if (pos==-1) return -1;
+			// a match that overlaps a masked range is not a match in this text, and neither is any other match starting before the end of the range:
+			final int rangeIndex=getNextRangeIndex(pos);
+			if (rangeIndex==rangeCount || begins[rangeIndex]>=pos+searchString.length()) return pos;
+			pos=ends[rangeIndex];
+		}
+	}
+
+	public int lastIndexOf(final char searchChar, final int fromIndex) {
+		return lastIndexOf(searchChar,fromIndex,NO_BREAK);
+	}
+
+	public int lastIndexOf(final char searchChar, final int fromIndex, final int breakAtIndex) {
+		if (searchChar==' ') {
+			final int pos=parseText.lastIndexOf(' ',fromIndex,breakAtIndex);
+			final int startIndex=(fromIndex>=length() ? length()-1 : fromIndex);
+			final int rangeIndex=getPreviousRangeIndex(startIndex);
+			if (rangeIndex==-1) return pos;
+			final int maskedPos=Math.min(ends[rangeIndex]-1,startIndex);
+			if (maskedPos<=breakAtIndex) return pos;
+			return maskedPos>pos ? maskedPos : pos;
+		}
+		int pos=fromIndex;
+		while (true) {
+			pos=parseText.lastIndexOf(searchChar,pos,breakAtIndex);
+			if (pos==-1) return -1;
+			final int rangeIndex=getRangeIndex(pos);
+			if (rangeIndex==-1) return pos;
+			pos=begins[rangeIndex]-1;
+			if (pos<0) return -1;
+		}
+	}
+
+	public int lastIndexOf(final String searchString, final int fromIndex) {
+		return lastIndexOf(searchString,fromIndex,NO_BREAK);
+	}
+
+	public int lastIndexOf(final String searchString, final int fromIndex, final int breakAtIndex) {
+		if (searchString.length()==1) return lastIndexOf(searchString.charAt(0),fromIndex,breakAtIndex);
+		if (searchString.length()==0) return fromIndex;
+		final int rightIndex=length()-searchString.length();
+		if (breakAtIndex>rightIndex) return -1;
+		if (searchString.indexOf(' ')!=-1) {
+			final char firstChar=searchString.charAt(0);
+			for (int pos=lastIndexOf(firstChar,fromIndex>rightIndex ? rightIndex : fromIndex,breakAtIndex); pos>=0; pos=lastIndexOf(firstChar,pos-1,breakAtIndex))
+				if (containsAt(searchString,pos)) return pos;
+			return -1;
+		}
+		int pos=fromIndex;
+		while (true) {
+			pos=parseText.lastIndexOf(searchString,pos,breakAtIndex);
+			if (pos==-1) return -1;
+			final int rangeIndex=getNextRangeIndex(pos);
+			if (rangeIndex==rangeCount || begins[rangeIndex]>=pos+searchString.length()) return pos;
+			pos=begins[rangeIndex]-searchString.length();
+			if (pos<0) return -1;
+		}
+	}
+
+	public int length() {
+		return parseText.length();
+	}
+
+	public CharSequence subSequence(final int begin, final int end) {
+		// doesn't have to be efficient because it is not actually used anywhere internally.
+		if (!overlapsRange(begin,end)) return parseText.subSequence(begin,end);
+		final StringBuilder sb=new StringBuilder(end-begin);
+		for (int i=begin; i<end; i++) sb.append(charAt(i));
+		return sb.toString();
+	}
+
+	public String toString() {
+		return subSequence(0,length()).toString();
+	}
+
+	private boolean isMasked(final int pos) {
+		return getRangeIndex(pos)!=-1;
+	}
+
+	private boolean overlapsRange(final int begin, final int end) {
+		final int rangeIndex=getNextRangeIndex(begin);
+		return rangeIndex<rangeCount && begins[rangeIndex]<end;
+	}
+
+	/**
+	 * Returns the index of the range containing the specified position, or -1 if the position is not masked.
+	 */
+	private int getRangeIndex(final int pos) {
+		final int rangeIndex=getNextRangeIndex(pos);
+		return (rangeIndex<rangeCount && begins[rangeIndex]<=pos) ? rangeIndex : -1;
+	}
+
+	/**
+	 * Returns the index of the last range beginning at or before the specified position, or -1 if there is none.
+	 */
+	private int getPreviousRangeIndex(final int pos) {
+		int low=0;
+		int high=rangeCount-1;
+		while (low<=high) {
+			final int mid=(low+high)>>>1;
+			if (begins[mid]<=pos) low=mid+1; else high=mid-1;
+		}
+		return high;
+	}
+
+	/**
+	 * Returns the index of the first range ending after the specified position, or {@link #rangeCount} if there is none.
+	 * <p>
+	 * This is the range containing the position if it is masked, otherwise the next range after it.
+	 */
+	private int getNextRangeIndex(final int pos) {
+		// the parser mostly accesses positions close to each other, so check whether the previous result still applies before searching:
+		final int hint=nextRangeIndexHint;
+		if (hint<=rangeCount && (hint==0 || ends[hint-1]<=pos) && (hint==rangeCount || pos<ends[hint])) return hint;
+		int low=0;
+		int high=rangeCount-1;
+		while (low<=high) {
+			final int mid=(low+high)>>>1;
+			if (ends[mid]<=pos) low=mid+1; else high=mid-1;
+		}
+		nextRangeIndexHint=low;
+		return low;
+	}
+}
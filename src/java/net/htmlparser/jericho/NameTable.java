@@ -0,0 +1,130 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+/**
+ * A symbol table that returns a canonical lower case <code>String</code> for each tag and attribute name in the source text.
+ * <p>
+ * The name is looked up directly from the characters in the {@linkplain Source#getParseText() parse text},
+ * which are already in lower case, so no <code>String</code> is allocated if the name is already in the table.
+ * <p>
+ * The table is seeded with the {@linkplain HTMLElementName HTML element name} constants and the most common attribute names,
+ * so that the names of standard HTML elements are always the constant instances and can be compared using the <code>==</code> operator.
+ * Other names are added to a per-source overflow table of bounded size, after which they are allocated in the same way as before.
+ * <p>
+ * Only names consisting entirely of ASCII characters are looked up, as the parse text only converts ASCII characters to lower case.
+ * Other names are converted using <code>String.toLowerCase()</code> and are never added to the table.
+ * <p>
+ * The overflow table is not synchronized.
+ * Concurrent use by the {@link ParallelParser} at worst results in equal names being represented by different <code>String</code> instances,
+ * which is also the case when the overflow table is full.
+ */
+final class NameTable {
+	private final String[] overflowNames=new String[OVERFLOW_TABLE_SIZE];
+	private int overflowCount=0;
+
+	private static final int OVERFLOW_TABLE_SIZE=512; // must be a power of 2
+	private static final int MAX_OVERFLOW_COUNT=OVERFLOW_TABLE_SIZE/2;
+
+	private static final String[] COMMON_ATTRIBUTE_NAMES={
+		"abbr","accept","accept-charset","accesskey","action","align","alink","alt","archive","async","autocomplete","autofocus","axis",
+		"background","bgcolor","border","cellpadding","cellspacing","char","charoff","charset","checked","cite","class","classid","clear",
+		"code","codebase","codetype","color","cols","colspan","compact","content","contenteditable","coords","data","datetime","declare","defer","dir",
+		"disabled","draggable","enctype","face","for","frame","frameborder","headers","height","hidden","href","hreflang","hspace","http-equiv",
+		"id","ismap","label","lang","language","link","longdesc","marginheight","marginwidth","maxlength","media","method","multiple",
+		"name","nohref","noresize","noshade","nowrap","onblur","onchange","onclick","ondblclick","onfocus","onkeydown","onkeypress","onkeyup",
+		"onload","onmousedown","onmousemove","onmouseout","onmouseover","onmouseup","onreset","onselect","onsubmit","onunload",
+		"placeholder","profile","readonly","rel","required","rev","role","rows","rowspan","rules","scheme","scope","scrolling","selected",
+		"shape","size","span","src","standby","start","style","summary","tabindex","target","text","title","type","usemap","valign",
+		"value","valuetype","version","vlink","vspace","width","wrap","xml:lang","xmlns"
+	};
+
+	private static final String[] SEEDED_NAMES=buildSeededNames();
+
+	/**
+	 * Returns the canonical lower case name spanning the specified range of the source text.
+	 * @param source  the {@link Source} document.
+	 * @param begin  the begin position of the name.
+	 * @param end  the end position of the name.
+	 * @return the canonical lower case name spanning the specified range of the source text.
+	 */
+	String getName(final Source source, final int begin, final int end) {
+		final ParseText parseText=source.getParseText();
+		int hash=0;
+		for (int i=begin; i<end; i++) {
+			final char ch=parseText.charAt(i);
+			if (ch>=128) return source.substring(begin,end).toLowerCase();
+			hash=31*hash+ch;
+		}
+		String name=lookup(SEEDED_NAMES,parseText,begin,end,hash);
+		if (name!=null) return name;
+		final int mask=OVERFLOW_TABLE_SIZE-1;
+		int index=spread(hash)&mask;
+		for (String overflowName; (overflowName=overflowNames[index])!=null; index=(index+1)&mask) {
+			if (overflowName.hashCode()==hash && matches(overflowName,parseText,begin,end)) return overflowName;
+		}
+		name=parseText.subSequence(begin,end).toString();
+		if (overflowCount<MAX_OVERFLOW_COUNT) {
+			overflowNames[index]=name;
+			overflowCount++;
+		}
+		return name;
+	}
+
+	private static String lookup(final String[] table, final ParseText parseText, final int begin, final int end, final int hash) {
+		final int mask=table.length-1;
+		for (int index=spread(hash)&mask; table[index]!=null; index=(index+1)&mask) {
+			final String name=table[index];
+			if (name.hashCode()==hash && matches(name,parseText,begin,end)) return name;
+		}
+		return null;
+	}
+
+	private static boolean matches(final String name, final ParseText parseText, final int begin, final int end) {
+		if (name.length()!=end-begin) return false;
+		for (int i=0; i<name.length(); i++) if (name.charAt(i)!=parseText.charAt(begin+i)) return false;
+		return true;
+	}
+
+	private static int spread(final int hash) {
+		return hash^(hash>>>16);
+	}
+
+	private static String[] buildSeededNames() {
+		final int nameCount=HTMLElements.getElementNames().size()+COMMON_ATTRIBUTE_NAMES.length;
+		int tableSize=1;
+		while (tableSize<nameCount*2) tableSize<<=1;
+		final String[] table=new String[tableSize];
+		for (String name : HTMLElements.getElementNames()) addSeededName(table,name);
+		for (String name : COMMON_ATTRIBUTE_NAMES) addSeededName(table,name);
+		return table;
+	}
+
+	private static void addSeededName(final String[] table, final String name) {
+		final int mask=table.length-1;
+		int index=spread(name.hashCode())&mask;
+		while (table[index]!=null) {
+			if (table[index].equals(name)) return; // some attribute names are also element names
+			index=(index+1)&mask;
+		}
+		table[index]=name;
+	}
+}
@@ -75,7 +75,8 @@ class NodeIterator implements Iterator<Segment> {
 				return characterReference;
 			}
 			final ParseText parseText=source.getParseText();
-			int potentialCharacterReferenceBegin=parseText.indexOf('&',begin,end);
+			final StructuralIndex structuralIndex=source.getStructuralIndex();
+			int potentialCharacterReferenceBegin=(structuralIndex!=null) ? structuralIndex.getNextCharacterReferenceBegin(begin,end) : parseText.indexOf('&',begin,end);
 			while (potentialCharacterReferenceBegin!=-1) {
 				final CharacterReference nextCharacterReference=CharacterReference.construct(source,potentialCharacterReferenceBegin,Config.UnterminatedCharacterReferenceSettings.ACCEPT_ALL);
 				if (nextCharacterReference!=null) {
@@ -88,7 +89,7 @@ class NodeIterator implements Iterator<Segment> {
 						return new Segment(source,begin,pos);
 					}
 				}
-				potentialCharacterReferenceBegin=parseText.indexOf('&',potentialCharacterReferenceBegin+1,end);
+				potentialCharacterReferenceBegin=(structuralIndex!=null) ? structuralIndex.getNextCharacterReferenceBegin(potentialCharacterReferenceBegin+1,end) : parseText.indexOf('&',potentialCharacterReferenceBegin+1,end);
 			}
 		}
 		return new Segment(source,begin,pos=end);
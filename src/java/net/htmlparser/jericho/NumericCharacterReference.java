@@ -220,6 +220,7 @@ public class NumericCharacterReference extends CharacterReference {
 		// only called from CharacterReference.construct(), so we can assume that first characters are "&#"
 		final ParseText parseText=source.getParseText();
 		int codePointStringBegin=begin+2;
+		if (!source.hasCharAt(codePointStringBegin)) return null;
 		boolean hex;
 		if (hex=(parseText.charAt(codePointStringBegin)=='x')) codePointStringBegin++;
 		final int unterminatedMaxCodePoint=hex ? unterminatedCharacterReferenceSettings.hexadecimalCharacterReferenceMaxCodePoint : unterminatedCharacterReferenceSettings.decimalCharacterReferenceMaxCodePoint;
@@ -229,6 +230,7 @@ public class NumericCharacterReference extends CharacterReference {
 		int x=codePointStringBegin;
 		boolean unterminated=false;
 		while (true) {
+			if (!source.hasCharAt(x)) return null; // only happens in a streamed source or if the text ends with "&#x"
 			final char ch=parseText.charAt(x);
 			if (ch==';') {
 				end=x+1;
@@ -312,8 +312,6 @@ public final class OutputDocument implements CharStreamSource {
 	 * <p>
 	 * This method is most commonly used to remove segments of the document without affecting the character positions of the remaining elements.
 	 * <p>
-	 * It is used internally to implement the functionality available through the {@link Segment#ignoreWhenParsing()} method.
-	 * <p>
 	 * To remove a segment from the output document completely, use the {@link #remove(Segment)} method instead.
 	 *
 	 * @param begin  the character position at which to begin the replacement.
@@ -441,6 +439,29 @@ public final class OutputDocument implements CharStreamSource {
 		return CharStreamSourceUtil.toString(this);
 	}
 
+	/**
+	 * Returns a new {@link Source} document containing the final content of this output document.
+	 * <p>
+	 * If the {@linkplain #getSourceText() original source document} has not been {@linkplain Source#fullSequentialParse() fully sequentially parsed},
+	 * this is the same as <code>new Source(outputDocument.toString())</code>.
+	 * Otherwise a full sequential parse of the new document is performed, producing the same tags as calling {@link Source#getTagTable()} on the above,
+	 * but the tags of the original document that are outside of the {@linkplain #getRegisteredOutputSegments() registered output segments}
+	 * are reused at their new positions instead of being parsed again.
+	 * Only the text in and around the modified segments is parsed, until the parse is back in the same state as the parse of the original document.
+	 * This makes it much faster to apply small changes to a large document when the result needs to be parsed again.
+	 * <p>
+	 * The new source document is independent of the original, and the original source document and this output document can continue to be used.
+	 * <p>
+	 * Issues in the reused tags are not reported again to the {@linkplain Source#getHtmlIssueProcessingHandler() issue processing handler} of the new document.
+	 * If the original document contains {@linkplain Segment#ignoreWhenParsing() ignored segments}, the new document is parsed in full.
+	 *
+	 * @return a new {@link Source} document containing the final content of this output document.
+	 * @see #toString()
+	 */
+	public Source toSource() {
+		return IncrementalParser.parse(this);
+	}
+
 	/**
 	 * Returns a string representation of this object useful for debugging purposes.
 	 * <p>
@@ -0,0 +1,225 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Performs the {@linkplain Source#fullSequentialParse() full sequential parse} of a large document using multiple threads.
+ * <p>
+ * The document is divided into sections, each beginning at a '<code>&lt;</code>' character followed by a letter, which is most likely the start of a normal start tag.
+ * Each section is parsed concurrently on the assumption that it does not begin inside another tag or inside a SCRIPT element,
+ * in which case the parse of the section is identical to that of a sequential parse.
+ * <p>
+ * Whether the assumption was correct is only known once the preceding section has been parsed, as it depends on whether the
+ * last tag found in the preceding section (such as a comment, CDATA section, server tag or SCRIPT start tag) extends beyond the section boundary.
+ * The results of the sections are therefore checked in order, and any section whose assumption proves to be incorrect is parsed again
+ * sequentially from the correct state.
+ * The resulting list of tags is therefore always exactly the same as that produced by a sequential parse.
+ * <p>
+ * Issues encountered while parsing each section are recorded and passed to the source's {@link HtmlIssueProcessingHandler} in document order
+ * only once the section's results have been accepted, so the handler is only ever called from the calling thread, in the same order as in a sequential parse.
+ * The handler of the source is not replaced during the parse, as {@link Source#getHtmlIssueProcessingHandler()} returns the section being parsed
+ * by the current thread instead.
+ * <p>
+ * A section that the executor has not yet started by the time its results are required is parsed in the calling thread rather than waited for,
+ * so the parse completes even if all of the executor's threads are busy, for example when the parse is itself performed by a task of the same executor.
+ * If the calling thread is interrupted, the sections already started are still waited for before the whole document is parsed sequentially,
+ * so that no section is still using the source document when this class returns.
+ * <p>
+ * The parse is only performed in parallel if the length of the source document is at least {@link Config#ParallelParseThreshold}
+ * and more than one processor is available.
+ * <p>
+ * The sections are parsed by the {@link Config#ParallelParseExecutorService}, or if it is <code>null</code>, by a fixed pool of daemon threads
+ * that is created on first use and lives for the rest of the life of the Java virtual machine.
+ */
+final class ParallelParser {
+	private static final int THREAD_COUNT=Runtime.getRuntime().availableProcessors();
+	private static final int SECTIONS_PER_THREAD=4; // more sections than threads balances the load when some sections take longer to parse than others
+	private static final int MIN_SECTION_LENGTH=16384;
+
+	private static final ThreadLocal<Section> PARSING_SECTION=new ThreadLocal<Section>(); // the section being parsed by the current thread
+
+	private static ExecutorService defaultExecutorService=null; // used if Config.ParallelParseExecutorService is null, created on first use
+
+	private ParallelParser() {}
+
+	static boolean isApplicable(final Source source) {
+		return Config.ParallelParseThreshold>0 && source.end>=Config.ParallelParseThreshold && THREAD_COUNT>1 && !source.isStreamed();
+	}
+
+	static void parseAll(final Source source, final boolean assumeNoNestedTags, final List<Tag> list) {
+		parseAll(source,assumeNoNestedTags,list,Math.max(1,Math.min(THREAD_COUNT*SECTIONS_PER_THREAD,source.end/MIN_SECTION_LENGTH)));
+	}
+
+	static void parseAll(final Source source, final boolean assumeNoNestedTags, final List<Tag> list, final int sectionCount) {
+		final Section[] sections=getSections(source,assumeNoNestedTags,sectionCount);
+		final HtmlIssueProcessingHandler htmlIssueProcessingHandler=source.getHtmlIssueProcessingHandler();
+		// make sure the lazily initialised data used while parsing is not initialised concurrently:
+		source.getParseText();
+		source.getRowColumnVector(0); // used in the construction of every HtmlIssue
+		final ExecutorService executorService=getExecutorService();
+		for (int i=1; i<sections.length; i++) {
+			try {
+				sections[i].future=executorService.submit(sections[i]);
+			} catch (RejectedExecutionException ex) {
+				break; // the remaining sections are parsed in the calling thread below
+			}
+		}
+		boolean interrupted=false;
+		for (Section section : sections) {
+			if (section.claim()) {
+				// the section has not been started by the executor, so it is parsed in the calling thread, or not at all if the thread has been interrupted:
+				if (interrupted) continue;
+				try {
+					section.parse();
+				} catch (RuntimeException ex) {
+					// the section is parsed again sequentially below, which throws the same exception if the section is actually reached by the sequential parse.
+					section.tags=null;
+				}
+				continue;
+			}
+			while (true) {
+				try {
+					section.future.get();
+					break;
+				} catch (ExecutionException ex) {
+					section.tags=null; // parsed again sequentially below, as above
+					break;
+				} catch (InterruptedException ex) {
+					interrupted=true; // keep waiting, as the section is using the source document
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+			for (Section section : sections) section.tags=null; // parse everything sequentially
+		}
+		// Accept the results of each section if the sequential parse reaches the section boundary in the default state,
+		// otherwise parse the section again sequentially:
+		final int[] fullSequentialParseData=source.fullSequentialParseData;
+		int pos=0; // the position at which the sequential parse continues its search for the next tag
+		for (Section section : sections) {
+			if (section.tags!=null && pos<=section.begin && fullSequentialParseData[0]<=section.begin) {
+				for (HtmlIssue htmlIssue : section.issues) htmlIssueProcessingHandler.htmlIssue(htmlIssue);
+				list.addAll(section.tags);
+				pos=section.resumePos;
+				fullSequentialParseData[0]=section.fullSequentialParseData[0];
+			} else {
+				pos=Tag.parseAll(source,pos,section.end,fullSequentialParseData,assumeNoNestedTags,list);
+			}
+		}
+	}
+
+	private static Section[] getSections(final Source source, final boolean assumeNoNestedTags, final int sectionCount) {
+		final ParseText parseText=source.getParseText();
+		final List<Section> sections=new ArrayList<Section>(sectionCount);
+		int begin=0;
+		for (int i=1; i<sectionCount; i++) {
+			final int end=getSectionBegin(parseText,Math.max((int)((long)source.end*i/sectionCount),begin+1),source.end);
+			if (end==-1) break;
+			sections.add(new Section(source,begin,end,assumeNoNestedTags));
+			begin=end;
+		}
+		sections.add(new Section(source,begin,ParseText.NO_BREAK,assumeNoNestedTags));
+		return sections.toArray(new Section[sections.size()]);
+	}
+
+	private static int getSectionBegin(final ParseText parseText, final int pos, final int end) {
+		// the parse text is in lower case
+		for (int i=parseText.indexOf('<',pos); i!=-1 && i+1<end; i=parseText.indexOf('<',i+1)) {
+			final char ch=parseText.charAt(i+1);
+			if (ch>='a' && ch<='z') return i;
+		}
+		return -1;
+	}
+
+	private static ExecutorService getExecutorService() {
+		final ExecutorService executorService=Config.ParallelParseExecutorService;
+		return executorService!=null ? executorService : getDefaultExecutorService();
+	}
+
+	private static synchronized ExecutorService getDefaultExecutorService() {
+		if (defaultExecutorService==null) {
+			defaultExecutorService=Executors.newFixedThreadPool(THREAD_COUNT,new ThreadFactory() {
+				public Thread newThread(final Runnable runnable) {
+					final Thread thread=new Thread(runnable,"jericho-parallel-parse");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return defaultExecutorService;
+	}
+
+	/**
+	 * Returns the section of the specified source document that is being parsed by the current thread, which records the issues found in the section,
+	 * or <code>null</code> if the current thread is not parsing a section of the document.
+	 */
+	static HtmlIssueProcessingHandler getSectionIssueRecorder(final Source source) {
+		final Section section=PARSING_SECTION.get();
+		return section!=null && section.source==source ? section : null;
+	}
+
+	private static final class Section implements Callable<Section>, HtmlIssueProcessingHandler {
+		private final Source source;
+		final int begin;
+		final int end; // NO_BREAK for the last section
+		private final boolean assumeNoNestedTags;
+		List<Tag> tags=new ArrayList<Tag>();
+		final List<HtmlIssue> issues=new ArrayList<HtmlIssue>();
+		final int[] fullSequentialParseData=new int[1]; // the parse state at the end of the section, assuming the section begins in the default state
+		int resumePos;
+		Future<Section> future=null; // null unless the section was submitted to the executor
+		private final AtomicBoolean claimed=new AtomicBoolean(); // set by whichever thread parses the section
+
+		Section(final Source source, final int begin, final int end, final boolean assumeNoNestedTags) {
+			this.source=source;
+			this.begin=begin;
+			this.end=end;
+			this.assumeNoNestedTags=assumeNoNestedTags;
+		}
+
+		boolean claim() {
+			return claimed.compareAndSet(false,true);
+		}
+
+		public Section call() {
+			if (claim()) parse(); // otherwise the calling thread has already parsed the section
+			return this;
+		}
+
+		void parse() {
+			PARSING_SECTION.set(this);
+			try {
+				resumePos=Tag.parseAll(source,begin,end,fullSequentialParseData,assumeNoNestedTags,tags);
+			} finally {
+				PARSING_SECTION.remove();
+			}
+		}
+
+		public void htmlIssue(final HtmlIssue htmlIssue) {
+			issues.add(htmlIssue);
+		}
+	}
+}
@@ -0,0 +1,295 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Represents a set of start tag searches that are performed together in a single pass through a segment of a source document.
+ * <p>
+ * Each of the <code>add</code> methods registers a query equivalent to one of the start tag search methods of the {@link Segment} class,
+ * and returns the index of the query in this set.
+ * The {@link #getAllStartTags(Segment)} and {@link #getAllElements(Segment)} methods then walk through the start tags of the segment once,
+ * testing each start tag against every query, and return one list of results for each query in the same order as the queries were added.
+ * <p>
+ * This is much more efficient than calling the individual search methods when a large number of different searches are performed on the same document,
+ * as each of those methods searches the text of the segment separately.
+ * Queries for start tag names and class names are looked up in hash tables, so the cost of the pass depends very little on the number of these queries.
+ * <p>
+ * The {@link Source#fullSequentialParse()} method should be called after construction of the {@link Source} object
+ * if a query set is to be used on a large proportion of the source.
+ * It is called automatically if the query set is used on the {@link Source} object itself.
+ * <p>
+ * <dl>
+ *  <dt>Example:</dt>
+ *  <dd>
+ *   <pre>
+ *    QuerySet querySet=new QuerySet();
+ *    int titles=querySet.addStartTags(HTMLElementName.TITLE);
+ *    int products=querySet.addStartTagsByClass("product");
+ *    int searchForms=querySet.addStartTags("action","/search",false);
+ *    List&lt;List&lt;Element&gt;&gt; results=querySet.getAllElements(source);
+ *    List&lt;Element&gt; productElements=results.get(products);</pre>
+ *  </dd>
+ * </dl>
+ * <p>
+ * A <code>QuerySet</code> must not be modified while it is being used to search a segment in another thread,
+ * but a query set that is no longer being modified can be used to search any number of segments concurrently.
+ *
+ * @see Segment#getAllStartTags(String name)
+ * @see Segment#getAllStartTags(String attributeName, String value, boolean valueCaseSensitive)
+ * @see Segment#getAllStartTags(String attributeName, Pattern valueRegexPattern)
+ * @see Segment#getAllStartTagsByClass(String className)
+ */
+public final class QuerySet {
+	private int size=0;
+	private final Map<String,List<Integer>> nameQueries=new HashMap<String,List<Integer>>(); // the indexes of the queries for normal start tags with each name
+	private final Map<String,List<Integer>> classQueries=new HashMap<String,List<Integer>>(); // the indexes of the queries for start tags with each class name
+	private final List<Query> otherQueries=new ArrayList<Query>(); // queries that have to be tested individually against every start tag
+	private final Map<Integer,String> unregisteredTagNameQueries=new HashMap<Integer,String>(); // queries for names that are not valid XML names, which can match unregistered tags
+
+	/**
+	 * Constructs a new empty <code>QuerySet</code>.
+	 */
+	public QuerySet() {}
+
+	/**
+	 * Adds a query for all {@linkplain StartTagType#NORMAL normal} {@link StartTag} objects with the specified {@linkplain StartTag#getName() name}.
+	 * <p>
+	 * The results of the query are the same as those of the {@link Segment#getAllStartTags(String name)} method,
+	 * except that a <code>null</code> argument is not permitted.
+	 * <p>
+	 * If the specified name is not a valid {@linkplain Tag#isXMLName(CharSequence) XML tag name}, the query can match {@linkplain Tag#isUnregistered() unregistered} tags,
+	 * which are not included in the single pass through the segment, so the query is performed as a separate search of the segment.
+	 *
+	 * @param name  the {@linkplain StartTag#getName() name} of the start tags to get, must not be <code>null</code>.
+	 * @return the index of the query in this set.
+	 */
+	public int addStartTags(String name) {
+		StartTag.getStartDelimiter(name); // checks that the name is valid
+		final boolean isXMLTagName=Tag.isXMLName(name);
+		name=name.toLowerCase();
+		if (!isXMLTagName) {
+			unregisteredTagNameQueries.put(size,name);
+		} else if (TagTable.isIndexedName(name)) {
+			return add(nameQueries,name);
+		} else {
+			otherQueries.add(new NamespaceQuery(size,name));
+		}
+		return size++;
+	}
+
+	/**
+	 * Adds a query for all {@link StartTag} objects with the specified attribute name/value pair.
+	 * <p>
+	 * The results of the query are the same as those of the {@link Segment#getAllStartTags(String attributeName, String value, boolean valueCaseSensitive)} method.
+	 *
+	 * @param attributeName  the attribute name (case insensitive) to search for, must not be <code>null</code>.
+	 * @param value  the value of the specified attribute to search for, must not be <code>null</code>.
+	 * @param valueCaseSensitive  specifies whether the attribute value matching is case sensitive.
+	 * @return the index of the query in this set.
+	 */
+	public int addStartTags(final String attributeName, final String value, final boolean valueCaseSensitive) {
+		if (value==null || attributeName.length()==0) throw new IllegalArgumentException();
+		otherQueries.add(new AttributeValueQuery(size,attributeName,value,valueCaseSensitive));
+		return size++;
+	}
+
+	/**
+	 * Adds a query for all {@link StartTag} objects with the specified attribute name and value pattern.
+	 * <p>
+	 * The results of the query are the same as those of the {@link Segment#getAllStartTags(String attributeName, Pattern valueRegexPattern)} method.
+	 *
+	 * @param attributeName  the attribute name (case insensitive) to search for, must not be <code>null</code>.
+	 * @param valueRegexPattern  the regular expression pattern that must match the attribute value, may be <code>null</code>.
+	 * @return the index of the query in this set.
+	 */
+	public int addStartTags(final String attributeName, final Pattern valueRegexPattern) {
+		if (attributeName==null || attributeName.length()==0) throw new IllegalArgumentException();
+		otherQueries.add(new AttributePatternQuery(size,attributeName,valueRegexPattern));
+		return size++;
+	}
+
+	/**
+	 * Adds a query for all {@link StartTag} objects with the specified class.
+	 * <p>
+	 * The results of the query are the same as those of the {@link Segment#getAllStartTagsByClass(String className)} method.
+	 *
+	 * @param className  the class name (case sensitive) to search for, must not be <code>null</code>.
+	 * @return the index of the query in this set.
+	 */
+	public int addStartTagsByClass(final String className) {
+		if (AttributeIndex.isIndexedClassName(className)) return add(classQueries,className);
+		return addStartTags(Attribute.CLASS,Segment.getClassPattern(className));
+	}
+
+	/**
+	 * Returns the number of queries in this set.
+	 * @return the number of queries in this set.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the results of all of the queries in this set, searching the start tags {@linkplain Segment#encloses(Segment) enclosed} by the specified segment.
+	 * <p>
+	 * The returned list contains one list of start tags for each query, at the index returned by the method that added the query.
+	 * The start tags in each list are in order of their position in the source document.
+	 *
+	 * @param segment  the segment to search.
+	 * @return the results of all of the queries in this set, guaranteed not <code>null</code>.
+	 */
+	public List<List<StartTag>> getAllStartTags(final Segment segment) {
+		final List<List<StartTag>> results=new ArrayList<List<StartTag>>(size);
+		for (int i=0; i<size; i++) results.add(new ArrayList<StartTag>());
+		if (size==0) return results;
+		for (StartTag startTag : segment.getAllStartTags()) {
+			if (!nameQueries.isEmpty() && startTag.getStartTagType()==StartTagType.NORMAL) add(results,nameQueries.get(startTag.getName()),startTag);
+			if (!classQueries.isEmpty()) addByClass(results,startTag);
+			for (Query query : otherQueries) if (query.matches(startTag)) results.get(query.index).add(startTag);
+		}
+		for (Map.Entry<Integer,String> entry : unregisteredTagNameQueries.entrySet()) results.get(entry.getKey()).addAll(segment.getAllStartTags(entry.getValue()));
+		return results;
+	}
+
+	/**
+	 * Returns the results of all of the queries in this set as {@link Element} objects, searching the elements {@linkplain Segment#encloses(Segment) enclosed} by the specified segment.
+	 * <p>
+	 * The elements returned correspond with the start tags returned by the {@link #getAllStartTags(Segment)} method,
+	 * except that elements which are not entirely enclosed by the segment are excluded,
+	 * in the same way as the <code>getAllElements</code> methods of the {@link Segment} class.
+	 *
+	 * @param segment  the segment to search.
+	 * @return the results of all of the queries in this set, guaranteed not <code>null</code>.
+	 */
+	public List<List<Element>> getAllElements(final Segment segment) {
+		final List<List<StartTag>> startTagResults=getAllStartTags(segment);
+		final List<List<Element>> results=new ArrayList<List<Element>>(size);
+		for (List<StartTag> startTags : startTagResults) {
+			final List<Element> elements=new ArrayList<Element>(startTags.size());
+			for (StartTag startTag : startTags) {
+				final Element element=startTag.getElement();
+				if (element.end<=segment.end) elements.add(element);
+			}
+			results.add(elements);
+		}
+		return results;
+	}
+
+	private int add(final Map<String,List<Integer>> queryMap, final String key) {
+		List<Integer> queryIndexes=queryMap.get(key);
+		if (queryIndexes==null) queryMap.put(key,queryIndexes=new ArrayList<Integer>(1));
+		queryIndexes.add(size);
+		return size++;
+	}
+
+	private void addByClass(final List<List<StartTag>> results, final StartTag startTag) {
+		final Attributes attributes=startTag.getAttributes();
+		if (attributes==null) return;
+		final String classValue=attributes.getValue(Attribute.CLASS);
+		if (classValue==null) return;
+		final int length=classValue.length();
+		int begin=0;
+		while (begin<length) {
+			while (begin<length && AttributeIndex.isWhiteSpace(classValue.charAt(begin))) begin++;
+			int end=begin;
+			while (end<length && !AttributeIndex.isWhiteSpace(classValue.charAt(end))) end++;
+			if (end>begin) add(results,classQueries.get(classValue.substring(begin,end)),startTag);
+			begin=end;
+		}
+	}
+
+	private static void add(final List<List<StartTag>> results, final List<Integer> queryIndexes, final StartTag startTag) {
+		if (queryIndexes==null) return;
+		for (int queryIndex : queryIndexes) {
+			final List<StartTag> list=results.get(queryIndex);
+			if (list.isEmpty() || list.get(list.size()-1)!=startTag) list.add(startTag); // a class name can be repeated in the same attribute value
+		}
+	}
+
+	private abstract static class Query {
+		final int index;
+
+		Query(final int index) {
+			this.index=index;
+		}
+
+		abstract boolean matches(StartTag startTag);
+	}
+
+	private static final class NamespaceQuery extends Query {
+		// matches all normal start tags in a namespace, specified by a name ending in ':', in the same way as StartTag.getNext
+		private final String prefix;
+
+		NamespaceQuery(final int index, final String prefix) {
+			super(index);
+			this.prefix=prefix;
+		}
+
+		boolean matches(final StartTag startTag) {
+			return startTag.getStartTagType()==StartTagType.NORMAL && startTag.getName().startsWith(prefix);
+		}
+	}
+
+	private static final class AttributeValueQuery extends Query {
+		private final String attributeName;
+		private final String value;
+		private final boolean valueCaseSensitive;
+
+		AttributeValueQuery(final int index, final String attributeName, final String value, final boolean valueCaseSensitive) {
+			super(index);
+			this.attributeName=attributeName;
+			this.value=value;
+			this.valueCaseSensitive=valueCaseSensitive;
+		}
+
+		boolean matches(final StartTag startTag) {
+			final Attributes attributes=startTag.getAttributes();
+			if (attributes==null) return false;
+			final String attributeValue=attributes.getValue(attributeName);
+			if (attributeValue==null) return false;
+			return valueCaseSensitive ? value.equals(attributeValue) : value.equalsIgnoreCase(attributeValue);
+		}
+	}
+
+	private static final class AttributePatternQuery extends Query {
+		private final String attributeName;
+		private final Pattern valueRegexPattern;
+
+		AttributePatternQuery(final int index, final String attributeName, final Pattern valueRegexPattern) {
+			super(index);
+			this.attributeName=attributeName;
+			this.valueRegexPattern=valueRegexPattern;
+		}
+
+		boolean matches(final StartTag startTag) {
+			final Attributes attributes=startTag.getAttributes();
+			if (attributes==null) return false;
+			final Attribute attribute=attributes.get(attributeName);
+			if (attribute==null) return false;
+			if (valueRegexPattern==null) return true;
+			final String attributeValue=attribute.getValue();
+			return attributeValue!=null && valueRegexPattern.matcher(attributeValue).matches();
+		}
+	}
+}
@@ -20,8 +20,6 @@
 
 package net.htmlparser.jericho;
 
-import java.util.*;
-
 /**
  * Represents the row and column number of a character position in the source document.
  * <p>
@@ -33,7 +31,7 @@ public final class RowColumnVector {
 	private final int pos;
 	
 	private static final RowColumnVector FIRST=new RowColumnVector(1,1,0);
-	private static final RowColumnVector[] STREAMED=new RowColumnVector[0];
+	private static final int[] STREAMED=new int[0];
 
 	private RowColumnVector(final int row, final int column, final int pos) {
 		this.row=row;
@@ -92,36 +90,49 @@ public final class RowColumnVector {
 		return sb.append("(p").append(pos).append(')');
 	}
 	
-	static RowColumnVector[] getCacheArray(final Source source) {
+	static int[] getRowBegins(final Source source) {
 		if (source.isStreamed()) return STREAMED;
-		final int lastSourcePos=source.end-1;
-		final ArrayList<RowColumnVector> list=new ArrayList<RowColumnVector>();
-		int pos=0;
-		list.add(FIRST);
-		int row=1;
-		while (pos<=lastSourcePos) {
-			final char ch=source.charAt(pos);
-			if (ch=='\n' || (ch=='\r' && (pos==lastSourcePos || source.charAt(pos+1)!='\n'))) list.add(new RowColumnVector(++row,1,pos+1));
-			pos++;
+		if (source.isMapped()) return getRowBegins((CharSequence)source); // don't decode the entire text into the heap
+		return getRowBegins(source.toString());
+	}
+
+	private static int[] getRowBegins(final CharSequence text) {
+		final IntArrayBuilder rowBegins=new IntArrayBuilder(Math.max(16,text.length()>>6));
+		rowBegins.add(0);
+		final int lastPos=text.length()-1;
+		for (int pos=0; pos<=lastPos; pos++) {
+			final char ch=text.charAt(pos);
+			if (ch=='\n' || (ch=='\r' && (pos==lastPos || text.charAt(pos+1)!='\n'))) rowBegins.add(pos+1);
 		}
-		return list.toArray(new RowColumnVector[list.size()]);
+		return rowBegins.toArray();
 	}
 
-	static RowColumnVector get(final RowColumnVector[] cacheArray, final int pos) {
-		if (cacheArray==STREAMED) return new RowColumnVector(pos);
-		int low=0;
-		int high=cacheArray.length-1;
-		while (true) {
-			int mid=(low+high) >> 1;
-			final RowColumnVector rowColumnVector=cacheArray[mid];
-			if (rowColumnVector.pos<pos) {
-				if (mid==high) return new RowColumnVector(rowColumnVector.row,pos-rowColumnVector.pos+1,pos);
-				low=mid+1;
-			} else if (rowColumnVector.pos>pos) {
-				high=mid-1;
-			} else {
-				return rowColumnVector;
+	static int[] getRowBegins(final String text) {
+		// a new row begins after each '\n', or after each '\r' not followed by '\n'.
+		final IntArrayBuilder rowBegins=new IntArrayBuilder(Math.max(16,text.length()>>6));
+		rowBegins.add(0);
+		if (text.indexOf('\r')==-1) {
+			for (int pos=text.indexOf('\n'); pos!=-1; pos=text.indexOf('\n',pos+1)) rowBegins.add(pos+1);
+		} else {
+			final int lastPos=text.length()-1;
+			for (int pos=0; pos<=lastPos; pos++) {
+				final char ch=text.charAt(pos);
+				if (ch=='\n' || (ch=='\r' && (pos==lastPos || text.charAt(pos+1)!='\n'))) rowBegins.add(pos+1);
 			}
 		}
+		return rowBegins.toArray();
+	}
+
+	static RowColumnVector get(final int[] rowBegins, final int pos) {
+		if (rowBegins==STREAMED) return new RowColumnVector(pos);
+		if (pos==0) return FIRST;
+		// find the last row that begins at or before pos:
+		int low=0;
+		int high=rowBegins.length-1;
+		while (low<high) {
+			final int mid=(low+high+1) >>> 1;
+			if (rowBegins[mid]<=pos) low=mid; else high=mid-1;
+		}
+		return new RowColumnVector(low+1,pos-rowBegins[low]+1,pos);
 	}
 }
@@ -335,6 +335,9 @@ public class Segment implements Comparable<Segment>, CharSequence {
 	 * Specifying a <code>null</code> argument to the <code>name</code> parameter is equivalent to {@link #getAllStartTags()}, which may include non-{@linkplain StartTagType#NORMAL normal} start tags.
 	 * <p>
 	 * This method also returns {@linkplain Tag#isUnregistered() unregistered} tags if the specified name is not a valid {@linkplain Tag#isXMLName(CharSequence) XML tag name}.
+	 * <p>
+	 * If a {@linkplain Source#fullSequentialParse() full sequential parse} has been performed, the start tags are found using
+	 * the name index of the source document's {@link TagTable} instead of searching the text of this segment.
 	 *
 	 * @param name  the {@linkplain StartTag#getName() name} of the start tags to get.
 	 * @return a list of all {@linkplain StartTagType#NORMAL normal} {@link StartTag} objects with the specified {@linkplain StartTag#getName() name} that are {@linkplain #encloses(Segment) enclosed} by this segment.
@@ -343,6 +346,10 @@ public class Segment implements Comparable<Segment>, CharSequence {
 		if (name==null) return getAllStartTags();
 		final boolean isXMLTagName=Tag.isXMLName(name);
 		name=name.toLowerCase();
+		if (isXMLTagName && TagTable.isIndexedName(name)) {
+			final TagTable tagTable=source.cache.getTagTable();
+			if (tagTable!=null) return tagTable.getStartTags(tagTable.getNormalStartTagIndexes(name),begin,end);
+		}
 		StartTag startTag=checkEnclosure(StartTag.getNext(source,begin,name,StartTagType.NORMAL,isXMLTagName));
 		if (startTag==null) return Collections.emptyList();
 		final ArrayList<StartTag> list=new ArrayList<StartTag>();
@@ -365,6 +372,9 @@ public class Segment implements Comparable<Segment>, CharSequence {
 	 * @see #getAllStartTags(String attributeName, Pattern valueRegexPattern)
 	 */
 	public List<StartTag> getAllStartTags(final String attributeName, final String value, final boolean valueCaseSensitive) {
+		final TagTable tagTable=source.cache.getTagTable();
+		final int[] startTagIndexes=(tagTable!=null) ? tagTable.getStartTagIndexes(attributeName,value,valueCaseSensitive) : null;
+		if (startTagIndexes!=null) return tagTable.getStartTags(startTagIndexes,begin,end);
 		StartTag startTag=checkEnclosure(source.getNextStartTag(begin,attributeName,value,valueCaseSensitive));
 		if (startTag==null) return Collections.emptyList();
 		final ArrayList<StartTag> list=new ArrayList<StartTag>();
@@ -411,6 +421,9 @@ public class Segment implements Comparable<Segment>, CharSequence {
 	 * @return a list of all {@link StartTag} objects with the specified class that are {@linkplain #encloses(Segment) enclosed} by this segment.
 	 */
 	public List<StartTag> getAllStartTagsByClass(final String className) {
+		final TagTable tagTable=source.cache.getTagTable();
+		final int[] startTagIndexes=(tagTable!=null) ? tagTable.getStartTagIndexesByClass(className) : null;
+		if (startTagIndexes!=null) return tagTable.getStartTags(startTagIndexes,begin,end);
 		return getAllStartTags("class",getClassPattern(className));
 	}
 
@@ -843,6 +856,41 @@ public class Segment implements Comparable<Segment>, CharSequence {
 		return null;
 	}
 
+	/**
+	 * Returns a list of all {@link Element} objects {@linkplain #encloses(Segment) enclosed} by this segment that match the specified CSS selector.
+	 * <p>
+	 * This is equivalent to {@link Selector#compile(String) Selector.compile(selector)}<code>.</code>{@link Selector#select(Segment) select(this)}.
+	 * See the {@link Selector} class documentation for details of the supported selector syntax.
+	 * <p>
+	 * The elements are returned in order of their position in the source document.
+	 * If this segment is itself an {@link Element} that matches the selector, the result includes this element.
+	 * <p>
+	 * Calling this method on the {@link Source} object performs a {@linkplain Source#fullSequentialParse() full sequential parse} automatically.
+	 *
+	 * @param selector  the CSS selector, must not be <code>null</code>.
+	 * @return a list of all {@link Element} objects {@linkplain #encloses(Segment) enclosed} by this segment that match the specified CSS selector.
+	 * @throws IllegalArgumentException if the selector is not valid or uses syntax that is not supported.
+	 * @throws IllegalStateException if the selector contains a combinator or structural pseudo-class and a {@linkplain Source#fullSequentialParse() full sequential parse} has not been performed.
+	 */
+	public List<Element> select(final String selector) {
+		return Selector.compile(selector).select(this);
+	}
+
+	/**
+	 * Returns the first {@link Element} {@linkplain #encloses(Segment) enclosed} by this segment that matches the specified CSS selector.
+	 * <p>
+	 * This is functionally equivalent to {@link #select(String) select(selector)}<code>.iterator().next()</code>,
+	 * but does not search beyond the first matching element and returns <code>null</code> if no such element exists.
+	 *
+	 * @param selector  the CSS selector, must not be <code>null</code>.
+	 * @return the first {@link Element} {@linkplain #encloses(Segment) enclosed} by this segment that matches the specified CSS selector, or <code>null</code> if none exists.
+	 * @throws IllegalArgumentException if the selector is not valid or uses syntax that is not supported.
+	 * @throws IllegalStateException if the selector contains a combinator or structural pseudo-class and a {@linkplain Source#fullSequentialParse() full sequential parse} has not been performed.
+	 */
+	public Element selectFirst(final String selector) {
+		return Selector.compile(selector).selectFirst(this);
+	}
+
 	/**
 	 * Returns a list of the {@link FormControl} objects that are {@linkplain #encloses(Segment) enclosed} by this segment.
 	 * @return a list of the {@link FormControl} objects that are {@linkplain #encloses(Segment) enclosed} by this segment.
@@ -0,0 +1,567 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+import java.util.*;
+
+/**
+ * Represents a compiled <a target="_blank" href="http://www.w3.org/TR/selectors/">CSS selector</a>,
+ * used to find the {@linkplain Element elements} in a segment of a source document that match it.
+ * <p>
+ * Selectors are normally used through the {@link Segment#select(String)} and {@link Segment#selectFirst(String)} methods,
+ * which compile each distinct selector string only once.
+ * A <code>Selector</code> object can also be obtained directly from the static {@link #compile(String)} method and reused on any number of segments.
+ * <p>
+ * The following selector syntax is supported:
+ * <ul>
+ *  <li>Type and universal selectors: <code>div</code>, <code>*</code>
+ *  <li>ID and class selectors: <code>#main</code>, <code>.product</code>
+ *  <li>Attribute selectors: <code>[href]</code>, <code>[type=text]</code>, <code>[class~=a]</code>, <code>[lang|=en]</code>,
+ *   <code>[href^=http]</code>, <code>[href$=".pdf"]</code>, <code>[title*=x]</code>
+ *  <li>Structural pseudo-classes: <code>:nth-child(2n+1)</code>, <code>:nth-last-child(odd)</code>, <code>:first-child</code>, <code>:last-child</code>
+ *  <li>Combinators: descendant (<code>div a</code>), child (<code>div&nbsp;&gt;&nbsp;a</code>), adjacent sibling (<code>h2&nbsp;+&nbsp;p</code>) and general sibling (<code>h2&nbsp;~&nbsp;p</code>)
+ *  <li>Selector groups separated by commas: <code>h1, h2</code>
+ * </ul>
+ * <p>
+ * Only {@linkplain StartTagType#NORMAL normal} elements are matched, and only normal elements are counted as siblings by the sibling combinators and structural pseudo-classes.
+ * Type selectors and attribute names are case insensitive, while ID, class and attribute values are case sensitive.
+ * Attribute values are compared with their {@linkplain Attribute#getValue() decoded} values.
+ * <p>
+ * Each selector is evaluated from right to left.
+ * The candidate elements for the rightmost part of the selector are obtained from the most selective of its ID, class or type,
+ * using the {@link Segment#getAllElements(String,String,boolean)}, {@link Segment#getAllElementsByClass(String)} or {@link Segment#getAllElements(String)} method,
+ * so any indexes built during a {@linkplain Source#fullSequentialParse() full sequential parse} are used automatically
+ * (see {@link Config#UseAttributeIndex}).
+ * Each candidate is then checked against the remaining conditions, and the combinators are checked by walking up the
+ * {@linkplain Element#getParentElement() element hierarchy} or back through the preceding siblings.
+ * <p>
+ * Combinators and structural pseudo-classes require the element hierarchy, so a {@linkplain Source#fullSequentialParse() full sequential parse}
+ * must have been performed before a selector containing them is used on a segment other than the {@link Source} itself.
+ * Using any selector on the <code>Source</code> object performs a full sequential parse automatically.
+ * <p>
+ * <code>Selector</code> instances are immutable and thread safe.
+ *
+ * @see Segment#select(String)
+ * @see Segment#selectFirst(String)
+ */
+public final class Selector {
+	private final String selectorText;
+	private final Compound[] alternatives; // the rightmost compound selector of each selector in the group
+
+	private static final int MAX_CACHE_SIZE=256;
+	private static final Map<String,Selector> CACHE=new LinkedHashMap<String,Selector>(16,0.75f,true) {
+		protected boolean removeEldestEntry(final Map.Entry<String,Selector> eldest) {
+			return size()>MAX_CACHE_SIZE;
+		}
+	};
+
+	private static final char DESCENDANT=' ';
+	private static final char CHILD='>';
+	private static final char ADJACENT_SIBLING='+';
+	private static final char GENERAL_SIBLING='~';
+
+	private Selector(final String selectorText) {
+		this.selectorText=selectorText;
+		final List<Compound> alternativeList=new ArrayList<Compound>();
+		new Parser(selectorText).parseGroup(alternativeList);
+		alternatives=alternativeList.toArray(new Compound[alternativeList.size()]);
+	}
+
+	/**
+	 * Returns the compiled form of the specified selector.
+	 * <p>
+	 * Recently used selectors are cached, so calling this method repeatedly with the same selector string does not compile it again.
+	 *
+	 * @param selector  the CSS selector, must not be <code>null</code>.
+	 * @return the compiled form of the specified selector.
+	 * @throws IllegalArgumentException if the selector is not valid or uses syntax that is not supported.
+	 */
+	public static Selector compile(final String selector) {
+		if (selector==null) throw new IllegalArgumentException("selector argument must not be null");
+		synchronized (CACHE) {
+			final Selector cachedSelector=CACHE.get(selector);
+			if (cachedSelector!=null) return cachedSelector;
+		}
+		final Selector compiledSelector=new Selector(selector);
+		synchronized (CACHE) {
+			CACHE.put(selector,compiledSelector);
+		}
+		return compiledSelector;
+	}
+
+	/**
+	 * Returns a list of all {@link Element} objects {@linkplain Segment#encloses(Segment) enclosed} by the specified segment that match this selector.
+	 * <p>
+	 * The elements are returned in order of their position in the source document, with no duplicates.
+	 * If the segment is itself an {@link Element} that matches this selector, the result includes this element.
+	 * The elements matching the parts of the selector to the left of a combinator do not have to be enclosed by the segment.
+	 *
+	 * @param segment  the segment to search.
+	 * @return a list of all {@link Element} objects enclosed by the specified segment that match this selector, guaranteed not <code>null</code>.
+	 * @throws IllegalStateException if the selector requires the element hierarchy and a {@linkplain Source#fullSequentialParse() full sequential parse} has not been performed.
+	 */
+	public List<Element> select(final Segment segment) {
+		final Context context=new Context(segment);
+		if (alternatives.length==1) return select(segment,alternatives[0],context,false);
+		final List<Element> list=new ArrayList<Element>();
+		for (Compound compound : alternatives) list.addAll(select(segment,compound,context,false));
+		if (list.isEmpty()) return list;
+		Collections.sort(list); // segments are ordered by begin position
+		final List<Element> distinctList=new ArrayList<Element>(list.size());
+		Element lastElement=null;
+		for (Element element : list) {
+			if (element!=lastElement) distinctList.add(element);
+			lastElement=element;
+		}
+		return distinctList;
+	}
+
+	/**
+	 * Returns the first {@link Element} {@linkplain Segment#encloses(Segment) enclosed} by the specified segment that matches this selector.
+	 * <p>
+	 * This is functionally equivalent to {@link #select(Segment) select(segment)}<code>.iterator().next()</code>,
+	 * but does not search beyond the first matching element and returns <code>null</code> if no such element exists.
+	 *
+	 * @param segment  the segment to search.
+	 * @return the first {@link Element} enclosed by the specified segment that matches this selector, or <code>null</code> if none exists.
+	 * @throws IllegalStateException if the selector requires the element hierarchy and a {@linkplain Source#fullSequentialParse() full sequential parse} has not been performed.
+	 */
+	public Element selectFirst(final Segment segment) {
+		final Context context=new Context(segment);
+		Element firstElement=null;
+		for (Compound compound : alternatives) {
+			final List<Element> list=select(segment,compound,context,true);
+			if (list.isEmpty()) continue;
+			final Element element=list.get(0);
+			if (firstElement==null || element.begin<firstElement.begin) firstElement=element;
+		}
+		return firstElement;
+	}
+
+	/**
+	 * Indicates whether the specified element matches this selector.
+	 *
+	 * @param element  the element to test.
+	 * @return <code>true</code> if the specified element matches this selector, otherwise <code>false</code>.
+	 * @throws IllegalStateException if the selector requires the element hierarchy and a {@linkplain Source#fullSequentialParse() full sequential parse} has not been performed.
+	 */
+	public boolean matches(final Element element) {
+		final Context context=new Context(element);
+		for (Compound compound : alternatives) if (matches(element,compound,context)) return true;
+		return false;
+	}
+
+	/**
+	 * Returns the selector string from which this selector was compiled.
+	 * @return the selector string from which this selector was compiled.
+	 */
+	public String toString() {
+		return selectorText;
+	}
+
+	private List<Element> select(final Segment segment, final Compound compound, final Context context, final boolean firstOnly) {
+		final List<Element> candidates=getCandidates(segment,compound);
+		if (candidates.isEmpty()) return candidates;
+		final List<Element> list=new ArrayList<Element>(firstOnly ? 1 : Math.min(candidates.size(),16));
+		for (Element element : candidates) {
+			if (!matches(element,compound,context)) continue;
+			list.add(element);
+			if (firstOnly) break;
+		}
+		return list;
+	}
+
+	private List<Element> getCandidates(final Segment segment, final Compound compound) {
+		// chooses the most selective search available for the rightmost compound selector, all of which use the indexes built during a full sequential parse if they are available.
+		if (compound.id!=null) return segment.getAllElements(Attribute.ID,compound.id,true);
+		if (compound.classNames!=null && AttributeIndex.isIndexedClassName(compound.classNames[0])) return segment.getAllElementsByClass(compound.classNames[0]);
+		if (compound.name!=null) return segment.getAllElements(compound.name);
+		return segment.getAllElements();
+	}
+
+	private static boolean matches(final Element element, final Compound compound, final Context context) {
+		if (!compound.matches(element,context)) return false;
+		final Compound left=compound.left;
+		if (left==null) return true;
+		switch (compound.combinator) {
+			case DESCENDANT:
+				for (Element ancestor=element.getParentElement(); ancestor!=null; ancestor=ancestor.getParentElement())
+					if (matches(ancestor,left,context)) return true;
+				return false;
+			case CHILD:
+				final Element parent=element.getParentElement();
+				return parent!=null && matches(parent,left,context);
+			case ADJACENT_SIBLING:
+				final Element previousSibling=context.getPreviousSibling(element);
+				return previousSibling!=null && matches(previousSibling,left,context);
+			default: // GENERAL_SIBLING
+				for (Element sibling=context.getPreviousSibling(element); sibling!=null; sibling=context.getPreviousSibling(sibling))
+					if (matches(sibling,left,context)) return true;
+				return false;
+		}
+	}
+
+	private static boolean isNormal(final Element element) {
+		return element.getStartTag().getStartTagType()==StartTagType.NORMAL;
+	}
+
+	private static final class Context {
+		// holds the information about sibling lists that is calculated during the evaluation of a selector
+		private final Source source;
+		private final Map<List<Element>,int[]> siblingPositionsMap=new IdentityHashMap<List<Element>,int[]>();
+
+		Context(final Segment segment) {
+			source=segment.source;
+			if (segment==source && !source.wasFullSequentialParseCalled()) source.fullSequentialParse();
+		}
+
+		Element getPreviousSibling(final Element element) {
+			final List<Element> siblings=getSiblings(element);
+			for (int i=indexOf(siblings,element)-1; i>=0; i--) {
+				final Element sibling=siblings.get(i);
+				if (isNormal(sibling)) return sibling;
+			}
+			return null;
+		}
+
+		int getPosition(final Element element, final boolean fromLast) {
+			// returns the 1-based position of the element among its normal sibling elements, counting from the last sibling if fromLast is true
+			final List<Element> siblings=getSiblings(element);
+			int[] siblingPositions=siblingPositionsMap.get(siblings);
+			if (siblingPositions==null) {
+				// siblingPositions[i] is the position of siblings.get(i) among the normal elements, the last entry is the number of normal elements.
+				siblingPositions=new int[siblings.size()+1];
+				int position=0;
+				for (int i=0; i<siblings.size(); i++) siblingPositions[i]=isNormal(siblings.get(i)) ? ++position : 0;
+				siblingPositions[siblings.size()]=position;
+				siblingPositionsMap.put(siblings,siblingPositions);
+			}
+			final int position=siblingPositions[indexOf(siblings,element)];
+			return fromLast ? siblingPositions[siblings.size()]-position+1 : position;
+		}
+
+		private List<Element> getSiblings(final Element element) {
+			final Element parent=element.getParentElement();
+			return parent!=null ? parent.getChildElements() : source.getChildElements();
+		}
+
+		private int indexOf(final List<Element> siblings, final Element element) {
+			// the siblings are in order of position, so a binary search is used rather than List.indexOf
+			int low=0;
+			int high=siblings.size()-1;
+			while (low<=high) {
+				final int mid=(low+high)>>>1;
+				final int midBegin=siblings.get(mid).begin;
+				if (midBegin<element.begin) low=mid+1;
+				else if (midBegin>element.begin) high=mid-1;
+				else return mid;
+			}
+			throw new IllegalStateException("Element "+element.getDebugInfo()+" is not in the element hierarchy");
+		}
+	}
+
+	private static final class Compound {
+		// a sequence of simple selectors that all apply to the same element, together with the combinator linking it to the compound selector on its left
+		String name; // null for the universal selector
+		String id;
+		String[] classNames;
+		AttributeCondition[] attributeConditions;
+		NthCondition[] nthConditions;
+		Compound left;
+		char combinator;
+
+		boolean matches(final Element element, final Context context) {
+			if (!isNormal(element)) return false;
+			if (name!=null && !name.equals(element.getName())) return false;
+			if (id!=null || classNames!=null || attributeConditions!=null) {
+				final Attributes attributes=element.getAttributes();
+				if (attributes==null) return false;
+				if (id!=null && !id.equals(attributes.getValue(Attribute.ID))) return false;
+				if (classNames!=null) {
+					final String classValue=attributes.getValue(Attribute.CLASS);
+					if (classValue==null) return false;
+					for (String className : classNames) if (!containsWord(classValue,className)) return false;
+				}
+				if (attributeConditions!=null) {
+					for (AttributeCondition attributeCondition : attributeConditions) if (!attributeCondition.matches(attributes)) return false;
+				}
+			}
+			if (nthConditions!=null) {
+				for (NthCondition nthCondition : nthConditions) if (!nthCondition.matches(context.getPosition(element,nthCondition.fromLast))) return false;
+			}
+			return true;
+		}
+	}
+
+	private static final class AttributeCondition {
+		final String name;
+		final char operator; // '\0' if the attribute only has to be present, otherwise the first character of the operator, or '=' for an exact match
+		final String value;
+
+		AttributeCondition(final String name, final char operator, final String value) {
+			this.name=name;
+			this.operator=operator;
+			this.value=value;
+		}
+
+		boolean matches(final Attributes attributes) {
+			final Attribute attribute=attributes.get(name);
+			if (attribute==null) return false;
+			if (operator=='\0') return true;
+			final String attributeValue=attribute.hasValue() ? attribute.getValue() : "";
+			switch (operator) {
+				case '=': return attributeValue.equals(value);
+				case '~': return containsWord(attributeValue,value);
+				case '|': return attributeValue.equals(value) || (attributeValue.startsWith(value) && attributeValue.length()>value.length() && attributeValue.charAt(value.length())=='-');
+				case '^': return value.length()!=0 && attributeValue.startsWith(value);
+				case '$': return value.length()!=0 && attributeValue.endsWith(value);
+				default: return value.length()!=0 && attributeValue.indexOf(value)!=-1; // '*'
+			}
+		}
+	}
+
+	private static final class NthCondition {
+		// matches positions of the form a*n+b for some n>=0
+		final int a;
+		final int b;
+		final boolean fromLast;
+
+		NthCondition(final int a, final int b, final boolean fromLast) {
+			this.a=a;
+			this.b=b;
+			this.fromLast=fromLast;
+		}
+
+		boolean matches(final int position) {
+			if (position==0) return false; // not a normal element
+			if (a==0) return position==b;
+			final int difference=position-b;
+			return difference/a>=0 && difference%a==0;
+		}
+	}
+
+	private static boolean containsWord(final String text, final String word) {
+		// indicates whether the word is one of the white space separated words in the text
+		if (word.length()==0) return false;
+		final int textLength=text.length();
+		int begin=0;
+		while (begin<textLength) {
+			while (begin<textLength && isWhiteSpace(text.charAt(begin))) begin++;
+			int end=begin;
+			while (end<textLength && !isWhiteSpace(text.charAt(end))) end++;
+			if (end-begin==word.length() && text.regionMatches(begin,word,0,end-begin)) return true;
+			begin=end;
+		}
+		return false;
+	}
+
+	private static boolean isWhiteSpace(final char ch) {
+		return ch==' ' || ch=='\t' || ch=='\n' || ch=='\f' || ch=='\r';
+	}
+
+	private static final class Parser {
+		private final String text;
+		private int pos=0;
+
+		Parser(final String text) {
+			this.text=text;
+		}
+
+		void parseGroup(final List<Compound> alternatives) {
+			while (true) {
+				skipWhiteSpace();
+				alternatives.add(parseComplex());
+				if (pos==text.length()) return;
+				expect(','); // parseComplex only stops at a comma or the end of the text
+			}
+		}
+
+		private Compound parseComplex() {
+			Compound compound=parseCompound();
+			while (true) {
+				final boolean whiteSpace=skipWhiteSpace();
+				if (pos==text.length() || text.charAt(pos)==',') return compound;
+				char combinator=text.charAt(pos);
+				if (combinator==CHILD || combinator==ADJACENT_SIBLING || combinator==GENERAL_SIBLING) {
+					pos++;
+					skipWhiteSpace();
+				} else if (whiteSpace) {
+					combinator=DESCENDANT;
+				} else {
+					throw error("Unexpected character '"+combinator+"'");
+				}
+				final Compound right=parseCompound();
+				right.left=compound;
+				right.combinator=combinator;
+				compound=right;
+			}
+		}
+
+		private Compound parseCompound() {
+			final Compound compound=new Compound();
+			final int begin=pos;
+			if (pos<text.length() && text.charAt(pos)=='*') {
+				pos++;
+			} else if (isIdentifierStart()) {
+				compound.name=parseIdentifier().toLowerCase();
+			}
+			final List<String> classNames=new ArrayList<String>();
+			final List<AttributeCondition> attributeConditions=new ArrayList<AttributeCondition>();
+			final List<NthCondition> nthConditions=new ArrayList<NthCondition>();
+			while (pos<text.length()) {
+				final char ch=text.charAt(pos);
+				if (ch=='#') {
+					pos++;
+					final String id=parseIdentifier();
+					if (compound.id==null) compound.id=id; else attributeConditions.add(new AttributeCondition(Attribute.ID,'=',id));
+				} else if (ch=='.') {
+					pos++;
+					classNames.add(parseIdentifier());
+				} else if (ch=='[') {
+					pos++;
+					attributeConditions.add(parseAttributeCondition());
+				} else if (ch==':') {
+					pos++;
+					nthConditions.add(parsePseudoClass());
+				} else {
+					break;
+				}
+			}
+			if (pos==begin) throw error(pos==text.length() ? "Unexpected end of selector" : "Unexpected character '"+text.charAt(pos)+"'");
+			if (!classNames.isEmpty()) compound.classNames=classNames.toArray(new String[classNames.size()]);
+			if (!attributeConditions.isEmpty()) compound.attributeConditions=attributeConditions.toArray(new AttributeCondition[attributeConditions.size()]);
+			if (!nthConditions.isEmpty()) compound.nthConditions=nthConditions.toArray(new NthCondition[nthConditions.size()]);
+			return compound;
+		}
+
+		private AttributeCondition parseAttributeCondition() {
+			skipWhiteSpace();
+			final String name=parseIdentifier().toLowerCase();
+			skipWhiteSpace();
+			if (pos<text.length() && text.charAt(pos)==']') {
+				pos++;
+				return new AttributeCondition(name,'\0',null);
+			}
+			final char operator=pos<text.length() ? text.charAt(pos) : '\0';
+			if (operator=='=') {
+				pos++;
+			} else if ("~|^$*".indexOf(operator)!=-1) {
+				pos++;
+				expect('=');
+			} else {
+				throw error("Invalid attribute selector operator");
+			}
+			skipWhiteSpace();
+			final String value=(pos<text.length() && (text.charAt(pos)=='"' || text.charAt(pos)=='\'')) ? parseString() : parseIdentifier();
+			skipWhiteSpace();
+			expect(']');
+			return new AttributeCondition(name,operator,value);
+		}
+
+		private NthCondition parsePseudoClass() {
+			final String pseudoClass=parseIdentifier().toLowerCase();
+			if (pseudoClass.equals("first-child")) return new NthCondition(0,1,false);
+			if (pseudoClass.equals("last-child")) return new NthCondition(0,1,true);
+			final boolean fromLast;
+			if (pseudoClass.equals("nth-child")) fromLast=false;
+			else if (pseudoClass.equals("nth-last-child")) fromLast=true;
+			else throw error("Unsupported pseudo-class \":"+pseudoClass+'"');
+			expect('(');
+			final int argumentEnd=text.indexOf(')',pos);
+			if (argumentEnd==-1) throw error("Missing ')'");
+			final String argument=text.substring(pos,argumentEnd).replaceAll("\\s","").toLowerCase();
+			pos=argumentEnd+1;
+			if (argument.equals("odd")) return new NthCondition(2,1,fromLast);
+			if (argument.equals("even")) return new NthCondition(2,0,fromLast);
+			try {
+				final int nPos=argument.indexOf('n');
+				if (nPos==-1) return new NthCondition(0,Integer.parseInt(stripPlusSign(argument)),fromLast);
+				final String aText=argument.substring(0,nPos);
+				final int a=aText.length()==0 || aText.equals("+") ? 1 : aText.equals("-") ? -1 : Integer.parseInt(stripPlusSign(aText));
+				final String bText=argument.substring(nPos+1);
+				final int b=bText.length()==0 ? 0 : Integer.parseInt(stripPlusSign(bText));
+				return new NthCondition(a,b,fromLast);
+			} catch (NumberFormatException ex) {
+				throw error("Invalid argument \""+argument+"\" for :"+pseudoClass);
+			}
+		}
+
+		private String parseIdentifier() {
+			if (!isIdentifierStart()) throw error(pos==text.length() ? "Unexpected end of selector" : "Unexpected character '"+text.charAt(pos)+"'");
+			final StringBuilder sb=new StringBuilder();
+			while (pos<text.length()) {
+				final char ch=text.charAt(pos);
+				if (ch=='\\') {
+					if (pos+1==text.length()) throw error("Unexpected end of selector");
+					sb.append(text.charAt(pos+1));
+					pos+=2;
+				} else if (isIdentifierChar(ch)) {
+					sb.append(ch);
+					pos++;
+				} else {
+					break;
+				}
+			}
+			return sb.toString();
+		}
+
+		private String parseString() {
+			final char quote=text.charAt(pos++);
+			final StringBuilder sb=new StringBuilder();
+			while (true) {
+				if (pos==text.length()) throw error("Unterminated string");
+				final char ch=text.charAt(pos++);
+				if (ch==quote) return sb.toString();
+				if (ch=='\\' && pos<text.length()) sb.append(text.charAt(pos++)); else sb.append(ch);
+			}
+		}
+
+		private boolean isIdentifierStart() {
+			if (pos==text.length()) return false;
+			final char ch=text.charAt(pos);
+			return isIdentifierChar(ch) || ch=='\\';
+		}
+
+		private boolean skipWhiteSpace() {
+			final int begin=pos;
+			while (pos<text.length() && isWhiteSpace(text.charAt(pos))) pos++;
+			return pos!=begin;
+		}
+
+		private void expect(final char ch) {
+			if (pos==text.length() || text.charAt(pos)!=ch) throw error("Expected '"+ch+"'");
+			pos++;
+		}
+
+		private IllegalArgumentException error(final String message) {
+			return new IllegalArgumentException(message+" at position "+pos+" in selector \""+text+'"');
+		}
+
+		private static boolean isIdentifierChar(final char ch) {
+			return (ch>='a' && ch<='z') || (ch>='A' && ch<='Z') || (ch>='0' && ch<='9') || ch=='-' || ch=='_' || ch>=0x80;
+		}
+
+		private static String stripPlusSign(final String text) {
+			// Integer.parseInt does not accept a leading '+' before Java 7
+			return text.startsWith("+") ? text.substring(1) : text;
+		}
+	}
+}
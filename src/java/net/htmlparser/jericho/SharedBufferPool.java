@@ -0,0 +1,62 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+/**
+ * A {@link BufferPool} implementation that retains a single set of buffers shared by all threads.
+ * <p>
+ * Borrowing and returning a buffer is synchronised, so this implementation is best suited to applications in which
+ * documents are streamed by short lived threads or a single document is passed between threads,
+ * where a {@link ThreadLocalBufferPool} would not reuse the buffers effectively.
+ * <p>
+ * The buffers are grouped into size classes, where each size class holds buffers with lengths between consecutive powers of two.
+ * At most <code>maxBuffersPerSizeClass</code> buffers are retained in each size class,
+ * and buffers longer than <code>maxBufferSize</code> are never retained,
+ * so the pool retains at most approximately 2 &times; <code>maxBufferSize</code> &times; <code>maxBuffersPerSizeClass</code> characters.
+ */
+public final class SharedBufferPool implements BufferPool {
+	private final BufferPoolStore store;
+
+	/**
+	 * Constructs a new <code>SharedBufferPool</code> with the specified limits.
+	 *
+	 * @param maxBufferSize  the length of the longest buffer that is retained.
+	 * @param maxBuffersPerSizeClass  the maximum number of buffers retained in each size class.
+	 * @throws IllegalArgumentException if <code>maxBufferSize</code> is less than 1 or <code>maxBuffersPerSizeClass</code> is negative.
+	 */
+	public SharedBufferPool(final int maxBufferSize, final int maxBuffersPerSizeClass) {
+		store=new BufferPoolStore(maxBufferSize,maxBuffersPerSizeClass);
+	}
+
+	public char[] borrow(final int minSize) {
+		final char[] buffer;
+		synchronized (store) {
+			buffer=store.take(minSize);
+		}
+		return buffer!=null ? buffer : new char[minSize];
+	}
+
+	public void release(final char[] buffer) {
+		synchronized (store) {
+			store.put(buffer);
+		}
+	}
+}
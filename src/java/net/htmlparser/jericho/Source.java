@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.InputStream;
@@ -76,19 +78,23 @@ public final class Source extends Segment implements Iterable<Segment> {
 	private String preliminaryEncodingInfo;
 	private String newLine=UNINITIALISED;
 	private ParseText parseText=null;
-	private OutputDocument parseTextOutputDocument;
 	Logger logger; // never null
-	private RowColumnVector[] rowColumnVectorCacheArray;
+	private int[] rowBegins;
+	private StructuralIndex structuralIndex; // only built in fullSequentialParse if Config.UseStructuralIndex is true
+	private boolean ignoredSegments=false;
+	private NameTable nameTable; // created on first use by getName
+	private StreamedText streamedText=null; // only set in a streamed source
 	final Cache cache;
 	boolean useAllTypesCache=true;
 	boolean useSpecialTypesCache=true;
 	int[] fullSequentialParseData; // non-null iff a fullSequentialParse is underway. In version 2.5 this was passed around as a parameter during full sequential parse, but this approach was found to be error-prone and abandoned in 2.6
 	// cached result lists:
 	Tag[] allTagsArray; // non-null iff fullSequentialParse was called
-	List<Tag> allTags; // non-null iff fullSequentialParse was called
+	List<Tag> allTags; // non-null iff fullSequentialParse or getTagTable was called
 	List<StartTag> allStartTags;
 	private List<Element> allElements;
 	private List<Element> childElements;
+	private ElementTree elementTree;
 
 	private static final String UNINITIALISED="";
 	private static final String CR="\r";
@@ -138,9 +144,21 @@ public final class Source extends Segment implements Iterable<Segment> {
 		this.preliminaryEncodingInfo=preliminaryEncodingInfo;
 		this.sourceText=sourceText;
 		parseText=streamedParseText;
+		streamedText=streamedParseText.getStreamedText();
 		setLogger(newLogger());
 	}
 
+	// only called from mapFile(File,String)
+	private Source(final CharSequence mappedText, final String encoding, final String encodingSpecificationInfo, final String preliminaryEncodingInfo) {
+		super(mappedText.length());
+		sourceText=mappedText;
+		this.encoding=encoding;
+		this.encodingSpecificationInfo=encodingSpecificationInfo;
+		this.preliminaryEncodingInfo=preliminaryEncodingInfo;
+		setLogger(newLogger());
+		cache=new Cache(this);
+	}
+
 	// only called from CharacterReference.parse(CharSequence)
 	Source(final CharSequence sourceText, final boolean CHARACTER_REFERENCE_PARSE_METHOD) {
 		super(sourceText.length());
@@ -277,7 +295,50 @@ public final class Source extends Segment implements Iterable<Segment> {
 		this(new EncodingDetector(urlConnection));
 	}
 
-	private String setEncoding(final String encoding, final String encodingSpecificationInfo) {
+	/**
+	 * Constructs a new <code>Source</code> object from the specified file, which is memory-mapped instead of being loaded into the heap.
+	 * <p>
+	 * This allows parse on demand searches such as {@link #getNextStartTag(int)} and {@link #getElementById(String)} to be performed on
+	 * files that are larger than the available heap memory.
+	 * Note however that a {@linkplain #fullSequentialParse() full sequential parse} still creates an object for every tag in the document,
+	 * and that the {@link #toString()} method and any {@linkplain Segment#ignoreWhenParsing() ignored segments} still result in the
+	 * entire text being decoded into the heap.
+	 * <p>
+	 * If the encoding of the file is a single-byte encoding such as ISO-8859-1 or Windows-1252, or if the file only contains ASCII characters
+	 * and is in an ASCII compatible encoding such as UTF-8, each character is decoded directly from the mapped bytes when it is accessed.
+	 * Otherwise the file is decoded once to determine where each page of characters begins,
+	 * and only a small number of recently used pages are kept in the heap.
+	 * Encodings that use shift sequences, such as ISO-2022-JP, can not be decoded a page at a time,
+	 * so in this case the entire text is decoded into the heap as with the other constructors.
+	 * <p>
+	 * If the specified encoding is <code>null</code>, the encoding is determined from the content of the file
+	 * using the same algorithm as the {@link #Source(InputStream)} constructor.
+	 * <p>
+	 * The size of the file must not exceed <code>Integer.MAX_VALUE</code> bytes.
+	 *
+	 * @param file  the file from which to load the source text.
+	 * @param encoding  the character encoding of the file, or <code>null</code> to detect it automatically.
+	 * @return a new <code>Source</code> object representing the content of the specified file.
+	 * @throws java.io.IOException if an I/O error occurs, including if the file is too large or the encoding is not supported.
+	 * @see #getEncoding()
+	 */
+	public static Source mapFile(final File file, final String encoding) throws IOException {
+		if (encoding!=null) return new Source(MappedText.map(file,encoding),encoding,"encoding specified as argument to Source.mapFile(File,String)",null);
+		final InputStream inputStream=new FileInputStream(file);
+		final EncodingDetector encodingDetector;
+		try {
+			encodingDetector=new EncodingDetector(inputStream);
+		} finally {
+			inputStream.close();
+		}
+		final String detectedEncoding=encodingDetector.getEncoding(); // null only if the file is empty
+		final CharSequence mappedText=MappedText.map(file,detectedEncoding!=null ? detectedEncoding : "ISO-8859-1");
+		final Source source=new Source(mappedText,detectedEncoding,encodingDetector.getEncodingSpecificationInfo(),encodingDetector.getPreliminaryEncoding()+": "+encodingDetector.getPreliminaryEncodingSpecificationInfo());
+		encodingDetector.getLoggerQueue().outputTo(source.logger);
+		return source;
+	}
+
+	String setEncoding(final String encoding, final String encodingSpecificationInfo) {
 		if (this.encoding==UNINITIALISED) {
 			this.encoding=encoding;
 			this.encodingSpecificationInfo=encodingSpecificationInfo;
@@ -545,8 +606,8 @@ public final class Source extends Segment implements Iterable<Segment> {
 	 */
 	public RowColumnVector getRowColumnVector(final int pos) {
 		if (pos>end) throw new IndexOutOfBoundsException();
-		if (rowColumnVectorCacheArray==null) rowColumnVectorCacheArray=RowColumnVector.getCacheArray(this);
-		return RowColumnVector.get(rowColumnVectorCacheArray,pos);
+		if (rowBegins==null) rowBegins=(structuralIndex!=null) ? structuralIndex.getRowBegins() : RowColumnVector.getRowBegins(this);
+		return RowColumnVector.get(rowBegins,pos);
 	}
 	
 	/**
@@ -604,11 +665,60 @@ public final class Source extends Segment implements Iterable<Segment> {
 	 * It is also significant if the {@link Segment#ignoreWhenParsing()} method has been called since the tags were first found, as any tags inside the
 	 * ignored segments will no longer be returned by any of the <a href="Tag.html#TagSearchMethods">tag search methods</a>.
 	 * <p>
+	 * The tags are stored in the source document's {@link TagTable}.
+	 * To avoid creating a {@link Tag} object for every tag in a very large document, call the {@link #getTagTable()} method instead of this method.
+	 * <p>
 	 * See also the {@link Tag} class documentation for more general details about how tags are parsed.
 	 *
 	 * @return an array of all {@linkplain Tag tags} in this source document.
 	 */
 	public Tag[] fullSequentialParse() {
+		if (allTagsArray!=null) return allTagsArray;
+		if (cache.getTagTable()==null) parseAllTags(true);
+		allTagsArray=allTags.toArray(new Tag[allTags.size()]); // creates any tags that have not yet been created from the tag table
+		Tag.setAdjacentTags(allTagsArray);
+		if (Config.BuildElementHierarchy) getChildElements();
+		return allTagsArray;
+	}
+
+	/**
+	 * Returns the {@link TagTable} containing all of the {@linkplain Tag tags} in this source document,
+	 * performing a {@linkplain #fullSequentialParse() full sequential parse} if necessary.
+	 * <p>
+	 * If this method is called before a full sequential parse has been performed, the parse does not retain the {@link Tag} objects it finds.
+	 * Instead, each <code>Tag</code> object is created from the table only when it is first requested,
+	 * either from the table itself or from any of the <a href="Tag.html#TagSearchMethods">tag search methods</a>,
+	 * including the lists returned by the {@link #getAllTags()} and {@link #getAllStartTags()} methods.
+	 * This substantially reduces the memory used by a large document if most of its tags are never accessed as objects,
+	 * at the cost of parsing each tag a second time when it is first requested.
+	 * <p>
+	 * The same rules apply to calling this method as to calling the {@link #fullSequentialParse()} method directly,
+	 * namely that it should be called soon after the <code>Source</code> object is created, before any
+	 * <a href="Tag.html#TagSearchMethods">tag search methods</a> are called.
+	 *
+	 * @return the {@link TagTable} containing all of the {@linkplain Tag tags} in this source document.
+	 */
+	public TagTable getTagTable() {
+		if (cache.getTagTable()==null) parseAllTags(false);
+		return cache.getTagTable();
+	}
+
+	/**
+	 * Returns the {@link ElementTree} representing the {@linkplain #getChildElements() document element hierarchy} of this source document in a compact form.
+	 * <p>
+	 * The tree is built from the {@linkplain #getTagTable() tag table} the first time this method is called,
+	 * performing a {@linkplain #fullSequentialParse() full sequential parse} if necessary,
+	 * without creating an {@link Element} object for each element.
+	 * Its elements can then be navigated without creating any further objects.
+	 *
+	 * @return the {@link ElementTree} representing the document element hierarchy of this source document.
+	 */
+	public ElementTree getElementTree() {
+		if (elementTree==null) elementTree=new ElementTree(this);
+		return elementTree;
+	}
+
+	private void parseAllTags(final boolean retainTags) {
 		// The assumeNoNestedTags flag tells the parser not to bother checking for tags inside other tags
 		// if the user knows that the document doesn't contain any server tags.
 		// This results in a more efficient search, but the difference during benchmark tests was only minimal -
@@ -616,21 +726,40 @@ public final class Source extends Segment implements Iterable<Segment> {
 		// With such a small improvement in a document specifically designed to show an an exaggerated improvement,
 		// it is not worth documenting this feature.
 		// The flag has been retained internally however as it does not have a measurable performance impact to check for it.
-		if (allTagsArray!=null) return allTagsArray;
 		final boolean assumeNoNestedTags=false;
 		if (cache.getTagCount()!=0) {
 			logger.debug("Full sequential parse clearing all tags from cache. Consider calling Source.fullSequentialParse() manually immediately after construction of Source.");
 			cache.clear();
 		}
 		final boolean useAllTypesCacheSave=useAllTypesCache;
+		final TagTable tagTable;
 		try {
 			useAllTypesCache=false;
 			useSpecialTypesCache=false;
-			return Tag.parseAll(this,assumeNoNestedTags);
+			if (Config.UseStructuralIndex && structuralIndex==null && !isMapped()) structuralIndex=StructuralIndex.build(this);
+			tagTable=Tag.parseAll(this,assumeNoNestedTags,retainTags);
 		} finally {
 			useAllTypesCache=useAllTypesCacheSave;
 			useSpecialTypesCache=true;
 		}
+		allTags=tagTable.getRegisteredTags();
+		allStartTags=tagTable.getRegisteredStartTags();
+	}
+
+	// Only called from IncrementalParser, which parses this document by reusing the tags of the document it was derived from:
+	void parseAllTags(final IncrementalParser incrementalParser) {
+		final boolean useAllTypesCacheSave=useAllTypesCache;
+		final TagTable tagTable;
+		try {
+			useAllTypesCache=false;
+			useSpecialTypesCache=false;
+			tagTable=cache.loadAllTags(incrementalParser.parseAll());
+		} finally {
+			useAllTypesCache=useAllTypesCacheSave;
+			useSpecialTypesCache=true;
+		}
+		allTags=tagTable.getRegisteredTags();
+		allStartTags=tagTable.getRegisteredStartTags();
 	}
 
 	/**
@@ -713,6 +842,8 @@ public final class Source extends Segment implements Iterable<Segment> {
 	 * When elements are found to overlap, the position of the start tag determines the location of the element in the hierarchy.
 	 * <p>
 	 * Calling this method on the <code>Source</code> object performs a {@linkplain #fullSequentialParse() full sequential parse} automatically.
+	 * If {@link Config#BuildElementHierarchy} is <code>true</code>, the full sequential parse builds the entire hierarchy in a single pass over the tags,
+	 * otherwise it is built by recursively searching for the child elements of each element.
 	 * <p>
 	 * A visual representation of the document element hierarchy can be obtained by calling:<br />
 	 * {@link #getSourceFormatter()}<code>.</code>{@link SourceFormatter#setIndentAllElements(boolean) setIndentAllElements(true)}<code>.</code>{@link SourceFormatter#setCollapseWhiteSpace(boolean) setCollapseWhiteSpace(true)}<code>.</code>{@link SourceFormatter#setTidyTags(boolean) setTidyTags(true)}<code>.</code>{@link SourceFormatter#toString() toString()}
@@ -728,6 +859,10 @@ public final class Source extends Segment implements Iterable<Segment> {
 				childElements=Collections.emptyList();
 			} else {
 				if (allTags==null) fullSequentialParse();
+				if (Config.BuildElementHierarchy) {
+					if (childElements==null) childElements=ElementHierarchyBuilder.build(this); // fullSequentialParse may already have built it
+					return childElements;
+				}
 				childElements=new ArrayList<Element>();
 				int pos=0;
 				while (true) {
@@ -826,6 +961,9 @@ public final class Source extends Segment implements Iterable<Segment> {
 	 * This is equivalent to {@link #getFirstElement(String,String,boolean) getFirstElement}<code>("id",id,true)</code>.
 	 * <p>
 	 * A well formed HTML document should have no more than one element with any given <code>id</code> attribute value.
+	 * <p>
+	 * If {@link Config#UseAttributeIndex} was <code>true</code> when the {@linkplain #fullSequentialParse() full sequential parse} was performed,
+	 * the element is found directly from the attribute index instead of searching the text of the document.
 	 *
 	 * @param id  the <code>id</code> attribute value (case sensitive) to search for, must not be <code>null</code>.
 	 * @return the {@link Element} with the specified <code>id</code> attribute value, or <code>null</code> if no such element exists.
@@ -1216,6 +1354,9 @@ public final class Source extends Segment implements Iterable<Segment> {
 	 * @return the {@link StartTag} with the specified class beginning at or immediately following the specified position in the source document, or <code>null</code> if none exists or the specified position is out of bounds.
 	 */
 	public StartTag getNextStartTagByClass(final int pos, final String className) {
+		final TagTable tagTable=cache.getTagTable();
+		final int[] startTagIndexes=(tagTable!=null) ? tagTable.getStartTagIndexesByClass(className) : null;
+		if (startTagIndexes!=null) return tagTable.getNextStartTag(pos,startTagIndexes);
 		return getNextStartTag(pos,"class",getClassPattern(className));
 	}
 
@@ -1325,6 +1466,10 @@ public final class Source extends Segment implements Iterable<Segment> {
 	 * may be a {@linkplain TagType#isServerTag() server tag} or HTML {@linkplain StartTagType#COMMENT comment}.
 	 * <p>
 	 * See the {@link Tag} class documentation for more details about the behaviour of this method.
+	 * <p>
+	 * Once the {@link #getElementTree()} method has been called, this method finds the element in logarithmic time using the
+	 * {@link ElementTree#getEnclosingElementIndex(int pos)} method.
+	 * To find the elements enclosing a large number of positions, the {@link ElementTree#getEnclosingElementIndexes(int[] positions)} method is more efficient still.
 	 *
 	 * @param pos  the position in the source document, may be out of bounds.
 	 * @return the most nested {@linkplain StartTagType#NORMAL normal} {@link Element} that {@linkplain Segment#encloses(int) encloses} the specified position in the source document, or <code>null</code> if the position is not within an element or is out of bounds.
@@ -1349,6 +1494,10 @@ public final class Source extends Segment implements Iterable<Segment> {
 	 * @return the most nested {@linkplain StartTagType#NORMAL normal} {@link Element} with the specified {@linkplain Element#getName() name} that {@linkplain Segment#encloses(int) encloses} the specified position in the source document, or <code>null</code> if none exists or the specified position is out of bounds.
 	 */
 	public Element getEnclosingElement(final int pos, String name) {
+		if (name==null && elementTree!=null) {
+			final Element element=elementTree.getEnclosingElement(pos);
+			if (element!=Element.NOT_CACHED) return element;
+		}
 		int startBefore=pos;
 		if (name!=null) name=name.toLowerCase();
 		final boolean isXMLTagName=Tag.isXMLName(name);
@@ -1401,9 +1550,7 @@ public final class Source extends Segment implements Iterable<Segment> {
 	 */
 	public int getNameEnd(int pos) {
 		if (!Tag.isXMLNameStartChar(sourceText.charAt(pos++))) return -1;
-		try {
-			while (Tag.isXMLNameChar(sourceText.charAt(pos))) pos++;  // cost of IndexOutOfBoundsException in rare case of name ending at end of file is less than checking for end of file manually with each iteration.
-		} catch (IndexOutOfBoundsException ex) {}
+		while (hasCharAt(pos) && Tag.isXMLNameChar(sourceText.charAt(pos))) pos++;
 		return pos;
 	}
 
@@ -1466,11 +1613,10 @@ public final class Source extends Segment implements Iterable<Segment> {
 	 */
 	public void ignoreWhenParsing(final int begin, final int end) {
 		if (wasFullSequentialParseCalled()) throw new IllegalStateException("ignoreWhenParsing can not be used after a full sequential parse has been performed");
-		if (parseTextOutputDocument==null) {
-			parseTextOutputDocument=new OutputDocument(getParseText());
-			parseText=null;
-		}
-		parseTextOutputDocument.replaceWithSpaces(begin,end);
+		// the ignored range is masked in place rather than creating a copy of the parse text with the range replaced by spaces:
+		if (!(getParseText() instanceof MaskedParseText)) parseText=new MaskedParseText(parseText);
+		((MaskedParseText)parseText).mask(begin,end);
+		ignoredSegments=true;
 	}
 
 	/**
@@ -1564,12 +1710,8 @@ public final class Source extends Segment implements Iterable<Segment> {
 	 */
 	public final ParseText getParseText() {
 		if (parseText==null) {
-			if (parseTextOutputDocument!=null) {
-				parseText=new CharSequenceParseText(parseTextOutputDocument.toString());
-				parseTextOutputDocument=null;
-			} else {
-				parseText=new CharSequenceParseText(sourceText);
-			}
+			// the parse text of a memory-mapped source converts each character to lower case as it is accessed so that the text is not copied into the heap
+			parseText=isMapped() ? new CharSequenceParseText(sourceText) : new StringParseText(sourceText);
 		}
 		return parseText;
 	}
@@ -1585,13 +1727,37 @@ public final class Source extends Segment implements Iterable<Segment> {
 		return sourceText.subSequence(begin,end);
 	}
 
+	/**
+	 * Returns the {@link StructuralIndex} of this source document, or <code>null</code> if it has not been built.
+	 * <p>
+	 * The index is built at the start of a {@linkplain #fullSequentialParse() full sequential parse} if {@link Config#UseStructuralIndex} is <code>true</code>.
+	 */
+	final StructuralIndex getStructuralIndex() {
+		return structuralIndex;
+	}
+
+	/**
+	 * Indicates whether the specified position is before the end of the source text.
+	 * <p>
+	 * In a streamed source this reads further characters from the stream if necessary.
+	 * The parser uses this to check for the end of the text explicitly instead of catching an <code>IndexOutOfBoundsException</code>.
+	 */
+	final boolean hasCharAt(final int pos) {
+		return pos<end && (streamedText==null || streamedText.hasCharAt(pos));
+	}
+
+	final boolean hasIgnoredSegments() {
+		return ignoredSegments;
+	}
+
 	final String substring(final int begin, final int end) {
 		return subSequence(begin,end).toString();
 	}
 
 	final String getName(final int begin, final int end) {
 		// change this implentation if we want to provide the option for case sensitive names
-		return substring(begin,end).toLowerCase();
+		if (nameTable==null) nameTable=new NameTable();
+		return nameTable.getName(this,begin,end);
 	}
 
 	public final char charAt(final int index) {
@@ -1627,7 +1793,7 @@ public final class Source extends Segment implements Iterable<Segment> {
 	public static boolean LegacyIteratorCompatabilityMode=false;
 
 	boolean wasFullSequentialParseCalled() {
-		return allTagsArray!=null;
+		return allTags!=null;
 	}
 
 	static String getCharsetParameterFromHttpHeaderValue(final String httpHeaderValue) {
@@ -1660,6 +1826,10 @@ public final class Source extends Segment implements Iterable<Segment> {
 		return cache==Cache.STREAMED_SOURCE_MARKER;
 	}
 
+	final boolean isMapped() {
+		return sourceText instanceof MappedText;
+	}
+
     /**
      * @param htmlIssueProcessingHandler the htmlIssueProcessingHandler to set
      */
@@ -1673,6 +1843,9 @@ public final class Source extends Segment implements Iterable<Segment> {
      */
     @SuppressWarnings("unchecked")
     public <T extends HtmlIssueProcessingHandler> T getHtmlIssueProcessingHandler() {
+        if (TagTable.isReconstructingTag(this)) return (T) TagTable.IGNORE_HTML_ISSUES; // issues in a tag reconstructed from the tag table were already reported
+        final HtmlIssueProcessingHandler sectionIssueRecorder=ParallelParser.getSectionIssueRecorder(this);
+        if (sectionIssueRecorder!=null) return (T) sectionIssueRecorder; // issues found by a parallel parse are reported once the section's results are accepted
         return (T) htmlIssueProcessingHandler;
     }
 }
@@ -163,19 +163,20 @@ public final class StartTag extends Tag {
 	 * @return the {@linkplain Element element} that is started by this start tag.
 	 */
 	public Element getElement() {
-		if (element==Element.NOT_CACHED) {
-			final EndTag endTag=getEndTagInternal();
-			element=new Element(source,this,endTag);
-			if (endTag!=null) {
-				if (endTag.element!=Element.NOT_CACHED) {
-					// This is presumably impossible, except in certain circumstances where the cache was cleared, such as if the parser decides to do a full sequential parse after some tags have already been found.
-					// If the existing element and the current element are not the same, log it.
-					if ( !element.equals(endTag.element)) source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source,endTag.begin, "End tag "+endTag," terminates more than one element")); 
-				}
-				endTag.element=element;
+		if (element==Element.NOT_CACHED) setElement(getEndTagInternal());
+		return element;
+	}
+
+	void setElement(final EndTag endTag) {
+		element=new Element(source,this,endTag);
+		if (endTag!=null) {
+			if (endTag.element!=Element.NOT_CACHED) {
+				// This is presumably impossible, except in certain circumstances where the cache was cleared, such as if the parser decides to do a full sequential parse after some tags have already been found.
+				// If the existing element and the current element are not the same, log it.
+				if ( !element.equals(endTag.element)) source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source,endTag.begin, "End tag "+endTag," terminates more than one element")); 
 			}
+			endTag.element=element;
 		}
-		return element;
 	}
 
 	/**
@@ -561,14 +562,22 @@ public final class StartTag extends Tag {
 			if (startTagType==StartTagType.NORMAL && HTMLElements.END_TAG_REQUIRED_NESTING_FORBIDDEN_SET.contains(name)) {
 				final StartTag nextStartTag=source.getNextStartTag(end,name);
 				if (nextStartTag==null || nextStartTag.begin>nextEndTag.begin) return nextEndTag;
-				source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source,begin,"StartTag", " missing required end tag - invalid nested start tag encountered before end tag"));
-				// Terminate the element at the start of the invalidly nested start tag.
-				// This is how IE and Mozilla treat illegally nested A elements, but other elements may vary.
-				return new EndTag(source,nextStartTag.begin,nextStartTag.begin,EndTagType.NORMAL,name);
+				return getInvalidlyNestedEndTag(nextStartTag);
 			}
 			final Segment[] getResult=getEndTag(nextEndTag,checkForEmptyElementTag,Tag.isXMLName(name));
 			if (getResult!=null) return (EndTag)getResult[0];
 		}
+		return getMissingRequiredEndTag();
+	}
+
+	EndTag getInvalidlyNestedEndTag(final StartTag nextStartTag) {
+		source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source,begin,"StartTag", " missing required end tag - invalid nested start tag encountered before end tag"));
+		// Terminate the element at the start of the invalidly nested start tag.
+		// This is how IE and Mozilla treat illegally nested A elements, but other elements may vary.
+		return new EndTag(source,nextStartTag.begin,nextStartTag.begin,EndTagType.NORMAL,name);
+	}
+
+	EndTag getMissingRequiredEndTag() {
 		source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source,begin, "StartTag '"+this+"'"," missing required end tag"));
 		return null;
 	}
@@ -615,6 +624,10 @@ public final class StartTag extends Tag {
 		// isXMLTagName is only used if searchStartTagType==StartTagType.NORMAL
 		if (searchName==null) return (StartTag)source.getPreviousTag(pos,searchStartTagType);
 		final String startDelimiter=getStartDelimiter(searchName);
+		if (searchStartTagType==StartTagType.NORMAL && isXMLTagName && TagTable.isIndexedName(searchName)) {
+			final TagTable tagTable=source.cache.getTagTable();
+			if (tagTable!=null) return tagTable.getPreviousStartTag(pos,tagTable.getNormalStartTagIndexes(searchName));
+		}
 		try {
 			final ParseText parseText=source.getParseText();
 			int begin=pos;
@@ -661,6 +674,10 @@ public final class StartTag extends Tag {
 		// isXMLTagName is only used if searchStartTagType==StartTagType.NORMAL
 		if (searchName==null) return (StartTag)source.getNextTag(pos,searchStartTagType);
 		final String startDelimiter=getStartDelimiter(searchName);
+		if (searchStartTagType==StartTagType.NORMAL && isXMLTagName && TagTable.isIndexedName(searchName)) {
+			final TagTable tagTable=source.cache.getTagTable();
+			if (tagTable!=null) return tagTable.getNextStartTag(pos,tagTable.getNormalStartTagIndexes(searchName));
+		}
 		try {
 			final ParseText parseText=source.getParseText();
 			int begin=pos;
@@ -713,6 +730,9 @@ public final class StartTag extends Tag {
 
 	static StartTag getNext(final Source source, final int pos, final String attributeName, final String value, final boolean valueCaseSensitive) {
 		if (value==null || attributeName.length()==0) throw new IllegalArgumentException();
+		final TagTable tagTable=source.cache.getTagTable();
+		final int[] startTagIndexes=(tagTable!=null) ? tagTable.getStartTagIndexes(attributeName,value,valueCaseSensitive) : null;
+		if (startTagIndexes!=null) return tagTable.getNextStartTag(pos,startTagIndexes);
 		// Determine whether to perform the text search on the name or value:
 		// - perform the text search on the value if it is >= 3 chars long.
 		// - have to perform the text search on the name if the value is zero length.
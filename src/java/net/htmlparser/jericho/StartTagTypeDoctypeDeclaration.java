@@ -31,7 +31,7 @@ final class StartTagTypeDoctypeDeclaration extends StartTagTypeGenericImplementa
 		final ParseText parseText=source.getParseText();
 		boolean insideQuotes=false;
 		boolean insideSquareBrackets=false;
-		do {
+		for (; source.hasCharAt(pos); pos++) {
 			final char c=parseText.charAt(pos);
 			if (insideQuotes) {
 				if (c=='"') insideQuotes=false;
@@ -51,7 +51,7 @@ final class StartTagTypeDoctypeDeclaration extends StartTagTypeGenericImplementa
 						break;
 				}
 			}
-		} while ((++pos)<source.getEnd());
+		}
 		return -1;
 	}
 }
@@ -116,6 +116,10 @@ public class StartTagTypeGenericImplementation extends StartTagType {
 		final int nameBegin=pos+1;
 		String name=getNamePrefix();
 		int nameEnd=nameBegin+getNamePrefix().length();
+		if ((isNameAfterPrefixRequired() || !nameCharAfterPrefixAllowed) && !source.hasCharAt(nameEnd)) {
+			logEndOfTextReached(source,pos);
+			return null;
+		}
 		if (isNameAfterPrefixRequired()) {
 			final int extendedNameEnd=source.getNameEnd(nameEnd);
 			if (extendedNameEnd==-1) return null;
@@ -45,14 +45,14 @@ class StartTagTypeMarkupDeclaration extends StartTagTypeGenericImplementation {
 	protected int getEnd(final Source source, int pos) {
 		final ParseText parseText=source.getParseText();
 		boolean insideQuotes=false;
-		do {
+		for (; source.hasCharAt(pos); pos++) {
 			final char c=parseText.charAt(pos);
 			if (c=='"') {
 				insideQuotes=!insideQuotes;
 			} else if (c=='>' && !insideQuotes) {
 				return pos+1;
 			}
-		} while ((++pos)<source.getEnd());
+		}
 		return -1;
 	}
 }
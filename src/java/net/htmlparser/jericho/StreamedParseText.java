@@ -31,10 +31,18 @@ final class StreamedParseText extends CharSequenceParseText {
 		this.streamedText=streamedText;
 	}
 
+	StreamedText getStreamedText() {
+		return streamedText;
+	}
+
 	protected int getEnd() {
 		return streamedText.getEnd();
 	}
 
+	protected boolean hasCharAt(final int pos) {
+		return streamedText.hasCharAt(pos);
+	}
+
 	protected String substring(final int begin, final int end) {
 		return streamedText.substring(begin,end).toLowerCase();
 	}	
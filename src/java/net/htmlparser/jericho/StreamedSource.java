@@ -28,8 +28,11 @@ import java.io.Writer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.BufferOverflowException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
 import java.net.URL;
 import java.net.URLConnection;
 
@@ -112,6 +115,21 @@ import java.net.URLConnection;
  * Note that the {@link OutputDocument} class can not be used to create a modified version of a streamed source document.
  * Instead, the output document must be constructed manually from the segments provided by the {@link #iterator() iterator}.
  * <p>
+ * <a name="PushMode"></a>
+ * A <code>StreamedSource</code> constructed using the {@link #StreamedSource()} or {@link #StreamedSource(Charset)} constructor operates in <i>push mode</i>,
+ * which allows the source document to be parsed as it arrives from an asynchronous or non-blocking I/O source without ever blocking the calling thread.
+ * Instead of the source text being read from a stream, each chunk of text is {@linkplain #feed(char[],int,int) fed} to the <code>StreamedSource</code> as it becomes available,
+ * after which the {@link #iterator() iterator} returns every segment that can be parsed from the text fed so far.
+ * When the iterator's <code>hasNext()</code> method returns <code>false</code>, the {@link #isInputRequired()} method distinguishes between the parser requiring
+ * more input and the end of the document having been reached.
+ * <p>
+ * If a tag is split across several chunks, the parser does not attempt to parse it again after each chunk,
+ * but waits until a character that might end its closing delimiter (usually '<code>&gt;</code>') has been fed,
+ * or until the text fed since the last attempt is at least as long as the text of the tag fed before it.
+ * This keeps the cost of parsing a long tag, such as a large comment, proportional to its length regardless of the chunk size,
+ * although a tag whose type requires text after its closing delimiter may be returned one or more chunks later than the text required to parse it.
+ * See the documentation of the {@link #StreamedSource()} constructor for a typical usage example.
+ * <p>
  * <code>StreamedSource</code> objects are not thread safe.
  */
 public final class StreamedSource implements Iterable<Segment>, Closeable {
@@ -120,6 +138,7 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 	private final Source source;
 	private final Closeable closeable; // internally created closeable object should be cleaned up internally.
 	private final boolean automaticClose;
+	private final Charset charset; // used to decode the bytes fed in push mode
 	private boolean coalescing=false;
 	private boolean handleTags=true;
 	private Config.UnterminatedCharacterReferenceSettings unterminatedCharacterReferenceSettings=Config.CurrentCompatibilityMode.getUnterminatedCharacterReferenceSettings(false);
@@ -127,13 +146,16 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 	private Segment currentSegment=null;
 	private Segment nextParsedSegment=START_SEGMENT;
 	private boolean isXML;
+	private boolean inputRequired=false;
 
 	private static final boolean assumeNoNestedTags=false;
 	private static final Segment START_SEGMENT=new Segment(-1,-1);
+	private static final Segment TEXT_SEGMENT=new Segment(-1,-1); // returned by the iterator of a cursor in place of a plain text segment
 
 	private StreamedSource(final Reader reader, final boolean automaticClose, final String encoding, final String encodingSpecificationInfo, final String preliminaryEncodingInfo) throws IOException {
 		closeable=reader;
 		this.automaticClose=automaticClose;
+		charset=null;
 		streamedText=new StreamedText(reader);
 		streamedParseText=new StreamedParseText(streamedText);
 		source=new Source(streamedText,streamedParseText,encoding,encodingSpecificationInfo,preliminaryEncodingInfo);
@@ -156,6 +178,44 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 		this(reader,false,(reader instanceof InputStreamReader) ? ((InputStreamReader)reader).getEncoding() : null,(reader instanceof InputStreamReader) ? "InputStreamReader.getEncoding() of constructor argument" : null,null);
 	}
 
+	/**
+	 * Constructs a new <code>StreamedSource</code> object by decoding the content from the specified <code>ReadableByteChannel</code> using the specified character set.
+	 * <p>
+	 * The bytes are read from the channel into a single reusable buffer and decoded directly into the character buffer of this <code>StreamedSource</code>,
+	 * without the extra layers of buffering used by the {@link #StreamedSource(InputStream)} constructor.
+	 * Malformed input and unmappable characters are replaced in the same way as in an <code>InputStreamReader</code>.
+	 * <p>
+	 * The channel must be in blocking mode, and is closed when this <code>StreamedSource</code> is {@linkplain #close() closed}.
+	 * <p>
+	 * The {@link #getEncoding()} method of the created <code>StreamedSource</code> object returns the name of the specified character set.
+	 *
+	 * @param channel  the <code>java.nio.channels.ReadableByteChannel</code> from which to load the source text.
+	 * @param charset  the character set used to decode the bytes.
+	 * @throws java.io.IOException if an I/O error occurs.
+	 */
+	public StreamedSource(final ReadableByteChannel channel, final Charset charset) throws IOException {
+		this(new DecodingReader(channel,charset),false,charset.name(),"Charset argument of constructor",null);
+	}
+
+	/**
+	 * Constructs a new <code>StreamedSource</code> object by decoding the content of the specified <code>ByteBuffer</code> using the specified character set.
+	 * <p>
+	 * The bytes between the position and the limit of the buffer are decoded directly into the character buffer of this <code>StreamedSource</code> as they are required,
+	 * in the same way as in the {@link #StreamedSource(ReadableByteChannel,Charset)} constructor.
+	 * The position of the specified buffer is not changed, and its content must not be modified while the <code>StreamedSource</code> is in use.
+	 *
+	 * @param byteBuffer  the <code>java.nio.ByteBuffer</code> containing the source text.
+	 * @param charset  the character set used to decode the bytes.
+	 */
+	public StreamedSource(final ByteBuffer byteBuffer, final Charset charset) {
+		closeable=null;
+		automaticClose=false;
+		this.charset=null;
+		streamedText=new StreamedText(new DecodingReader(byteBuffer,charset));
+		streamedParseText=new StreamedParseText(streamedText);
+		source=new Source(streamedText,streamedParseText,charset.name(),"Charset argument of constructor",null);
+	}
+
 	/**
 	 * Constructs a new <code>StreamedSource</code> object by loading the content from the specified <code>InputStream</code>.
 	 * <p>
@@ -227,11 +287,84 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 	public StreamedSource(final CharSequence text) {
 		closeable=null;
 		automaticClose=false;
+		charset=null;
 		streamedText=new StreamedText(text);
 		streamedParseText=new StreamedParseText(streamedText);
 		source=new Source(text,streamedParseText,null,"Document specified encoding can not be determined automatically from a streamed source",null);
 	}
 
+	/**
+	 * Constructs a new <code>StreamedSource</code> object in <a href="#PushMode">push mode</a>, where the source text is {@linkplain #feed(char[],int,int) fed}
+	 * in chunks by the caller.
+	 * <p>
+	 * Each call to the iterator's <code>hasNext()</code> method parses as far as possible into the text that has been fed so far.
+	 * It returns <code>false</code> with the {@link #isInputRequired()} property set to <code>true</code> if the next segment can not be determined without more input,
+	 * in which case the next chunk of text should be fed before iteration continues using the same iterator.
+	 * A tag or character reference that is split across two or more chunks is retained in the buffer until its end has been fed,
+	 * and the segments returned are the same as if the entire document had been parsed from a <code>Reader</code>,
+	 * except that unless {@linkplain #setCoalescing(boolean) coalescing} is enabled, plain text may be <i>chunked</i> at different positions because of the different buffer sizes.
+	 * After the last chunk has been fed, the {@link #setEndOfInput()} method must be called to allow the segments at the end of the document to be returned.
+	 * <p>
+	 * The internal buffer always holds all of the text that has been fed but not yet parsed, so the amount of text fed between iterations should be limited
+	 * if memory usage is a concern.
+	 * <p>
+	 * The {@link #getEncoding()} method of the created <code>StreamedSource</code> object always returns <code>null</code>.
+	 * <p>
+	 * <dl>
+	 *  <dt>Example:</dt>
+	 *  <dd>
+	 *   <p>
+	 *    The following code demonstrates how the segments of a document can be processed as each chunk of text arrives:
+	 *   </p>
+	 * <pre>
+	 * StreamedSource streamedSource=new StreamedSource();
+	 * Iterator&lt;Segment&gt; iterator=streamedSource.iterator();
+	 *
+	 * // called each time a chunk of text arrives, with endOfInput set to true on the last call:
+	 * void onChunk(char[] chunk, int length, boolean endOfInput) {
+	 *   streamedSource.feed(chunk,0,length);
+	 *   if (endOfInput) streamedSource.setEndOfInput();
+	 *   while (iterator.hasNext()) {
+	 *     Segment segment=iterator.next();
+	 *     // HANDLE SEGMENT
+	 *   }
+	 *   // streamedSource.isInputRequired() is now false if and only if the end of the document has been reached
+	 * }</pre>
+	 *  </dd>
+	 * </dl>
+	 */
+	public StreamedSource() {
+		this(null,null,"Document specified encoding can not be determined automatically from a streamed source");
+	}
+
+	/**
+	 * Constructs a new <code>StreamedSource</code> object in <a href="#PushMode">push mode</a>, where the source text is {@linkplain #feed(ByteBuffer) fed}
+	 * in chunks of bytes by the caller and decoded using the specified character set.
+	 * <p>
+	 * A character whose bytes are split across two chunks is decoded once the remaining bytes have been fed.
+	 * Malformed input and unmappable characters are replaced in the same way as in an <code>InputStreamReader</code>.
+	 * <p>
+	 * Apart from the decoding of the bytes, the <code>StreamedSource</code> behaves in exactly the same way as one created using the {@link #StreamedSource()} constructor.
+	 * <p>
+	 * The {@link #getEncoding()} method of the created <code>StreamedSource</code> object returns the name of the specified character set.
+	 *
+	 * @param charset  the character set used to decode the bytes.
+	 */
+	public StreamedSource(final Charset charset) {
+		this(charset,charset.name(),"Charset argument of constructor");
+	}
+
+	private StreamedSource(final Charset charset, final String encoding, final String encodingSpecificationInfo) {
+		// push mode
+		closeable=null;
+		automaticClose=false;
+		this.charset=charset;
+		streamedText=new StreamedText();
+		streamedParseText=new StreamedParseText(streamedText);
+		source=new Source(streamedText,streamedParseText,encoding,encodingSpecificationInfo,null);
+		if (encoding==null) source.setEncoding(null,encodingSpecificationInfo); // prevent a search for the document specified encoding, which would require input that may not have been fed yet
+	}
+
 	/**
 	 * Specifies an existing character array to use for buffering the incoming character stream.
 	 * <p>
@@ -245,6 +378,8 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 	 * In general this method should only be used if there needs to be an absolute maximum memory limit imposed on the parser, where that requirement is more important
 	 * than the ability to parse any source document successfully.
 	 * <p>
+	 * The default buffer, which is borrowed from the {@link Config#StreamedSourceBufferPool}, is returned to the pool by this method.
+	 * <p>
 	 * This method can only be called before the {@link #iterator()} method has been called.
 	 *
 	 * @param buffer  an existing character array to use for buffering the incoming character stream, must not be <code>null</code>.
@@ -281,15 +416,93 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 		return this;
 	}
 
+	/**
+	 * Feeds the next chunk of source text to a <code>StreamedSource</code> in <a href="#PushMode">push mode</a>.
+	 * <p>
+	 * The characters are copied into the internal buffer, so the specified array can be reused as soon as this method returns.
+	 * <p>
+	 * Feeding more text may cause text that precedes the {@linkplain #getCurrentSegment() current segment} to be discarded from the internal buffer,
+	 * so the current segment should be fully processed before this method is called.
+	 *
+	 * @param chars  the array containing the characters to feed.
+	 * @param offset  the offset of the first character in the array.
+	 * @param length  the number of characters to feed.
+	 * @return this <code>StreamedSource</code> instance, allowing multiple method calls to be chained in a single statement.
+	 * @throws IllegalStateException if this <code>StreamedSource</code> is not in push mode or the {@link #setEndOfInput()} method has already been called.
+	 * @throws BufferOverflowException if a fixed {@linkplain #setBuffer(char[]) buffer} has been specified that is too small to hold the text that has been fed but not yet parsed.
+	 */
+	public StreamedSource feed(final char[] chars, final int offset, final int length) {
+		if (!streamedText.isPushMode()) throw new IllegalStateException("feed() can only be called on a StreamedSource constructed in push mode");
+		streamedText.append(chars,offset,length);
+		return this;
+	}
+
+	/**
+	 * Feeds the next chunk of source text as bytes to a <code>StreamedSource</code> in <a href="#PushMode">push mode</a>.
+	 * <p>
+	 * All of the bytes between the position and the limit of the specified buffer are consumed, so that its position is equal to its limit when this method returns.
+	 * Any bytes at the end of the buffer that do not form a complete character are retained internally until the next chunk is fed.
+	 * <p>
+	 * This method can only be used if the <code>StreamedSource</code> was created using the {@link #StreamedSource(Charset)} constructor,
+	 * and should not be mixed with calls to the {@link #feed(char[],int,int)} method.
+	 *
+	 * @param bytes  the buffer containing the bytes to feed.
+	 * @return this <code>StreamedSource</code> instance, allowing multiple method calls to be chained in a single statement.
+	 * @throws IllegalStateException if this <code>StreamedSource</code> was not created using the {@link #StreamedSource(Charset)} constructor or the {@link #setEndOfInput()} method has already been called.
+	 * @throws BufferOverflowException if a fixed {@linkplain #setBuffer(char[]) buffer} has been specified that is too small to hold the text that has been fed but not yet parsed.
+	 */
+	public StreamedSource feed(final ByteBuffer bytes) {
+		if (charset==null) throw new IllegalStateException("feed(ByteBuffer) can only be called on a StreamedSource constructed in push mode with a Charset");
+		streamedText.append(bytes,charset);
+		return this;
+	}
+
+	/**
+	 * Indicates to a <code>StreamedSource</code> in <a href="#PushMode">push mode</a> that all of the source text has been {@linkplain #feed(char[],int,int) fed}.
+	 * <p>
+	 * Any bytes retained from the last chunk fed to the {@link #feed(ByteBuffer)} method that do not form a complete character are decoded as malformed input.
+	 * <p>
+	 * After this method has been called the iterator returns all of the remaining segments in the document and no more text can be fed.
+	 *
+	 * @throws IllegalStateException if this <code>StreamedSource</code> is not in push mode or this method has already been called.
+	 */
+	public void setEndOfInput() {
+		if (!streamedText.isPushMode()) throw new IllegalStateException("setEndOfInput() can only be called on a StreamedSource constructed in push mode");
+		streamedText.setEndOfInput();
+	}
+
+	/**
+	 * Indicates whether the last call to the iterator's <code>hasNext()</code> method returned <code>false</code> because more input is required
+	 * by a <code>StreamedSource</code> in <a href="#PushMode">push mode</a>.
+	 * <p>
+	 * If this method returns <code>false</code> after <code>hasNext()</code> has returned <code>false</code>, the end of the document has been reached.
+	 * <p>
+	 * This method always returns <code>false</code> if the <code>StreamedSource</code> is not in push mode.
+	 *
+	 * @return <code>true</code> if the last call to the iterator's <code>hasNext()</code> method returned <code>false</code> because more input is required, otherwise <code>false</code>.
+	 */
+	public boolean isInputRequired() {
+		return inputRequired;
+	}
+
 	/**
 	 * Closes the underlying <code>Reader</code> or <code>InputStream</code> and releases any system resources associated with it.
 	 * <p>
+	 * If the internal buffer was borrowed from a {@link Config#StreamedSourceBufferPool} other than {@link BufferPool#DISABLED},
+	 * it is also returned to the pool, so neither this <code>StreamedSource</code> nor any of the segments returned by its {@linkplain #iterator() iterator}
+	 * can be used after calling this method.
+	 * With the default pool, segments remain usable after the stream is closed.
+	 * <p>
 	 * If the stream is already closed then invoking this method has no effect.
 	 *
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public void close() throws IOException {
-		if (closeable!=null) closeable.close();
+		try {
+			if (closeable!=null) closeable.close();
+		} finally {
+			streamedText.releaseBuffer();
+		}
 	}
 
 	/**
@@ -362,6 +575,10 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 	 * <p>
 	 * Character references that are found inside tags, such as those present inside attribute values, do not generate separate segments from the iterator.
 	 * <p>
+	 * In <a href="#PushMode">push mode</a>, the iterator's <code>hasNext()</code> method also returns <code>false</code> if more input is required to determine the next segment,
+	 * as indicated by the {@link #isInputRequired()} method.
+	 * Iteration can continue using the same iterator after more text has been {@linkplain #feed(char[],int,int) fed}.
+	 * <p>
 	 * This method may only be called once on any particular <code>StreamedSource</code> instance.
 	 * <p>
 	 * <dl>
@@ -430,7 +647,25 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 	public Iterator<Segment> iterator() {
 		if (isInitialised) throw new IllegalStateException("iterator() can only be called once");
 		isInitialised=true;
-		return new StreamedSourceIterator();
+		return new StreamedSourceIterator(true);
+	}
+
+	/**
+	 * Returns a {@link Cursor} that steps through every {@linkplain Tag tag}, {@linkplain CharacterReference character reference} and plain text segment
+	 * contained within the source document, without creating any objects that are not required by the parser itself.
+	 * <p>
+	 * The cursor visits exactly the same segments as the {@linkplain #iterator() iterator}, but reports each one using the state of a single mutable object.
+	 * See the documentation of the {@link Cursor} class for more details.
+	 * <p>
+	 * This method may only be called once on any particular <code>StreamedSource</code> instance, and not at all if the {@link #iterator()} method has been called.
+	 *
+	 * @return a {@link Cursor} over every {@linkplain Tag tag}, {@linkplain CharacterReference character reference} and plain text segment contained within the source document.
+	 * @throws IllegalStateException if this method or the {@link #iterator()} method has already been called.
+	 */
+	public Cursor cursor() {
+		if (isInitialised) throw new IllegalStateException("cursor() can only be called once, and not after iterator() has been called");
+		isInitialised=true;
+		return new Cursor(new StreamedSourceIterator(false));
 	}
 
 	/**
@@ -488,6 +723,7 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 	 * </ol>
 	 * <p>
 	 * This method can only be called after the {@link #iterator()} method has been called.
+	 * In <a href="#PushMode">push mode</a>, it always returns <code>false</code> until the iterator's <code>hasNext()</code> method has returned <code>true</code> for the first time.
 	 *
 	 * @return <code>true</code> if the source document is likely to be <a target="_blank" href="http://www.w3.org/TR/REC-xml/">XML</a>, otherwise <code>false</code>.
 	 * @throws IllegalStateException if the {@link #iterator()} method has not yet been called.
@@ -551,7 +787,8 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 	/**
 	 * Called by the garbage collector on an object when garbage collection determines that there are no more references to the object.
 	 * <p>
-	 * This implementation calls the {@link #close()} method if the underlying <code>Reader</code> or <code>InputStream</code> stream was created internally.
+	 * This implementation closes the underlying <code>Reader</code> or <code>InputStream</code> if it was created internally.
+	 * The internal buffer is not returned to the {@link Config#StreamedSourceBufferPool}, as this method is called by the garbage collector's thread.
 	 */
 	protected void finalize() {
 		automaticClose();
@@ -575,7 +812,8 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 	}
 
 	private void automaticClose() {
-		if (automaticClose) try {close();} catch (IOException ex) {}
+		// only closes the stream, as the buffer is still in use until the StreamedSource is closed explicitly
+		if (automaticClose) try {closeable.close();} catch (IOException ex) {}
 	}
 
 	private static boolean isXML(final Segment firstNonTextSegment) {
@@ -594,26 +832,48 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 		private Segment nextSegment;
 		private int plainTextSegmentBegin=0;
 		private final char[] charByRef=new char[1]; // used to pass a single character by reference
+		private boolean isFirstLoad=true;
+		private int resumePos=-1; // the position from which to resume the search for the next parsed segment after more input has been fed in push mode
+		private int pendingTagPos=-1; // in push mode, the position of the '<' of a possible tag that could not be parsed because more input was required
+		private int pendingTagAppendedEnd; // the end of the appended text when the pending tag was last parsed
+		private int closingDelimiterSearchPos; // the position from which to search for a character that might end the pending tag
+		private String closingDelimiterEndChars=null; // the last character of the closing delimiter of each registered tag type, created when first required
+		private final boolean createsTextSegments; // false if used by a cursor, which only requires the positions of plain text
+		int textBegin; // the begin position of the plain text represented by TEXT_SEGMENT
+		int textEnd; // the end position of the plain text represented by TEXT_SEGMENT
 
-		public StreamedSourceIterator() {
+		public StreamedSourceIterator(final boolean createsTextSegments) {
+			this.createsTextSegments=createsTextSegments;
 			coalescing=StreamedSource.this.coalescing;
 			handleTags=StreamedSource.this.handleTags;
 			unterminatedCharacterReferenceSettings=StreamedSource.this.unterminatedCharacterReferenceSettings;
-			loadNextParsedSegment();
-			isXML=isXML(nextParsedSegment);
+			nextSegment=Tag.NOT_CACHED;
+			if (!streamedText.isPushMode()) loadNextParsedSegment(); // in push mode the first segment is not loaded until hasNext() is called, as no input may have been fed yet
 		}
 
 		public boolean hasNext() {
-			if (nextSegment==Tag.NOT_CACHED) loadNextParsedSegment();
+			if (nextSegment==Tag.NOT_CACHED) {
+				try {
+					loadNextParsedSegment();
+				} catch (StreamedText.InputRequiredException ex) {
+					inputRequired=true;
+					return false;
+				}
+				inputRequired=false;
+			}
 			return nextSegment!=null;
 		}	
 	
 		public Segment next() {
+			currentSegment=nextSegment();
+			return currentSegment;
+		}
+
+		Segment nextSegment() {
 			if (!hasNext()) throw new NoSuchElementException();
 			final Segment result=nextSegment;
 			nextSegment=(result==nextParsedSegment) ? Tag.NOT_CACHED : nextParsedSegment;
-			streamedText.setMinRequiredBufferBegin(result.end); // guaranteed not to be discarded until next call to loadNextParsedSegment()
-			currentSegment=result;
+			streamedText.setMinRequiredBufferBegin(result==TEXT_SEGMENT ? textEnd : result.end); // guaranteed not to be discarded until next call to loadNextParsedSegment()
 			return result;
 		}
 
@@ -622,19 +882,48 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 		}
 
 		private final void loadNextParsedSegment() {
-			nextParsedSegment=findNextParsedSegment();
+			final int fullSequentialParseDataSave=source.fullSequentialParseData[0];
+			final Segment parsedSegment=findNextParsedSegment();
+			if (isFirstLoad) {
+				try {
+					isXML=isXML(parsedSegment);
+				} catch (StreamedText.InputRequiredException ex) {
+					// Push mode requires more input to examine the first segment - find the same segment again after it has been fed:
+					source.fullSequentialParseData[0]=fullSequentialParseDataSave;
+					resumePos=parsedSegment.begin;
+					throw ex;
+				}
+				isFirstLoad=false;
+			}
+			nextParsedSegment=parsedSegment;
 			final int plainTextSegmentEnd=(nextParsedSegment!=null) ? nextParsedSegment.begin : streamedText.length();
-			nextSegment=(plainTextSegmentBegin<plainTextSegmentEnd) ? new Segment(source,plainTextSegmentBegin,plainTextSegmentEnd) : nextParsedSegment;
+			if (plainTextSegmentBegin>=plainTextSegmentEnd) {
+				nextSegment=nextParsedSegment;
+			} else if (createsTextSegments) {
+				nextSegment=new Segment(source,plainTextSegmentBegin,plainTextSegmentEnd);
+			} else {
+				nextSegment=TEXT_SEGMENT;
+				textBegin=plainTextSegmentBegin;
+				textEnd=plainTextSegmentEnd;
+			}
 			if (nextParsedSegment!=null && plainTextSegmentBegin<nextParsedSegment.end) plainTextSegmentBegin=nextParsedSegment.end;
 		}
 	
 		private final Segment findNextParsedSegment() {
+			if (resumePos!=-1 && resumePos==pendingTagPos && !isPendingTagParseable()) throw StreamedText.INPUT_REQUIRED;
+			int i=resumePos;
+			int fullSequentialParseDataAtPos=source.fullSequentialParseData[0]; // the parse state before the attempt to parse a segment at position i
 			try {
-				int i=(nextParsedSegment instanceof StartTag && ((StartTag)nextParsedSegment).getTagType()==StartTagType.SERVER_COMMON_COMMENT)
-					? nextParsedSegment.getEnd()
-					: nextParsedSegment.getBegin()+1;
+				if (i==-1) {
+					i=(nextParsedSegment instanceof StartTag && ((StartTag)nextParsedSegment).getTagType()==StartTagType.SERVER_COMMON_COMMENT)
+						? nextParsedSegment.getEnd()
+						: nextParsedSegment.getBegin()+1;
+				} else {
+					resumePos=-1;
+				}
 				final int searchEnd=coalescing ? streamedText.getEnd() : streamedText.getBufferOverflowPosition();
-				while (i<searchEnd) {
+				while (i<searchEnd && streamedText.hasCharAt(i)) {
+					fullSequentialParseDataAtPos=source.fullSequentialParseData[0];
 					final char ch=streamedText.charAt(i);
 					if (ch=='&') {
 						if (i>=source.fullSequentialParseData[0]) { // do not handle character references inside tags or script elements
@@ -657,17 +946,357 @@ public final class StreamedSource implements Iterable<Segment>, Closeable {
 					// not coalescing, reached buffer overflow position
 					return new Segment(source,plainTextSegmentBegin,i);
 				}
+			} catch (StreamedText.InputRequiredException ex) {
+				// Push mode requires more input - resume the search from the same position and parse state after it has been fed:
+				source.fullSequentialParseData[0]=fullSequentialParseDataAtPos;
+				resumePos=i;
+				if (handleTags && streamedText.charAt(i)=='<') {
+					if (i!=pendingTagPos) {
+						pendingTagPos=i;
+						closingDelimiterSearchPos=i;
+					}
+					pendingTagAppendedEnd=streamedText.getAppendedEnd();
+				}
+				throw ex;
 			} catch (BufferOverflowException ex) {
 				// Unrecoverable buffer overflow - close the reader if it was created internally:
 				automaticClose();
 				throw ex;
 			} catch (IndexOutOfBoundsException ex) {
-				// normal way to catch end of stream.
+				// the end of the stream is checked for explicitly, so this can only be thrown by a custom tag type reading past the end of the stream.
 			}
 			// streamedText.length() is now guaranteed to return document length
 			// End of stream has been reached, can close the reader if it was created internally:
 			automaticClose();
 			return null;
 		}
+
+		private boolean isPendingTagParseable() {
+			// Parsing a tag that is split across many feeds again after every feed would take time quadratic in the length of the tag,
+			// so the pending tag is only parsed again once a character that might end its closing delimiter has been fed, or the end of the input has been reached.
+			// It is also parsed again once the appended text beyond the tag has doubled in length since the last attempt, in case a custom tag type requires text
+			// after its closing delimiter, which keeps the total cost linear.
+			if (streamedText.isEndOfInput()) return true;
+			if (closingDelimiterEndChars==null) closingDelimiterEndChars=getClosingDelimiterEndChars();
+			final int appendedEnd=streamedText.getAppendedEnd();
+			if (appendedEnd-pendingTagPos>=(pendingTagAppendedEnd-pendingTagPos)*2) return true;
+			for (int i=Math.max(closingDelimiterSearchPos,pendingTagAppendedEnd); i<appendedEnd; i++) {
+				if (closingDelimiterEndChars.indexOf(streamedText.charAt(i))!=-1) {
+					closingDelimiterSearchPos=i+1;
+					return true;
+				}
+			}
+			closingDelimiterSearchPos=appendedEnd;
+			return false;
+		}
+
+		private String getClosingDelimiterEndChars() {
+			final StringBuilder sb=new StringBuilder(">");
+			for (TagType tagType : TagType.getRegisteredTagTypes()) {
+				final String closingDelimiter=tagType.getClosingDelimiter();
+				if (closingDelimiter.length()==0) continue;
+				final char ch=closingDelimiter.charAt(closingDelimiter.length()-1);
+				if (sb.indexOf(String.valueOf(ch))==-1) sb.append(ch);
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Steps through the segments of a {@link StreamedSource} without creating any objects that are not required by the parser itself.
+	 * <p>
+	 * This API is modelled on the StAX <code>XMLStreamReader</code> interface.
+	 * Each call to the {@link #next()} method advances the cursor to the next segment and returns its {@linkplain #getEventType() event type},
+	 * after which the properties of the segment are available from the methods of the cursor.
+	 * <p>
+	 * In contrast to the {@linkplain StreamedSource#iterator() iterator}, no {@link Segment} object is created for plain text,
+	 * and the names and values of attributes are available by index without creating any {@link Attribute} objects or strings.
+	 * The {@link Tag} and {@link CharacterReference} objects needed internally to determine the extent of each segment are still created by the parser,
+	 * but are only exposed if explicitly requested using the {@link #getSegment()} method.
+	 * <p>
+	 * The <code>CharSequence</code> objects returned by the {@link #getText()} and {@link #getAttributeValue(int)} methods are views directly into the
+	 * internal buffer, each reused for every call to the same method.
+	 * They are only valid until the next call to the {@link #hasNext()} or {@link #next()} method,
+	 * and should be converted to a string using their <code>toString()</code> method if they are required after that.
+	 * <p>
+	 * The following code prints the value of the <code>href</code> attribute of every <code>a</code> element in the document:
+	 * <pre>
+	 * StreamedSource.Cursor cursor=streamedSource.cursor();
+	 * while (cursor.hasNext()) {
+	 *   if (cursor.next()==StreamedSource.Cursor.START_TAG &amp;&amp; cursor.getName()==HTMLElementName.A) {
+	 *     int index=cursor.getAttributeIndex("href");
+	 *     if (index!=-1) System.out.println(cursor.getAttributeValue(index));
+	 *   }
+	 * }</pre>
+	 * <p>
+	 * In <a href="StreamedSource.html#PushMode">push mode</a>, the {@link #hasNext()} method returns <code>false</code> if more input is required in the same way as the iterator's
+	 * <code>hasNext()</code> method, as indicated by the {@link StreamedSource#isInputRequired()} method.
+	 * <p>
+	 * Obtained using the {@link StreamedSource#cursor()} method.
+	 */
+	public final class Cursor {
+		/** The event type before the first call to the {@link #next()} method. */
+		public static final int START_DOCUMENT=0;
+
+		/** The event type of a {@link StartTag} of any {@linkplain StartTagType type}. */
+		public static final int START_TAG=1;
+
+		/** The event type of an {@link EndTag} of any {@linkplain EndTagType type}. */
+		public static final int END_TAG=2;
+
+		/** The event type of a segment of <a href="StreamedSource.html#PlainText">plain text</a>. */
+		public static final int TEXT=3;
+
+		/** The event type of a {@link CharacterReference}. */
+		public static final int CHARACTER_REFERENCE=4;
+
+		private final StreamedSourceIterator iterator;
+		private int eventType=START_DOCUMENT;
+		private Segment segment=null; // the object created by the parser for the current segment, or null if the current segment is plain text that has no object
+		private Attributes attributes=null; // the attributes of the current start tag, or null if it has none
+		private int begin=0;
+		private int end=0;
+		private final BufferView textView=new BufferView();
+		private final BufferView attributeValueView=new BufferView();
+
+		private Cursor(final StreamedSourceIterator iterator) {
+			this.iterator=iterator;
+		}
+
+		/**
+		 * Indicates whether there is another segment in the source document.
+		 * <p>
+		 * In <a href="StreamedSource.html#PushMode">push mode</a>, this method also returns <code>false</code> if more input is required to determine the next segment.
+		 *
+		 * @return <code>true</code> if there is another segment in the source document, otherwise <code>false</code>.
+		 */
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		/**
+		 * Advances the cursor to the next segment in the source document.
+		 * @return the {@linkplain #getEventType() event type} of the next segment.
+		 * @throws NoSuchElementException if there are no more segments available.
+		 */
+		public int next() {
+			final Segment nextSegment=iterator.nextSegment();
+			if (nextSegment==TEXT_SEGMENT) {
+				eventType=TEXT;
+				segment=null;
+				attributes=null;
+				begin=iterator.textBegin;
+				end=iterator.textEnd;
+			} else {
+				begin=nextSegment.begin;
+				end=nextSegment.end;
+				attributes=null;
+				if (nextSegment instanceof StartTag) {
+					eventType=START_TAG;
+					attributes=((StartTag)nextSegment).getAttributes();
+				} else if (nextSegment instanceof EndTag) {
+					eventType=END_TAG;
+				} else if (nextSegment instanceof CharacterReference) {
+					eventType=CHARACTER_REFERENCE;
+				} else {
+					eventType=TEXT; // a chunk of plain text ending at the buffer overflow position
+				}
+				segment=nextSegment;
+			}
+			return eventType;
+		}
+
+		/**
+		 * Returns the event type of the current segment.
+		 * @return the event type of the current segment, one of {@link #START_DOCUMENT}, {@link #START_TAG}, {@link #END_TAG}, {@link #TEXT} or {@link #CHARACTER_REFERENCE}.
+		 */
+		public int getEventType() {
+			return eventType;
+		}
+
+		/**
+		 * Returns the character position in the source document at which the current segment begins.
+		 * @return the character position in the source document at which the current segment begins.
+		 */
+		public int getBegin() {
+			return begin;
+		}
+
+		/**
+		 * Returns the character position in the source document immediately after the end of the current segment.
+		 * @return the character position in the source document immediately after the end of the current segment.
+		 */
+		public int getEnd() {
+			return end;
+		}
+
+		/**
+		 * Returns the source text of the current segment as a view into the internal buffer.
+		 * <p>
+		 * The returned object is only valid until the next call to the {@link #hasNext()} or {@link #next()} method.
+		 *
+		 * @return the source text of the current segment as a view into the internal buffer.
+		 */
+		public CharSequence getText() {
+			return textView.set(begin,end);
+		}
+
+		/**
+		 * Returns the {@linkplain Tag#getName() name} of the current tag.
+		 * <p>
+		 * The name is in lower case, and is the same <code>String</code> instance as the corresponding constant in the {@link HTMLElementName} interface
+		 * for all standard HTML elements, so it can be compared using the <code>==</code> operator.
+		 *
+		 * @return the {@linkplain Tag#getName() name} of the current tag, or <code>null</code> if the current segment is not a tag.
+		 */
+		public String getName() {
+			return isTag() ? ((Tag)segment).name : null;
+		}
+
+		/**
+		 * Returns the {@linkplain Tag#getTagType() type} of the current tag.
+		 * @return the {@linkplain Tag#getTagType() type} of the current tag, or <code>null</code> if the current segment is not a tag.
+		 */
+		public TagType getTagType() {
+			return isTag() ? ((Tag)segment).getTagType() : null;
+		}
+
+		/**
+		 * Indicates whether the current segment is an {@linkplain StartTag#isEmptyElementTag() empty-element tag}.
+		 * @return <code>true</code> if the current segment is an {@linkplain StartTag#isEmptyElementTag() empty-element tag}, otherwise <code>false</code>.
+		 */
+		public boolean isEmptyElementTag() {
+			return eventType==START_TAG && ((StartTag)segment).isEmptyElementTag();
+		}
+
+		/**
+		 * Returns the number of attributes in the current start tag.
+		 * @return the number of attributes in the current start tag, or <code>0</code> if the current segment is not a start tag or its type does not {@linkplain StartTagType#hasAttributes() have attributes}.
+		 */
+		public int getAttributeCount() {
+			return attributes==null ? 0 : attributes.getCount();
+		}
+
+		/**
+		 * Returns the index of the attribute in the current start tag with the specified name (case insensitive).
+		 * <p>
+		 * If more than one attribute exists with the specified name, the index of the first is returned.
+		 *
+		 * @param name  the name of the attribute.
+		 * @return the index of the attribute with the specified name, or <code>-1</code> if the current start tag does not contain an attribute with the specified name.
+		 */
+		public int getAttributeIndex(final String name) {
+			return attributes==null ? -1 : attributes.indexOfKey(name);
+		}
+
+		/**
+		 * Returns the {@linkplain Attribute#getKey() key} of the attribute at the specified index in the current start tag.
+		 * <p>
+		 * The key is the name of the attribute in lower case, and is the same <code>String</code> instance as the corresponding constant
+		 * in the {@link HTMLElementName} interface where one exists, so it is not created for each attribute.
+		 *
+		 * @param index  the index of the attribute.
+		 * @return the {@linkplain Attribute#getKey() key} of the attribute at the specified index.
+		 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=getAttributeCount()</code>).
+		 */
+		public String getAttributeKey(final int index) {
+			checkAttributeIndex(index);
+			return attributes.getKey(index);
+		}
+
+		/**
+		 * Returns the raw (not {@linkplain CharacterReference#decode(CharSequence) decoded}) value of the attribute at the specified index
+		 * in the current start tag as a view into the internal buffer.
+		 * <p>
+		 * The returned object is only valid until the next call to this method or the {@link #hasNext()} or {@link #next()} method.
+		 *
+		 * @param index  the index of the attribute.
+		 * @return the raw value of the attribute at the specified index, or <code>null</code> if the attribute {@linkplain Attribute#hasValue() has no value}.
+		 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=getAttributeCount()</code>).
+		 * @see #getDecodedAttributeValue(int)
+		 */
+		public CharSequence getAttributeValue(final int index) {
+			checkAttributeIndex(index);
+			final int valueBegin=attributes.getValueBegin(index);
+			return valueBegin==-1 ? null : attributeValueView.set(valueBegin,attributes.getValueEnd(index));
+		}
+
+		/**
+		 * Returns the {@linkplain CharacterReference#decode(CharSequence,boolean) decoded} value of the attribute at the specified index in the current start tag.
+		 * <p>
+		 * In contrast to the {@link #getAttributeValue(int)} method, this method creates a new <code>String</code> on every call.
+		 *
+		 * @param index  the index of the attribute.
+		 * @return the decoded value of the attribute at the specified index, or <code>null</code> if the attribute {@linkplain Attribute#hasValue() has no value}.
+		 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=getAttributeCount()</code>).
+		 * @see Attribute#getValue()
+		 */
+		public String getDecodedAttributeValue(final int index) {
+			final CharSequence value=getAttributeValue(index);
+			return value==null ? null : CharacterReference.decode(value,true);
+		}
+
+		/**
+		 * Returns the {@linkplain CharacterReference#getCodePoint() code point} of the current character reference.
+		 * @return the {@linkplain CharacterReference#getCodePoint() code point} of the current character reference.
+		 * @throws IllegalStateException if the current segment is not a character reference.
+		 */
+		public int getCodePoint() {
+			if (eventType!=CHARACTER_REFERENCE) throw new IllegalStateException("getCodePoint() can only be called when the event type is CHARACTER_REFERENCE");
+			return ((CharacterReference)segment).getCodePoint();
+		}
+
+		/**
+		 * Returns the current segment as a {@link Segment} object, which is the same object that the {@linkplain StreamedSource#iterator() iterator} would have returned.
+		 * <p>
+		 * If the current segment is plain text, a new {@link Segment} object is created on every call.
+		 *
+		 * @return the current segment as a {@link Segment} object.
+		 * @throws IllegalStateException if the {@link #next()} method has not yet been called.
+		 */
+		public Segment getSegment() {
+			if (eventType==START_DOCUMENT) throw new IllegalStateException("getSegment() can only be called after next() has been called");
+			return segment!=null ? segment : new Segment(source,begin,end);
+		}
+
+		private boolean isTag() {
+			return eventType==START_TAG || eventType==END_TAG;
+		}
+
+		private void checkAttributeIndex(final int index) {
+			if (index<0 || index>=getAttributeCount()) throw new IndexOutOfBoundsException("index="+index+" attributeCount="+getAttributeCount());
+		}
+	}
+
+	private final class BufferView implements CharSequence {
+		// a reusable view of a range of the streamed text in the internal buffer
+		private char[] buffer;
+		private int offset;
+		private int length;
+
+		BufferView set(final int begin, final int end) {
+			offset=streamedText.getBufferOffset(begin,end);
+			buffer=streamedText.getBuffer();
+			length=end-begin;
+			return this;
+		}
+
+		public char charAt(final int index) {
+			if (index<0 || index>=length) throw new IndexOutOfBoundsException("index="+index+" length="+length);
+			return buffer[offset+index];
+		}
+
+		public int length() {
+			return length;
+		}
+
+		public CharSequence subSequence(final int begin, final int end) {
+			if (begin<0 || end>length || begin>end) throw new IndexOutOfBoundsException("begin="+begin+" end="+end+" length="+length);
+			return new String(buffer,offset+begin,end-begin);
+		}
+
+		public String toString() {
+			return new String(buffer,offset,length);
+		}
 	}
 }
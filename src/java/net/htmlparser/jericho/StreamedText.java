@@ -22,6 +22,7 @@ package net.htmlparser.jericho;
 
 import java.io.*;
 import java.nio.*;
+import java.nio.charset.*;
 
 /**
  * Implements a buffered window into a stream of characters.
@@ -30,29 +31,54 @@ import java.nio.*;
  * <p>
  * The {@link #setMinRequiredBufferBegin(int)} method can be used to inform the <code>StreamedText</code> object that characters up to a specified
  * position are no longer required, allowing more characters to be fetched without the need to increase the buffer size.
+ * <p>
+ * If the text is created without a reader, it is in <i>push mode</i>, where the characters are {@linkplain #append(char[],int,int) appended} by the caller instead of
+ * being fetched from a stream.
+ * Any attempt to access a position that has not yet been appended then throws {@link #INPUT_REQUIRED} until {@link #setEndOfInput()} is called.
  */
 final class StreamedText implements CharSequence {
-	private final Reader reader;
+	private final Reader reader; // null in push mode or if one of the "text" argument constructors was used
 	private char[] buffer;
 	private boolean expandableBuffer;
 	private int bufferBegin=0; // the current position of the first byte of the buffer. all text before it has been discarded.
 	private int readerPos=0; // the next position into which text will be loaded from the reader stream. must be >=bufferBegin and <=bufferBegin+buffer.length, except if one of the "text" argument constructors was used, in which case =Integer.MAX_VALUE.
 	private int minRequiredBufferBegin=0; // the minimum pos that must be kept in buffer. always >=bufferBegin.
 	private int end=Integer.MAX_VALUE;
+	private final boolean pushMode;
+	private CharsetDecoder decoder=null; // decodes the bytes appended in push mode
+	private ByteBuffer pendingBytes=null; // the bytes at the end of the last appended ByteBuffer that do not yet form a complete character, in write mode
+	private BufferPool bufferPool=null; // the pool from which the current expandable buffer was borrowed, null if the buffer was not borrowed or has been released
 
 	public static int INITIAL_EXPANDABLE_BUFFER_SIZE=8192; // same default as StAX
 
+	private static final char[] RELEASED_BUFFER=new char[0];
+
+	/**
+	 * Thrown in push mode when a position is accessed that has not yet been appended.
+	 * The single instance has no stack trace, as it is used for control flow and is always caught internally.
+	 */
+	static final InputRequiredException INPUT_REQUIRED=new InputRequiredException();
+
 	public StreamedText(final Reader reader, final char[] buffer) {
 		this.reader=reader;
+		pushMode=false;
 		setBuffer(buffer);
 	}
 
+	public StreamedText() {
+		// push mode
+		reader=null;
+		pushMode=true;
+		setBuffer(null);
+	}
+
 	public StreamedText(final Reader reader) {
 		this(reader,null);
 	}
 
 	private StreamedText(final char[] text, final int length) {
 		reader=null;
+		pushMode=false;
 		buffer=text;
 		expandableBuffer=false;
 		end=length;
@@ -72,20 +98,111 @@ final class StreamedText implements CharSequence {
 	}
 
 	public StreamedText setBuffer(char[] buffer) {
+		releaseBuffer();
 		if (buffer!=null) {
 			this.buffer=buffer;
 			expandableBuffer=false;
 		} else {
-			this.buffer=new char[INITIAL_EXPANDABLE_BUFFER_SIZE];
+			bufferPool=Config.StreamedSourceBufferPool;
+			this.buffer=bufferPool.borrow(INITIAL_EXPANDABLE_BUFFER_SIZE);
 			expandableBuffer=true;
 		}
 		return this;
 	}
 
+	/**
+	 * Returns the buffer to the pool from which it was borrowed.
+	 * <p>
+	 * The text can not be accessed after calling this method, unless the buffer was borrowed from {@link BufferPool#DISABLED},
+	 * in which case the buffer is kept so that existing segments remain usable.
+	 */
+	public void releaseBuffer() {
+		if (bufferPool==null || bufferPool==BufferPool.DISABLED) return;
+		bufferPool.release(buffer);
+		bufferPool=null;
+		buffer=RELEASED_BUFFER;
+		expandableBuffer=false;
+	}
+
 	public boolean hasExpandableBuffer() {
 		return expandableBuffer;
 	}
 
+	public boolean isPushMode() {
+		return pushMode;
+	}
+
+	public boolean isEndOfInput() {
+		return end!=Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the position after the last character appended in push mode.
+	 * @return the position after the last character appended in push mode.
+	 */
+	public int getAppendedEnd() {
+		return readerPos;
+	}
+
+	/**
+	 * Appends the specified characters to the text in push mode.
+	 * @param chars  the characters to append.
+	 * @param offset  the offset of the first character to append.
+	 * @param length  the number of characters to append.
+	 */
+	public void append(final char[] chars, final int offset, final int length) {
+		checkAppend();
+		if (length>0) ensureCapacity(readerPos+length-1);
+		System.arraycopy(chars,offset,buffer,readerPos-bufferBegin,length);
+		readerPos+=length;
+	}
+
+	/**
+	 * Decodes the bytes remaining in the specified buffer and appends the resulting characters to the text in push mode.
+	 * <p>
+	 * Any bytes at the end of the buffer that do not form a complete character are retained until the next call to this method or to {@link #setEndOfInput()}.
+	 * All of the bytes in the specified buffer are consumed.
+	 *
+	 * @param bytes  the bytes to decode.
+	 * @param charset  the character set used to decode the bytes, which must be the same in every call.
+	 */
+	public void append(final ByteBuffer bytes, final Charset charset) {
+		checkAppend();
+		if (decoder==null) {
+			decoder=charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+			pendingBytes=ByteBuffer.allocate(16);
+		}
+		// complete the character started at the end of the previous buffer one byte at a time:
+		while (pendingBytes.position()!=0 && bytes.hasRemaining()) {
+			pendingBytes.put(bytes.get());
+			pendingBytes.flip();
+			decode(pendingBytes,false);
+			pendingBytes.compact();
+		}
+		if (pendingBytes.position()!=0) return;
+		decode(bytes,false);
+		pendingBytes.put(bytes);
+	}
+
+	/**
+	 * Indicates that all of the text has been appended in push mode, so that the end of the text is known.
+	 */
+	public void setEndOfInput() {
+		checkAppend();
+		if (decoder!=null) {
+			pendingBytes.flip();
+			decode(pendingBytes,true);
+			while (true) {
+				final CharBuffer charBuffer=getAppendCharBuffer();
+				final CoderResult coderResult=decoder.flush(charBuffer);
+				readerPos=bufferBegin+charBuffer.position();
+				if (!coderResult.isOverflow()) break;
+				ensureCapacity(readerPos+1);
+			}
+		}
+		end=readerPos;
+	}
+
 	/**
 	 * Returns the character at the specified index.
 	 * @param index  the index of the character.
@@ -122,6 +239,19 @@ final class StreamedText implements CharSequence {
 		return end;
 	}
 
+	/**
+	 * Indicates whether the specified position is before the end of the text stream, reading further characters from the stream if necessary.
+	 * <p>
+	 * This allows the end of the stream to be detected without catching the <code>IndexOutOfBoundsException</code> thrown by {@link #charAt(int)}.
+	 *
+	 * @param pos  the position to check.
+	 * @return <code>true</code> if the specified position is before the end of the text stream, otherwise <code>false</code>.
+	 */
+	public boolean hasCharAt(final int pos) {
+		if (pos>=readerPos && pos<end) readToPosition(pos);
+		return pos<end;
+	}
+
 	private void prepareBufferRange(final int begin, final int end) {
 		final int lastRequiredPos=end-1;
 		if (lastRequiredPos>readerPos) readToPosition(lastRequiredPos);
@@ -177,6 +307,17 @@ final class StreamedText implements CharSequence {
 		return "Buffer size: \""+buffer.length+"\", bufferBegin="+bufferBegin+", minRequiredBufferBegin="+minRequiredBufferBegin+", readerPos="+readerPos;
 	}
 
+	/**
+	 * Ensures the specified range is in the buffer and returns the offset of its begin position within the array returned by {@link #getBuffer()}.
+	 * @param begin  the begin position, inclusive.
+	 * @param end  the end position, exclusive.
+	 * @return the offset of the begin position within the buffer.
+	 */
+	public int getBufferOffset(final int begin, final int end) {
+		prepareBufferRange(begin,end);
+		return begin-bufferBegin;
+	}
+
 	public char[] getBuffer() {
 		return buffer;
 	}
@@ -195,7 +336,29 @@ final class StreamedText implements CharSequence {
 		return minRequiredBufferBegin+buffer.length;
 	}
 
-	private void readToPosition(final int pos) {
+	private void checkAppend() {
+		if (!pushMode) throw new IllegalStateException("Text can only be appended to a StreamedText created without a reader");
+		if (isEndOfInput()) throw new IllegalStateException("Text can not be appended after the end of input");
+	}
+
+	private void decode(final ByteBuffer bytes, final boolean endOfInput) {
+		while (true) {
+			final CharBuffer charBuffer=getAppendCharBuffer();
+			final CoderResult coderResult=decoder.decode(bytes,charBuffer,endOfInput);
+			readerPos=bufferBegin+charBuffer.position();
+			if (!coderResult.isOverflow()) return;
+			// make room for at least as many characters as there are bytes remaining, and at least a surrogate pair:
+			ensureCapacity(readerPos+Math.max(bytes.remaining(),2)-1);
+		}
+	}
+
+	private CharBuffer getAppendCharBuffer() {
+		// the unused part of the buffer after readerPos
+		return CharBuffer.wrap(buffer,readerPos-bufferBegin,bufferBegin+buffer.length-readerPos);
+	}
+
+	private void ensureCapacity(final int pos) {
+		// makes room in the buffer for the specified position, discarding text before minRequiredBufferBegin and expanding the buffer if necessary
 		try {
 			if (pos>=bufferBegin+buffer.length) {
 				if (pos>=minRequiredBufferBegin+buffer.length) {
@@ -204,6 +367,18 @@ final class StreamedText implements CharSequence {
 				}
 				discardUsedText();
 			}
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	private void readToPosition(final int pos) {
+		if (pushMode) {
+			if (pos>=readerPos && end==Integer.MAX_VALUE) throw INPUT_REQUIRED;
+			return;
+		}
+		try {
+			ensureCapacity(pos);
 			while (readerPos<=pos) {
 				final int charCount=reader.read(buffer,readerPos-bufferBegin,bufferBegin+buffer.length-readerPos);
 				if (charCount==-1) {
@@ -220,8 +395,9 @@ final class StreamedText implements CharSequence {
 	private void expandBuffer(final int minSize) throws IOException {
 		int newSize=buffer.length*2;
 		if (newSize<minSize) newSize=minSize;
-		final char[] newBuffer=new char[newSize];
+		final char[] newBuffer=bufferPool.borrow(newSize);
 		shiftBuffer(buffer,newBuffer);
+		bufferPool.release(buffer);
 		buffer=newBuffer;
 	}
 
@@ -249,6 +425,18 @@ final class StreamedText implements CharSequence {
 		return substring(bufferBegin,Math.min(end,readerPos));
 	}
 
+	static final class InputRequiredException extends RuntimeException {
+		private static final long serialVersionUID=1L;
+
+		private InputRequiredException() {
+			super("StreamedText position has not yet been appended");
+		}
+
+		public Throwable fillInStackTrace() {
+			return this;
+		}
+	}
+
 	private static char[] toCharArray(final CharSequence text) {
 		if (text instanceof String) return ((String)text).toCharArray();
 		final char[] charArray=new char[text.length()];
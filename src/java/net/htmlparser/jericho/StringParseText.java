@@ -0,0 +1,144 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+/**
+ * Implements the {@link ParseText} of an in-memory {@link Source} document.
+ * <p>
+ * Unlike {@link CharSequenceParseText}, which converts each character to lower case every time it is accessed,
+ * the entire text is converted to lower case once on construction.
+ * The lower case text is stored as a <code>String</code>, so searches that continue to the end of the text
+ * use the <code>String.indexOf</code> and <code>String.lastIndexOf</code> methods, which the JVM implements as intrinsics,
+ * and documents consisting only of Latin-1 characters are stored in one byte per character on JVMs with compact strings.
+ * If the source text is a <code>String</code> that does not contain any upper case characters it is used directly without copying.
+ * <p>
+ * Searches that break off at a specified index are performed with a simple loop so that a search over a small range
+ * never scans past the break position.
+ * <p>
+ * As in <code>CharSequenceParseText</code>, only the ASCII characters '<code>A</code>' to '<code>Z</code>' are converted to lower case.
+ */
+final class StringParseText implements ParseText {
+	private final CharSequence charSequence;
+	private final String text; // the lower case text
+
+	StringParseText(final CharSequence charSequence) {
+		this.charSequence=charSequence;
+		text=toLowerCase(charSequence);
+	}
+
+	public char charAt(final int index) {
+		return text.charAt(index);
+	}
+
+	public boolean containsAt(final String str, final int pos) {
+		if (pos>=0 && pos+str.length()<=text.length()) return text.startsWith(str,pos);
+		// compare character by character so that the same IndexOutOfBoundsException is thrown as in CharSequenceParseText if the end of the text is reached:
+		for (int i=0; i<str.length(); i++)
+			if (str.charAt(i)!=text.charAt(pos+i)) return false;
+		return true;
+	}
+
+	public int indexOf(final char searchChar, final int fromIndex) {
+		return text.indexOf(searchChar,fromIndex);
+	}
+
+	public int indexOf(final char searchChar, final int fromIndex, final int breakAtIndex) {
+		if (breakAtIndex==NO_BREAK || breakAtIndex>=text.length()) return text.indexOf(searchChar,fromIndex);
+		for (int i=(fromIndex<0 ? 0 : fromIndex); i<breakAtIndex; i++)
+			if (text.charAt(i)==searchChar) return i;
+		return -1;
+	}
+
+	public int indexOf(final String searchString, final int fromIndex) {
+		return indexOf(searchString,fromIndex,NO_BREAK);
+	}
+
+	public int indexOf(final String searchString, final int fromIndex, final int breakAtIndex) {
+		if (searchString.length()==1) return indexOf(searchString.charAt(0),fromIndex,breakAtIndex);
+		if (searchString.length()==0) return fromIndex;
+		final int lastPossibleBreakAtIndex=text.length()-searchString.length()+1;
+		if (breakAtIndex==NO_BREAK || breakAtIndex>=lastPossibleBreakAtIndex) return text.indexOf(searchString,fromIndex<0 ? 0 : fromIndex);
+		final char firstChar=searchString.charAt(0);
+		for (int i=(fromIndex<0 ? 0 : fromIndex); i<breakAtIndex; i++)
+			if (text.charAt(i)==firstChar && text.startsWith(searchString,i)) return i;
+		return -1;
+	}
+
+	public int lastIndexOf(final char searchChar, final int fromIndex) {
+		return text.lastIndexOf(searchChar,fromIndex);
+	}
+
+	public int lastIndexOf(final char searchChar, final int fromIndex, final int breakAtIndex) {
+		if (breakAtIndex<0) return text.lastIndexOf(searchChar,fromIndex);
+		for (int i=(fromIndex>=text.length() ? text.length()-1 : fromIndex); i>breakAtIndex; i--)
+			if (text.charAt(i)==searchChar) return i;
+		return -1;
+	}
+
+	public int lastIndexOf(final String searchString, final int fromIndex) {
+		return lastIndexOf(searchString,fromIndex,NO_BREAK);
+	}
+
+	public int lastIndexOf(final String searchString, int fromIndex, final int breakAtIndex) {
+		if (searchString.length()==1) return lastIndexOf(searchString.charAt(0),fromIndex,breakAtIndex);
+		if (searchString.length()==0) return fromIndex;
+		final int rightIndex=text.length()-searchString.length();
+		if (breakAtIndex>rightIndex) return -1;
+		if (breakAtIndex<0) return text.lastIndexOf(searchString,fromIndex);
+		if (fromIndex>rightIndex) fromIndex=rightIndex;
+		final char firstChar=searchString.charAt(0);
+		for (int i=fromIndex; i>breakAtIndex; i--)
+			if (text.charAt(i)==firstChar && text.startsWith(searchString,i)) return i;
+		return -1;
+	}
+
+	public int length() {
+		return text.length();
+	}
+
+	public CharSequence subSequence(final int begin, final int end) {
+		// doesn't have to be efficient because it is not actually used anywhere internally.
+		return charSequence.subSequence(begin,end).toString().toLowerCase();
+	}
+
+	public String toString() {
+		return charSequence.toString();
+	}
+
+	private static String toLowerCase(final CharSequence charSequence) {
+		final int length=charSequence.length();
+		int i=0;
+		// skip the leading characters that are already lower case:
+		while (i<length && !isUpperCase(charSequence.charAt(i))) i++;
+		if (i==length) return charSequence.toString();
+		final char[] chars=new char[length];
+		for (int x=0; x<i; x++) chars[x]=charSequence.charAt(x);
+		for (; i<length; i++) {
+			final char ch=charSequence.charAt(i);
+			chars[i]=isUpperCase(ch) ? ((char)(ch ^ 0x20)) : ch;
+		}
+		return new String(chars);
+	}
+
+	private static boolean isUpperCase(final char ch) {
+		return ch>='A' && ch<='Z';
+	}
+}
@@ -0,0 +1,138 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+/**
+ * Records the positions of the markup-significant characters in a source document.
+ * <p>
+ * The positions of '<code>&lt;</code>' (the start of every potential tag) and '<code>&amp;</code>' (the start of every potential character reference)
+ * in the {@linkplain Source#getParseText() parse text} are stored as bitmaps, one bit per character.
+ * Finding the next candidate position is then a matter of finding the next set bit, which skips 64 characters at a time
+ * over text containing no markup.
+ * <p>
+ * The begin positions of each row in the source text are stored as an array, which is used to calculate {@linkplain RowColumnVector row and column} numbers
+ * without having to scan the text again.
+ * Note that the rows are determined from the source text rather than the parse text, as line breaks inside
+ * {@linkplain Segment#ignoreWhenParsing() ignored} segments are not present in the parse text.
+ * <p>
+ * Each type of position is found using <code>String.indexOf(char)</code>, which the JVM implements as a vectorised intrinsic,
+ * so building the index is faster than a hand written loop examining each character
+ * (the <code>jdk.incubator.vector</code> API is not available on the java versions this library supports).
+ * <p>
+ * Only used for {@link Source} objects, never for streamed sources.
+ */
+final class StructuralIndex {
+	private final int length;
+	private final long[] tagBeginBits; // bit set for each '<' in the parse text
+	private final long[] characterReferenceBeginBits; // bit set for each '&' in the parse text
+	private final int[] rowBegins; // begin position of each row in the source text, rowBegins[0] is always 0.
+
+	private static final int BLOCK_SIZE=64;
+
+	private StructuralIndex(final int length, final long[] tagBeginBits, final long[] characterReferenceBeginBits, final int[] rowBegins) {
+		this.length=length;
+		this.tagBeginBits=tagBeginBits;
+		this.characterReferenceBeginBits=characterReferenceBeginBits;
+		this.rowBegins=rowBegins;
+	}
+
+	static StructuralIndex build(final Source source) {
+		// the parse text only differs from the source text in the case of its characters and in segments blanked out by ignoreWhenParsing,
+		// so the positions of '<' and '&' are taken from the source text and then cleared from any ignored segments.
+		final String sourceText=source.toString();
+		final int length=sourceText.length();
+		final int blockCount=(length+BLOCK_SIZE-1)/BLOCK_SIZE;
+		final long[] tagBeginBits=getBits(sourceText,'<',blockCount);
+		final long[] characterReferenceBeginBits=getBits(sourceText,'&',blockCount);
+		if (source.hasIgnoredSegments()) {
+			final MaskedParseText parseText=(MaskedParseText)source.getParseText();
+			for (int i=0; i<parseText.getRangeCount(); i++) {
+				clearBits(tagBeginBits,parseText.getRangeBegin(i),parseText.getRangeEnd(i));
+				clearBits(characterReferenceBeginBits,parseText.getRangeBegin(i),parseText.getRangeEnd(i));
+			}
+		}
+		return new StructuralIndex(length,tagBeginBits,characterReferenceBeginBits,RowColumnVector.getRowBegins(sourceText));
+	}
+
+	private static long[] getBits(final String text, final char ch, final int blockCount) {
+		final long[] bits=new long[blockCount];
+		for (int pos=text.indexOf(ch); pos!=-1; pos=text.indexOf(ch,pos+1)) bits[pos/BLOCK_SIZE]|=1L<<pos; // shift distance is taken modulo 64
+		return bits;
+	}
+
+	private static void clearBits(final long[] bits, final int begin, final int end) {
+		for (int pos=begin; pos<end; pos++) bits[pos/BLOCK_SIZE]&=~(1L<<pos);
+	}
+
+	/**
+	 * Returns the position of the next '<code>&lt;</code>' character in the parse text at or after <code>pos</code> and before <code>breakAtPos</code>.
+	 * @return the position of the next '<code>&lt;</code>' character, or -1 if there is none.
+	 */
+	int getNextTagBegin(final int pos, final int breakAtPos) {
+		return nextSetBit(tagBeginBits,pos,breakAtPos);
+	}
+
+	/**
+	 * Returns the position of the next '<code>&amp;</code>' character in the parse text at or after <code>pos</code> and before <code>breakAtPos</code>.
+	 * @return the position of the next '<code>&amp;</code>' character, or -1 if there is none.
+	 */
+	int getNextCharacterReferenceBegin(final int pos, final int breakAtPos) {
+		return nextSetBit(characterReferenceBeginBits,pos,breakAtPos);
+	}
+
+	/**
+	 * Returns the position of the last '<code>&amp;</code>' character in the parse text at or before <code>pos</code>.
+	 * @return the position of the last '<code>&amp;</code>' character, or -1 if there is none.
+	 */
+	int getPreviousCharacterReferenceBegin(final int pos) {
+		return previousSetBit(characterReferenceBeginBits,pos);
+	}
+
+	int[] getRowBegins() {
+		return rowBegins;
+	}
+
+	private int nextSetBit(final long[] bits, final int pos, int breakAtPos) {
+		if (breakAtPos==ParseText.NO_BREAK || breakAtPos>length) breakAtPos=length;
+		if (pos<0) return nextSetBit(bits,0,breakAtPos);
+		if (pos>=breakAtPos) return -1;
+		int blockIndex=pos/BLOCK_SIZE;
+		long block=bits[blockIndex]&(-1L<<pos);
+		while (block==0) {
+			if (++blockIndex*BLOCK_SIZE>=breakAtPos) return -1;
+			block=bits[blockIndex];
+		}
+		final int result=blockIndex*BLOCK_SIZE+Long.numberOfTrailingZeros(block);
+		return result<breakAtPos ? result : -1;
+	}
+
+	private int previousSetBit(final long[] bits, int pos) {
+		if (pos>=length) pos=length-1;
+		if (pos<0) return -1;
+		int blockIndex=pos/BLOCK_SIZE;
+		long block=bits[blockIndex]&(-1L>>>(BLOCK_SIZE-1-(pos%BLOCK_SIZE)));
+		while (block==0) {
+			if (--blockIndex<0) return -1;
+			block=bits[blockIndex];
+		}
+		return blockIndex*BLOCK_SIZE+BLOCK_SIZE-1-Long.numberOfLeadingZeros(block);
+	}
+}
@@ -25,66 +25,46 @@ import java.util.*;
 /**
  * Represents a cached map of character positions to tags for a particular tag type,
  * or for all tag types if the tagType field is null.
+ * <p>
+ * The cache entries are stored in a skip list ordered by position, so that looking up the entry at or after a position,
+ * inserting a new entry and removing a redundant entry all take logarithmic time regardless of the order in which positions are searched.
+ * Each entry is also linked to its previous and next entries so that adjacent entries are found in constant time.
  */
 final class SubCache {
 	private final Cache cache;
 	public final TagType tagType; // does not support unregistered tag types at present
 	private final CacheEntry bof; // beginning of file marker
 	private final CacheEntry eof; // end of file marker
-	private CacheEntry[] array=new CacheEntry[INITIAL_CAPACITY];
+	private final CacheEntry[] update=new CacheEntry[MAX_LEVEL]; // the last entry before a given position at each level, populated by findPredecessors
+	private int size=2;
+	private int randomSeed=0x2545F491; // seed for the xorshift generator used to determine the level of each new entry
 
-	private static final int INITIAL_CAPACITY=64;
+	private static final int MAX_LEVEL=16; // each level has on average a quarter of the entries of the level below, so this is sufficient for over a billion entries
 
 	public SubCache(final Cache cache, final TagType tagType) {
 		this.cache=cache;
 		this.tagType=tagType;
-		array[0]=bof=new CacheEntry(0,-1,null,false,false);
-		array[1]=eof=new CacheEntry(1,cache.getSourceLength(),null,false,false);
+		bof=new CacheEntry(-1,null,false,false,MAX_LEVEL);
+		eof=new CacheEntry(cache.getSourceLength(),null,false,false,MAX_LEVEL);
+		linkEndMarkers();
 	}
 
 	public int size() {
-		return eof.index+1;
+		return size;
 	}
 
 	public void clear() {
 		bof.nextCached=false;
-		eof.index=1;
 		eof.previousCached=false;
-		array[1]=eof;
-	}
-
-	public void bulkLoad_Init(final int tagCount) {
-		array=new CacheEntry[tagCount+2];
-		array[0]=bof;
-		bof.nextCached=true;
-		array[eof.index=tagCount+1]=eof;
-		eof.previousCached=true;
-	}
-
-	public void bulkLoad_Set(final int tagsIndex, final Tag tag) {
-		final int index=tagsIndex+1;
-		array[index]=new CacheEntry(index,tag.begin,tag,true,true);
-	}
-
-	public void bulkLoad_AddToTypeSpecificCache(final Tag tag) {
-		final int index=eof.index;
-		if (array.length==eof.index+1) doubleCapacity();
-		array[index]=new CacheEntry(index,tag.begin,tag,true,true);
-		eof.index++;
-	}
-
-	public void bulkLoad_FinaliseTypeSpecificCache() {
-		bof.nextCached=true;
-		eof.previousCached=true;
-		array[eof.index]=eof;
+		linkEndMarkers();
+		size=2;
 	}
 
 	public Tag getTagAt(final int pos, final boolean serverTagOnly) {
 		// This must only be called on allTagTypesSubCache (ie tagType==null)
 		if (cache.getSourceLength()==0) return null;
 		if (pos<0 || pos>=cache.getSourceLength()) return null;
-		final int index=getIndexOfPos(pos);
-		final CacheEntry cacheEntry=array[index];
+		final CacheEntry cacheEntry=getCacheEntryAtOrAfter(pos);
 		if (cacheEntry.pos==pos) {
 			if (serverTagOnly && !cacheEntry.tag.getTagType().isServerTag()) return null;
 			return cacheEntry.tag;
@@ -94,21 +74,19 @@ final class SubCache {
 	}
 
 	public void addTagAt(final int pos, final Tag tag) {
-		final int index=getIndexOfPos(pos);
-		final CacheEntry nextCacheEntry=array[index];
-		final CacheEntry previousCacheEntry=getPrevious(nextCacheEntry);
-		add(previousCacheEntry,new CacheEntry(index,pos,tag,pos==previousCacheEntry.pos+1,pos==nextCacheEntry.pos-1),nextCacheEntry);
+		final CacheEntry nextCacheEntry=getCacheEntryAtOrAfter(pos);
+		final CacheEntry previousCacheEntry=nextCacheEntry.previous;
+		add(previousCacheEntry,new CacheEntry(pos,tag,pos==previousCacheEntry.pos+1,pos==nextCacheEntry.pos-1,randomLevel()),nextCacheEntry);
 	}
 
 	public Tag getPreviousTag(final int pos) {
 		// Note that this method never returns tags for which tag.includInSearch() is false, so separate caching of unregistered tags won't work.
 		if (cache.getSourceLength()==0) return null;
 		if (pos<0 || pos>=cache.getSourceLength()) return null;
-		int index=getIndexOfPos(pos);
-		final CacheEntry cacheEntry=array[index];
+		final CacheEntry cacheEntry=getCacheEntryAtOrAfter(pos);
 		final Tag tag;
 		if (cacheEntry.pos==pos && cacheEntry.tag!=null && cacheEntry.tag.includeInSearch()) return cacheEntry.tag;
-		tag=getPreviousTag(getPrevious(cacheEntry),pos,cacheEntry);
+		tag=getPreviousTag(cacheEntry.previous,pos,cacheEntry);
 		addPreviousTag(pos,tag);
 		return tag;
 	}
@@ -117,14 +95,13 @@ final class SubCache {
 		// Note that this method never returns tags for which tag.includInSearch() is false, so separate caching of unregistered tags won't work.
 		if (cache.getSourceLength()==0) return null;
 		if (pos<0 || pos>=cache.getSourceLength()) return null;
-		int index=getIndexOfPos(pos);
-		final CacheEntry cacheEntry=array[index];
+		final CacheEntry cacheEntry=getCacheEntryAtOrAfter(pos);
 		final Tag tag;
 		if (cacheEntry.pos==pos) {
 			if (cacheEntry.tag!=null && cacheEntry.tag.includeInSearch()) return cacheEntry.tag;
-			tag=getNextTag(cacheEntry,pos,getNext(cacheEntry));
+			tag=getNextTag(cacheEntry,pos,cacheEntry.next);
 		} else {
-			tag=getNextTag(getPrevious(cacheEntry),pos,cacheEntry);
+			tag=getNextTag(cacheEntry.previous,pos,cacheEntry);
 		}
 		addNextTag(pos,tag);
 		return tag;
@@ -140,7 +117,8 @@ final class SubCache {
 
 	protected StringBuilder appendTo(final StringBuilder sb) {
 		sb.append("Cache for TagType : ").append(tagType).append(Config.NewLine);
-		for (int i=0; i<=lastIndex(); i++) sb.append(array[i]).append(Config.NewLine);
+		int index=0;
+		for (CacheEntry cacheEntry=bof; cacheEntry!=null; cacheEntry=cacheEntry.next) sb.append(cacheEntry.toString(index++)).append(Config.NewLine);
 		return sb;
 	}
 
@@ -157,7 +135,7 @@ final class SubCache {
 			if (previousCacheEntry==bof) return null;
 			if (previousCacheEntry.tag!=null && previousCacheEntry.tag.includeInSearch()) return previousCacheEntry.tag;
 			pos=previousCacheEntry.pos-1;
-			previousCacheEntry=getPrevious(nextCacheEntry=previousCacheEntry);
+			previousCacheEntry=(nextCacheEntry=previousCacheEntry).previous;
 		}
 	}
 
@@ -174,7 +152,7 @@ final class SubCache {
 			if (nextCacheEntry==eof) return null;
 			if (nextCacheEntry.tag!=null && nextCacheEntry.tag.includeInSearch()) return nextCacheEntry.tag;
 			pos=nextCacheEntry.pos+1;
-			nextCacheEntry=getNext(previousCacheEntry=nextCacheEntry);
+			nextCacheEntry=(previousCacheEntry=nextCacheEntry).next;
 		}
 	}
 
@@ -182,104 +160,88 @@ final class SubCache {
 		final int tagPos=(tag==null) ? bof.pos : tag.begin;
 		if (tagPos==pos) return; // the tag was found exactly on pos, so cache has already been fully updated
 		// tagPos < pos
-		int index=getIndexOfPos(pos);
-		CacheEntry stepCacheEntry=array[index];
+		CacheEntry stepCacheEntry=getCacheEntryAtOrAfter(pos);
 		// stepCacheEntry.pos is either == or > than tagPos.
 		// stepCacheEntry.pos is either == or > pos.
-		int compactStartIndex=Integer.MAX_VALUE;
 		if (stepCacheEntry.pos==pos) {
 			// a cache entry was aleady at pos (containing null or wrong tagType)
 			stepCacheEntry.previousCached=true;
-			if (stepCacheEntry.isRedundant()) {stepCacheEntry.removed=true; compactStartIndex=Math.min(compactStartIndex,stepCacheEntry.index);}
+			if (stepCacheEntry.isRedundant()) remove(stepCacheEntry);
 		} else if (!stepCacheEntry.previousCached) {
 			// we have to add a new cacheEntry at pos:
 			if (tagType==null)
 				cache.addTagAt(pos,false); // this pos has never been checked before, so add it to all relevant SubCaches (a null or unregistered tag entry is always added to this SubCache)
 			else
 				addTagAt(pos,null); // all we know is that the pos doesn't contain a tag of this SubCache's type, so add a null entry to this SubCache only.
-			// now we have to reload the index and stepCacheEntry as they may have changed:
-			stepCacheEntry=array[index=getIndexOfPos(pos)];
+			// now we have to reload stepCacheEntry as it may have changed:
+			stepCacheEntry=getCacheEntryAtOrAfter(pos);
 			// stepCacheEntry.pos is either == or > than tagPos.
 			// stepCacheEntry.pos is either == or > pos. (the latter if the added entry was redundant)
 			if (stepCacheEntry.pos==pos) {
 				// perform same steps as in the (stepCacheEntry.pos==pos) if condition above:
 				stepCacheEntry.previousCached=true;
-				if (stepCacheEntry.isRedundant()) {stepCacheEntry.removed=true; compactStartIndex=Math.min(compactStartIndex,stepCacheEntry.index);}
+				if (stepCacheEntry.isRedundant()) remove(stepCacheEntry);
 			}
 		}
+		// a removed cache entry retains its links to its previous and next entries, so the following loop can step through removed entries.
 		while (true) {
-			stepCacheEntry=array[--index];
+			stepCacheEntry=stepCacheEntry.previous;
 			if (stepCacheEntry.pos<=tagPos) break;
 			if (stepCacheEntry.tag!=null) {
 				if (stepCacheEntry.tag.includeInSearch()) throw new SourceCacheEntryMissingInternalError(tagType,tag,this);
 				stepCacheEntry.previousCached=true;
 				stepCacheEntry.nextCached=true;
 			} else {
-				stepCacheEntry.removed=true; compactStartIndex=Math.min(compactStartIndex,stepCacheEntry.index);
+				remove(stepCacheEntry);
 			}
 		}	
 		if (stepCacheEntry.pos!=tagPos) throw new FoundCacheEntryMissingInternalError(tagType,tag,this);
 		stepCacheEntry.nextCached=true;
-		compact(compactStartIndex);
 	}
 
 	private void addNextTag(final int pos, final Tag tag) {
 		final int tagPos=(tag==null) ? eof.pos : tag.begin;
 		if (tagPos==pos) return; // the tag was found exactly on pos, so cache has already been fully updated
 		// tagPos > pos
-		int index=getIndexOfPos(pos);
-		CacheEntry stepCacheEntry=array[index];
+		CacheEntry stepCacheEntry=getCacheEntryAtOrAfter(pos);
 		// stepCacheEntry.pos may be <, == or > than tagPos.
 		// stepCacheEntry.pos is either == or > pos.
-		int compactStartIndex=Integer.MAX_VALUE;
 		if (stepCacheEntry.pos==pos) {
 			// a cache entry was aleady at pos (containing null or wrong tagType)
 			stepCacheEntry.nextCached=true;
-			if (stepCacheEntry.isRedundant()) {stepCacheEntry.removed=true; compactStartIndex=Math.min(compactStartIndex,stepCacheEntry.index);}
-		} else if (!getPrevious(stepCacheEntry).nextCached) {
+			if (stepCacheEntry.isRedundant()) remove(stepCacheEntry);
+		} else if (!stepCacheEntry.previous.nextCached) {
 			// we have to add a new cacheEntry at pos:
 			if (tagType==null)
 				cache.addTagAt(pos,false); // this pos has never been checked before, so add it to all relevant SubCaches (a null or unregistered tag entry is always added to this SubCache)
 			else
 				addTagAt(pos,null); // all we know is that the pos doesn't contain a tag of this SubCache's type, so add a null entry to this SubCache only.
-			// now we have to reload the index and stepCacheEntry as they may have changed:
-			stepCacheEntry=array[index=getIndexOfPos(pos)];
+			// now we have to reload stepCacheEntry as it may have changed:
+			stepCacheEntry=getCacheEntryAtOrAfter(pos);
 			// stepCacheEntry.pos may be <, == or > than tagPos.
 			// stepCacheEntry.pos is either == or > pos. (the latter if the added entry was redundant)
 			if (stepCacheEntry.pos==pos) {
 				// perform same steps as in the (stepCacheEntry.pos==pos) if condition above:
 				stepCacheEntry.nextCached=true;
-				if (stepCacheEntry.isRedundant()) {stepCacheEntry.removed=true; compactStartIndex=Math.min(compactStartIndex,stepCacheEntry.index);}
+				if (stepCacheEntry.isRedundant()) remove(stepCacheEntry);
 			}
 		}
 		if (stepCacheEntry.pos<tagPos) {
+			// a removed cache entry retains its links to its previous and next entries, so the following loop can step through removed entries.
 			while (true) {
-				stepCacheEntry=array[++index];
+				stepCacheEntry=stepCacheEntry.next;
 				if (stepCacheEntry.pos>=tagPos) break;
 				if (stepCacheEntry.tag!=null) {
 					if (stepCacheEntry.tag.includeInSearch()) throw new SourceCacheEntryMissingInternalError(tagType,tag,this);
 					stepCacheEntry.previousCached=true;
 					stepCacheEntry.nextCached=true;
 				} else {
-					stepCacheEntry.removed=true; compactStartIndex=Math.min(compactStartIndex,stepCacheEntry.index);
+					remove(stepCacheEntry);
 				}
 			}	
 			if (stepCacheEntry.pos!=tagPos) throw new FoundCacheEntryMissingInternalError(tagType,tag,this);
 		}
 		stepCacheEntry.previousCached=true;
-		compact(compactStartIndex);
-	}
-
-	private void compact(int i) {
-		final int lastIndex=lastIndex();
-		int removedCount=1;
-		while (i<lastIndex) {
-			final CacheEntry cacheEntry=array[++i];
-			if (cacheEntry.removed)
-				removedCount++;
-			else
-				array[cacheEntry.index=i-removedCount]=cacheEntry;
-		}
 	}
 
 	private void add(final CacheEntry previousCacheEntry, final CacheEntry newCacheEntry, final CacheEntry nextCacheEntry) {
@@ -294,69 +256,76 @@ final class SubCache {
 		}
 	}
 
-	private int getIndexOfPos(final int pos) {
-		// return the index of the cacheEntry at pos, or the index where it would be inserted if it does not exist.
-		int minIndex=0;
-		int maxIndex=lastIndex();
-		// using the following complex calculation instead of a binary search is likely to result in less iterations but is slower overall:
-		// int index=(pos*maxIndex)/cache.getSourceLength(); // approximate first guess at index, assuming even distribution of cache entries
-		int index=maxIndex>>1;
-		while (true) {
-			final CacheEntry cacheEntry=array[index];
-			if (pos>cacheEntry.pos) {
-				final CacheEntry nextCacheEntry=getNext(cacheEntry);
-				if (pos<=nextCacheEntry.pos) return nextCacheEntry.index;
-				minIndex=nextCacheEntry.index;
-			} else if (pos<cacheEntry.pos) {
-				final CacheEntry previousCacheEntry=getPrevious(cacheEntry);
-				if (pos==previousCacheEntry.pos) return previousCacheEntry.index;
-				if (pos>previousCacheEntry.pos) return index;
-				maxIndex=previousCacheEntry.index;
-			} else {
-				return index;
-			}
-			index=(minIndex+maxIndex)>>1;
-			// using the following complex calculation instead of a binary search is likely to result in less iterations but is slower overall:
-			// final int minIndexPos=array[minIndex].pos;
-			// index=((maxIndex-minIndex-1)*(pos-minIndexPos))/(array[maxIndex].pos-minIndexPos)+minIndex+1; // approximate next guess at index, assuming even distribution of cache entries between min and max entries
+	private CacheEntry getCacheEntryAtOrAfter(final int pos) {
+		// return the cacheEntry at pos, or the cacheEntry before which it would be inserted if it does not exist.
+		CacheEntry cacheEntry=bof;
+		for (int level=MAX_LEVEL-1; level>0; level--) {
+			CacheEntry nextCacheEntry;
+			while ((nextCacheEntry=cacheEntry.skipNext[level]).pos<pos) cacheEntry=nextCacheEntry;
 		}
+		while (cacheEntry.next.pos<pos) cacheEntry=cacheEntry.next;
+		return cacheEntry.next;
 	}
 
-	private CacheEntry getNext(final CacheEntry cacheEntry) {
-		return array[cacheEntry.index+1];
-	}
-
-	private CacheEntry getPrevious(final CacheEntry cacheEntry) {
-		return array[cacheEntry.index-1];
-	}
-	
-	private int lastIndex() {
-		return eof.index;
+	private void findPredecessors(final int pos) {
+		// populates the update array with the last cacheEntry before pos at each level.
+		CacheEntry cacheEntry=bof;
+		for (int level=MAX_LEVEL-1; level>0; level--) {
+			CacheEntry nextCacheEntry;
+			while ((nextCacheEntry=cacheEntry.skipNext[level]).pos<pos) cacheEntry=nextCacheEntry;
+			update[level]=cacheEntry;
+		}
+		while (cacheEntry.next.pos<pos) cacheEntry=cacheEntry.next;
+		update[0]=cacheEntry;
 	}
 
 	private void insert(final CacheEntry cacheEntry) {
-		final int index=cacheEntry.index;
-		if (array.length==size()) doubleCapacity();
-		for (int i=lastIndex(); i>=index; i--) {
-			final CacheEntry movedCacheEntry=array[i];
-			array[movedCacheEntry.index=(i+1)]=movedCacheEntry;
+		findPredecessors(cacheEntry.pos);
+		final CacheEntry previousCacheEntry=update[0];
+		cacheEntry.previous=previousCacheEntry;
+		cacheEntry.next=previousCacheEntry.next;
+		previousCacheEntry.next.previous=cacheEntry;
+		previousCacheEntry.next=cacheEntry;
+		if (cacheEntry.skipNext!=null) {
+			for (int level=1; level<cacheEntry.skipNext.length; level++) {
+				cacheEntry.skipNext[level]=update[level].skipNext[level];
+				update[level].skipNext[level]=cacheEntry;
+			}
 		}
-		array[index]=cacheEntry;
+		size++;
 	}
 
 	private void remove(final CacheEntry cacheEntry) {
-		final int lastIndex=lastIndex();
-		for (int i=cacheEntry.index; i<lastIndex; i++) {
-			final CacheEntry movedCacheEntry=array[i+1];
-			array[movedCacheEntry.index=i]=movedCacheEntry;
+		// the links of the removed cacheEntry itself are left intact so that loops stepping through the entries can continue from it.
+		if (cacheEntry.skipNext!=null) {
+			findPredecessors(cacheEntry.pos);
+			for (int level=1; level<cacheEntry.skipNext.length; level++)
+				if (update[level].skipNext[level]==cacheEntry) update[level].skipNext[level]=cacheEntry.skipNext[level];
 		}
-	}
-
-	private void doubleCapacity() {
-		// assumes size==array.length
-		final CacheEntry[] newArray=new CacheEntry[array.length << 1];
-		for (int i=lastIndex(); i>=0; i--) newArray[i]=array[i];
-		array=newArray;
+		cacheEntry.previous.next=cacheEntry.next;
+		cacheEntry.next.previous=cacheEntry.previous;
+		size--;
+	}
+
+	private void linkEndMarkers() {
+		bof.next=eof;
+		eof.previous=bof;
+		for (int level=1; level<MAX_LEVEL; level++) bof.skipNext[level]=eof;
+	}
+
+	private int randomLevel() {
+		// xorshift generator, each level above the first is included with probability 1/4
+		int x=randomSeed;
+		x^=x<<13;
+		x^=x>>>17;
+		x^=x<<5;
+		randomSeed=x;
+		int level=1;
+		while ((x&3)==0 && level<MAX_LEVEL) {
+			level++;
+			x>>>=2;
+		}
+		return level;
 	}
 
 	@SuppressWarnings("serial")
@@ -381,7 +350,7 @@ final class SubCache {
 	}
 
 	private final class TagIterator implements Iterator<Tag> {
-		private int i=0;
+		private CacheEntry cacheEntry=bof;
 		private Tag nextTag;
 		public TagIterator() {
 			loadNextTag();
@@ -398,31 +367,33 @@ final class SubCache {
 			throw new UnsupportedOperationException();
 		}
 		private void loadNextTag() {
-			while (++i<=lastIndex() && (nextTag=array[i].tag)==null) {}
+			nextTag=null;
+			while (cacheEntry!=eof && (nextTag=(cacheEntry=cacheEntry.next).tag)==null) {}
 		}
 	}
 
 	private static final class CacheEntry {
-		public int index;
 		public final int pos;
 		public final Tag tag;
 		public boolean previousCached;
 		public boolean nextCached;
-		public boolean removed=false;
+		public CacheEntry previous;
+		public CacheEntry next;
+		public final CacheEntry[] skipNext; // the next entry at each level above the first, or null if this entry is only in the first level. Element 0 is not used.
 		
-		public CacheEntry(final int index, final int pos, final Tag tag, final boolean previousCached, final boolean nextCached) {
-			this.index=index;
+		public CacheEntry(final int pos, final Tag tag, final boolean previousCached, final boolean nextCached, final int level) {
 			this.pos=pos;
 			this.tag=tag;
 			this.previousCached=previousCached;
 			this.nextCached=nextCached;
+			skipNext=(level==1) ? null : new CacheEntry[level];
 		}
 		
 		public boolean isRedundant() {
 			return tag==null && previousCached && nextCached;
 		}
 		
-		public String toString() {
+		public String toString(final int index) {
 			return pad(index,4)+" "+pad(pos,5)+" "+(previousCached?'|':'-')+' '+(nextCached?'|':'-')+' '+(tag==null ? "null" : tag.getDebugInfo());
 		}
 		
@@ -585,70 +585,82 @@ public abstract class Tag extends Segment {
 		return TagType.getTagAt(source,pos,serverTagOnly,false);
 	}
 
-	static final Tag[] parseAll(final Source source, final boolean assumeNoNestedTags) {
-		int registeredTagCount=0;
-		int registeredStartTagCount=0;
+	static final TagTable parseAll(final Source source, final boolean assumeNoNestedTags, final boolean retainTags) {
 		final ArrayList<Tag> list=new ArrayList<Tag>();
 		source.fullSequentialParseData=new int[1]; // fullSequentialParseData is simply a holder for a single mutable integer. It holds the end position of the last normal tag (ie one that ignores enclosed markup), or MAX_VALUE if we are in a SCRIPT element.
 		if (source.end!=0) {
-			final ParseText parseText=source.getParseText();
-			Tag tag=parseAllgetNextTag(source,parseText,0,assumeNoNestedTags);
-			while (tag!=null) {
-				list.add(tag);
-				if (!tag.isUnregistered()) {
-					registeredTagCount++;
-					if (tag instanceof StartTag) registeredStartTagCount++;
-				}
-				// Look for next tag after end of next tag if either:
-				//   - this is a server comment (which doesn't allow any other tags within it)
-				//   - or we're assuming tags don't appear inside other tags, as long as the last tag found was not an unregistered tag:
-				final int pos=(tag.getTagType()==StartTagType.SERVER_COMMON_COMMENT || (assumeNoNestedTags && !tag.isUnregistered())) ? tag.end : tag.begin+1;
-				if (pos==source.end) break;
-				tag=parseAllgetNextTag(source,parseText,pos,assumeNoNestedTags);
-			}
+			if (ParallelParser.isApplicable(source))
+				ParallelParser.parseAll(source,assumeNoNestedTags,list);
+			else
+				parseAll(source,0,ParseText.NO_BREAK,source.fullSequentialParseData,assumeNoNestedTags,list);
 		}
-		final Tag[] allRegisteredTags=new Tag[registeredTagCount];
-		final StartTag[] allRegisteredStartTags=new StartTag[registeredStartTagCount];
-		source.cache.loadAllTags(list,allRegisteredTags,allRegisteredStartTags);
-		source.allTagsArray=allRegisteredTags;
-		source.allTags=Arrays.asList(allRegisteredTags);
-		source.allStartTags=Arrays.asList(allRegisteredStartTags);
+		return source.cache.loadAllTags(list,retainTags);
+	}
+
+	static final void setAdjacentTags(final Tag[] allRegisteredTags) {
 		final int lastIndex=allRegisteredTags.length-1;
 		for (int i=0; i<allRegisteredTags.length; i++) {
 			final Tag tag=allRegisteredTags[i];
 			tag.previousTag=i>0 ? allRegisteredTags[i-1] : null;
 			tag.nextTag=i<lastIndex ? allRegisteredTags[i+1] : null;
 		}
-		return allRegisteredTags;
 	}
 
-	private static final Tag parseAllgetNextTag(final Source source, final ParseText parseText, final int pos, final boolean assumeNoNestedTags) {
+	/**
+	 * Adds all tags beginning at or after <code>pos</code> and before <code>breakAtPos</code> to the specified list, in the same way as a full sequential parse.
+	 * <p>
+	 * The <code>fullSequentialParseData</code> argument holds the parse state at <code>pos</code>, and holds the state at <code>breakAtPos</code> on return.
+	 * Tags beginning before <code>breakAtPos</code> can extend beyond it.
+	 *
+	 * @return the position at which a sequential parse would continue its search for the next tag, which is <code>source.end</code> if no further tags can be found.
+	 */
+	static final int parseAll(final Source source, int pos, final int breakAtPos, final int[] fullSequentialParseData, final boolean assumeNoNestedTags, final List<Tag> list) {
+		final ParseText parseText=source.getParseText();
+		final StructuralIndex structuralIndex=source.getStructuralIndex();
 		try {
-			int begin=pos;
-			do {
-				begin=parseText.indexOf('<',begin); // this assumes that all tags start with '<'
-				if (begin==-1) return null;
-				final Tag tag=TagType.getTagAt(source,begin,false,assumeNoNestedTags);
-				if (tag!=null) {
-					if (!assumeNoNestedTags) {
-						// POSSIBLE BUG:
-						// It appears that this code should be executed even if assumeNoNestedTags is true.
-						// This was originally not the case when first created, but the subsequent addition of the SCRIPT element handling means it should always be executed.  
-						// This should be proven and fixed if assumeNoNestedTags is ever allowed to be true (at present it is hard coded to false).
-						final TagType tagType=tag.getTagType();
-						if (tag.end>source.fullSequentialParseData[0]
-								&& tagType!=StartTagType.DOCTYPE_DECLARATION
-								&& tagType!=StartTagType.UNREGISTERED && tagType!=EndTagType.UNREGISTERED) {
-							source.fullSequentialParseData[0]=(tagType==StartTagType.NORMAL && tag.name==HTMLElementName.SCRIPT && !((StartTag)tag).isEmptyElementTag()) ? Integer.MAX_VALUE : tag.end;
-						}
-					}
-					return tag;
-				}
-			} while ((begin+=1)<source.end);
+			Tag tag;
+			while ((tag=parseAllgetNextTag(source,parseText,structuralIndex,pos,breakAtPos,fullSequentialParseData,assumeNoNestedTags))!=null) {
+				list.add(tag);
+				// Look for next tag after end of next tag if either:
+				//   - this is a server comment (which doesn't allow any other tags within it)
+				//   - or we're assuming tags don't appear inside other tags, as long as the last tag found was not an unregistered tag:
+				pos=(tag.getTagType()==StartTagType.SERVER_COMMON_COMMENT || (assumeNoNestedTags && !tag.isUnregistered())) ? tag.end : tag.begin+1;
+				if (pos==source.end) break;
+			}
 		} catch (IndexOutOfBoundsException ex) {
 			// this should only happen when the end of file is reached in the middle of a tag.
 			// we don't have to do anything to handle it as there are no more tags anyway.
+			return source.end;
 		}
+		return pos;
+	}
+
+	static final Tag parseAllgetNextTag(final Source source, final ParseText parseText, final StructuralIndex structuralIndex, final int pos, final int breakAtPos, final int[] fullSequentialParseData, final boolean assumeNoNestedTags) {
+		int begin=pos;
+		do {
+			// this assumes that all tags start with '<'
+			if (structuralIndex!=null)
+				begin=structuralIndex.getNextTagBegin(begin,breakAtPos);
+			else
+				begin=(breakAtPos==ParseText.NO_BREAK) ? parseText.indexOf('<',begin) : parseText.indexOf('<',begin,breakAtPos);
+			if (begin==-1) return null;
+			final Tag tag=TagType.getTagAt(source,begin,false,assumeNoNestedTags,fullSequentialParseData);
+			if (tag!=null) {
+				if (!assumeNoNestedTags) {
+					// POSSIBLE BUG:
+					// It appears that this code should be executed even if assumeNoNestedTags is true.
+					// This was originally not the case when first created, but the subsequent addition of the SCRIPT element handling means it should always be executed.  
+					// This should be proven and fixed if assumeNoNestedTags is ever allowed to be true (at present it is hard coded to false).
+					final TagType tagType=tag.getTagType();
+					if (tag.end>fullSequentialParseData[0]
+							&& tagType!=StartTagType.DOCTYPE_DECLARATION
+							&& tagType!=StartTagType.UNREGISTERED && tagType!=EndTagType.UNREGISTERED) {
+						fullSequentialParseData[0]=(tagType==StartTagType.NORMAL && tag.name==HTMLElementName.SCRIPT && !((StartTag)tag).isEmptyElementTag()) ? Integer.MAX_VALUE : tag.end;
+					}
+				}
+				return tag;
+			}
+		} while ((begin+=1)<source.end);
 		return null;
 	}
 
@@ -661,6 +673,7 @@ public abstract class Tag extends Segment {
 		// Indicates whether this tag has been orphaned after being cleared from the cache by a full sequential parse after it was constructed.
 		// Use nextTag as a flag to avoid using the extra memory allocation for such a rare issue.
 		// This means that getNextTag() shouldn't set the nextTag field if this tag is orphaned.
-		return source.wasFullSequentialParseCalled() && nextTag==NOT_CACHED;
+		// Tags created on demand from the tag table also have a NOT_CACHED value in nextTag, so check that the tag is the one in the cache.
+		return source.wasFullSequentialParseCalled() && nextTag==NOT_CACHED && source.cache.getTagAt(begin,false)!=this;
 	}
 }
@@ -0,0 +1,662 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+import java.util.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Represents all of the {@linkplain Tag tags} found in a {@linkplain Source#fullSequentialParse() full sequential parse} of a source document,
+ * stored in a compact form.
+ * <p>
+ * The begin and end positions, {@linkplain TagType tag type} and name of each tag are stored in parallel arrays of integers,
+ * and are available through the methods of this class using the index of the tag in the table,
+ * which allows the tags of a large document to be examined without creating any <code>Tag</code> objects.
+ * <p>
+ * The table includes {@linkplain Tag#isUnregistered() unregistered} tags, which are not included in the lists returned by methods such as
+ * {@link Source#getAllTags()}.
+ * The tags in the table are in order of their {@linkplain Tag#getBegin() begin} positions.
+ * <p>
+ * The {@link Tag} object at each index is only created when it is first requested, either through the {@link #getTag(int index)} method
+ * or through any of the <a href="Tag.html#TagSearchMethods">tag search methods</a> of the source document,
+ * and is then retained for the life of the table.
+ * <p>
+ * The first time the source document is searched for {@linkplain StartTagType#NORMAL normal} start tags of a particular
+ * {@linkplain StartTag#getName() name}, for example using the {@link Segment#getAllStartTags(String name)} method,
+ * the table builds an index of the normal start tags of each name,
+ * so that these searches do not need to examine the text of the document.
+ * Note that creating the <code>Tag</code> object parses the tag again, including its {@linkplain StartTag#getAttributes() attributes},
+ * but issues found in the tag are not {@linkplain Source#getHtmlIssueProcessingHandler() reported} again.
+ * The <code>Tag</code> objects of any {@linkplain TagType tag types} that are not defined by this library are always retained,
+ * as their {@link TagType#constructTagAt(Source,int) constructTagAt} method might depend on the context in which the tag was first parsed.
+ * The same applies to start tags containing {@linkplain TagType#isServerTag() server tags} in their attributes,
+ * as the server tags recognised inside the tag depend on the tags that have already been parsed.
+ * <p>
+ * Obtained using the {@link Source#getTagTable()} method.
+ * If this is called before any other method that performs a full sequential parse, the table is populated without retaining any
+ * <code>Tag</code> objects, which substantially reduces the memory used by large documents.
+ * <p>
+ * <code>TagTable</code> instances are not thread safe.
+ *
+ * @see Source#getTagTable()
+ */
+public final class TagTable {
+	private final Source source;
+	private final int size;
+	private final int[] begins;
+	private final int[] ends;
+	private final int[] tagTypeIds;
+	private final int[] nameIds;
+	private final TagType[] tagTypes; // indexed by tag type ID
+	private final String[] names; // indexed by name ID
+	private final Tag[] tags; // contains null for tags that have not yet been created
+	private final int[] registeredTagIndexes; // null if all tags are registered
+	private final int registeredTagCount;
+	private final int[] registeredStartTagIndexes;
+	private final TagType[] separatelyCachedTagTypes;
+	private final int[][] separatelyCachedTagIndexes; // the indexes of the tags of each separately cached tag type
+	private boolean hasCustomTagTypes=false; // true if any tag type is not defined by this library
+	private final Map<String,Integer> nameIdMap;
+	private int[][] normalStartTagIndexes=null; // the indexes of the normal start tags of each name, indexed by name ID, created on first use by getNormalStartTagIndexes
+	private final AttributeIndex attributeIndex; // null unless Config.UseAttributeIndex was true when the table was created
+
+	private static final int[] NO_INDEXES=new int[0];
+
+	static final HtmlIssueProcessingHandler IGNORE_HTML_ISSUES=new HtmlIssueProcessingHandler() {
+		public void htmlIssue(final HtmlIssue htmlIssue) {}
+	};
+
+	// The source document in which a tag is being reconstructed by the current thread, during which issues are not reported.
+	// A thread local is used because the tag types report issues through Source.getHtmlIssueProcessingHandler(), and the table may be read by several threads at once.
+	private static final ThreadLocal<Source> RECONSTRUCTING_TAG_SOURCE=new ThreadLocal<Source>();
+
+	private static final Set<TagType> LIBRARY_TAG_TYPES=getLibraryTagTypes(); // the tag types defined as constants by this library
+
+	TagTable(final Source source, final List<Tag> list, final boolean retainTags, final TagType[] separatelyCachedTagTypes) {
+		// assumes the list implements RandomAccess
+		this(source,list.size(),new Entries() {
+			public int getBegin(final int i) {
+				return list.get(i).begin;
+			}
+
+			public int getEnd(final int i) {
+				return list.get(i).end;
+			}
+
+			public TagType getTagType(final int i) {
+				return list.get(i).getTagType();
+			}
+
+			public String getName(final int i) {
+				return list.get(i).name;
+			}
+
+			public Tag getTag(final int i) {
+				return list.get(i);
+			}
+		},retainTags,separatelyCachedTagTypes);
+	}
+
+	TagTable(final Source source, final Builder builder, final TagType[] separatelyCachedTagTypes) {
+		this(source,builder.size,builder,true,separatelyCachedTagTypes);
+	}
+
+	private TagTable(final Source source, final int size, final Entries entries, final boolean retainTags, final TagType[] separatelyCachedTagTypes) {
+		this.source=source;
+		this.separatelyCachedTagTypes=separatelyCachedTagTypes;
+		this.size=size;
+		begins=new int[size];
+		ends=new int[size];
+		tagTypeIds=new int[size];
+		nameIds=new int[size];
+		tags=new Tag[size];
+		final List<TagType> tagTypeList=new ArrayList<TagType>();
+		final List<String> nameList=new ArrayList<String>();
+		nameIdMap=new HashMap<String,Integer>();
+		final IntArrayBuilder registeredTagIndexesBuilder=new IntArrayBuilder(size==0 ? 1 : size);
+		final IntArrayBuilder registeredStartTagIndexesBuilder=new IntArrayBuilder(size==0 ? 1 : size);
+		final IntArrayBuilder[] separatelyCachedTagIndexesBuilders=new IntArrayBuilder[separatelyCachedTagTypes.length];
+		for (int x=0; x<separatelyCachedTagTypes.length; x++) separatelyCachedTagIndexesBuilders[x]=new IntArrayBuilder(16);
+		final AttributeIndex.Builder attributeIndexBuilder=Config.UseAttributeIndex ? new AttributeIndex.Builder() : null;
+		TagType lastTagType=null;
+		int lastTagTypeId=-1;
+		for (int i=0; i<size; i++) {
+			final Tag tag=entries.getTag(i); // null if the tag has not been created
+			begins[i]=entries.getBegin(i);
+			ends[i]=entries.getEnd(i);
+			final TagType tagType=entries.getTagType(i);
+			final String name=entries.getName(i);
+			if (tagType!=lastTagType) {
+				lastTagType=tagType;
+				lastTagTypeId=tagTypeList.indexOf(tagType); // TagType does not override equals, and there are only a few distinct tag types in a document
+				if (lastTagTypeId==-1) {
+					lastTagTypeId=tagTypeList.size();
+					tagTypeList.add(tagType);
+					if (!isLibraryTagType(tagType)) hasCustomTagTypes=true;
+				}
+			}
+			tagTypeIds[i]=lastTagTypeId;
+			Integer nameId=nameIdMap.get(name);
+			if (nameId==null) {
+				nameId=nameList.size();
+				nameIdMap.put(name,nameId);
+				nameList.add(name);
+			}
+			nameIds[i]=nameId;
+			if (retainTags || hasCustomTagTypes && !isLibraryTagType(tagType) || !isReconstructable(tag)) tags[i]=tag;
+			if (tagType!=StartTagType.UNREGISTERED && tagType!=EndTagType.UNREGISTERED) {
+				registeredTagIndexesBuilder.add(i);
+				if (tagType instanceof StartTagType) {
+					registeredStartTagIndexesBuilder.add(i);
+					if (attributeIndexBuilder!=null) {
+						// the index only holds the attribute values, so the start tag is not retained just to build it:
+						final StartTag startTag=(StartTag)(tag!=null ? tag : constructTag(source,tagType,begins[i],ends[i]));
+						if (startTag.getAttributes()!=null) attributeIndexBuilder.add(i,startTag.getAttributes());
+					}
+				}
+			}
+			for (int x=0; x<separatelyCachedTagTypes.length; x++) {
+				if (tagType==separatelyCachedTagTypes[x]) {
+					separatelyCachedTagIndexesBuilders[x].add(i);
+					break;
+				}
+			}
+		}
+		tagTypes=tagTypeList.toArray(new TagType[tagTypeList.size()]);
+		names=nameList.toArray(new String[nameList.size()]);
+		registeredTagCount=registeredTagIndexesBuilder.size();
+		registeredTagIndexes=(registeredTagCount==size) ? null : registeredTagIndexesBuilder.toArray();
+		registeredStartTagIndexes=registeredStartTagIndexesBuilder.toArray();
+		separatelyCachedTagIndexes=new int[separatelyCachedTagTypes.length][];
+		for (int x=0; x<separatelyCachedTagTypes.length; x++) separatelyCachedTagIndexes[x]=separatelyCachedTagIndexesBuilders[x].toArray();
+		attributeIndex=(attributeIndexBuilder!=null) ? attributeIndexBuilder.toAttributeIndex() : null;
+	}
+
+	/**
+	 * Returns the number of tags in the table, including {@linkplain Tag#isUnregistered() unregistered} tags.
+	 * @return the number of tags in the table, including unregistered tags.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the {@linkplain Tag#getBegin() begin} position of the tag at the specified index.
+	 * @param index  the index of the tag in the table.
+	 * @return the begin position of the tag at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public int getBegin(final int index) {
+		checkIndex(index);
+		return begins[index];
+	}
+
+	/**
+	 * Returns the {@linkplain Tag#getEnd() end} position of the tag at the specified index.
+	 * @param index  the index of the tag in the table.
+	 * @return the end position of the tag at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public int getEnd(final int index) {
+		checkIndex(index);
+		return ends[index];
+	}
+
+	/**
+	 * Returns the {@linkplain Tag#getTagType() type} of the tag at the specified index.
+	 * @param index  the index of the tag in the table.
+	 * @return the type of the tag at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public TagType getTagType(final int index) {
+		checkIndex(index);
+		return tagTypes[tagTypeIds[index]];
+	}
+
+	/**
+	 * Returns the {@linkplain Tag#getName() name} of the tag at the specified index.
+	 * <p>
+	 * If the name is one of the {@linkplain HTMLElementName predefined element names}, the returned string is the constant itself,
+	 * so it can be compared using the <code>==</code> operator in the same way as the name of a <code>Tag</code> object.
+	 *
+	 * @param index  the index of the tag in the table.
+	 * @return the name of the tag at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public String getName(final int index) {
+		checkIndex(index);
+		return names[nameIds[index]];
+	}
+
+	/**
+	 * Returns the ID of the {@linkplain Tag#getName() name} of the tag at the specified index.
+	 * <p>
+	 * Each distinct name in the table is assigned an ID between <code>0</code> and the number of distinct names minus one,
+	 * so the names of tags can be compared and used as array indexes without examining any strings.
+	 *
+	 * @param index  the index of the tag in the table.
+	 * @return the ID of the name of the tag at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 * @see #getNameId(String)
+	 */
+	public int getNameId(final int index) {
+		checkIndex(index);
+		return nameIds[index];
+	}
+
+	/**
+	 * Returns the ID of the specified tag {@linkplain Tag#getName() name}.
+	 * <p>
+	 * The name is converted to lower case before it is looked up.
+	 *
+	 * @param name  the name of a tag.
+	 * @return the ID of the specified tag name, or <code>-1</code> if no tag in the table has the specified name.
+	 * @see #getNameId(int index)
+	 */
+	public int getNameId(final String name) {
+		final Integer nameId=nameIdMap.get(name.toLowerCase());
+		return nameId==null ? -1 : nameId;
+	}
+
+	/**
+	 * Indicates whether the tag at the specified index is a {@link StartTag}.
+	 * @param index  the index of the tag in the table.
+	 * @return <code>true</code> if the tag at the specified index is a {@link StartTag}, or <code>false</code> if it is an {@link EndTag}.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public boolean isStartTag(final int index) {
+		return getTagType(index) instanceof StartTagType;
+	}
+
+	/**
+	 * Returns the {@link Tag} object at the specified index, creating it if necessary.
+	 * @param index  the index of the tag in the table.
+	 * @return the {@link Tag} object at the specified index.
+	 * @throws IndexOutOfBoundsException if the index is out of range (<code>index&lt;0 || index&gt;=size()</code>).
+	 */
+	public Tag getTag(final int index) {
+		checkIndex(index);
+		Tag tag=tags[index];
+		if (tag==null) tags[index]=tag=constructTag(index);
+		return tag;
+	}
+
+	/**
+	 * Returns the index of the tag that begins at the specified position in the source document.
+	 * @param pos  the character position in the source document.
+	 * @return the index of the tag that begins at the specified position in the source document, or <code>-1</code> if there is no tag at the specified position.
+	 */
+	public int indexOf(final int pos) {
+		final int index=getFirstIndexAtOrAfter(null,size,pos);
+		return (index<size && begins[index]==pos) ? index : -1;
+	}
+
+	/**
+	 * Returns a string representation of the table, useful for debugging purposes.
+	 * @return a string representation of the table, useful for debugging purposes.
+	 */
+	public String toString() {
+		final StringBuilder sb=new StringBuilder();
+		sb.append("Tag table of ").append(size).append(" tags").append(Config.NewLine);
+		for (int i=0; i<size; i++) {
+			sb.append(i).append(": ").append(tagTypes[tagTypeIds[i]]).append(' ').append(names[nameIds[i]]).append(' ');
+			sb.append(begins[i]).append('-').append(ends[i]).append(tags[i]==null ? "" : " *").append(Config.NewLine);
+		}
+		return sb.toString();
+	}
+
+	List<Tag> getRegisteredTags() {
+		return new TagList<Tag>(registeredTagIndexes,registeredTagCount);
+	}
+
+	List<StartTag> getRegisteredStartTags() {
+		return new TagList<StartTag>(registeredStartTagIndexes,registeredStartTagIndexes.length);
+	}
+
+	int[] getRegisteredStartTagIndexes() {
+		// the returned array must not be modified
+		return registeredStartTagIndexes;
+	}
+
+	boolean isRegistered(final int index) {
+		final TagType tagType=tagTypes[tagTypeIds[index]];
+		return tagType!=StartTagType.UNREGISTERED && tagType!=EndTagType.UNREGISTERED;
+	}
+
+	Tag getCreatedTag(final int index) {
+		// returns null if the tag at the specified index has not yet been created
+		return tags[index];
+	}
+
+	int getNameCount() {
+		return names.length;
+	}
+
+	int getFirstIndexAtOrAfter(final int pos) {
+		// returns the index of the first tag that begins at or after pos, or size if there is none.
+		return getFirstIndexAtOrAfter(null,size,pos);
+	}
+
+	Tag getTagAt(final int pos, final boolean serverTagOnly) {
+		if (pos<0 || pos>=source.end) return null;
+		final int index=indexOf(pos);
+		if (index==-1) return null;
+		if (serverTagOnly && !tagTypes[tagTypeIds[index]].isServerTag()) return null;
+		return getTag(index);
+	}
+
+	Tag getPreviousTag(final int pos) {
+		// never returns unregistered tags, in the same way as SubCache.getPreviousTag
+		return getPreviousTag(registeredTagIndexes,registeredTagCount,pos);
+	}
+
+	Tag getNextTag(final int pos) {
+		// never returns unregistered tags, in the same way as SubCache.getNextTag
+		return getNextTag(registeredTagIndexes,registeredTagCount,pos);
+	}
+
+	static boolean isIndexedName(final String name) {
+		// name is a valid XML name in lower case.
+		// A name ending in ':' matches all names in the namespace, so the tags can't be found using the name index.
+		return name.charAt(name.length()-1)!=':';
+	}
+
+	int[] getNormalStartTagIndexes(final String name) {
+		// returns the indexes of the normal start tags with the specified name, which must satisfy isIndexedName(name).
+		final Integer nameId=nameIdMap.get(name);
+		if (nameId==null) return NO_INDEXES;
+		if (normalStartTagIndexes==null) normalStartTagIndexes=buildNormalStartTagIndexes();
+		return normalStartTagIndexes[nameId];
+	}
+
+	int[] getStartTagIndexes(final String attributeName, final String value, final boolean valueCaseSensitive) {
+		// returns the indexes of the start tags with the specified attribute value, or null if they can't be found using the attribute index.
+		if (attributeIndex==null || value==null || !valueCaseSensitive || !AttributeIndex.isIndexedAttributeName(attributeName)) return null;
+		return attributeIndex.getIndexes(attributeName,value);
+	}
+
+	int[] getStartTagIndexesByClass(final String className) {
+		// returns the indexes of the start tags with the specified class, or null if they can't be found using the attribute index.
+		if (attributeIndex==null || className==null || !AttributeIndex.isIndexedClassName(className)) return null;
+		return attributeIndex.getClassIndexes(className);
+	}
+
+	StartTag getPreviousStartTag(final int pos, final int[] startTagIndexes) {
+		// returns the last of the specified start tags that begins at or before pos, in the same way as StartTag.getPrevious.
+		final int i=getFirstIndexAtOrAfter(startTagIndexes,startTagIndexes.length,pos+1)-1;
+		return i>=0 ? (StartTag)getTag(startTagIndexes[i]) : null;
+	}
+
+	StartTag getNextStartTag(final int pos, final int[] startTagIndexes) {
+		// returns the first of the specified start tags that begins at or after pos, in the same way as StartTag.getNext.
+		final int i=getFirstIndexAtOrAfter(startTagIndexes,startTagIndexes.length,pos);
+		return i<startTagIndexes.length ? (StartTag)getTag(startTagIndexes[i]) : null;
+	}
+
+	ArrayList<StartTag> getStartTags(final int[] startTagIndexes, final int begin, final int end) {
+		// returns the specified start tags that are enclosed by the segment from begin to end.
+		final int fromIndex=getFirstIndexAtOrAfter(startTagIndexes,startTagIndexes.length,begin);
+		final int toIndex=getFirstIndexAtOrAfter(startTagIndexes,startTagIndexes.length,end);
+		final ArrayList<StartTag> list=new ArrayList<StartTag>(toIndex-fromIndex);
+		for (int i=fromIndex; i<toIndex; i++) if (ends[startTagIndexes[i]]<=end) list.add((StartTag)getTag(startTagIndexes[i]));
+		return list;
+	}
+
+	boolean isIndexed(final TagType tagType) {
+		return tagType==null || getSeparatelyCachedTagTypeIndex(tagType)!=-1;
+	}
+
+	Tag getPreviousTag(final int pos, final TagType tagType) {
+		// tagType must be indexed
+		if (tagType==null) return getPreviousTag(pos);
+		final int[] indexes=separatelyCachedTagIndexes[getSeparatelyCachedTagTypeIndex(tagType)];
+		return getPreviousTag(indexes,indexes.length,pos);
+	}
+
+	Tag getNextTag(final int pos, final TagType tagType) {
+		// tagType must be indexed
+		if (tagType==null) return getNextTag(pos);
+		final int[] indexes=separatelyCachedTagIndexes[getSeparatelyCachedTagTypeIndex(tagType)];
+		return getNextTag(indexes,indexes.length,pos);
+	}
+
+	Iterator<Tag> getTagIterator() {
+		return new TagList<Tag>(null,size).iterator();
+	}
+
+	void orphanTags() {
+		for (int i=0; i<size; i++) if (tags[i]!=null) tags[i].orphan();
+	}
+
+	private Tag getPreviousTag(final int[] indexes, final int length, final int pos) {
+		if (pos<0 || pos>=source.end) return null;
+		final int i=getFirstIndexAtOrAfter(indexes,length,pos+1)-1;
+		return i>=0 ? getTag(indexes==null ? i : indexes[i]) : null;
+	}
+
+	private Tag getNextTag(final int[] indexes, final int length, final int pos) {
+		if (pos<0 || pos>=source.end) return null;
+		final int i=getFirstIndexAtOrAfter(indexes,length,pos);
+		return i<length ? getTag(indexes==null ? i : indexes[i]) : null;
+	}
+
+	private int getFirstIndexAtOrAfter(final int[] indexes, final int length, final int pos) {
+		// returns the first i such that the tag at indexes[i] begins at or after pos, or length if there is none.
+		// indexes is null if the indexes are the same as the table indexes.
+		int low=0;
+		int high=length;
+		while (low<high) {
+			final int mid=(low+high)>>>1;
+			if (begins[indexes==null ? mid : indexes[mid]]<pos) low=mid+1; else high=mid;
+		}
+		return low;
+	}
+
+	private int[][] buildNormalStartTagIndexes() {
+		int normalTagTypeId=-1;
+		for (int x=0; x<tagTypes.length; x++) {
+			if (tagTypes[x]==StartTagType.NORMAL) {
+				normalTagTypeId=x;
+				break;
+			}
+		}
+		final int[] counts=new int[names.length];
+		for (int i : registeredStartTagIndexes) if (tagTypeIds[i]==normalTagTypeId) counts[nameIds[i]]++;
+		final int[][] indexesByNameId=new int[names.length][];
+		for (int nameId=0; nameId<names.length; nameId++) {
+			indexesByNameId[nameId]=counts[nameId]==0 ? NO_INDEXES : new int[counts[nameId]];
+			counts[nameId]=0;
+		}
+		for (int i : registeredStartTagIndexes) {
+			if (tagTypeIds[i]!=normalTagTypeId) continue;
+			final int nameId=nameIds[i];
+			indexesByNameId[nameId][counts[nameId]++]=i;
+		}
+		return indexesByNameId;
+	}
+
+	private int getSeparatelyCachedTagTypeIndex(final TagType tagType) {
+		for (int x=0; x<separatelyCachedTagTypes.length; x++)
+			if (tagType==separatelyCachedTagTypes[x]) return x;
+		return -1;
+	}
+
+	private Tag constructTag(final int index) {
+		return constructTag(source,tagTypes[tagTypeIds[index]],begins[index],ends[index]);
+	}
+
+	/**
+	 * Indicates whether the table contains any tags of a tag type that is not defined by this library.
+	 * <p>
+	 * Only the tags of tag types defined by this library can be reconstructed from the table, so the IncrementalParser can not reuse the table if this is true.
+	 */
+	boolean hasCustomTagTypes() {
+		return hasCustomTagTypes;
+	}
+
+	/**
+	 * Indicates whether the specified tag is always constructed again in the same way from its position in a completed table.
+	 * <p>
+	 * The attributes of a start tag are parsed around any server tags found within them, which are looked up in the cache
+	 * and so might be different once the table has been populated, so such a tag has to be retained.
+	 * Returns <code>true</code> if the tag is <code>null</code>, as there is then nothing to retain.
+	 */
+	private static boolean isReconstructable(final Tag tag) {
+		if (!(tag instanceof StartTag)) return true;
+		final Attributes attributes=((StartTag)tag).getAttributes();
+		return attributes==null || !attributes.containsServerTag;
+	}
+
+	static boolean isLibraryTagType(final TagType tagType) {
+		return LIBRARY_TAG_TYPES.contains(tagType);
+	}
+
+	private static Set<TagType> getLibraryTagTypes() {
+		final Set<TagType> libraryTagTypes=new HashSet<TagType>(); // TagType does not override equals
+		// the tag type defined by the deprecated MicrosoftTagTypes class is added directly, to avoid referring to the class itself:
+		libraryTagTypes.add(StartTagTypeMicrosoftDownlevelRevealedConditionalComment.INSTANCE);
+		for (Class<?> tagTypesClass : new Class<?>[] {StartTagType.class,EndTagType.class,PHPTagTypes.class,MasonTagTypes.class,MicrosoftConditionalCommentTagTypes.class}) {
+			for (Field field : tagTypesClass.getFields()) {
+				if (!Modifier.isStatic(field.getModifiers()) || !TagType.class.isAssignableFrom(field.getType())) continue;
+				try {
+					libraryTagTypes.add((TagType)field.get(null));
+				} catch (IllegalAccessException ex) {throw new RuntimeException(ex);} // never happens as the fields are public
+			}
+		}
+		return libraryTagTypes;
+	}
+
+	static boolean isReconstructingTag(final Source source) {
+		return RECONSTRUCTING_TAG_SOURCE.get()==source;
+	}
+
+	static Tag constructTag(final Source source, final TagType tagType, final int begin, final int end) {
+		// Only tags of the tag types defined by this library that are not affected by the contents of the cache are reconstructed (see isReconstructable).
+		// Any issues were already reported when the tag was first parsed, so they are ignored by Source.getHtmlIssueProcessingHandler() during the reconstruction.
+		final Source previousSource=RECONSTRUCTING_TAG_SOURCE.get();
+		RECONSTRUCTING_TAG_SOURCE.set(source);
+		try {
+			return tagType.constructTagAt(source,begin);
+		} finally {
+			if (previousSource==null) RECONSTRUCTING_TAG_SOURCE.remove(); else RECONSTRUCTING_TAG_SOURCE.set(previousSource);
+		}
+	}
+
+	private void checkIndex(final int index) {
+		if (index<0 || index>=size) throw new IndexOutOfBoundsException("index="+index+" size="+size);
+	}
+
+	/**
+	 * Provides the tags from which a table is created.
+	 */
+	private interface Entries {
+		int getBegin(int i);
+		int getEnd(int i);
+		TagType getTagType(int i);
+		String getName(int i);
+		Tag getTag(int i); // null if the Tag object has not been created
+	}
+
+	/**
+	 * Collects the tags of a new table, allowing tags to be added without creating a <code>Tag</code> object.
+	 * <p>
+	 * Used by the {@link IncrementalParser} to add the tags that are reused from the table of the original document.
+	 */
+	static final class Builder implements Entries {
+		private int size=0;
+		private int[] begins;
+		private int[] ends;
+		private TagType[] tagTypes;
+		private String[] names;
+		private Tag[] tags;
+
+		Builder(final int initialCapacity) {
+			begins=new int[initialCapacity];
+			ends=new int[initialCapacity];
+			tagTypes=new TagType[initialCapacity];
+			names=new String[initialCapacity];
+			tags=new Tag[initialCapacity];
+		}
+
+		void add(final Tag tag) {
+			add(tag.begin,tag.end,tag.getTagType(),tag.name,tag);
+		}
+
+		void add(final int begin, final int end, final TagType tagType, final String name, final Tag tag) {
+			// tags must be added in order of their begin positions
+			if (size==begins.length) {
+				final int capacity=Math.max(16,size<<1);
+				begins=Arrays.copyOf(begins,capacity);
+				ends=Arrays.copyOf(ends,capacity);
+				tagTypes=Arrays.copyOf(tagTypes,capacity);
+				names=Arrays.copyOf(names,capacity);
+				tags=Arrays.copyOf(tags,capacity);
+			}
+			begins[size]=begin;
+			ends[size]=end;
+			tagTypes[size]=tagType;
+			names[size]=name;
+			tags[size]=tag;
+			size++;
+		}
+
+		public int getBegin(final int i) {
+			return begins[i];
+		}
+
+		public int getEnd(final int i) {
+			return ends[i];
+		}
+
+		public TagType getTagType(final int i) {
+			return tagTypes[i];
+		}
+
+		public String getName(final int i) {
+			return names[i];
+		}
+
+		public Tag getTag(final int i) {
+			return tags[i];
+		}
+	}
+
+	private final class TagList<T extends Tag> extends AbstractList<T> implements RandomAccess {
+		private final int[] indexes; // null if the indexes are the same as the table indexes
+		private final int length;
+
+		TagList(final int[] indexes, final int length) {
+			this.indexes=indexes;
+			this.length=length;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T get(final int i) {
+			if (i<0 || i>=length) throw new IndexOutOfBoundsException("index="+i+" size="+length);
+			return (T)getTag(indexes==null ? i : indexes[i]);
+		}
+
+		public int size() {
+			return length;
+		}
+	}
+}
@@ -502,7 +502,7 @@ public abstract class TagType {
 			// use simplified check when doing full sequential parse.  Normally we are only able to check whether a tag is inside specially cached
 			// tag types for efficiency reasons, but during a full sequential parse we can reject a tag if it is inside any other tag.
 			if (fullSequentialParseData[0]==Integer.MAX_VALUE) { // we are in a SCRIPT element
-				if (this==EndTagType.NORMAL && source.getParseText().containsAt("</script",pos)) {
+				if (this==EndTagType.NORMAL && source.hasCharAt(pos+7) && source.getParseText().containsAt("</script",pos)) {
 					// The character sequence "</script" terminates the implicit CDATA section inside the SCRIPT element
 					fullSequentialParseData[0]=pos;
 					return true;
@@ -664,22 +664,31 @@ public abstract class TagType {
 	}
 
 	static final Tag getTagAt(final Source source, final int pos, final boolean serverTagOnly, final boolean assumeNoNestedTags) {
-		final TagTypeRegister.ProspectiveTagTypeIterator prospectiveTagTypeIterator=new TagTypeRegister.ProspectiveTagTypeIterator(source,pos);
-		// prospectiveTagTypeIterator is empty if pos is out of range.
-		while (prospectiveTagTypeIterator.hasNext()) {
-			final TagType tagType=prospectiveTagTypeIterator.next();
+		return getTagAt(source,pos,serverTagOnly,assumeNoNestedTags,source.fullSequentialParseData);
+	}
+
+	static final Tag getTagAt(final Source source, final int pos, final boolean serverTagOnly, final boolean assumeNoNestedTags, final int[] fullSequentialParseData) {
+		final TagType[] prospectiveTagTypes=TagTypeRegister.getProspectiveTagTypes(source,pos);
+		// prospectiveTagTypes is empty if pos is out of range.
+		for (int i=0; i<prospectiveTagTypes.length; i++) {
+			final TagType tagType=prospectiveTagTypes[i];
 			if (serverTagOnly && !tagType.isServerTag()) continue;
-			if (!assumeNoNestedTags && !tagType.isValidPosition(source,pos,source.fullSequentialParseData)) continue;
+			if (!assumeNoNestedTags && !tagType.isValidPosition(source,pos,fullSequentialParseData)) continue;
 			try {
 				final Tag tag=tagType.constructTagAt(source,pos);
 				if (tag!=null) return tag;
 			} catch (IndexOutOfBoundsException ex) {
-			    source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source, pos,"Tag"," not recognised as type '"+tagType.getDescription()+"' because it has no end delimiter"));
+				// the predefined tag types check for the end of the source text explicitly, but custom tag types might not.
+				tagType.logEndOfTextReached(source,pos);
 			}
 		}
 		return null;
 	}
 
+	final void logEndOfTextReached(final Source source, final int pos) {
+		source.getHtmlIssueProcessingHandler().htmlIssue(new HtmlIssue(source, pos,"Tag"," not recognised as type '"+getDescription()+"' because it has no end delimiter"));
+	}
+
 	private static Logger getLogger() {
 		if (logger==null) logger=Source.newLogger();
 		return logger;
@@ -46,7 +46,10 @@ final class TagTypeRegister {
 		EndTagType.NORMAL
 	};
 
+	private static final TagType[] EMPTY_TAG_TYPE_ARRAY=new TagType[0];
+
 	private static TagTypeRegister root=new TagTypeRegister();
+	private static volatile CompiledNode compiledRoot; // rebuilt whenever a tag type is added or removed
 
 	static {
 		add(DEFAULT_TAG_TYPES);
@@ -55,10 +58,16 @@ final class TagTypeRegister {
 	private TagTypeRegister() {}
 
 	private static synchronized void add(final TagType[] tagTypes) {
-		for (int i=0; i<tagTypes.length; i++) add(tagTypes[i]);
+		for (int i=0; i<tagTypes.length; i++) addInternal(tagTypes[i]);
+		compile();
 	}
 
 	public static synchronized void add(final TagType tagType) {
+		addInternal(tagType);
+		compile();
+	}
+
+	private static void addInternal(final TagType tagType) {
 		TagTypeRegister cursor=root;
 		final String startDelimiter=tagType.getStartDelimiter();
 		for (int i=0; i<startDelimiter.length(); i++) {
@@ -90,6 +99,7 @@ final class TagTypeRegister {
 			cursor.parent.removeChild(cursor);
 			cursor=cursor.parent;
 		}
+		compile();
 	}
 
 	// list is in order of lowest to highest precedence
@@ -110,43 +120,67 @@ final class TagTypeRegister {
 		return root.appendDebugInfo(new StringBuilder(),0).toString();
 	}
 
-	static final class ProspectiveTagTypeIterator implements Iterator<TagType> {
-		private TagTypeRegister cursor;
-		private int tagTypeIndex=0;
-		
-		public ProspectiveTagTypeIterator(final Source source, final int pos) {
-			// returns empty iterator if pos out of range
-			final ParseText parseText=source.getParseText();
-			cursor=root;
-			int posIndex=0;
-			try {
-				// find deepest node that matches the text at pos:
-				while (true) {
-					final TagTypeRegister child=cursor.getChild(parseText.charAt(pos+(posIndex++)));
-					if (child==null) break;
-					cursor=child;
-				}
-			} catch (IndexOutOfBoundsException ex) {} // not avoiding this exception is expensive but only happens in the very rare circumstance that the end of file is encountered in the middle of a potential tag.
-			// go back up until we reach a node that contains a list of tag types:
-			while (cursor.tagTypes==null) if ((cursor=cursor.parent)==null) break;
+	/**
+	 * Returns the tag types that could potentially be found at the specified position in the source text,
+	 * in the order in which they should be tried.
+	 * <p>
+	 * The returned array is shared and must not be modified.  It is empty if the position is out of range or no tag types match.
+	 */
+	static TagType[] getProspectiveTagTypes(final Source source, final int pos) {
+		final ParseText parseText=source.getParseText();
+		CompiledNode node=compiledRoot;
+		// find deepest node that matches the text at pos:
+		for (int i=pos; source.hasCharAt(i); i++) {
+			final CompiledNode child=node.getChild(parseText.charAt(i));
+			if (child==null) break;
+			node=child;
 		}
+		return node.prospectiveTagTypes;
+	}
 
-		public boolean hasNext() {
-			return cursor!=null;
-		}
+	private static void compile() {
+		// called after every modification of the register, always from a synchronized method.
+		compiledRoot=new CompiledNode(root,EMPTY_TAG_TYPE_ARRAY);
+	}
+
+	/**
+	 * An immutable snapshot of a node in the register, used to determine the prospective tag types at a position without any memory allocation.
+	 * <p>
+	 * Children are stored in a table indexed directly by character, offset by the lowest child character.
+	 * The start delimiters of all tag types begin with '<code>&lt;</code>', and the characters following it are almost always
+	 * in the ASCII range, so these tables are small.
+	 */
+	private static final class CompiledNode {
+		private final char minChar;
+		private final CompiledNode[] children; // null if there are no children
+		final TagType[] prospectiveTagTypes; // the tag types of this node followed by those of its ancestors, in descending order of priority
 
-		public TagType next() {
-			final TagType[] tagTypes=cursor.tagTypes;
-			final TagType nextTagType=tagTypes[tagTypeIndex];
-			if ((++tagTypeIndex)==tagTypes.length) {
-				tagTypeIndex=0;
-				do {cursor=cursor.parent;} while (cursor!=null && cursor.tagTypes==null);
+		CompiledNode(final TagTypeRegister tagTypeRegister, final TagType[] parentProspectiveTagTypes) {
+			prospectiveTagTypes=concat(tagTypeRegister.tagTypes,parentProspectiveTagTypes);
+			final TagTypeRegister[] registerChildren=tagTypeRegister.children;
+			if (registerChildren==null) {
+				minChar=NULL_CHAR;
+				children=null;
+			} else {
+				// registerChildren is always in alphabetical order
+				minChar=registerChildren[0].ch;
+				children=new CompiledNode[registerChildren[registerChildren.length-1].ch-minChar+1];
+				for (TagTypeRegister child : registerChildren) children[child.ch-minChar]=new CompiledNode(child,prospectiveTagTypes);
 			}
-			return nextTagType;
 		}
 
-		public void remove() {
-			throw new UnsupportedOperationException();
+		CompiledNode getChild(final char ch) {
+			if (children==null) return null;
+			final int index=ch-minChar;
+			return (index>=0 && index<children.length) ? children[index] : null;
+		}
+
+		private static TagType[] concat(final TagType[] tagTypes, final TagType[] parentProspectiveTagTypes) {
+			if (tagTypes==null) return parentProspectiveTagTypes;
+			final TagType[] result=new TagType[tagTypes.length+parentProspectiveTagTypes.length];
+			System.arraycopy(tagTypes,0,result,0,tagTypes.length);
+			System.arraycopy(parentProspectiveTagTypes,0,result,tagTypes.length,parentProspectiveTagTypes.length);
+			return result;
 		}
 	}
 
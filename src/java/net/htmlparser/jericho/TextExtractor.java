@@ -64,6 +64,10 @@ import java.io.*;
  * <p>
  * Extracting the text from an entire {@link Source} object performs a {@linkplain Source#fullSequentialParse() full sequential parse} automatically.
  * <p>
+ * To extract the text from a document that is too large to hold in memory, construct the <code>TextExtractor</code> from a {@link StreamedSource}
+ * instead of a {@link Segment}, and use the {@link #writeTo(Writer)} or {@link #appendTo(Appendable)} method to obtain the output.
+ * See the {@link #TextExtractor(StreamedSource)} constructor for details.
+ * <p>
  * To perform a simple rendering of HTML markup into text, which is more readable than the output of this class, use the {@link Renderer} class instead.
  * <dl>
  *  <dt>Example:</dt>
@@ -74,6 +78,7 @@ import java.io.*;
  */
 public class TextExtractor implements CharStreamSource {
 	private final Segment segment;
+	private final StreamedSource streamedSource;
 	private boolean convertNonBreakingSpaces=Config.ConvertNonBreakingSpaces;
 	private boolean includeAttributes=false;
 	private boolean excludeNonHTMLElements=false;
@@ -87,6 +92,45 @@ public class TextExtractor implements CharStreamSource {
 	 */
 	public TextExtractor(final Segment segment) {
 		this.segment=segment;
+		streamedSource=null;
+	}
+
+	/**
+	 * Constructs a new <code>TextExtractor</code> that extracts the text from the specified {@link StreamedSource}.
+	 * <p>
+	 * The output is written incrementally as the source document is streamed, with white space collapsed and character references decoded
+	 * on the fly, so the memory used is independent of the size of the document.
+	 * It is normally identical to the output of a <code>TextExtractor</code> constructed from a {@link Source} containing the same document,
+	 * except for the following differences:
+	 * <ul style="margin-top: 0">
+	 *  <li>
+	 *   As the extent of each element has to be determined from the tags alone, the content of an excluded element extends to the end tag with a matching name, taking into account any nested elements with the same name.
+	 *   If the end tag is missing, the rest of the document is excluded.
+	 *   For an element with an {@linkplain HTMLElements#getEndTagOptionalElementNames() optional end tag}, the content also ends at the first
+	 *   {@linkplain HTMLElements#getTerminatingStartTagNames(String) terminating start tag} or
+	 *   {@linkplain HTMLElements#getTerminatingEndTagNames(String) terminating end tag}, regardless of how deeply it is nested.
+	 *  <li>
+	 *   Only the {@linkplain TagType#isServerTag() server tags} themselves are removed from the output, not the content of any server elements.
+	 *  <li>
+	 *   Each {@linkplain CharacterReference character reference} is decoded where it occurs in the source document,
+	 *   rather than after the text on either side of the removed tags has been joined together.
+	 *   So an unterminated character reference followed by an inline tag or an excluded element and then a letter,
+	 *   such as <code>&amp;lt&lt;b&gt;&lt;/b&gt;a</code>, is decoded to give "<code>&lt;a</code>",
+	 *   whereas the in-memory extractor leaves the joined text "<code>&amp;lta</code>" unchanged.
+	 * </ul>
+	 * <p>
+	 * The {@link StartTag} objects passed to the {@link #excludeElement(StartTag)} and {@link #includeAttribute(StartTag,Attribute)} methods
+	 * are streamed tags, so the overriding methods must not call {@link StartTag#getElement()} or any other method that requires the tag's
+	 * position in the document structure.
+	 * <p>
+	 * The {@link StreamedSource#iterator()} method is called when the output is first requested, so the output can only be obtained once.
+	 * The <code>StreamedSource</code> is not closed by this class.
+	 *
+	 * @param streamedSource  the streamed source document from which the text will be extracted.
+	 */
+	public TextExtractor(final StreamedSource streamedSource) {
+		segment=null;
+		this.streamedSource=streamedSource;
 	}
 
 	// Documentation inherited from CharStreamSource
@@ -97,16 +141,27 @@ public class TextExtractor implements CharStreamSource {
 
 	// Documentation inherited from CharStreamSource
 	public void appendTo(final Appendable appendable) throws IOException {
+		if (streamedSource!=null) {
+			new StreamedProcessor(streamedSource,getConvertNonBreakingSpaces(),getIncludeAttributes(),getExcludeNonHTMLElements()).appendTo(appendable);
+			return;
+		}
 		appendable.append(toString());
 	}
 
 	// Documentation inherited from CharStreamSource
 	public long getEstimatedMaximumOutputLength() {
-		return segment.length();
+		return segment!=null ? segment.length() : -1;
 	}
 
 	// Documentation inherited from CharStreamSource
 	public String toString() {
+		if (streamedSource!=null) {
+			final StringBuilder sb=new StringBuilder();
+			try {
+				appendTo(sb);
+			} catch (IOException ex) {throw new RuntimeException(ex);} // never happens
+			return sb.toString();
+		}
 		return new Processor(segment,getConvertNonBreakingSpaces(),getIncludeAttributes(),getExcludeNonHTMLElements()).toString();
 	}
 
@@ -302,8 +357,7 @@ public class TextExtractor implements CharStreamSource {
 	/**
 	 * This class does the actual work, but is first passed final copies of all the parameters for efficiency.
 	 * Note at present this is not implemented in a memory-efficient manner.
-	 * Once the CharacterReference.decodeCollapseWhiteSpace functionality is available as a FilterWriter (possible with java 5 support),
-	 * the main algorithm can be implemented in the writeTo(Writer) method to allow for more memory-efficient processing.
+	 * The StreamedProcessor class below performs the same processing incrementally on a StreamedSource.
 	 */
 	private final class Processor {
 		private final Segment segment;
@@ -358,4 +412,134 @@ public class TextExtractor implements CharStreamSource {
 			return decodedText;
 		}
 	}
+
+	/**
+	 * Performs the same processing as the Processor class on a StreamedSource, writing the output directly to the Appendable.
+	 * White space is collapsed as each plain text segment is encountered, using the pendingSpace flag to defer the output of a space until it is known
+	 * not to be trailing white space.
+	 * Character references are always returned as separate segments by the StreamedSource, so their characters are appended directly,
+	 * which is equivalent to collapsing the white space before decoding as the Processor does.
+	 * Excluded elements are skipped by tracking the nesting depth of tags with the excluded element's name, so the only state held between segments
+	 * is a name and a counter.
+	 */
+	private final class StreamedProcessor {
+		private final StreamedSource streamedSource;
+		private final boolean convertNonBreakingSpaces;
+		private final boolean includeAttributes;
+		private final boolean excludeNonHTMLElements;
+		private final StringBuilder sb=new StringBuilder(); // only ever holds a single attribute value
+		private Appendable appendable;
+		private boolean textAppended=false;
+		private boolean pendingSpace=false;
+		private String excludedElementName=null; // null if not inside an excluded element
+		private boolean excludedElementEndTagOptional;
+		private int excludedElementDepth;
+
+		public StreamedProcessor(final StreamedSource streamedSource, final boolean convertNonBreakingSpaces, final boolean includeAttributes, final boolean excludeNonHTMLElements) {
+			this.streamedSource=streamedSource;
+			this.convertNonBreakingSpaces=convertNonBreakingSpaces;
+			this.includeAttributes=includeAttributes;
+			this.excludeNonHTMLElements=excludeNonHTMLElements;
+		}
+
+		public void appendTo(final Appendable appendable) throws IOException {
+			this.appendable=appendable;
+			for (Segment segment : streamedSource) {
+				if (segment instanceof Tag) {
+					final Tag tag=(Tag)segment;
+					if (excludedElementName!=null && isExcluded(tag)) continue;
+					if (tag.getTagType().isServerTag()) continue;
+					if (tag.getTagType()==StartTagType.NORMAL) {
+						final StartTag startTag=(StartTag)tag;
+						if (tag.name==HTMLElementName.SCRIPT || tag.name==HTMLElementName.STYLE || excludeElement(startTag) || (excludeNonHTMLElements && !HTMLElements.getElementNames().contains(tag.name))) {
+							if (!startTag.isEmptyElementTag() && !HTMLElements.getEndTagForbiddenElementNames().contains(tag.name)) {
+								excludedElementName=tag.name;
+								excludedElementEndTagOptional=HTMLElements.getEndTagOptionalElementNames().contains(tag.name);
+								excludedElementDepth=1;
+							}
+							continue;
+						}
+						if (includeAttributes) {
+							for (Attribute attribute : startTag.getAttributes()) {
+								if (includeAttribute(startTag,attribute)) appendAttributeValue(attribute.getValueSegment());
+							}
+						}
+					}
+					// Treat both start and end tags not belonging to inline-level elements as whitespace:
+					if (tag.getName()==HTMLElementName.BR || !HTMLElements.getInlineLevelElementNames().contains(tag.getName())) pendingSpace=true;
+				} else if (excludedElementName!=null) {
+					continue;
+				} else if (segment instanceof CharacterReference) {
+					appendPendingSpace();
+					((CharacterReference)segment).appendCharTo(appendable,convertNonBreakingSpaces);
+				} else {
+					appendCollapseWhiteSpace(streamedSource.getCurrentSegmentCharBuffer());
+				}
+			}
+		}
+
+		/**
+		 * Indicates whether the specified tag is inside the current excluded element, updating the excluded element state if the tag ends it.
+		 * Returns false if the tag implicitly terminates the excluded element, in which case the tag itself is processed normally.
+		 */
+		private boolean isExcluded(final Tag tag) {
+			if (tag.getTagType()==StartTagType.NORMAL) {
+				if (excludedElementEndTagOptional) {
+					if (HTMLElements.getTerminatingStartTagNames(excludedElementName).contains(tag.name)) {
+						excludedElementName=null;
+						return false;
+					}
+				} else if (tag.name.equals(excludedElementName) && !((StartTag)tag).isEmptyElementTag()) {
+					excludedElementDepth++;
+				}
+			} else if (tag.getTagType()==EndTagType.NORMAL) {
+				if (tag.name.equals(excludedElementName)) {
+					if (excludedElementEndTagOptional || --excludedElementDepth==0) excludedElementName=null;
+					return true;
+				}
+				if (excludedElementEndTagOptional && HTMLElements.getTerminatingEndTagNames(excludedElementName).contains(tag.name)) {
+					excludedElementName=null;
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void appendAttributeValue(final Segment valueSegment) throws IOException {
+			pendingSpace=true;
+			if (valueSegment==null) return;
+			sb.setLength(0);
+			Segment.appendCollapseWhiteSpace(sb,valueSegment);
+			if (sb.length()>0) {
+				appendPendingSpace();
+				appendable.append(CharacterReference.decode(sb,false,convertNonBreakingSpaces));
+			}
+			pendingSpace=true;
+		}
+
+		private void appendCollapseWhiteSpace(final CharSequence text) throws IOException {
+			final int textLength=text.length();
+			int runBegin=-1;
+			for (int i=0; i<textLength; i++) {
+				if (Segment.isWhiteSpace(text.charAt(i))) {
+					if (runBegin!=-1) {
+						appendable.append(text,runBegin,i);
+						runBegin=-1;
+					}
+					pendingSpace=true;
+				} else if (runBegin==-1) {
+					appendPendingSpace();
+					runBegin=i;
+				}
+			}
+			if (runBegin!=-1) appendable.append(text,runBegin,textLength);
+		}
+
+		private void appendPendingSpace() throws IOException {
+			// leading white space is never appended, and trailing white space is never followed by a call to this method.
+			if (pendingSpace && textAppended) appendable.append(' ');
+			pendingSpace=false;
+			textAppended=true;
+		}
+	}
 }
@@ -0,0 +1,65 @@
+// Jericho HTML Parser - Java based library for analysing and manipulating HTML
+// Version 3.3
+// Copyright (C) 2004-2009 Martin Jericho
+// http://jericho.htmlparser.net/
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of either one of the following licences:
+//
+// 1. The Eclipse Public License (EPL) version 1.0,
+// included in this distribution in the file licence-epl-1.0.html
+// or available at http://www.eclipse.org/legal/epl-v10.html
+//
+// 2. The GNU Lesser General Public License (LGPL) version 2.1 or later,
+// included in this distribution in the file licence-lgpl-2.1.txt
+// or available at http://www.gnu.org/licenses/lgpl.txt
+//
+// This library is distributed on an "AS IS" basis,
+// WITHOUT WARRANTY OF ANY KIND, either express or implied.
+// See the individual licence texts for more details.
+
+package net.htmlparser.jericho;
+
+/**
+ * A {@link BufferPool} implementation that retains a separate set of buffers for each thread.
+ * <p>
+ * No synchronisation is required to borrow or return a buffer, making this the most efficient implementation for applications
+ * in which each document is streamed from start to finish in a single thread, such as a crawler with a fixed pool of worker threads.
+ * A buffer returned by a thread other than the one that borrowed it is retained in the returning thread's set.
+ * <p>
+ * The buffers are grouped into size classes, where each size class holds buffers with lengths between consecutive powers of two.
+ * At most <code>maxBuffersPerSizeClass</code> buffers are retained in each size class for each thread,
+ * and buffers longer than <code>maxBufferSize</code> are never retained,
+ * so each thread retains at most approximately 2 &times; <code>maxBufferSize</code> &times; <code>maxBuffersPerSizeClass</code> characters.
+ * <p>
+ * For example, to reuse the buffers of every {@link StreamedSource} within each thread while retaining no buffer larger than one million characters:
+ * <pre>Config.StreamedSourceBufferPool=new ThreadLocalBufferPool(1000000,2);</pre>
+ */
+public final class ThreadLocalBufferPool implements BufferPool {
+	private final ThreadLocal<BufferPoolStore> threadLocalStore;
+
+	/**
+	 * Constructs a new <code>ThreadLocalBufferPool</code> with the specified limits.
+	 *
+	 * @param maxBufferSize  the length of the longest buffer that is retained.
+	 * @param maxBuffersPerSizeClass  the maximum number of buffers retained in each size class for each thread.
+	 * @throws IllegalArgumentException if <code>maxBufferSize</code> is less than 1 or <code>maxBuffersPerSizeClass</code> is negative.
+	 */
+	public ThreadLocalBufferPool(final int maxBufferSize, final int maxBuffersPerSizeClass) {
+		BufferPoolStore.checkArguments(maxBufferSize,maxBuffersPerSizeClass);
+		threadLocalStore=new ThreadLocal<BufferPoolStore>() {
+			protected BufferPoolStore initialValue() {
+				return new BufferPoolStore(maxBufferSize,maxBuffersPerSizeClass);
+			}
+		};
+	}
+
+	public char[] borrow(final int minSize) {
+		final char[] buffer=threadLocalStore.get().take(minSize);
+		return buffer!=null ? buffer : new char[minSize];
+	}
+
+	public void release(final char[] buffer) {
+		threadLocalStore.get().put(buffer);
+	}
+}
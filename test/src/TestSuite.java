@@ -11,6 +11,22 @@ import net.htmlparser.jericho.*;
 	NodeIteratorTest.class,
 	StreamedTextTest.class,
 	StreamedParseTextTest.class,
+	StringParseTextTest.class,
+	StructuralIndexTest.class,
+	ParallelParserTest.class,
+	TagTableTest.class,
+	NameTableTest.class,
+	AttributesTest.class,
+	AttributeIndexTest.class,
+	SelectorTest.class,
+	QuerySetTest.class,
+	MappedTextTest.class,
+	SubCacheTest.class,
+	ElementHierarchyBuilderTest.class,
+	ElementTreeTest.class,
+	IntervalIndexTest.class,
+	MaskedParseTextTest.class,
+	IncrementalParserTest.class,
 	StreamedSourceTest.class,
 	StreamedSourceHugeFileTest.class
 //	,HTMLSanitiserTest.class
@@ -0,0 +1,66 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class AttributeIndexTest {
+	private static final String text="<html><body id=\"b\">\n"
+		+"<div id=\"d1\" class=\"box red\"><p class=\"red  big\tred\">x</p><input name=\"q\" class=red></div>\n"
+		+"<div id=\"d2\" class=\"Box\"><span class=\"box\" id=\"D1\">y</span><!-- <p id=\"d3\" class=\"red\"> --></div>\n"
+		+"<form name=\"q\"><input NAME=q CLASS='big'><input name=\"a&amp;b\" id=\"a&amp;b\"></form><p class>z</p></body></html>";
+
+	@Test public void testSameResultsAsTextSearch() {
+		Source expectedSource=new Source(text);
+		expectedSource.fullSequentialParse();
+		Source source=parseWithAttributeIndex(text);
+		assertNotNull(source.getTagTable().getStartTagIndexes("id","d1",true));
+		assertNull(expectedSource.getTagTable().getStartTagIndexes("id","d1",true));
+		String[] ids={"b","d1","D1","d2","d3","x"};
+		for (String id : ids) assertEquals(String.valueOf(expectedSource.getElementById(id)),String.valueOf(source.getElementById(id)));
+		String[] classNames={"box","red","big","Box","x"};
+		for (String className : classNames) {
+			assertEquals(expectedSource.getAllElementsByClass(className).toString(),source.getAllElementsByClass(className).toString());
+			for (int pos=0; pos<=text.length(); pos++) assertEquals(String.valueOf(expectedSource.getNextStartTagByClass(pos,className)),String.valueOf(source.getNextStartTagByClass(pos,className)));
+		}
+		for (Element element : source.getAllElements()) {
+			Segment expectedSegment=new Segment(expectedSource,element.getBegin(),element.getEnd());
+			for (String className : classNames) {
+				assertEquals(expectedSegment.getAllStartTagsByClass(className).toString(),element.getAllStartTagsByClass(className).toString());
+				assertEquals(String.valueOf(expectedSegment.getFirstElementByClass(className)),String.valueOf(element.getFirstElementByClass(className)));
+			}
+			assertEquals(expectedSegment.getAllStartTags("name","q",true).toString(),element.getAllStartTags("name","q",true).toString());
+			assertEquals(expectedSegment.getAllStartTags("ID","d2",true).toString(),element.getAllStartTags("ID","d2",true).toString());
+		}
+		assertEquals(3,source.getAllStartTags("name","q",true).size());
+		assertEquals(3,source.getAllStartTagsByClass("red").size()); // the repeated class name only matches its tag once
+	}
+
+	@Test public void testDecodedValues() {
+		Source source=parseWithAttributeIndex(text);
+		assertEquals("input",source.getElementById("a&b").getName());
+		assertNull(source.getElementById("a&amp;b"));
+	}
+
+	@Test public void testUnindexedSearches() {
+		Source source=parseWithAttributeIndex(text);
+		assertNull(source.getTagTable().getStartTagIndexes("id","d1",false));
+		assertNull(source.getTagTable().getStartTagIndexes("title","d1",true));
+		assertNull(source.getTagTable().getStartTagIndexesByClass("r.d"));
+		assertNull(source.getTagTable().getStartTagIndexesByClass("box red"));
+		assertEquals(2,source.getAllStartTags("id","d1",false).size());
+		assertEquals(3,source.getAllElementsByClass("r.d").size());
+	}
+
+	private static Source parseWithAttributeIndex(final String text) {
+		Source source=new Source(text);
+		Config.UseAttributeIndex=true;
+		try {
+			source.fullSequentialParse();
+		} finally {
+			Config.UseAttributeIndex=false;
+		}
+		return source;
+	}
+}
@@ -0,0 +1,58 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class AttributesTest {
+	@Test public void testAttributes() {
+		Source source=new Source("<a HREF=\"x.html\" Class='c1 c2' id=i1 disabled title = t data-X=\"&lt;\">link</a>");
+		Attributes attributes=source.getFirstStartTag().getAttributes();
+		assertEquals(6,attributes.getCount());
+		assertEquals("x.html",attributes.getValue("href"));
+		assertEquals("x.html",attributes.getValue("HRef"));
+		assertEquals("<",attributes.getValue("data-x"));
+		assertEquals("&lt;",attributes.getRawValue("data-x"));
+		assertNull(attributes.get("src"));
+		assertNull(attributes.getRawValue("disabled"));
+
+		Attribute href=attributes.get("href");
+		assertSame(href,attributes.get(0)); // attribute objects are only created once
+		assertSame(href,attributes.iterator().next());
+		assertEquals("HREF",href.getName());
+		assertEquals("\"x.html\"",href.getValueSegmentIncludingQuotes().toString());
+		assertEquals('"',href.getQuoteChar());
+		assertEquals('\'',attributes.get("class").getQuoteChar());
+		assertEquals(' ',attributes.get("id").getQuoteChar());
+		assertSame(attributes.get("id").getValueSegment(),attributes.get("id").getValueSegmentIncludingQuotes());
+		assertFalse(attributes.get("disabled").hasValue());
+		assertEquals("title = t",attributes.get("title").toString());
+		assertSame(source.getFirstStartTag(),attributes.get(5).getStartTag());
+
+		ListIterator<Attribute> li=attributes.listIterator(6);
+		assertFalse(li.hasNext());
+		assertSame(attributes.get(5),li.previous());
+		assertEquals(5,li.nextIndex());
+		try {
+			li.remove();
+			fail("Should throw UnsupportedOperationException");
+		} catch (UnsupportedOperationException ex) {}
+		try {
+			attributes.get(6);
+			fail("Should throw IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException ex) {}
+
+		Map<String,String> map=attributes.getMap(true);
+		assertEquals("[href, class, id, disabled, title, data-x]",map.keySet().toString());
+		assertEquals(attributes.getEnd(),source.getFirstStartTag().getEnd()-1);
+	}
+
+	@Test public void testUnterminatedQuotedValue() {
+		Source source=new Source("<p a=1 b=\"x y\">");
+		Attributes attributes=source.parseAttributes(2,11); // terminated in the middle of the quoted value of b
+		assertEquals(2,attributes.getCount());
+		assertEquals("x",attributes.getValue("b"));
+		assertEquals("\"x",attributes.get("b").getValueSegmentIncludingQuotes().toString());
+	}
+}
@@ -0,0 +1,90 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+public class ElementHierarchyBuilderTest {
+	@Test public void testSameHierarchyAsRecursiveSearch() throws Exception {
+		// the hierarchy built in a single pass must be identical to that built by the recursive search, including in badly formed documents
+		assertSameHierarchy(new Source(new URL("file:test/data/SegmentTest.html")).toString());
+		for (int seed=0; seed<500; seed++) {
+			final Random random=new Random(seed);
+			assertSameHierarchy(RandomHtml.generate(random,RandomHtml.ELEMENT_FRAGMENTS,5+random.nextInt(300)));
+		}
+	}
+
+	@Test public void testDeeplyNested() {
+		// the recursive search would exhaust the stack of the calling thread
+		final int depth=100000;
+		final StringBuilder sb=new StringBuilder();
+		for (int i=0; i<depth; i++) sb.append("<div>");
+		for (int i=0; i<depth; i++) sb.append("</div>");
+		final Source source=new Source(sb.toString());
+		Config.BuildElementHierarchy=true;
+		try {
+			source.fullSequentialParse();
+		} finally {
+			Config.BuildElementHierarchy=false;
+		}
+		Element element=source.getChildElements().get(0);
+		for (int i=0; i<depth-1; i++) {
+			assertEquals(i,element.getDepth());
+			assertEquals(1,element.getChildElements().size());
+			element=element.getChildElements().get(0);
+		}
+		assertEquals(depth-1,element.getDepth());
+		assertEquals(depth*5,element.getEndTag().getBegin());
+		assertTrue(element.getChildElements().isEmpty());
+	}
+
+	private static void assertSameHierarchy(final String text) {
+		final Source expected=new Source(text);
+		final StringWriter expectedLog=new StringWriter();
+		expected.setLogger(new WriterLogger(expectedLog));
+		expected.getChildElements();
+		final Source source=new Source(text);
+		final StringWriter log=new StringWriter();
+		source.setLogger(new WriterLogger(log));
+		Config.BuildElementHierarchy=true;
+		try {
+			source.fullSequentialParse();
+		} finally {
+			Config.BuildElementHierarchy=false;
+		}
+		assertEquals(text,toString(expected),toString(source));
+		assertEquals(text,sortedLines(expectedLog.toString()),sortedLines(log.toString()));
+	}
+
+	private static String toString(final Source source) {
+		final StringBuilder sb=new StringBuilder();
+		appendTo(sb,source.getChildElements());
+		for (StartTag startTag : source.getAllStartTags()) appendTo(sb.append('\n'),startTag.getElement());
+		return sb.toString();
+	}
+
+	private static void appendTo(final StringBuilder sb, final List<Element> elements) {
+		sb.append('[');
+		for (Element element : elements) {
+			appendTo(sb,element);
+			sb.append(" depth=").append(element.getDepth()).append(" parent=").append(element.getParentElement()==null ? "-" : element.getParentElement().getBegin());
+			appendTo(sb,element.getChildElements());
+		}
+		sb.append(']');
+	}
+
+	private static void appendTo(final StringBuilder sb, final Element element) {
+		sb.append(element.getBegin()).append('-').append(element.getEnd());
+		final EndTag endTag=element.getEndTag();
+		if (endTag!=null) sb.append(" end=").append(endTag.getBegin());
+	}
+
+	private static String sortedLines(final String text) {
+		final String[] lines=text.split("\n");
+		Arrays.sort(lines);
+		return Arrays.asList(lines).toString();
+	}
+}
@@ -0,0 +1,169 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.net.*;
+import java.util.*;
+
+public class ElementTreeTest {
+	@Test public void testSameAsElementHierarchy() throws Exception {
+		assertSameAsElementHierarchy(new Source(new URL("file:test/data/SegmentTest.html")));
+		for (int seed=0; seed<200; seed++) {
+			final Random random=new Random(seed);
+			assertSameAsElementHierarchy(new Source(RandomHtml.generate(random,RandomHtml.ELEMENT_FRAGMENTS,1+random.nextInt(300))));
+		}
+	}
+
+	@Test public void testAfterGetTagTableOnMalformedInput() {
+		// the tags are reconstructed from the table when the tree reports missing or invalidly nested end tags
+		assertSameAsFullSequentialParseAfterGetTagTable("<div><i<%<%--%><%--%>></div>");
+		assertSameAsFullSequentialParseAfterGetTagTable("<p><b><i<%<%--%><%--%>>x</b></i>");
+		for (int seed=0; seed<200; seed++) {
+			final Random random=new Random(seed);
+			assertSameAsFullSequentialParseAfterGetTagTable(RandomHtml.generate(random,RandomHtml.MARKUP_FRAGMENTS,1+random.nextInt(300)));
+		}
+	}
+
+	@Test public void testElementsCreatedOnRequest() {
+		final Source source=new Source("<ul><li>a<li>b</ul><p>c<br></p>");
+		final ElementTree elementTree=source.getElementTree();
+		final TagTable tagTable=elementTree.getTagTable();
+		for (int i=0; i<tagTable.size(); i++) {
+			if (tagTable.isStartTag(i)) assertSame(Element.NOT_CACHED,((StartTag)tagTable.getTag(i)).element);
+		}
+		final Element element=elementTree.getElement(1);
+		assertEquals("<li>a",element.toString());
+		assertNull(element.getEndTag());
+		assertSame(element,((StartTag)tagTable.getTag(elementTree.getStartTagIndex(1))).getElement());
+		assertSame(element,source.getChildElements().get(0).getChildElements().get(0));
+	}
+
+	@Test public void testCursor() {
+		final Source source=new Source("<ul><li>a<li>b</ul><p>c<br></p>");
+		final ElementTree elementTree=source.getElementTree();
+		assertEquals(5,elementTree.size());
+		final TagTable tagTable=elementTree.getTagTable();
+		final ElementTree.Cursor cursor=elementTree.cursor();
+		assertTrue(cursor.isDocument());
+		assertFalse(cursor.nextSibling());
+		assertFalse(cursor.parent());
+		assertEquals(source.getEnd(),cursor.end());
+		assertTrue(cursor.firstChild());
+		assertEquals(tagTable.getNameId(HTMLElementName.UL),cursor.nameId());
+		assertEquals(0,cursor.begin());
+		assertEquals(19,cursor.end());
+		assertTrue(cursor.firstChild());
+		assertEquals(tagTable.getNameId("LI"),cursor.nameId());
+		assertEquals(1,cursor.depth());
+		assertEquals(9,cursor.end());
+		assertFalse(cursor.firstChild());
+		assertTrue(cursor.nextSibling());
+		assertEquals(9,cursor.begin());
+		assertEquals(14,cursor.end());
+		assertEquals(-1,elementTree.getEndTagIndex(cursor.index()));
+		assertFalse(cursor.nextSibling());
+		assertTrue(cursor.parent());
+		assertTrue(cursor.nextSibling());
+		assertEquals(tagTable.getNameId(HTMLElementName.P),cursor.nameId());
+		assertEquals(tagTable.indexOf(27),elementTree.getEndTagIndex(cursor.index()));
+		assertTrue(cursor.firstChild());
+		assertEquals("br",elementTree.getName(cursor.index()));
+		assertTrue(cursor.parent());
+		assertTrue(cursor.parent());
+		assertTrue(cursor.isDocument());
+		assertEquals(-1,tagTable.getNameId("table"));
+	}
+
+	@Test public void testEnclosingElementIndexes() {
+		for (int seed=0; seed<200; seed++) {
+			final Random random=new Random(seed);
+			final String text=RandomHtml.generate(random,RandomHtml.ELEMENT_FRAGMENTS,1+random.nextInt(300));
+			final Source expected=new Source(text);
+			expected.fullSequentialParse();
+			final Source source=new Source(text);
+			final ElementTree elementTree=source.getElementTree();
+			final int[] positions=new int[text.length()+3];
+			for (int i=0; i<positions.length; i++) positions[i]=i-1;
+			final int[] enclosingElementIndexes=elementTree.getEnclosingElementIndexes(positions);
+			for (int i=0; i<positions.length; i++) {
+				final int pos=positions[i];
+				final Element expectedElement=expected.getEnclosingElement(pos);
+				final String message="seed "+seed+" pos "+pos;
+				final int expectedIndex=expectedElement==null ? -1 : elementTree.indexOf((StartTag)source.getTagAt(expectedElement.getBegin()));
+				assertEquals(message,expectedIndex,elementTree.getEnclosingElementIndex(pos));
+				assertEquals(message,expectedIndex,enclosingElementIndexes[i]);
+				assertEquals(message,String.valueOf(expectedElement),String.valueOf(source.getEnclosingElement(pos)));
+			}
+		}
+		try {
+			new Source("<p>x</p>").getElementTree().getEnclosingElementIndexes(new int[] {3,2});
+			fail();
+		} catch (IllegalArgumentException ex) {}
+	}
+
+	@Test public void testDeeplyNested() {
+		final int depth=100000;
+		final StringBuilder sb=new StringBuilder();
+		for (int i=0; i<depth; i++) sb.append("<div>");
+		for (int i=0; i<depth; i++) sb.append("</div>");
+		final Source source=new Source(sb);
+		Config.BuildElementHierarchy=true;
+		try {
+			source.fullSequentialParse();
+		} finally {
+			Config.BuildElementHierarchy=false;
+		}
+		final ElementTree elementTree=source.getElementTree();
+		assertEquals(depth,elementTree.size());
+		final ElementTree.Cursor cursor=elementTree.cursor();
+		int count=0;
+		while (cursor.firstChild()) count++;
+		assertEquals(depth,count);
+		assertEquals(depth-1,cursor.depth());
+		assertEquals(depth*5,elementTree.getTagTable().getBegin(elementTree.getEndTagIndex(cursor.index())));
+	}
+
+	private static void assertSameAsFullSequentialParseAfterGetTagTable(final String text) {
+		final Source expected=new Source(text);
+		expected.fullSequentialParse();
+		final Source source=new Source(text);
+		source.getTagTable();
+		assertSameAsElementHierarchy(source);
+		assertEquals(expected.getAllElements().toString(),source.getAllElements().toString());
+		assertEquals(expected.getAllElements("i").toString(),source.getAllElements("i").toString());
+	}
+
+	private static void assertSameAsElementHierarchy(final Source source) {
+		final ElementTree elementTree=source.getElementTree();
+		final List<Element> elements=new ArrayList<Element>();
+		addDescendants(elements,source.getChildElements());
+		assertEquals(elements.size(),elementTree.size());
+		for (int index=0; index<elements.size(); index++) {
+			final Element element=elements.get(index);
+			assertSame(element,elementTree.getElement(index));
+			assertEquals(index,elementTree.indexOf(element.getStartTag()));
+			assertEquals(element.getBegin(),elementTree.getBegin(index));
+			assertEquals(element.getEnd(),elementTree.getEnd(index));
+			assertEquals(element.getDepth(),elementTree.getDepth(index));
+			assertEquals(element.getName(),elementTree.getName(index));
+			assertEquals(elementTree.getTagTable().getNameId(element.getName()),elementTree.getNameId(index));
+			final Element parentElement=element.getParentElement();
+			assertEquals(parentElement==null ? -1 : elements.indexOf(parentElement),elementTree.getParent(index));
+			final List<Element> siblings=parentElement==null ? source.getChildElements() : parentElement.getChildElements();
+			final int siblingIndex=siblings.indexOf(element);
+			assertEquals(siblingIndex==siblings.size()-1 ? -1 : elements.indexOf(siblings.get(siblingIndex+1)),elementTree.getNextSibling(index));
+			final List<Element> childElements=element.getChildElements();
+			assertEquals(childElements.isEmpty() ? -1 : elements.indexOf(childElements.get(0)),elementTree.getFirstChild(index));
+			final EndTag endTag=element.getEndTag();
+			assertEquals(endTag==null ? -1 : elementTree.getTagTable().indexOf(endTag.getBegin()),elementTree.getEndTagIndex(index));
+		}
+	}
+
+	private static void addDescendants(final List<Element> elements, final List<Element> childElements) {
+		for (Element element : childElements) {
+			elements.add(element);
+			addDescendants(elements,element.getChildElements());
+		}
+	}
+}
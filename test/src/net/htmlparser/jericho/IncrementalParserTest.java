@@ -0,0 +1,56 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class IncrementalParserTest {
+	@Test public void testMatchesFullParse() {
+		// compares the tags of the source created by OutputDocument.toSource with those of a full sequential parse of the same text
+		for (int seed=0; seed<2000; seed++) {
+			final Random random=new Random(seed);
+			final Source source=new Source(RandomHtml.generate(random,RandomHtml.MARKUP_FRAGMENTS,random.nextInt(60)));
+			source.fullSequentialParse();
+			final OutputDocument outputDocument=new OutputDocument(source);
+			final int editCount=1+random.nextInt(4);
+			for (int i=0; i<editCount; i++) {
+				final int begin=random.nextInt(source.length()+1);
+				final int end=Math.min(begin+random.nextInt(12),source.length());
+				switch (random.nextInt(4)) {
+					case 0: outputDocument.insert(begin,RandomHtml.generate(random,RandomHtml.MARKUP_FRAGMENTS,random.nextInt(3))); break;
+					case 1: outputDocument.remove(new Segment(source,begin,end)); break;
+					case 2: outputDocument.replaceWithSpaces(begin,end); break;
+					default: outputDocument.replace(begin,end,RandomHtml.generate(random,RandomHtml.MARKUP_FRAGMENTS,1+random.nextInt(3)));
+				}
+			}
+			final String message="seed "+seed;
+			final Source newSource=outputDocument.toSource();
+			final Source expectedSource=new Source(outputDocument.toString());
+			assertEquals(message,expectedSource.toString(),newSource.toString());
+			assertTagTablesEqual(message,expectedSource.getTagTable(),newSource.getTagTable());
+			assertEquals(message,expectedSource.getAllElements().toString(),newSource.getAllElements().toString());
+		}
+	}
+
+	@Test public void testUnparsedSource() {
+		// the tags can not be reused if the original source has not been fully parsed
+		final Source source=new Source("<p>a</p>");
+		final OutputDocument outputDocument=new OutputDocument(source);
+		outputDocument.replace(3,4,"<b>b</b>");
+		final Source newSource=outputDocument.toSource();
+		assertEquals("<p><b>b</b></p>",newSource.toString());
+		assertEquals(4,newSource.getAllTags().size());
+	}
+
+	private static void assertTagTablesEqual(final String message, final TagTable expected, final TagTable actual) {
+		assertEquals(message,expected.size(),actual.size());
+		for (int i=0; i<expected.size(); i++) {
+			final String indexMessage=message+" tag "+i;
+			assertEquals(indexMessage,expected.getBegin(i),actual.getBegin(i));
+			assertEquals(indexMessage,expected.getEnd(i),actual.getEnd(i));
+			assertEquals(indexMessage,expected.getTagType(i),actual.getTagType(i));
+			assertEquals(indexMessage,expected.getName(i),actual.getName(i));
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class IntervalIndexTest {
+	@Test public void testOverlappingIntervals() {
+		// compares the results with a brute force search for intervals that are nested, overlapping, empty and out of bounds
+		for (int seed=0; seed<200; seed++) {
+			final Random random=new Random(seed);
+			final int size=random.nextInt(60);
+			final int[] begins=new int[size];
+			final int[] ends=new int[size];
+			int begin=0;
+			for (int i=0; i<size; i++) {
+				begin+=1+random.nextInt(4);
+				begins[i]=begin;
+				ends[i]=begin+random.nextInt(random.nextBoolean() ? 5 : 100);
+			}
+			final IntervalIndex intervalIndex=new IntervalIndex(begins,ends,size);
+			final int[] positions=new int[begin+110];
+			for (int i=0; i<positions.length; i++) positions[i]=i-5;
+			final int[] enclosingIndexes=intervalIndex.getEnclosingIndexes(positions);
+			for (int i=0; i<positions.length; i++) {
+				final int pos=positions[i];
+				int expected=-1;
+				for (int x=0; x<size; x++) if (begins[x]<=pos && pos<ends[x]) expected=x;
+				assertEquals("seed "+seed+" pos "+pos,expected,intervalIndex.getEnclosingIndex(pos));
+				assertEquals("seed "+seed+" pos "+pos,expected,enclosingIndexes[i]);
+			}
+		}
+	}
+}
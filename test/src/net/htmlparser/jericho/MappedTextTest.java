@@ -0,0 +1,90 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+
+public class MappedTextTest {
+	@Test public void testSameResultsAsSource() throws Exception {
+		String text=new Source(new URL("file:test/data/SegmentTest.html")).toString();
+		assertSameResultsAsSource(text,"ISO-8859-1",null);
+		assertSameResultsAsSource(text,"UTF-8",null);
+		String nonASCIIText=text+"<p title='é€中😀'>Été € 中文 😀</p>";
+		assertSameResultsAsSource(nonASCIIText,"UTF-8",null);
+		assertSameResultsAsSource(nonASCIIText,"UTF-16LE",null);
+		assertSameResultsAsSource(nonASCIIText,"UTF-16",null);
+		String japaneseText=text+"<p title='日本語'>テキスト 中文</p>";
+		assertSameResultsAsSource(japaneseText,"Shift_JIS",null);
+		assertSameResultsAsSource(japaneseText,"ISO-2022-JP",null); // decoded into a String as ISO-2022-JP can't be decoded a page at a time
+		assertSameResultsAsSource("<p>é€‘x’</p>","windows-1252",null);
+		// pages of the decoded text are longer than MappedText.PAGE_SIZE:
+		StringBuilder sb=new StringBuilder();
+		while (sb.length()<MappedText.PAGE_SIZE*MappedText.CACHED_PAGE_COUNT*2) sb.append(nonASCIIText);
+		assertSameResultsAsSource(sb.toString(),"UTF-8",null);
+	}
+
+	@Test public void testByteOrderMark() throws Exception {
+		String text="<html><body><p id=x>é€</p></body></html>";
+		assertSameResultsAsSource(text,"UTF-8",new byte[] {(byte)0xEF,(byte)0xBB,(byte)0xBF});
+		assertSameResultsAsSource(text,"UTF-16BE",new byte[] {(byte)0xFE,(byte)0xFF});
+		assertSameResultsAsSource(text,"UTF-16LE",new byte[] {(byte)0xFF,(byte)0xFE});
+	}
+
+	@Test public void testEncodingDetection() throws Exception {
+		File file=createFile("<html><head><meta charset=\"windows-1252\"></head><body>€</body></html>","windows-1252",null);
+		Source source=Source.mapFile(file,null);
+		assertEquals("windows-1252",source.getEncoding());
+		assertEquals(new Source(new FileInputStream(file)).toString(),source.toString());
+		file=createFile("","UTF-8",null);
+		source=Source.mapFile(file,null);
+		assertEquals(0,source.length());
+		assertEquals(0,source.getAllTags().size());
+	}
+
+	@Test public void testUnsupportedEncoding() throws Exception {
+		File file=createFile("<p>x</p>","UTF-8",null);
+		for (String encoding : new String[] {"x-unknown-charset","not a charset name"}) {
+			try {
+				Source.mapFile(file,encoding);
+				fail(encoding);
+			} catch (UnsupportedEncodingException ex) {
+				assertEquals(encoding,ex.getMessage());
+			}
+		}
+	}
+
+	private static void assertSameResultsAsSource(String text, String encoding, byte[] byteOrderMark) throws Exception {
+		File file=createFile(text,encoding,byteOrderMark);
+		Source mappedSource=Source.mapFile(file,byteOrderMark!=null ? null : encoding);
+		Source source=new Source(text);
+		String message=encoding;
+		assertEquals(message,text.length(),mappedSource.length());
+		assertEquals(message,text,mappedSource.toString());
+		assertEquals(message,source.getAllTags().toString(),mappedSource.getAllTags().toString());
+		for (int pos=0; pos<text.length(); pos+=text.length()/50+1) {
+			assertEquals(message,String.valueOf(source.getNextStartTag(pos)),String.valueOf(mappedSource.getNextStartTag(pos)));
+			assertEquals(message,source.getRowColumnVector(pos).toString(),mappedSource.getRowColumnVector(pos).toString());
+			assertEquals(message,text.charAt(pos),mappedSource.charAt(pos));
+		}
+		assertEquals(message,source.getTextExtractor().toString(),mappedSource.getTextExtractor().toString());
+		try {
+			mappedSource.charAt(text.length());
+			fail("Should throw IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException ex) {}
+	}
+
+	private static File createFile(String text, String encoding, byte[] byteOrderMark) throws IOException {
+		File file=File.createTempFile("MappedTextTest",".html");
+		file.deleteOnExit();
+		OutputStream out=new FileOutputStream(file);
+		try {
+			if (byteOrderMark!=null) out.write(byteOrderMark);
+			out.write(text.getBytes(encoding));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+}
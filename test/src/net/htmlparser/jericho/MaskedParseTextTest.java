@@ -0,0 +1,65 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class MaskedParseTextTest {
+	private static final String[] SEARCH_STRINGS={"a","<","x"," ","ab","<a","a<"," a","a "," <a","<a b","ab a"," ",""};
+
+	@Test public void testMatchesBlankedText() {
+		// compares every method with a parse text created from a copy of the text in which the masked ranges are replaced by spaces
+		for (int seed=0; seed<100; seed++) {
+			final Random random=new Random(seed);
+			final int length=random.nextInt(80);
+			final StringBuilder sb=new StringBuilder(length);
+			for (int i=0; i<length; i++) sb.append("aAb <&X ".charAt(random.nextInt(8)));
+			final String text=sb.toString();
+			final MaskedParseText parseText=new MaskedParseText(new StringParseText(text));
+			final char[] blanked=text.toCharArray();
+			final int rangeCount=random.nextInt(8);
+			for (int i=0; i<rangeCount; i++) {
+				final int begin=random.nextInt(length+10)-5;
+				final int end=begin+random.nextInt(12);
+				parseText.mask(begin,end);
+				for (int x=Math.max(begin,0); x<Math.min(end,length); x++) blanked[x]=' ';
+			}
+			final StringParseText expected=new StringParseText(new String(blanked));
+			final String message="seed "+seed;
+			assertEquals(message,expected.length(),parseText.length());
+			assertEquals(message,expected.subSequence(0,length),parseText.toString());
+			for (int i=0; i<length; i++) assertEquals(message,expected.charAt(i),parseText.charAt(i));
+			for (int i=1; i<parseText.getRangeCount(); i++) assertTrue(message,parseText.getRangeEnd(i-1)<parseText.getRangeBegin(i));
+			for (String searchString : SEARCH_STRINGS) {
+				final char searchChar=searchString.length()==0 ? 'a' : searchString.charAt(0);
+				for (int fromIndex=-2; fromIndex<=length+2; fromIndex++) {
+					final String fromMessage=message+" \""+searchString+"\" from "+fromIndex;
+					if (fromIndex>=0 && fromIndex+searchString.length()<=length) assertEquals(fromMessage,expected.containsAt(searchString,fromIndex),parseText.containsAt(searchString,fromIndex));
+					assertEquals(fromMessage,expected.indexOf(searchChar,fromIndex),parseText.indexOf(searchChar,fromIndex));
+					assertEquals(fromMessage,expected.indexOf(searchString,fromIndex),parseText.indexOf(searchString,fromIndex));
+					assertEquals(fromMessage,expected.lastIndexOf(searchChar,fromIndex),parseText.lastIndexOf(searchChar,fromIndex));
+					assertEquals(fromMessage,expected.lastIndexOf(searchString,fromIndex),parseText.lastIndexOf(searchString,fromIndex));
+					for (int breakAtIndex=-1; breakAtIndex<=length+1; breakAtIndex+=3) {
+						final String breakMessage=fromMessage+" break "+breakAtIndex;
+						assertEquals(breakMessage,expected.indexOf(searchChar,fromIndex,breakAtIndex),parseText.indexOf(searchChar,fromIndex,breakAtIndex));
+						assertEquals(breakMessage,expected.indexOf(searchString,fromIndex,breakAtIndex),parseText.indexOf(searchString,fromIndex,breakAtIndex));
+						assertEquals(breakMessage,expected.lastIndexOf(searchChar,fromIndex,breakAtIndex),parseText.lastIndexOf(searchChar,fromIndex,breakAtIndex));
+						assertEquals(breakMessage,expected.lastIndexOf(searchString,fromIndex,breakAtIndex),parseText.lastIndexOf(searchString,fromIndex,breakAtIndex));
+					}
+				}
+			}
+		}
+	}
+
+	@Test public void testIgnoreWhenParsing() {
+		// ignoring segments must produce the same tags as parsing a copy of the document with the segments replaced by spaces
+		final String text="<p>a<script><b>x</b>&amp;</script><% <i> %><div a='1'>b</div></p>";
+		final Source source=new Source(text);
+		final Source expectedSource=new Source(text.replace("<b>x</b>&amp;","             ").replace("<% <i> %>","         "));
+		for (StartTag startTag : source.getAllStartTags("script")) startTag.getElement().getContent().ignoreWhenParsing();
+		source.ignoreWhenParsing(text.indexOf("<%"),text.indexOf("%>")+2);
+		assertEquals(expectedSource.getAllTags().toString(),source.getAllTags().toString());
+		assertEquals(expectedSource.getAllCharacterReferences().size(),source.getAllCharacterReferences().size());
+	}
+}
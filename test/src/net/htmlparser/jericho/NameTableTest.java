@@ -0,0 +1,37 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class NameTableTest {
+	@Test public void testNames() {
+		Source source=new Source("<DIV Class=a ID='x'><Foo:Bar DATA-X=1>t</foo:bar><ÉLÉment Ünknown=1/><p onClick=x></DIV>");
+		List<StartTag> startTags=source.getAllStartTags();
+		assertSame(HTMLElementName.DIV,startTags.get(0).getName());
+		assertSame(HTMLElementName.DIV,source.getAllTags().get(5).getName());
+		assertSame(HTMLElementName.P,startTags.get(3).getName());
+		assertSame("class",startTags.get(0).getAttributes().get(0).getKey());
+		assertSame("id",startTags.get(0).getAttributes().get(1).getKey());
+		assertSame("onclick",startTags.get(3).getAttributes().get(0).getKey());
+		assertEquals("foo:bar",startTags.get(1).getName());
+		assertSame(startTags.get(1).getName(),source.getAllTags().get(2).getName()); // unknown names are added to the overflow table
+		assertEquals("data-x",startTags.get(1).getAttributes().get(0).getKey());
+		assertEquals("élément",startTags.get(2).getName()); // non-ASCII names are converted using String.toLowerCase()
+		assertEquals("ünknown",startTags.get(2).getAttributes().get(0).getKey());
+	}
+
+	@Test public void testOverflow() {
+		StringBuilder sb=new StringBuilder();
+		for (int i=0; i<1000; i++) sb.append("<X").append(i).append(">");
+		for (int i=0; i<1000; i++) sb.append("<x").append(i).append(">");
+		Source source=new Source(sb);
+		List<StartTag> startTags=source.getAllStartTags();
+		for (int i=0; i<1000; i++) {
+			assertEquals("x"+i,startTags.get(i).getName());
+			assertEquals(startTags.get(i).getName(),startTags.get(i+1000).getName());
+		}
+		assertSame(startTags.get(0).getName(),startTags.get(1000).getName());
+	}
+}
@@ -0,0 +1,184 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelParserTest {
+	private static final String text="<!DOCTYPE html>\n<html><head><title>x</title>\n"
+		+"<script type=\"text/javascript\">\nvar a=b<c;\ndocument.write('<div class=\"w\">'+a+'</div>');\n<!-- x -->\n</script>\n"
+		+"<style>p > a { color: red }</style></head>\n<body>\n"
+		+"<p id=\"p1\">text &amp; <b>bold</b> a < b <i>italic</i></p>\n"
+		+"<!-- comment containing <p>markup</p> and <div id=\"c\"> -->\n"
+		+"<![CDATA[ <span>not a tag</span> ]]>\n"
+		+"<%-- server comment <p>not a tag</p> <% x %> --%>\n"
+		+"<% if (a<b) { %><span title=\"<%=value%>\">x</span><% } %>\n"
+		+"<div class=\"unterminated><span>x</span></div>\n"
+		+"<p title=x\"y onclick=a>b</p><unknown:tag a=1>text</unknown:tag>\n"
+		+"<p a=\"1\"\"b>x</p><div class=\"x><b>y</b></div>\n"
+		+"<table><tr><td>1</td><td>2</td></tr></table>\n"
+		+"<script>if (a<b) x(); // <p> no end tag\n";
+
+	@Test public void testSameResultsAsSequentialParse() throws Exception {
+		assertSameResultsAsSequentialParse(text+"</script></body></html>");
+		assertSameResultsAsSequentialParse(text+text+text);
+		assertSameResultsAsSequentialParse(text+"<!-- unterminated comment <p>x</p>");
+		assertSameResultsAsSequentialParse(new Source(new URL("file:test/data/ScriptTest.html")).toString());
+		assertSameResultsAsSequentialParse(new Source(new URL("file:test/data/SegmentTest.html")).toString());
+	}
+
+	@Test public void testFullSequentialParse() {
+		final int parallelParseThreshold=Config.ParallelParseThreshold;
+		try {
+			Config.ParallelParseThreshold=1;
+			String document=text+text+"</script></body></html>";
+			assertEquals(Arrays.asList(new Source(document).fullSequentialParse()).toString(),Arrays.asList(parseSequentially(document)).toString());
+		} finally {
+			Config.ParallelParseThreshold=parallelParseThreshold;
+		}
+	}
+
+	@Test public void testExecutorService() throws Exception {
+		final ExecutorService parallelParseExecutorService=Config.ParallelParseExecutorService;
+		final String document=text+text+text;
+		final String expected=getParseResults(document,0,new ArrayList<String>());
+		final AtomicInteger executedCount=new AtomicInteger();
+		final ThreadPoolExecutor executorService=new ThreadPoolExecutor(2,2,0,TimeUnit.SECONDS,new LinkedBlockingQueue<Runnable>()) {
+			protected void beforeExecute(Thread thread, Runnable runnable) {
+				executedCount.incrementAndGet();
+			}
+		};
+		try {
+			Config.ParallelParseExecutorService=executorService;
+			assertEquals(expected,getParseResults(document,8,new ArrayList<String>()));
+			executorService.shutdown();
+			assertTrue(executorService.awaitTermination(10,TimeUnit.SECONDS));
+			assertEquals(7,executedCount.get()); // the first section is parsed in the calling thread
+			assertEquals(expected,getParseResults(document,8,new ArrayList<String>())); // a shut down executor service rejects the sections
+		} finally {
+			Config.ParallelParseExecutorService=parallelParseExecutorService;
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test public void testIssuesReportedFromCallingThread() throws Exception {
+		final String document=text+text+text;
+		final Source source=new Source(document);
+		final Thread callingThread=Thread.currentThread();
+		final List<String> wrongThreadIssues=new ArrayList<String>();
+		HtmlIssueProcessingHandler htmlIssueProcessingHandler=new HtmlIssueProcessingHandler() {
+			public void htmlIssue(HtmlIssue htmlIssue) {
+				if (Thread.currentThread()!=callingThread) wrongThreadIssues.add(htmlIssue.toString());
+			}
+		};
+		source.setHtmlIssueProcessingHandler(htmlIssueProcessingHandler);
+		final List<HtmlIssueProcessingHandler> handlersDuringParse=Collections.synchronizedList(new ArrayList<HtmlIssueProcessingHandler>());
+		final ExecutorService parallelParseExecutorService=Config.ParallelParseExecutorService;
+		final ThreadPoolExecutor executorService=new ThreadPoolExecutor(2,2,0,TimeUnit.SECONDS,new LinkedBlockingQueue<Runnable>()) {
+			protected void beforeExecute(Thread thread, Runnable runnable) {
+				handlersDuringParse.add(source.getHtmlIssueProcessingHandler());
+			}
+		};
+		try {
+			Config.ParallelParseExecutorService=executorService;
+			source.useAllTypesCache=false;
+			source.useSpecialTypesCache=false;
+			source.fullSequentialParseData=new int[1];
+			ParallelParser.parseAll(source,false,new ArrayList<Tag>(),8);
+			executorService.shutdown();
+			assertTrue(executorService.awaitTermination(10,TimeUnit.SECONDS));
+		} finally {
+			Config.ParallelParseExecutorService=parallelParseExecutorService;
+			executorService.shutdownNow();
+		}
+		assertEquals(7,handlersDuringParse.size());
+		for (HtmlIssueProcessingHandler handler : handlersDuringParse) assertSame(htmlIssueProcessingHandler,handler); // the handler is not replaced during the parse
+		assertSame(htmlIssueProcessingHandler,source.getHtmlIssueProcessingHandler());
+		assertEquals(Collections.<String>emptyList(),wrongThreadIssues);
+	}
+
+	@Test public void testExecutorServiceBusy() throws Exception {
+		// sections that are not started by the executor are parsed in the calling thread, so a parse performed by a task of the executor itself completes
+		final ExecutorService parallelParseExecutorService=Config.ParallelParseExecutorService;
+		final String document=text+text+text;
+		final String expected=getParseResults(document,0,new ArrayList<String>());
+		final ExecutorService executorService=Executors.newSingleThreadExecutor();
+		try {
+			Config.ParallelParseExecutorService=executorService;
+			Future<String> future=executorService.submit(new Callable<String>() {
+				public String call() {
+					return getParseResults(document,8,new ArrayList<String>());
+				}
+			});
+			assertEquals(expected,future.get(10,TimeUnit.SECONDS));
+		} finally {
+			Config.ParallelParseExecutorService=parallelParseExecutorService;
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test public void testInterrupted() {
+		final String document=text+text+text;
+		List<String> issues=new ArrayList<String>();
+		String expected=getParseResults(document,0,issues);
+		List<String> expectedIssues=new ArrayList<String>(issues);
+		issues.clear();
+		Thread.currentThread().interrupt();
+		String results;
+		try {
+			results=getParseResults(document,8,issues);
+		} finally {
+			assertTrue(Thread.interrupted()); // also clears the interrupt status
+		}
+		assertEquals(expected,results);
+		assertEquals(expectedIssues,issues);
+	}
+
+	private static Tag[] parseSequentially(String document) {
+		final int parallelParseThreshold=Config.ParallelParseThreshold;
+		try {
+			Config.ParallelParseThreshold=0;
+			return new Source(document).fullSequentialParse();
+		} finally {
+			Config.ParallelParseThreshold=parallelParseThreshold;
+		}
+	}
+
+	private static void assertSameResultsAsSequentialParse(String document) {
+		List<String> issues=new ArrayList<String>();
+		String expected=getParseResults(document,0,issues);
+		List<String> expectedIssues=new ArrayList<String>(issues);
+		for (int sectionCount=1; sectionCount<=40; sectionCount++) {
+			issues.clear();
+			assertEquals("sectionCount="+sectionCount,expected,getParseResults(document,sectionCount,issues));
+			assertEquals("sectionCount="+sectionCount,expectedIssues,issues);
+		}
+	}
+
+	private static String getParseResults(String document, int sectionCount, final List<String> issues) {
+		Source source=new Source(document);
+		source.setLogger(new WriterLogger(new StringWriter())); // some issues are only reported if info logging is enabled
+		source.setHtmlIssueProcessingHandler(new HtmlIssueProcessingHandler() {
+			public void htmlIssue(HtmlIssue htmlIssue) {
+				issues.add(htmlIssue.toString());
+			}
+		});
+		// set up the source in the same way as Source.fullSequentialParse():
+		source.useAllTypesCache=false;
+		source.useSpecialTypesCache=false;
+		source.fullSequentialParseData=new int[1];
+		List<Tag> tags=new ArrayList<Tag>();
+		if (sectionCount==0)
+			Tag.parseAll(source,0,ParseText.NO_BREAK,source.fullSequentialParseData,false,tags);
+		else
+			ParallelParser.parseAll(source,false,tags,sectionCount);
+		StringBuilder sb=new StringBuilder();
+		for (Tag tag : tags) sb.append(tag.getBegin()).append('-').append(tag.getEnd()).append(' ').append(tag.getTagType()).append('\n');
+		return sb.toString();
+	}
+}
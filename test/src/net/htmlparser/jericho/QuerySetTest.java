@@ -0,0 +1,75 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.regex.*;
+
+public class QuerySetTest {
+	private static final String text="<html><body>\n"
+		+"<div id=\"main\" class=\"list  box\"><p class=\"box box\">x</p><a href=\"/a\" Class=\"Box\">a</a><o:p>y</o:p><o:q>z</o:q></div>\n"
+		+"<form action=\"/Search\"><input name=\"q\" type=text><input type=\"TEXT\" class=\"box\"></form>\n"
+		+"<% server %><div class=\"a.b\">w</div><p>unclosed\n"
+		+"</body></html>";
+
+	@Test public void testSameResultsAsSegmentMethods() {
+		Source source=new Source(text);
+		source.fullSequentialParse();
+		QuerySet querySet=new QuerySet();
+		assertEquals(0,querySet.addStartTags("div"));
+		assertEquals(1,querySet.addStartTags("P"));
+		assertEquals(2,querySet.addStartTags("o:"));
+		assertEquals(3,querySet.addStartTags("%"));
+		assertEquals(4,querySet.addStartTags("type","text",false));
+		assertEquals(5,querySet.addStartTags("type","text",true));
+		assertEquals(6,querySet.addStartTags("href",null));
+		assertEquals(7,querySet.addStartTags("action",Pattern.compile("/s.*",Pattern.CASE_INSENSITIVE)));
+		assertEquals(8,querySet.addStartTagsByClass("box"));
+		assertEquals(9,querySet.addStartTagsByClass("a.b"));
+		assertEquals(10,querySet.addStartTags("div"));
+		assertEquals(11,querySet.addStartTags("table"));
+		assertEquals(12,querySet.size());
+		for (Segment segment : getSegments(source)) {
+			List<List<StartTag>> results=querySet.getAllStartTags(segment);
+			assertEquals(12,results.size());
+			assertEquals(segment.getAllStartTags("div"),results.get(0));
+			assertEquals(segment.getAllStartTags("p"),results.get(1));
+			assertEquals(segment.getAllStartTags("o:"),results.get(2));
+			assertEquals(segment.getAllStartTags("%"),results.get(3));
+			assertEquals(segment.getAllStartTags("type","text",false),results.get(4));
+			assertEquals(segment.getAllStartTags("type","text",true),results.get(5));
+			assertEquals(segment.getAllStartTags("href",null),results.get(6));
+			assertEquals(segment.getAllStartTags("action",Pattern.compile("/s.*",Pattern.CASE_INSENSITIVE)),results.get(7));
+			assertEquals(segment.getAllStartTagsByClass("box"),results.get(8));
+			assertEquals(segment.getAllStartTagsByClass("a.b"),results.get(9));
+			assertEquals(results.get(0),results.get(10));
+			assertTrue(results.get(11).isEmpty());
+			List<List<Element>> elementResults=querySet.getAllElements(segment);
+			assertEquals(segment.getAllElements("div"),elementResults.get(0));
+			assertEquals(segment.getAllElements("p"),elementResults.get(1));
+			assertEquals(segment.getAllElementsByClass("box"),elementResults.get(8));
+		}
+		assertEquals(3,querySet.getAllStartTags(source).get(8).size()); // class names are case sensitive and the repeated class name only matches once
+	}
+
+	@Test public void testWithoutFullSequentialParse() {
+		Source source=new Source(text);
+		Element form=source.getFirstElement(HTMLElementName.FORM);
+		QuerySet querySet=new QuerySet();
+		querySet.addStartTags("input");
+		querySet.addStartTags("name","q",true);
+		List<List<StartTag>> results=querySet.getAllStartTags(form);
+		assertEquals(2,results.get(0).size());
+		assertEquals(1,results.get(1).size());
+		assertEquals(0,new QuerySet().getAllStartTags(source).size());
+	}
+
+	private static List<Segment> getSegments(Source source) {
+		List<Segment> segments=new ArrayList<Segment>();
+		segments.add(source);
+		segments.addAll(source.getAllElements());
+		segments.add(new Segment(source,10,text.length()-20));
+		return segments;
+	}
+}
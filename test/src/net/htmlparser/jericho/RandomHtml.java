@@ -0,0 +1,48 @@
+package net.htmlparser.jericho;
+
+import java.util.*;
+
+/**
+ * Generates random documents for the tests that compare the results of two different ways of parsing the same text.
+ */
+final class RandomHtml {
+	private static final String[] ELEMENT_NAMES={"p","li","ul","td","tr","table","option","select","a","div","span","dd","dl","html","body","head","b","x:y","o:","br","img","textarea"};
+
+	/**
+	 * Fragments of badly formed element hierarchies, containing start, end and empty-element tags of elements with optional, required and forbidden end tags,
+	 * with the occasional comment or server tag and unterminated tag.
+	 */
+	static final String[] ELEMENT_FRAGMENTS=getElementFragments(ELEMENT_NAMES);
+
+	/**
+	 * Fragments of badly formed markup, including unterminated tags, comments, server tags and attribute values,
+	 * and script elements containing text that looks like tags.
+	 */
+	static final String[] MARKUP_FRAGMENTS={
+		"<p>","</p>","<div class=\"a\" id='b'>","</div>","text ","&amp; ","<br />","<script>","</script>","<script src=\"x\"/>","if (a<b) x='</p>';",
+		"<!-- c -->","<!--","-->","<% x %>","<%","%>","<![CDATA[ <p> ]]>","<?php echo '<p>'; ?>","<!DOCTYPE html>","<","<a",">","\"","'","<i title=\"",
+		"</","<a href=x>","\n"
+	};
+
+	private RandomHtml() {}
+
+	static String generate(final Random random, final String[] fragments, final int fragmentCount) {
+		final StringBuilder sb=new StringBuilder();
+		for (int i=0; i<fragmentCount; i++) sb.append(fragments[random.nextInt(fragments.length)]);
+		return sb.toString();
+	}
+
+	private static String[] getElementFragments(final String[] names) {
+		// for each name: four start tags, one empty-element tag, three end tags, and either a comment or a server tag, and some text
+		final List<String> fragments=new ArrayList<String>();
+		for (int i=0; i<names.length; i++) {
+			final String name=names[i];
+			for (int x=0; x<4; x++) fragments.add('<'+name+'>');
+			fragments.add('<'+name+"/>");
+			for (int x=0; x<3; x++) fragments.add("</"+name+'>');
+			fragments.add(i%2==0 ? "<!-- c <div> -->" : "<% s %>");
+			fragments.add("text < ");
+		}
+		return fragments.toArray(new String[fragments.size()]);
+	}
+}
@@ -0,0 +1,109 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class SelectorTest {
+	private static final String text="<html><body>\n"
+		+"<div id=\"main\" class=\"products list\">\n"
+		+" <h2>Title</h2><!-- comment --><p class=\"intro\">intro</p><p>second</p>\n"
+		+" <div class=\"product\"><a href=\"/a\" title=\"First item\">A</a><span lang=\"en-US\">x</span></div>\n"
+		+" <div class=\"product sale\"><a href=\"/b.pdf\">B</a><a name=\"anchor\">C</a></div>\n"
+		+" <ul><li>1</li><li>2</li><li>3</li><li>4</li><li>5</li></ul>\n"
+		+"</div>\n"
+		+"<a href=\"http://example.com/\" data-X=\"a&amp;b\">D</a>\n"
+		+"</body></html>";
+
+	@Test public void testSimpleSelectors() {
+		Source source=new Source(text);
+		assertEquals("[A, B, C, D]",getContents(source.select("a")));
+		assertEquals("[A, B, D]",getContents(source.select("a[href]")));
+		assertEquals("div",source.selectFirst("#main").getName());
+		assertEquals(2,source.select(".product").size());
+		assertEquals("[B, C]",getContents(source.select("div.product.sale a")));
+		assertEquals("[B]",getContents(source.select("a[href$=\".pdf\"]")));
+		assertEquals("[D]",getContents(source.select("a[href^='http:']")));
+		assertEquals("[A]",getContents(source.select("[title*=item]")));
+		assertEquals("[A]",getContents(source.select("[title~=First]")));
+		assertEquals("[x]",getContents(source.select("span[lang|=en]")));
+		assertEquals("[D]",getContents(source.select("[DATA-x=\"a&b\"]")));
+		assertEquals(1,source.select("DIV#main.list").size());
+		assertTrue(source.select("#main.missing").isEmpty());
+		assertEquals(source.getAllElements(HTMLElementName.LI).size()+source.getAllElements(HTMLElementName.UL).size(),source.select("ul, li").size());
+		int normalElementCount=0;
+		for (Element element : source.getAllElements()) if (element.getStartTag().getStartTagType()==StartTagType.NORMAL) normalElementCount++;
+		assertEquals(normalElementCount,source.select("*").size()); // the comment is not included
+	}
+
+	@Test public void testCombinators() {
+		Source source=new Source(text);
+		assertEquals("[A, B, C]",getContents(source.select("div.product > a")));
+		assertEquals("[A, B, C]",getContents(source.select("#main a")));
+		assertTrue(source.select("#main > a").isEmpty());
+		assertEquals("[intro]",getContents(source.select("h2 + p"))); // the comment is not an element sibling
+		assertEquals("[intro, second]",getContents(source.select("h2 ~ p")));
+		assertEquals("[second]",getContents(source.select("p.intro+p")));
+		assertEquals("[C]",getContents(source.select("a + a")));
+		assertEquals("[D]",getContents(source.select("body > a")));
+		assertEquals("[A, B, C]",getContents(source.select("html div a[href], div > a[name]")));
+	}
+
+	@Test public void testNthChild() {
+		Source source=new Source(text);
+		assertEquals("[1, 3, 5]",getContents(source.select("li:nth-child(odd)")));
+		assertEquals("[2, 4]",getContents(source.select("li:nth-child(2n)")));
+		assertEquals("[1, 2, 3]",getContents(source.select("li:nth-child(-n+3)")));
+		assertEquals("[4]",getContents(source.select("li:nth-child(4)")));
+		assertEquals("[3, 4, 5]",getContents(source.select("li:nth-child(n + 3)")));
+		assertEquals("[1]",getContents(source.select("li:first-child")));
+		assertEquals("[5]",getContents(source.select("li:last-child")));
+		assertEquals("[4]",getContents(source.select("li:nth-last-child(2)")));
+		assertEquals("[intro]",getContents(source.select("#main > p:nth-child(2)"))); // h2 is the first child, the comment is not counted
+	}
+
+	@Test public void testSegmentScope() {
+		Source source=new Source(text);
+		source.fullSequentialParse(); // required for the element hierarchy when selecting from a segment
+		Element product=source.getFirstElementByClass("sale");
+		assertEquals("[B, C]",getContents(product.select("a")));
+		assertEquals("[B, C]",getContents(product.select("#main a"))); // the ancestor can be outside the segment
+		assertSame(product,product.selectFirst("div"));
+		assertEquals("C",product.selectFirst("a[name]").getContent().toString());
+		assertNull(product.selectFirst("li"));
+		assertTrue(Selector.compile("div.sale").matches(product));
+		assertFalse(Selector.compile("div > div.sale").matches(product.getParentElement()));
+	}
+
+	@Test public void testCompile() {
+		assertSame(Selector.compile("div > a"),Selector.compile("div > a"));
+		assertEquals("div > a",Selector.compile("div > a").toString());
+		String[] invalidSelectors={"","div >","a[href","a[href=]","a:hover","li:nth-child(x)","div,,a","a[href!=x]"};
+		for (String invalidSelector : invalidSelectors) {
+			try {
+				Selector.compile(invalidSelector);
+				fail("Should throw IllegalArgumentException for selector \""+invalidSelector+'"');
+			} catch (IllegalArgumentException ex) {}
+		}
+	}
+
+	@Test public void testWithIndexes() {
+		Source source=new Source(text);
+		Config.UseAttributeIndex=true;
+		try {
+			source.fullSequentialParse();
+		} finally {
+			Config.UseAttributeIndex=false;
+		}
+		Source expectedSource=new Source(text);
+		String[] selectors={"a","#main a","div.product > a","li:nth-child(odd)",".sale a + a","p.intro"};
+		for (String selector : selectors) assertEquals(expectedSource.select(selector).toString(),source.select(selector).toString());
+	}
+
+	private static String getContents(List<Element> elements) {
+		List<String> contents=new ArrayList<String>();
+		for (Element element : elements) contents.add(element.getContent().toString());
+		return contents.toString();
+	}
+}
@@ -6,8 +6,11 @@ import static org.junit.Assert.*;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.BufferOverflowException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
 
 public class StreamedSourceTest {
 	private static final String sourceUrlString="file:test/data/StreamedSourceTest.html";
@@ -326,6 +329,311 @@ public class StreamedSourceTest {
 		}
 	}
 
+	@Test public void testTruncatedDocuments() throws Exception {
+		// the tags found in a document that ends in the middle of its markup should be the same as those found by a full sequential parse.
+		String text="<p class='a' id=\"b\">x &amp; y</p><!-- c --><br/>&#169;&#x41;<![CDATA[ z ]]><div title=t>&nbsp;</div></p>";
+		for (int end=0; end<=text.length(); end++) {
+			String truncatedText=text.substring(0,end);
+			List<Tag> expectedTags=new Source(truncatedText).getAllTags();
+			List<Tag> tags=new ArrayList<Tag>();
+			StreamedSource streamedSource=new StreamedSource(new StringReader(truncatedText));
+			int segmentEnd=0;
+			for (Segment segment : streamedSource) {
+				assertEquals(truncatedText,segmentEnd,segment.getBegin());
+				segmentEnd=segment.getEnd();
+				if (segment instanceof Tag) tags.add((Tag)segment);
+			}
+			assertEquals(truncatedText,end,segmentEnd);
+			assertEquals(truncatedText,expectedTags.size(),tags.size());
+			for (int i=0; i<tags.size(); i++) {
+				assertEquals(truncatedText,expectedTags.get(i).getBegin(),tags.get(i).getBegin());
+				assertEquals(truncatedText,expectedTags.get(i).getEnd(),tags.get(i).getEnd());
+			}
+		}
+	}
+
+	@Test public void testByteChannel() throws Exception {
+		// the segments decoded from a channel or byte buffer should be the same as those decoded by an InputStreamReader
+		String text="<p title='caf\u00e9'>x &amp; \u00fc\u20ac\ud83d\ude00 y</p><!-- \u00e9 --><br/>&#169;\u0080<div>\u00ff</div>";
+		for (String charsetName : new String[] {"UTF-8","ISO-8859-1","US-ASCII","UTF-16"}) {
+			Charset charset=Charset.forName(charsetName);
+			byte[] textBytes=text.getBytes(charset);
+			byte[] bytes=new byte[textBytes.length+3];
+			System.arraycopy(textBytes,0,bytes,0,textBytes.length);
+			bytes[textBytes.length]=(byte)0xC3; // malformed or unmappable bytes at the end of the input
+			bytes[textBytes.length+1]=(byte)0x80;
+			bytes[textBytes.length+2]=(byte)0xE2;
+			List<String> expectedSegments=getSegmentStrings(new StreamedSource(new InputStreamReader(new ByteArrayInputStream(bytes),charset)));
+			for (int maxReadSize=1; maxReadSize<=9; maxReadSize+=4) {
+				StreamedSource streamedSource=new StreamedSource(new LimitedByteChannel(bytes,maxReadSize),charset);
+				assertEquals(charsetName,streamedSource.getEncoding());
+				assertEquals(charsetName+" "+maxReadSize,expectedSegments,getSegmentStrings(streamedSource));
+			}
+			ByteBuffer byteBuffer=ByteBuffer.allocateDirect(bytes.length+2);
+			byteBuffer.put(new byte[] {'x','x'}).put(bytes).position(2);
+			assertEquals(charsetName,expectedSegments,getSegmentStrings(new StreamedSource(byteBuffer,charset)));
+			assertEquals(2,byteBuffer.position());
+			assertEquals(charsetName,expectedSegments,getSegmentStrings(new StreamedSource(ByteBuffer.wrap(bytes),charset)));
+		}
+	}
+
+	@Test public void testPushMode() throws Exception {
+		// the segments parsed from text fed in chunks of any size should be the same as those parsed from a reader
+		String text=new Source(new URL(sourceUrlString)).toString()+"<script>if (a<b) x='</p>';</script>&amp&#x41;<% y %><!-- \u00e9 \ud83d\ude00 -->\u20ac<p title='\u00fc";
+		List<String> expectedSegments=getSegmentStrings(new StreamedSource(new StringReader(text)).setCoalescing(true));
+		char[] chars=text.toCharArray();
+		for (int chunkSize : new int[] {1,2,7,100,5000,text.length()}) {
+			StreamedSource streamedSource=new StreamedSource().setCoalescing(true);
+			assertNull(streamedSource.getEncoding());
+			Iterator<Segment> iterator=streamedSource.iterator();
+			assertFalse(iterator.hasNext());
+			assertTrue(streamedSource.isInputRequired());
+			List<String> segmentStrings=new ArrayList<String>();
+			for (int offset=0; offset<chars.length; offset+=chunkSize) {
+				streamedSource.feed(chars,offset,Math.min(chunkSize,chars.length-offset));
+				while (iterator.hasNext()) segmentStrings.add(iterator.next().toString());
+				assertTrue(streamedSource.isInputRequired());
+			}
+			streamedSource.setEndOfInput();
+			while (iterator.hasNext()) segmentStrings.add(iterator.next().toString());
+			assertFalse(streamedSource.isInputRequired());
+			assertEquals("chunk size "+chunkSize,expectedSegments,segmentStrings);
+		}
+		Charset charset=Charset.forName("UTF-8");
+		byte[] bytes=text.getBytes(charset);
+		for (int chunkSize : new int[] {1,3,1000}) {
+			StreamedSource streamedSource=new StreamedSource(charset).setCoalescing(true);
+			assertEquals("UTF-8",streamedSource.getEncoding());
+			Iterator<Segment> iterator=streamedSource.iterator();
+			List<String> segmentStrings=new ArrayList<String>();
+			for (int offset=0; offset<bytes.length; offset+=chunkSize) {
+				ByteBuffer byteBuffer=ByteBuffer.wrap(bytes,offset,Math.min(chunkSize,bytes.length-offset));
+				streamedSource.feed(byteBuffer);
+				assertFalse(byteBuffer.hasRemaining());
+				while (iterator.hasNext()) segmentStrings.add(iterator.next().toString());
+			}
+			streamedSource.setEndOfInput();
+			while (iterator.hasNext()) segmentStrings.add(iterator.next().toString());
+			assertFalse(streamedSource.isInputRequired());
+			assertEquals("byte chunk size "+chunkSize,expectedSegments,segmentStrings);
+		}
+		try {
+			new StreamedSource(text).feed(chars,0,1);
+			fail("Should throw IllegalStateException");
+		} catch (IllegalStateException ex) {}
+		try {
+			new StreamedSource().feed(ByteBuffer.wrap(bytes));
+			fail("Should throw IllegalStateException");
+		} catch (IllegalStateException ex) {}
+	}
+
+	@Test public void testPushModeFirstSegment() throws Exception {
+		// determining whether the document is XML from the first segment can require more input than the segment itself
+		String[] texts={"<%x%>","<!ELEMENT x><p>","ab<% x %> <p>","<?php x ?> <p>","<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0//EN\"><br>x","<?xml version=\"1.0\"?><a/>"};
+		for (String text : texts) {
+			StreamedSource expectedStreamedSource=new StreamedSource(new StringReader(text)).setCoalescing(true);
+			List<String> expectedSegments=new ArrayList<String>();
+			for (Segment segment : expectedStreamedSource) expectedSegments.add(getSegmentDescription(segment));
+			char[] chars=text.toCharArray();
+			for (int chunkSize=1; chunkSize<=chars.length+1; chunkSize++) {
+				StreamedSource streamedSource=new StreamedSource().setCoalescing(true);
+				Iterator<Segment> iterator=streamedSource.iterator();
+				List<String> segmentStrings=new ArrayList<String>();
+				for (int offset=0; offset<chars.length; offset+=chunkSize) {
+					streamedSource.feed(chars,offset,Math.min(chunkSize,chars.length-offset));
+					if (chunkSize<=chars.length) { // the last chunk size feeds the whole text without iterating until the end of input is set
+						while (iterator.hasNext()) segmentStrings.add(getSegmentDescription(iterator.next()));
+					}
+				}
+				streamedSource.setEndOfInput();
+				while (iterator.hasNext()) segmentStrings.add(getSegmentDescription(iterator.next()));
+				assertEquals(text+" chunk size "+chunkSize,expectedSegments,segmentStrings);
+				assertEquals(text+" chunk size "+chunkSize,expectedStreamedSource.isXML(),streamedSource.isXML());
+			}
+		}
+	}
+
+	@Test public void testBufferPool() throws Exception {
+		BufferPool originalBufferPool=Config.StreamedSourceBufferPool;
+		try {
+			Config.StreamedSourceBufferPool=new ThreadLocalBufferPool(1000000,2);
+			List<String> expectedSegments=getSegmentStrings(new StreamedSource(new URL(sourceUrlString)).setCoalescing(true));
+			assertEquals(32768,Config.StreamedSourceBufferPool.borrow(20000).length); // the expanded buffer was returned to the pool
+			StreamedSource streamedSource=new StreamedSource(new URL(sourceUrlString));
+			assertEquals(8192,streamedSource.getBufferSize()); // reuses the initial buffer released by the previous StreamedSource when it was expanded
+			assertEquals(expectedSegments,getSegmentStrings(streamedSource.setCoalescing(true)));
+			assertEquals(0,streamedSource.getBufferSize()); // buffer released by close()
+			streamedSource.close(); // closing again has no effect
+		} finally {
+			Config.StreamedSourceBufferPool=originalBufferPool;
+		}
+		BufferPool bufferPool=new SharedBufferPool(1000,1);
+		char[] buffer128=new char[128];
+		bufferPool.release(buffer128);
+		bufferPool.release(new char[128]); // size class already full
+		bufferPool.release(new char[1024]); // too large to retain
+		assertTrue(bufferPool.borrow(129)!=buffer128);
+		assertTrue(bufferPool.borrow(100)==buffer128);
+		assertTrue(bufferPool.borrow(100)!=buffer128);
+		assertEquals(1024,bufferPool.borrow(1024).length);
+		bufferPool.release(new char[100]); // size class 64-127 can not satisfy a request for 100
+		assertEquals(100,bufferPool.borrow(100).length);
+		assertEquals(100,bufferPool.borrow(64).length); // but can satisfy a request for 64
+	}
+
+	@Test public void testSegmentAfterClose() throws Exception {
+		// with the default buffer pool, close() only closes the stream so segments remain usable
+		StreamedSource streamedSource=new StreamedSource(new StringReader("<p class=x>hello</p>"));
+		Segment lastSegment=null;
+		for (Segment segment : streamedSource) lastSegment=segment;
+		streamedSource.close();
+		assertEquals("</p>",lastSegment.toString());
+	}
+
+	@Test public void testCursor() throws Exception {
+		// the cursor should visit the same segments as the iterator
+		String text=new Source(new URL(sourceUrlString)).toString()+"<a HREF='x&amp;y' target=_top disabled>&#169;</a>";
+		List<Segment> segments=new ArrayList<Segment>();
+		List<String> segmentStrings=new ArrayList<String>();
+		List<String> attributeValues=new ArrayList<String>();
+		for (Segment segment : new StreamedSource(new StringReader(text))) {
+			segments.add(segment);
+			segmentStrings.add(segment instanceof StartTag ? segment.toString()+' '+((StartTag)segment).isEmptyElementTag() : segment.toString());
+			if (segment instanceof StartTag && ((StartTag)segment).getAttributes()!=null) {
+				for (Attribute attribute : ((StartTag)segment).getAttributes()) attributeValues.add(attribute.hasValue() ? attribute.getValueSegment().toString()+' '+attribute.getValue() : null);
+			}
+		}
+		StreamedSource streamedSource=new StreamedSource(new StringReader(text));
+		StreamedSource.Cursor cursor=streamedSource.cursor();
+		assertEquals(StreamedSource.Cursor.START_DOCUMENT,cursor.getEventType());
+		int attributeCount=0;
+		for (int segmentIndex=0; segmentIndex<segments.size(); segmentIndex++) {
+			Segment segment=segments.get(segmentIndex);
+			assertTrue(cursor.hasNext());
+			int eventType=cursor.next();
+			assertEquals(eventType,cursor.getEventType());
+			assertEquals(segment.getBegin(),cursor.getBegin());
+			assertEquals(segment.getEnd(),cursor.getEnd());
+			String segmentString=cursor.getText().toString();
+			assertEquals(segmentString,cursor.getSegment().toString());
+			if (eventType==StreamedSource.Cursor.START_TAG) segmentString+=" "+cursor.isEmptyElementTag();
+			assertEquals(segmentStrings.get(segmentIndex),segmentString);
+			if (segment instanceof StartTag) {
+				StartTag startTag=(StartTag)segment;
+				assertEquals(StreamedSource.Cursor.START_TAG,eventType);
+				assertEquals(startTag.getName(),cursor.getName());
+				assertEquals(startTag.getTagType(),cursor.getTagType());
+				Attributes attributes=startTag.getAttributes();
+				assertEquals(attributes==null ? 0 : attributes.getCount(),cursor.getAttributeCount());
+				for (int i=0; i<cursor.getAttributeCount(); i++) {
+					Attribute attribute=attributes.get(i);
+					assertEquals(attribute.getKey(),cursor.getAttributeKey(i));
+					assertEquals(i,cursor.getAttributeIndex(attribute.getKey()));
+					assertEquals(attributeValues.get(attributeCount++),cursor.getAttributeValue(i)==null ? null : cursor.getAttributeValue(i).toString()+' '+cursor.getDecodedAttributeValue(i));
+				}
+			} else if (segment instanceof EndTag) {
+				assertEquals(StreamedSource.Cursor.END_TAG,eventType);
+				assertEquals(((EndTag)segment).getName(),cursor.getName());
+				assertEquals(0,cursor.getAttributeCount());
+			} else if (segment instanceof CharacterReference) {
+				assertEquals(StreamedSource.Cursor.CHARACTER_REFERENCE,eventType);
+				assertEquals(((CharacterReference)segment).getCodePoint(),cursor.getCodePoint());
+				assertNull(cursor.getName());
+			} else {
+				assertEquals(StreamedSource.Cursor.TEXT,eventType);
+				assertNull(cursor.getName());
+				assertNull(cursor.getTagType());
+				assertEquals(-1,cursor.getAttributeIndex("href"));
+			}
+		}
+		assertFalse(cursor.hasNext());
+		assertTrue(attributeCount>0);
+		streamedSource.close();
+		try {
+			new StreamedSource(text).cursor().getSegment();
+			fail("Should throw IllegalStateException");
+		} catch (IllegalStateException ex) {}
+		StreamedSource iteratedSource=new StreamedSource(text);
+		iteratedSource.iterator();
+		try {
+			iteratedSource.cursor();
+			fail("Should throw IllegalStateException");
+		} catch (IllegalStateException ex) {}
+	}
+
+	@Test public void testTextExtractor() throws Exception {
+		// the streamed text extractor should produce the same output as the in-memory one, regardless of how the input is chunked
+		String text=new Source(new URL(sourceUrlString)).toString();
+		byte[] bytes=text.getBytes("UTF-8");
+		for (int mode=0; mode<4; mode++) {
+			boolean includeAttributes=(mode&1)!=0;
+			boolean excludeNonHTMLElements=(mode&2)!=0;
+			String expected=new TextExtractor(new Source(text)).setIncludeAttributes(includeAttributes).setExcludeNonHTMLElements(excludeNonHTMLElements).toString();
+			for (int maxReadSize=1; maxReadSize<=4096; maxReadSize*=8) {
+				StreamedSource streamedSource=new StreamedSource(new LimitedByteChannel(bytes,maxReadSize),Charset.forName("UTF-8"));
+				StringWriter writer=new StringWriter();
+				TextExtractor textExtractor=new TextExtractor(streamedSource).setIncludeAttributes(includeAttributes).setExcludeNonHTMLElements(excludeNonHTMLElements);
+				assertEquals(-1,textExtractor.getEstimatedMaximumOutputLength());
+				textExtractor.writeTo(writer);
+				assertEquals(mode+" "+maxReadSize,expected,writer.toString());
+			}
+		}
+		// excluded elements are tracked by nesting, and elements with optional end tags are implicitly terminated
+		String html="<div class='x'>a<div>b</div>c</div> <b>d</b>&nbsp;&amp;<ul><li class='x'>e<li>f</ul><p>g<script>h</script>i<style>k</style>j</p>";
+		TextExtractor textExtractor=new TextExtractor(new StreamedSource(html)) {
+			public boolean excludeElement(StartTag startTag) {
+				return "x".equals(startTag.getAttributeValue("class"));
+			}
+		};
+		assertEquals("d & f gij",textExtractor.setConvertNonBreakingSpaces(true).toString());
+		// character references are decoded before the text around removed tags is joined
+		for (String document : new String[] {"x &lt<b></b>a","x &lt<script>s</script>a","x &lt<style>s</style>a"}) {
+			assertEquals(document,"x &lta",new TextExtractor(new Source(document)).toString());
+			assertEquals(document,"x <a",new TextExtractor(new StreamedSource(document)).toString());
+		}
+	}
+
+	private static String getSegmentDescription(Segment segment) {
+		return segment.getClass().getSimpleName()+' '+segment;
+	}
+
+	private static List<String> getSegmentStrings(StreamedSource streamedSource) throws IOException {
+		List<String> segmentStrings=new ArrayList<String>();
+		try {
+			for (Segment segment : streamedSource) segmentStrings.add(segment.toString());
+		} finally {
+			streamedSource.close();
+		}
+		return segmentStrings;
+	}
+
+	private static final class LimitedByteChannel implements ReadableByteChannel {
+		// returns at most maxReadSize bytes from each read so that multi-byte characters are split between reads
+		private final ByteBuffer byteBuffer;
+		private final int maxReadSize;
+		private boolean open=true;
+
+		public LimitedByteChannel(byte[] bytes, int maxReadSize) {
+			byteBuffer=ByteBuffer.wrap(bytes);
+			this.maxReadSize=maxReadSize;
+		}
+
+		public int read(ByteBuffer dst) {
+			if (!byteBuffer.hasRemaining()) return -1;
+			int count=Math.min(Math.min(maxReadSize,byteBuffer.remaining()),dst.remaining());
+			for (int i=0; i<count; i++) dst.put(byteBuffer.get());
+			return count;
+		}
+
+		public boolean isOpen() {
+			return open;
+		}
+
+		public void close() {
+			open=false;
+		}
+	}
+
 	@Test public void exampleFetchElementContent() throws Exception {
 		List<String> paragraphTextList=new ArrayList<String>();
 		StreamedSource streamedSource=null;
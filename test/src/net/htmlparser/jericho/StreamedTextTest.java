@@ -145,6 +145,18 @@ public class StreamedTextTest {
 		assertEquals(36,streamedText.length());
 	}
 	
+	@Test public void testHasCharAt() {
+		StreamedText streamedText=new StreamedText(new StringReader(text),new char[10]);
+		assertTrue(streamedText.hasCharAt(0));
+		assertTrue(streamedText.hasCharAt(9));
+		assertEquals(Integer.MAX_VALUE,streamedText.getEnd()); // end of stream not reached yet
+		streamedText.setMinRequiredBufferBegin(30);
+		assertTrue(streamedText.hasCharAt(35));
+		assertFalse(streamedText.hasCharAt(36));
+		assertEquals(36,streamedText.length());
+		assertFalse(streamedText.hasCharAt(100));
+	}
+
 	@Test public void testCharBuffer() {
 		char[] charArray=text.toCharArray();
 		CharBuffer charBuffer=CharBuffer.wrap(charArray,0,26);
@@ -0,0 +1,51 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class StringParseTextTest {
+	private static final String text="<HTML><Body class=Abc>Text &AMP; <P>para</p><p>PARA</P><!-- Comment --></body></html>Éİ";
+
+	@Test public void testLowerCase() {
+		StringParseText parseText=new StringParseText(text);
+		assertEquals(text.length(),parseText.length());
+		assertEquals('h',parseText.charAt(1));
+		assertEquals('É',parseText.charAt(text.length()-2)); // only ASCII characters are converted to lower case
+		assertEquals('İ',parseText.charAt(text.length()-1));
+		assertEquals(text,parseText.toString());
+		String lowerCaseText="<html><body>text</body></html>";
+		assertSame(lowerCaseText,new StringParseText(lowerCaseText).toString());
+	}
+
+	@Test public void testSameResultsAsCharSequenceParseText() {
+		StringParseText parseText=new StringParseText(text);
+		CharSequenceParseText charSequenceParseText=new CharSequenceParseText(text);
+		for (int i=0; i<text.length(); i++) assertEquals(charSequenceParseText.charAt(i),parseText.charAt(i));
+		String[] searchStrings={"<","p","<p","</p>","para","body","-->","&amp;","abc","notfound"};
+		int[] breakAtIndexes={ParseText.NO_BREAK,0,5,30,text.length()-1,text.length(),text.length()+10};
+		for (String searchString : searchStrings) {
+			for (int fromIndex=-1; fromIndex<=text.length(); fromIndex++) {
+				for (int breakAtIndex : breakAtIndexes) {
+					String message=searchString+" from "+fromIndex+" break "+breakAtIndex;
+					assertEquals(message,charSequenceParseText.indexOf(searchString,fromIndex,breakAtIndex),parseText.indexOf(searchString,fromIndex,breakAtIndex));
+					assertEquals(message,charSequenceParseText.indexOf(searchString.charAt(0),fromIndex,breakAtIndex),parseText.indexOf(searchString.charAt(0),fromIndex,breakAtIndex));
+					if (fromIndex>=text.length()) continue; // CharSequenceParseText throws IndexOutOfBoundsException
+					assertEquals(message,charSequenceParseText.lastIndexOf(searchString,fromIndex,breakAtIndex),parseText.lastIndexOf(searchString,fromIndex,breakAtIndex));
+					assertEquals(message,charSequenceParseText.lastIndexOf(searchString.charAt(0),fromIndex,breakAtIndex),parseText.lastIndexOf(searchString.charAt(0),fromIndex,breakAtIndex));
+				}
+				if (fromIndex>=0 && fromIndex+searchString.length()<=text.length())
+					assertEquals(charSequenceParseText.containsAt(searchString,fromIndex),parseText.containsAt(searchString,fromIndex));
+			}
+		}
+	}
+
+	@Test public void testContainsAtEndOfText() {
+		StringParseText parseText=new StringParseText("<p>ab");
+		assertTrue(parseText.containsAt("ab",3));
+		assertFalse(parseText.containsAt("xyz",3));
+		try {
+			parseText.containsAt("abc",3);
+			fail("Should throw IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException ex) {}
+	}
+}
@@ -0,0 +1,51 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class StructuralIndexTest {
+	private static final String text="<html>\r\n<body>a &amp; b\rc &lt; d\n<p>x<y</p>&#160;<script>if (a<b && c) x();</script>\n\n&nbsp;</body></html>";
+
+	@Test public void testSameResultsAsParseText() {
+		Source source=new Source(text+text+text);
+		ParseText parseText=source.getParseText();
+		StructuralIndex structuralIndex=StructuralIndex.build(source);
+		int[] breakAtIndexes={ParseText.NO_BREAK,0,10,64,65,128,source.length(),source.length()+10};
+		for (int pos=-1; pos<=source.length(); pos++) {
+			for (int breakAtIndex : breakAtIndexes) {
+				assertEquals(parseText.indexOf('<',pos,breakAtIndex),structuralIndex.getNextTagBegin(pos,breakAtIndex));
+				assertEquals(parseText.indexOf('&',pos,breakAtIndex),structuralIndex.getNextCharacterReferenceBegin(pos,breakAtIndex));
+			}
+			if (pos<source.length()) assertEquals(parseText.lastIndexOf('&',pos),structuralIndex.getPreviousCharacterReferenceBegin(pos));
+		}
+	}
+
+	@Test public void testIgnoredSegments() {
+		Source source=new Source(text);
+		Element script=source.getFirstElement(HTMLElementName.SCRIPT);
+		script.getContent().ignoreWhenParsing();
+		StructuralIndex structuralIndex=StructuralIndex.build(source);
+		assertEquals(-1,structuralIndex.getNextTagBegin(script.getContent().getBegin(),script.getContent().getEnd()));
+		assertEquals(-1,structuralIndex.getNextCharacterReferenceBegin(script.getContent().getBegin(),script.getContent().getEnd()));
+		assertEquals(script.getEndTag().getBegin(),structuralIndex.getNextTagBegin(script.getContent().getBegin(),ParseText.NO_BREAK));
+	}
+
+	@Test public void testRowColumnVectors() {
+		Source source=new Source(text);
+		int row=1;
+		int column=1;
+		for (int pos=0; pos<source.length(); pos++) {
+			RowColumnVector rowColumnVector=source.getRowColumnVector(pos);
+			assertEquals("row at "+pos,row,rowColumnVector.getRow());
+			assertEquals("column at "+pos,column,rowColumnVector.getColumn());
+			char ch=text.charAt(pos);
+			if (ch=='\n' || (ch=='\r' && text.charAt(pos+1)!='\n')) {
+				row++;
+				column=1;
+			} else {
+				column++;
+			}
+		}
+		assertArrayEquals(RowColumnVector.getRowBegins(source),StructuralIndex.build(source).getRowBegins());
+	}
+}
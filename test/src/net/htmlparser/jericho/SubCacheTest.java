@@ -0,0 +1,47 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class SubCacheTest {
+	// only complete tags, as tags found by parse on demand lookups can differ from those of a full sequential parse if the document contains unterminated tags
+	private static final String[] PARTS={"<div>","</div>","<p class=x>","</p>","<!-- c <b> -->","text ","<script>a<b</script>","<br/>","< x","<a href='y'>","</a>","&amp;","<?php x ?>","<![CDATA[ <i> ]]>","\n"};
+
+	@Test public void testRandomLookups() {
+		// parse on demand lookups at random positions must return the same tags as a fully parsed source
+		for (int seed=0; seed<100; seed++) {
+			final Random random=new Random(seed);
+			final String text=RandomHtml.generate(random,PARTS,30+random.nextInt(450));
+			final Source expected=new Source(text);
+			expected.fullSequentialParse();
+			final Source source=new Source(text);
+			for (int i=0; i<400; i++) {
+				final int pos=random.nextInt(text.length()+2)-1;
+				final String message="seed "+seed+" lookup "+i+" pos "+pos;
+				switch (random.nextInt(6)) {
+					case 0: assertEquals(message,toString(expected.getNextTag(pos)),toString(source.getNextTag(pos))); break;
+					case 1: assertEquals(message,toString(expected.getPreviousTag(pos)),toString(source.getPreviousTag(pos))); break;
+					case 2: assertEquals(message,toString(expected.getEnclosingTag(pos)),toString(source.getEnclosingTag(pos))); break;
+					case 3: assertEquals(message,toString(expected.getNextStartTag(pos)),toString(source.getNextStartTag(pos))); break;
+					case 4: assertEquals(message,toString(expected.getPreviousEndTag(pos)),toString(source.getPreviousEndTag(pos))); break;
+					default: assertEquals(message,toString(expected.getNextTag(pos,StartTagType.COMMENT)),toString(source.getNextTag(pos,StartTagType.COMMENT)));
+				}
+			}
+		}
+	}
+
+	@Test public void testFullSequentialParseAfterLookups() {
+		final Random random=new Random(1);
+		final String text=RandomHtml.generate(random,PARTS,750);
+		final List<Tag> expected=Arrays.asList(new Source(text).fullSequentialParse());
+		final Source source=new Source(text);
+		for (int i=0; i<200; i++) source.getNextTag(random.nextInt(text.length()));
+		assertEquals(expected.toString(),Arrays.asList(source.fullSequentialParse()).toString());
+	}
+
+	private static String toString(final Tag tag) {
+		return tag==null ? "null" : tag.getBegin()+"-"+tag.getEnd()+" "+tag.getTagType();
+	}
+}
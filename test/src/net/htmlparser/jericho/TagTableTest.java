@@ -0,0 +1,179 @@
+package net.htmlparser.jericho;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class TagTableTest {
+	private static final String text="<!DOCTYPE html>\n<html><head><script>var a=b<c; document.write('<div>');</script></head>\n"
+		+"<body><div id=\"d1\" class=\"x\"><p>text &amp; <b>bold</b> < notatag <br/></p><!-- <p>comment</p> --></div>\n"
+		+"<% server %><ul><li>one<li>two</ul><unknown:tag a=1>x</unknown:tag><p a=\"1\"\"b>x</p></body></html>";
+
+	@Test public void testSameTagsAsFullSequentialParse() {
+		Tag[] expectedTags=new Source(text).fullSequentialParse();
+		Source source=new Source(text);
+		TagTable tagTable=source.getTagTable();
+		assertSame(tagTable,source.getTagTable());
+		int registeredIndex=0;
+		for (int i=0; i<tagTable.size(); i++) {
+			if (tagTable.getTagType(i)==StartTagType.UNREGISTERED || tagTable.getTagType(i)==EndTagType.UNREGISTERED) continue;
+			Tag expectedTag=expectedTags[registeredIndex++];
+			assertEquals(expectedTag.getBegin(),tagTable.getBegin(i));
+			assertEquals(expectedTag.getEnd(),tagTable.getEnd(i));
+			assertSame(expectedTag.getTagType(),tagTable.getTagType(i));
+			assertEquals(expectedTag.getName(),tagTable.getName(i));
+			assertEquals(expectedTag instanceof StartTag,tagTable.isStartTag(i));
+			assertEquals(i,tagTable.indexOf(expectedTag.getBegin()));
+		}
+		assertEquals(expectedTags.length,registeredIndex);
+		assertTrue(tagTable.size()>expectedTags.length); // includes unregistered tags
+		assertEquals(-1,tagTable.indexOf(1));
+		// tags are created in any order when requested:
+		for (int i=tagTable.size()-1; i>=0; i-=2) {
+			Tag tag=tagTable.getTag(i);
+			assertEquals(tagTable.getBegin(i),tag.getBegin());
+			assertEquals(tagTable.getEnd(i),tag.getEnd());
+			assertSame(tag,tagTable.getTag(i));
+		}
+		assertEquals(Arrays.asList(expectedTags).toString(),source.getAllTags().toString());
+		Tag[] tags=source.fullSequentialParse();
+		for (int i=0; i<tags.length; i++) {
+			assertSame(tags[i],source.getAllTags().get(i));
+			assertSame(tags[i],tagTable.getTag(tagTable.indexOf(tags[i].getBegin())));
+		}
+	}
+
+	@Test public void testNamesAreConstants() {
+		TagTable tagTable=new Source(text).getTagTable();
+		int divCount=0;
+		for (int i=0; i<tagTable.size(); i++) if (tagTable.getName(i)==HTMLElementName.DIV) divCount++;
+		assertEquals(2,divCount); // the start and end tags, not the one in the script
+	}
+
+	@Test public void testSearchMethodsAfterGetTagTable() {
+		Source source=new Source(text);
+		source.getTagTable();
+		Source expectedSource=new Source(text);
+		expectedSource.fullSequentialParse();
+		for (int pos=0; pos<text.length(); pos++) {
+			assertEquals(String.valueOf(expectedSource.getNextTag(pos)),String.valueOf(source.getNextTag(pos)));
+			assertEquals(String.valueOf(expectedSource.getPreviousTag(pos)),String.valueOf(source.getPreviousTag(pos)));
+			assertEquals(String.valueOf(expectedSource.getEnclosingTag(pos)),String.valueOf(source.getEnclosingTag(pos)));
+			assertEquals(String.valueOf(expectedSource.getEnclosingTag(pos,StartTagType.COMMENT)),String.valueOf(source.getEnclosingTag(pos,StartTagType.COMMENT)));
+		}
+		assertEquals(expectedSource.getAllElements().toString(),source.getAllElements().toString());
+		Element element=source.getElementById("d1");
+		assertEquals(expectedSource.getElementById("d1").getChildElements().toString(),element.getChildElements().toString());
+		assertEquals(2,element.getDepth());
+		assertSame(element.getStartTag(),source.getTagTable().getTag(source.getTagTable().indexOf(element.getBegin())));
+	}
+
+	@Test public void testSearchByNameAfterFullSequentialParse() {
+		// the name index must give the same results as filtering all of the start tags by name
+		Source source=new Source(text);
+		source.fullSequentialParse();
+		String[] names={"p","div","li","b","html","ul","a","unknown:tag","Div"};
+		for (String name : names) {
+			List<StartTag> expectedStartTags=new ArrayList<StartTag>();
+			for (StartTag startTag : source.getAllStartTags()) {
+				if (startTag.getStartTagType()==StartTagType.NORMAL && startTag.getName().equals(name.toLowerCase())) expectedStartTags.add(startTag);
+			}
+			assertEquals(expectedStartTags,source.getAllStartTags(name));
+			for (int pos=-1; pos<=text.length(); pos++) {
+				StartTag expectedNext=null;
+				StartTag expectedPrevious=null;
+				for (StartTag startTag : expectedStartTags) {
+					if (startTag.getBegin()<=pos) expectedPrevious=startTag;
+					if (startTag.getBegin()>=pos && expectedNext==null) expectedNext=startTag;
+				}
+				assertSame(expectedNext,source.getNextStartTag(pos,name));
+				assertSame(expectedPrevious,source.getPreviousStartTag(pos,name));
+			}
+			for (Element element : source.getAllElements()) {
+				List<StartTag> expectedEnclosedStartTags=new ArrayList<StartTag>();
+				Element expectedFirstElement=null;
+				for (StartTag startTag : expectedStartTags) {
+					if (!element.encloses(startTag)) continue;
+					expectedEnclosedStartTags.add(startTag);
+					if (expectedFirstElement==null && element.encloses(startTag.getElement())) expectedFirstElement=startTag.getElement();
+				}
+				assertEquals(expectedEnclosedStartTags,element.getAllStartTags(name));
+				assertSame(expectedFirstElement,element.getFirstElement(name));
+			}
+		}
+		assertEquals(2,source.getAllStartTags("li").size());
+		assertEquals(1,source.getAllStartTags("unknown:").size()); // namespace searches are not indexed
+	}
+
+	@Test public void testOrphanedTags() {
+		Source source=new Source(text);
+		StartTag startTag=source.getNextStartTag(0);
+		source.getTagTable();
+		assertTrue(startTag.isOrphaned());
+		assertFalse(source.getNextStartTag(0).isOrphaned());
+	}
+
+	@Test public void testIssuesNotReportedAgain() {
+		final List<HtmlIssue> issues=new ArrayList<HtmlIssue>();
+		HtmlIssueProcessingHandler htmlIssueProcessingHandler=new HtmlIssueProcessingHandler() {
+			public void htmlIssue(HtmlIssue htmlIssue) {
+				issues.add(htmlIssue);
+			}
+		};
+		Source source=new Source(text);
+		source.setHtmlIssueProcessingHandler(htmlIssueProcessingHandler);
+		source.getTagTable();
+		int issueCount=issues.size();
+		assertTrue(issueCount>0);
+		source.getAllTags(); // reconstructs every tag
+		assertEquals(issueCount,issues.size());
+		assertSame(htmlIssueProcessingHandler,source.getHtmlIssueProcessingHandler());
+	}
+
+	@Test public void testReconstructedTagsMatchTable() {
+		// the attributes of a tag can contain server tags, which are found differently once the table is populated
+		assertReconstructedTagsMatchTable(new Source("<i<%<%--%><%--%>>"));
+		for (int seed=0; seed<500; seed++) {
+			Random random=new Random(seed);
+			assertReconstructedTagsMatchTable(new Source(RandomHtml.generate(random,RandomHtml.MARKUP_FRAGMENTS,1+random.nextInt(300))));
+		}
+	}
+
+	private static void assertReconstructedTagsMatchTable(Source source) {
+		TagTable tagTable=source.getTagTable();
+		for (int i=0; i<tagTable.size(); i++) {
+			Tag tag=tagTable.getTag(i);
+			assertNotNull(tag);
+			assertEquals(tagTable.getBegin(i),tag.getBegin());
+			assertEquals(tagTable.getEnd(i),tag.getEnd());
+			assertSame(tagTable.getTagType(i),tag.getTagType());
+		}
+		source.getAllElements();
+		assertFalse(source.getAllStartTags().contains(null));
+	}
+
+	@Test public void testCustomTagTypeNotReconstructed() {
+		// a custom tag type might construct a different tag depending on the context, so its tags are retained by the table
+		final boolean[] rejectAll=new boolean[1];
+		StartTagType customTagType=new StartTagTypeGenericImplementation("custom","<?custom","?>",null,false) {
+			protected Tag constructTagAt(Source source, int pos) {
+				return rejectAll[0] ? null : super.constructTagAt(source,pos);
+			}
+		};
+		customTagType.register();
+		try {
+			Source source=new Source("<p>a<?custom x?>b</p>");
+			TagTable tagTable=source.getTagTable();
+			assertTrue(tagTable.hasCustomTagTypes());
+			rejectAll[0]=true;
+			assertEquals("[<p>, <?custom x?>, </p>]",source.getAllTags().toString());
+			assertSame(customTagType,source.getAllTags().get(1).getTagType());
+			OutputDocument outputDocument=new OutputDocument(source);
+			outputDocument.replace(1,2,"c");
+			assertNotSame(customTagType,outputDocument.toSource().getAllTags().get(1).getTagType()); // parsed again rather than reusing the table
+		} finally {
+			customTagType.deregister();
+		}
+	}
+}